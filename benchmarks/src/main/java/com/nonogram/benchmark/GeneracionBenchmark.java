@@ -0,0 +1,52 @@
+package com.nonogram.benchmark;
+
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.GeneradorDePuzzles;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Generación de tableros con cada uno de los cinco algoritmos de
+// GeneradorDePuzzles.generarSolucionAleatoria, sin verificar la unicidad.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GeneracionBenchmark {
+
+    @Param({"5", "10", "20", "50", "100", "500", "1000", "2000"})
+    public int lado;
+
+    // 0 formas geométricas, 1 patrones simétricos, 2 secuencias lógicas,
+    // 3 densidad variable, 4 bordes y centro
+    @Param({"0", "1", "2", "3", "4"})
+    public int algoritmo;
+
+    private GeneradorDePuzzles generador;
+    private SplittableRandom aleatorio;
+
+    @Setup
+    public void preparar() {
+        generador = new GeneradorDePuzzles();
+        aleatorio = new SplittableRandom(Tableros.SEMILLA);
+    }
+
+    @Benchmark
+    public EstadoCelda[][] generarSolucionAleatoria() {
+        return generador.generarSolucionAleatoria(lado, algoritmo, aleatorio);
+    }
+}
@@ -0,0 +1,52 @@
+package com.nonogram.benchmark;
+
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.PistasNonograma;
+import com.nonogram.model.PuzzleGenerado;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cálculo de las pistas de filas y columnas de una solución. El modelo ya no
+// las calcula al cargar un puzzle (generarPistas sólo toma las de
+// PuzzleGenerado), así que se mide PistasNonograma.calcular, que es donde se
+// hace el trabajo, y la creación completa del puzzle.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PistasBenchmark {
+
+    @Param({"5", "10", "20", "50", "100", "500", "1000", "2000"})
+    public int lado;
+
+    private EstadoCelda[][] solucion;
+
+    @Setup
+    public void preparar() {
+        solucion = Tableros.solucion(lado);
+    }
+
+    @Benchmark
+    public PistasNonograma calcularPistas() {
+        return PistasNonograma.calcular(solucion);
+    }
+
+    @Benchmark
+    public PuzzleGenerado crearPuzzle() {
+        return PuzzleGenerado.desdeSolucion(solucion, Tableros.SEMILLA);
+    }
+}
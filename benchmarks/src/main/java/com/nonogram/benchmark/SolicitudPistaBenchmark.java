@@ -0,0 +1,68 @@
+package com.nonogram.benchmark;
+
+import com.nonogram.model.InstantaneaModelo;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.ModoPista;
+import com.nonogram.solver.PistaLogica;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Pedido de pistas sobre una partida a medias, en los dos modos.
+//
+// solicitarPista gasta una de las pistas disponibles, así que antes de cada
+// llamada se restaura la partida desde una instantánea (fuera de la medición).
+// obtenerPistaLogica no modifica la partida y mide sólo la búsqueda.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SolicitudPistaBenchmark {
+
+    @Param({"5", "10", "20", "50", "100", "500", "1000", "2000"})
+    public int lado;
+
+    @Param({"LOGICA", "ALEATORIA"})
+    public ModoPista modo;
+
+    private ModeloNonograma modelo;
+    private InstantaneaModelo inicial;
+
+    @Setup
+    public void preparar() {
+        modelo = Tableros.partida(lado, false);
+        modelo.establecerModoPista(modo);
+        inicial = modelo.obtenerInstantanea();
+    }
+
+    @Setup(Level.Invocation)
+    public void restaurar() {
+        if (modelo.obtenerPistasDisponibles() < inicial.obtenerPistasDisponibles()) {
+            modelo.restaurar(inicial);
+        }
+    }
+
+    @Benchmark
+    public boolean solicitarPista() {
+        return modelo.solicitarPista();
+    }
+
+    @Benchmark
+    public PistaLogica obtenerPistaLogica() {
+        return modelo.obtenerPistaLogica();
+    }
+}
@@ -0,0 +1,53 @@
+package com.nonogram.benchmark;
+
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.GeneradorDePuzzles;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.PuzzleGenerado;
+
+import java.util.SplittableRandom;
+
+// Tableros y partidas de prueba para los benchmarks.
+//
+// Las soluciones salen de generarSolucionAleatoria con una semilla fija, sin
+// verificar la unicidad (en tableros grandes no terminaría), así cada corrida
+// mide los mismos tableros.
+final class Tableros {
+
+    // Semilla de todos los tableros de prueba
+    static final long SEMILLA = 0x5EED_2024L;
+
+    private Tableros() {
+    }
+
+    // Genera una solución de prueba con densidad variable (el único algoritmo al azar).
+    //
+    // @param tamaño Tamaño de la grilla
+    // @return Matriz con la solución
+    static EstadoCelda[][] solucion(int tamaño) {
+        return new GeneradorDePuzzles().generarSolucionAleatoria(tamaño, 3, new SplittableRandom(SEMILLA));
+    }
+
+    // Arma una partida en curso: el jugador llenó bien una de cada dos celdas
+    // llenas de la solución y el resto sigue en el estado inicial.
+    //
+    // @param tamaño Tamaño de la grilla
+    // @param resuelta true para llenar todas las celdas llenas de la solución
+    // @return Modelo sin generación en segundo plano
+    static ModeloNonograma partida(int tamaño, boolean resuelta) {
+        ModeloNonograma modelo = new ModeloNonograma(tamaño);
+        EstadoCelda[][] solucion = solucion(tamaño);
+        modelo.jugarPuzzle(PuzzleGenerado.desdeSolucion(solucion, SEMILLA));
+        modelo.editar(editor -> {
+            int llenas = 0;
+            for (int fila = 0; fila < tamaño; fila++) {
+                for (int columna = 0; columna < tamaño; columna++) {
+                    if (solucion[fila][columna] == EstadoCelda.LLENA && (resuelta || llenas++ % 2 == 0)) {
+                        editor.establecerEstadoCelda(fila, columna, EstadoCelda.LLENA);
+                    }
+                }
+            }
+        });
+        return modelo;
+    }
+}
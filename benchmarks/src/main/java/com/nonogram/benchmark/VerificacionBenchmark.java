@@ -0,0 +1,48 @@
+package com.nonogram.benchmark;
+
+import com.nonogram.model.ModeloNonograma;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Verificación de la solución del jugador, con la partida a medias y resuelta.
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class VerificacionBenchmark {
+
+    @Param({"5", "10", "20", "50", "100", "500", "1000", "2000"})
+    public int lado;
+
+    @Param({"false", "true"})
+    public boolean resuelta;
+
+    private ModeloNonograma modelo;
+
+    @Setup
+    public void preparar() {
+        modelo = Tableros.partida(lado, resuelta);
+        if (modelo.verificarSolucion() != resuelta) {
+            throw new IllegalStateException("La partida de prueba no quedó como se esperaba");
+        }
+    }
+
+    @Benchmark
+    public boolean verificarSolucion() {
+        return modelo.verificarSolucion();
+    }
+}
@@ -1,16 +1,39 @@
 package com.nonogram;
 
+import com.nonogram.consola.AplicacionConsola;
+import com.nonogram.controlador.ComandoModelo;
 import com.nonogram.controlador.ControladorNonograma;
+import com.nonogram.model.GeneradorDePuzzles;
 import com.nonogram.model.ModeloNonograma;
 import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PoolDePuzzles;
+import com.nonogram.persistencia.ArchivoPartida;
+import com.nonogram.persistencia.AutoguardadoPartida;
+import com.nonogram.persistencia.CatalogoPuzzles;
+import com.nonogram.telemetria.TelemetriaJmx;
 import com.nonogram.vista.VistaNonograma;
 import com.nonogram.vista.VistaNonogramaWindowBuilderNuevo;
 
 import javax.swing.SwingUtilities;
 
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 public class AplicacionNonograma {
     
+    // Sin argumentos abre la ventana del juego; con argumentos corre el modo
+    // consola (ver AplicacionConsola), que no necesita pantalla.
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(AplicacionConsola.ejecutar(args, System.out));
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            System.out.println("No hay pantalla: usar el modo consola.");
+            AplicacionConsola.mostrarUso(System.out);
+            System.exit(AplicacionConsola.SALIDA_USO);
+        }
         SwingUtilities.invokeLater(() -> {
             inicializarAplicacion();
         });
@@ -19,8 +42,19 @@ public class AplicacionNonograma {
     private static void inicializarAplicacion() {
 
         
+        // Las mediciones de rendimiento quedan a la vista de jconsole o VisualVM
+        try {
+            TelemetriaJmx.registrar();
+        } catch (IllegalStateException e) {
+            // Sin JMX el juego sigue igual; la capa de telemetría (Ctrl+T) sigue andando
+        }
+        
+        // Los puzzles de cada nivel se generan en segundo plano y quedan listos para "Nuevo juego"
+        PoolDePuzzles pool = new PoolDePuzzles(new GeneradorDePuzzles());
+        pool.iniciar();
+        
         // Crear el modelo (lógica del juego) - nivel fácil por defecto
-        ModeloNonograma modelo = new ModeloNonograma(NivelDificultad.FACIL);
+        ModeloNonograma modelo = new ModeloNonograma(NivelDificultad.FACIL, pool);
         
         // Crear la vista (interfaz gráfica)
         VistaNonograma vista = new VistaNonogramaWindowBuilderNuevo();
@@ -31,10 +65,48 @@ public class AplicacionNonograma {
         // Conectar la vista con el controlador
         vista.establecerControlador(controlador);
         
-        // Iniciar un nuevo juego
-        modelo.nuevoJuego();
+        // Los niveles toman sus puzzles del catálogo local; los que no tengan, se generan
+        Path carpetaDatos = Path.of(System.getProperty("user.home"), ".nonograma");
+        try {
+            CatalogoPuzzles catalogo = CatalogoPuzzles.abrir(carpetaDatos.resolve("catalogo"));
+            modelo.establecerFuentePuzzles(catalogo);
+            controlador.establecerCatalogo(catalogo);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    catalogo.close();
+                } catch (IOException e) {
+                    // Los registros ya escritos se recuperan al volver a abrir el catálogo
+                }
+            }, "cierre-catalogo"));
+        } catch (IOException e) {
+            // Sin catálogo todos los puzzles se generan
+        }
+        
+        // Desde acá el modelo es del hilo del modelo: la partida inicial y el
+        // autoguardado se preparan con un comando, sin frenar la ventana
+        Path archivoAutoguardado = carpetaDatos.resolve("autoguardado.partida");
+        controlador.ejecutar(new ComandoModelo<Void>("inicio", enJuego -> {
+            // Retomar la partida autoguardada o, si no hay ninguna válida, iniciar un nuevo juego
+            try {
+                enJuego.restaurar(ArchivoPartida.cargar(archivoAutoguardado));
+            } catch (IOException e) {
+                enJuego.nuevoJuego();
+            }
+            
+            // Guardar la partida después de cada jugada, sin frenar la interfaz
+            try {
+                Files.createDirectories(archivoAutoguardado.getParent());
+                AutoguardadoPartida autoguardado = new AutoguardadoPartida(enJuego, archivoAutoguardado);
+                autoguardado.iniciar();
+                Runtime.getRuntime().addShutdownHook(new Thread(autoguardado::detener, "cierre-autoguardado"));
+            } catch (IOException e) {
+                // Sin carpeta para el autoguardado el juego sigue igual, sólo que no se guarda
+            }
+            return null;
+        }));
         
-        // Actualizar la visualización inicial
+        // Mostrar el puzzle con el que se creó el modelo; el de la partida
+        // inicial llega como cualquier otro cambio
         vista.actualizarVisualizacion();
         
 
@@ -0,0 +1,263 @@
+package com.nonogram.consola;
+
+import com.nonogram.model.GeneradorDePuzzles;
+import com.nonogram.model.GrillaBits;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PistasNonograma;
+import com.nonogram.model.PoolDePuzzles;
+import com.nonogram.model.PuzzleGenerado;
+import com.nonogram.solver.ResultadoSolucion;
+import com.nonogram.solver.SolucionadorNonograma;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Modo consola del juego: juega guiones, simula partidas y resuelve puzzles
+// sin AWT, así que funciona en un servidor o en integración continua.
+//
+//   jugar [--nivel N] [--semilla S] guion|-
+//   simular [--nivel N] [--partidas P] [--hilos H] [--puzzles K] [--semilla S] [--generar]
+//   resolver [--nivel N] [--semilla S]
+//   comprobar
+//
+// El código de salida es 0 si todo salió bien, 1 si falló una afirmación del
+// guion, una partida simulada no se ganó, un puzzle no tiene solución única o
+// falló una comprobación, y 2 si los argumentos o el guion son inválidos.
+public class AplicacionConsola {
+
+    public static final int SALIDA_CORRECTA = 0;
+    public static final int SALIDA_FALLA = 1;
+    public static final int SALIDA_USO = 2;
+
+    private static final long PLAZO_RESOLVER = TimeUnit.SECONDS.toNanos(30);
+
+    private AplicacionConsola() {
+    }
+
+    // Ejecuta un comando de consola.
+    //
+    // @param args Comando y sus opciones
+    // @param salida Salida de los resultados
+    // @return Código de salida
+    public static int ejecutar(String[] args, PrintStream salida) {
+        if (args.length == 0) {
+            mostrarUso(salida);
+            return SALIDA_USO;
+        }
+        try {
+            Opciones opciones = new Opciones(args);
+            switch (args[0]) {
+                case "jugar":
+                    return jugar(opciones, salida);
+                case "simular":
+                    return simular(opciones, salida);
+                case "resolver":
+                    return resolver(opciones, salida);
+                case "comprobar":
+                    return comprobar(salida);
+                default:
+                    throw new IllegalArgumentException("comando desconocido: " + args[0]);
+            }
+        } catch (IllegalArgumentException e) {
+            salida.println("Error: " + e.getMessage());
+            mostrarUso(salida);
+            return SALIDA_USO;
+        } catch (IOException e) {
+            salida.println("Error: " + e.getMessage());
+            return SALIDA_USO;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            salida.println("Interrumpido");
+            return SALIDA_FALLA;
+        }
+    }
+
+    // Escribe la ayuda de los comandos.
+    //
+    // @param salida Salida de la ayuda
+    public static void mostrarUso(PrintStream salida) {
+        salida.println("Uso:");
+        salida.println("  jugar [--nivel N] [--semilla S] guion|-");
+        salida.println("  simular [--nivel N] [--partidas P] [--hilos H] [--puzzles K] [--semilla S] [--generar]");
+        salida.println("  resolver [--nivel N] [--semilla S]");
+        salida.println("  comprobar");
+        salida.println("Niveles: " + Arrays.toString(NivelDificultad.values()));
+    }
+
+    private static int jugar(Opciones opciones, PrintStream salida) throws IOException {
+        String guion = opciones.obtenerArgumento();
+        // Un pool sin iniciar: los puzzles se generan cuando el guion los pide
+        ModeloNonograma modelo = new ModeloNonograma(opciones.obtenerNivel(NivelDificultad.FACIL),
+                new PoolDePuzzles(new GeneradorDePuzzles()));
+        if (opciones.tiene("--semilla")) {
+            modelo.nuevoJuegoDesdeSemilla(opciones.obtenerLong("--semilla", 0));
+        } else {
+            modelo.nuevoJuego();
+        }
+        InterpreteGuion interprete = new InterpreteGuion(modelo, salida);
+        int fallas;
+        if (guion.equals("-")) {
+            BufferedReader lector = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            fallas = interprete.ejecutar(lector);
+        } else {
+            try (BufferedReader lector = Files.newBufferedReader(Path.of(guion), StandardCharsets.UTF_8)) {
+                fallas = interprete.ejecutar(lector);
+            }
+        }
+        if (fallas > 0) {
+            salida.println(fallas + " afirmaciones fallaron");
+            return SALIDA_FALLA;
+        }
+        return SALIDA_CORRECTA;
+    }
+
+    private static int simular(Opciones opciones, PrintStream salida) throws InterruptedException {
+        SimuladorPartidas simulador = new SimuladorPartidas(
+                opciones.obtenerNivel(NivelDificultad.FACIL),
+                opciones.obtenerEntero("--partidas", 100_000),
+                opciones.obtenerEntero("--hilos", Runtime.getRuntime().availableProcessors()),
+                opciones.obtenerEntero("--puzzles", SimuladorPartidas.PUZZLES_POR_DEFECTO),
+                opciones.obtenerLong("--semilla", new SplittableRandom().nextLong()),
+                opciones.tiene("--generar"));
+        ResumenSimulacion resumen = simulador.ejecutar();
+        salida.println(resumen);
+        return resumen.obtenerGanadas() == resumen.obtenerPartidas() ? SALIDA_CORRECTA : SALIDA_FALLA;
+    }
+
+    private static int resolver(Opciones opciones, PrintStream salida) {
+        NivelDificultad nivel = opciones.obtenerNivel(NivelDificultad.FACIL);
+        long semilla = opciones.obtenerLong("--semilla", new SplittableRandom().nextLong());
+
+        long inicio = System.nanoTime();
+        PuzzleGenerado puzzle = new GeneradorDePuzzles().generarPuzzle(nivel, semilla);
+        long nanosGeneracion = System.nanoTime() - inicio;
+
+        PistasNonograma pistas = puzzle.obtenerPistas();
+        inicio = System.nanoTime();
+        ResultadoSolucion resultado = new SolucionadorNonograma(pistas.obtenerFilas(), pistas.obtenerColumnas(),
+                pistas.obtenerLargos(), pistas.obtenerInicios()).verificarUnicidad(PLAZO_RESOLVER);
+        long nanosSolucion = System.nanoTime() - inicio;
+
+        salida.printf(Locale.ROOT, "%s, semilla %d: generado en %.3f ms, resuelto en %.3f ms%n",
+                nivel, semilla, nanosGeneracion / 1e6, nanosSolucion / 1e6);
+        salida.println(resultado.obtenerEstadisticas());
+        boolean coincide = resultado.estaResuelto();
+        GrillaBits solucion = puzzle.obtenerGrillaSolucion();
+        for (int fila = 0; fila < puzzle.obtenerFilas() && coincide; fila++) {
+            for (int columna = 0; columna < puzzle.obtenerColumnas() && coincide; columna++) {
+                coincide = resultado.estaLlena(fila, columna) == solucion.estaLlena(fila, columna);
+            }
+        }
+        if (!resultado.esUnica() || !coincide) {
+            salida.println(resultado.seAgotoElPlazo() ? "Se agotó el plazo" : "La solución no es única o no coincide");
+            return SALIDA_FALLA;
+        }
+        salida.println("Solución única y verificada");
+        return SALIDA_CORRECTA;
+    }
+
+    // Corre las comprobaciones de regresión en una carpeta temporal, que se borra al terminar.
+    private static int comprobar(PrintStream salida) throws IOException {
+        Path carpeta = Files.createTempDirectory("nonograma-comprobar");
+        int fallas;
+        try {
+            fallas = new ComprobacionPersistencia(carpeta, salida).ejecutar();
+        } finally {
+            borrar(carpeta);
+        }
+        if (fallas > 0) {
+            salida.println(fallas + " comprobaciones fallaron");
+            return SALIDA_FALLA;
+        }
+        return SALIDA_CORRECTA;
+    }
+
+    private static void borrar(Path carpeta) throws IOException {
+        try (Stream<Path> archivos = Files.walk(carpeta)) {
+            for (Path archivo : (Iterable<Path>) archivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(archivo);
+            }
+        }
+    }
+
+    // Opciones "--nombre valor" y banderas "--nombre", más un argumento suelto.
+    private static class Opciones {
+
+        private final Map<String, String> valores = new HashMap<>();
+        private String argumento;
+
+        Opciones(String[] args) {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals("--generar")) {
+                    valores.put(args[i], "");
+                } else if (args[i].startsWith("--")) {
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("falta el valor de " + args[i]);
+                    }
+                    valores.put(args[i], args[++i]);
+                } else if (argumento == null) {
+                    argumento = args[i];
+                } else {
+                    throw new IllegalArgumentException("argumento de más: " + args[i]);
+                }
+            }
+        }
+
+        boolean tiene(String nombre) {
+            return valores.containsKey(nombre);
+        }
+
+        String obtenerArgumento() {
+            if (argumento == null) {
+                throw new IllegalArgumentException("falta el guion");
+            }
+            return argumento;
+        }
+
+        NivelDificultad obtenerNivel(NivelDificultad porDefecto) {
+            String nivel = valores.get("--nivel");
+            if (nivel == null) {
+                return porDefecto;
+            }
+            try {
+                return NivelDificultad.valueOf(nivel.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("nivel desconocido: " + nivel);
+            }
+        }
+
+        int obtenerEntero(String nombre, int porDefecto) {
+            long valor = obtenerLong(nombre, porDefecto);
+            if (valor <= 0 || valor > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(nombre + " debe ser positivo");
+            }
+            return (int) valor;
+        }
+
+        long obtenerLong(String nombre, long porDefecto) {
+            String valor = valores.get(nombre);
+            if (valor == null) {
+                return porDefecto;
+            }
+            try {
+                return Long.parseLong(valor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(nombre + " no es un número: " + valor);
+            }
+        }
+    }
+}
@@ -0,0 +1,452 @@
+package com.nonogram.consola;
+
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.GeneradorDePuzzles;
+import com.nonogram.model.GrillaBits;
+import com.nonogram.model.InstantaneaModelo;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PuzzleGenerado;
+import com.nonogram.persistencia.ArchivoPartida;
+import com.nonogram.persistencia.AutoguardadoPartida;
+import com.nonogram.persistencia.CatalogoPuzzles;
+import com.nonogram.persistencia.FormatoPartida;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.zip.CRC32C;
+
+// Comprobaciones de regresión de los archivos del juego, para el comando
+// "comprobar" de la consola (gradle check también las corre). Cada caso
+// trabaja sobre archivos de una carpeta propia y escribe "ok" o "FALLA", como
+// las afirmaciones de un guion; un caso que falla no corta los demás.
+//
+//   ida y vuelta        guardar y cargar devuelve la misma partida, cuadrada o de varias palabras por fila
+//   archivo truncado    un archivo cortado en cualquier byte no se carga
+//   registro dañado     un byte cambiado en la parte controlada por el CRC no se carga
+//   versión 1           los registros cuadrados de la versión 1, sin columnas, se siguen leyendo
+//   ranuras             se carga la ranura válida de secuencia más alta, esté donde esté
+//   reescritura         reescribir sólo las filas que cambiaron deja los mismos bytes que escribir todo
+//   autoguardado        después de una partida con el autoguardado se carga la última jugada
+//   catálogo            los puzzles agregados al catálogo siguen iguales al volver a abrirlo
+//   índice              un índice cortado, con basura o borrado se rearma desde puzzles.dat
+//   registro cortado    un registro de puzzles.dat a medio escribir o dañado se descarta
+//
+// Las partidas salen de semillas fijas, así que cada corrida prueba lo mismo.
+public class ComprobacionPersistencia {
+
+    private static final int LARGO_ENTRADA_INDICE = 24; // Ver CatalogoPuzzles
+
+    private final Path carpeta;
+    private final PrintStream salida;
+    private int fallas;
+
+    // Un caso de comprobación; falla con una excepción.
+    private interface Caso {
+        void comprobar() throws Exception;
+    }
+
+    // Constructor de las comprobaciones.
+    //
+    // @param carpeta Carpeta vacía donde se escriben los archivos de prueba
+    // @param salida Salida del resultado de cada caso
+    public ComprobacionPersistencia(Path carpeta, PrintStream salida) {
+        this.carpeta = carpeta;
+        this.salida = salida;
+    }
+
+    // Corre todos los casos.
+    //
+    // @return Cantidad de casos que fallaron
+    public int ejecutar() {
+        correr("ida y vuelta", this::comprobarIdaYVuelta);
+        correr("archivo truncado", this::comprobarArchivoTruncado);
+        correr("registro dañado", this::comprobarRegistroDañado);
+        correr("versión 1", this::comprobarVersionCuadrada);
+        correr("ranuras", this::comprobarRanuras);
+        correr("reescritura", this::comprobarReescrituraPorFilas);
+        correr("autoguardado", this::comprobarAutoguardado);
+        correr("catálogo", this::comprobarCatalogo);
+        correr("índice", this::comprobarIndiceReconstruido);
+        correr("registro cortado", this::comprobarRegistroCortado);
+        return fallas;
+    }
+
+    private void correr(String nombre, Caso caso) {
+        try {
+            caso.comprobar();
+            salida.println("ok " + nombre);
+        } catch (Exception e) {
+            fallas++;
+            salida.println("FALLA " + nombre + ": " + e.getMessage());
+        }
+    }
+
+    private void comprobarIdaYVuelta() throws IOException {
+        ModeloNonograma[] modelos = { modeloDeNivel(NivelDificultad.MEDIO, 11), modeloLibre(7, 70) };
+        for (ModeloNonograma modelo : modelos) {
+            jugarAlAzar(modelo, 40, 1);
+            InstantaneaModelo partida = modelo.obtenerInstantanea();
+            Path archivo = carpeta.resolve("ida-y-vuelta.partida");
+            ArchivoPartida.guardar(partida, archivo);
+            afirmarIguales(partida, ArchivoPartida.cargar(archivo), "al cargar");
+            modelo.reiniciarJuego();
+            modelo.restaurar(ArchivoPartida.cargar(archivo));
+            afirmarIguales(partida, modelo.obtenerInstantanea(), "al restaurar");
+        }
+    }
+
+    private void comprobarArchivoTruncado() throws IOException {
+        byte[] completo = registro(jugada(modeloLibre(7, 70), 2), 1).array();
+        Path archivo = carpeta.resolve("truncado.partida");
+        for (int largo = 0; largo < completo.length; largo++) {
+            Files.write(archivo, Arrays.copyOf(completo, largo));
+            afirmarQueNoCarga(archivo, "cortado en " + largo + " de " + completo.length + " bytes");
+        }
+    }
+
+    private void comprobarRegistroDañado() throws IOException {
+        byte[] completo = registro(jugada(modeloDeNivel(NivelDificultad.MEDIO, 12), 3), 1).array();
+        Path archivo = carpeta.resolve("corrupto.partida");
+        for (int posicion = 0; posicion < completo.length; posicion++) {
+            // Los reservados y la secuencia (bytes 6 a 15) no los controla el CRC
+            if (posicion >= 6 && posicion < 16) {
+                continue;
+            }
+            byte[] dañado = completo.clone();
+            dañado[posicion] ^= 0x5A;
+            Files.write(archivo, dañado);
+            afirmarQueNoCarga(archivo, "con el byte " + posicion + " cambiado");
+        }
+    }
+
+    private void comprobarVersionCuadrada() throws IOException {
+        InstantaneaModelo partida = jugada(modeloDeNivel(NivelDificultad.DIFICIL, 13), 4);
+        ByteBuffer registro = registro(partida, 1);
+        // Como la versión 1: sin columnas en el byte 36 y con el CRC desde el 24 recalculado
+        registro.putShort(4, (short) 1).putInt(36, 0);
+        CRC32C crc = new CRC32C();
+        crc.update(registro.slice(24, registro.capacity() - 24));
+        registro.putInt(16, (int) crc.getValue());
+        Path archivo = carpeta.resolve("version-1.partida");
+        Files.write(archivo, registro.array());
+        afirmarIguales(partida, ArchivoPartida.cargar(archivo), "de la versión 1");
+    }
+
+    private void comprobarRanuras() throws IOException {
+        ModeloNonograma modelo = modeloDeNivel(NivelDificultad.MEDIO, 14);
+        InstantaneaModelo vieja = jugada(modelo, 5);
+        InstantaneaModelo nueva = jugada(modelo, 6);
+        int largo = FormatoPartida.calcularLargo(vieja.obtenerFilas(), vieja.obtenerColumnas());
+        Path archivo = carpeta.resolve("ranuras.partida");
+
+        byte[] ranuras = dosRanuras(vieja, 7, nueva, 8);
+        Files.write(archivo, ranuras);
+        afirmarIguales(nueva, ArchivoPartida.cargar(archivo), "con la más nueva en la segunda ranura");
+
+        Files.write(archivo, dosRanuras(nueva, 8, vieja, 7));
+        afirmarIguales(nueva, ArchivoPartida.cargar(archivo), "con la más nueva en la primera ranura");
+
+        // Un corte a mitad de la escritura de la ranura más nueva
+        ranuras[2 * largo - 1] ^= 0x5A;
+        Files.write(archivo, ranuras);
+        afirmarIguales(vieja, ArchivoPartida.cargar(archivo), "con la ranura más nueva dañada");
+
+        ranuras[largo - 1] ^= 0x5A;
+        Files.write(archivo, ranuras);
+        afirmarQueNoCarga(archivo, "con las dos ranuras dañadas");
+
+        // Recién creado, el archivo del autoguardado tiene la segunda ranura en cero
+        byte[] unaRanura = Arrays.copyOf(registro(vieja, 1).array(), 2 * largo);
+        Files.write(archivo, unaRanura);
+        afirmarIguales(vieja, ArchivoPartida.cargar(archivo), "con la segunda ranura vacía");
+    }
+
+    private void comprobarReescrituraPorFilas() {
+        // 130 columnas: tres palabras por fila, la última incompleta
+        ModeloNonograma modelo = modeloLibre(9, 130);
+        int largo = FormatoPartida.calcularLargo(9, 130);
+        ByteBuffer mapa = ByteBuffer.allocate(2 * largo);
+        InstantaneaModelo[] escritas = new InstantaneaModelo[2];
+        escritas[0] = modelo.obtenerInstantanea();
+        FormatoPartida.escribir(mapa.slice(0, largo), escritas[0], 1);
+        int ranura = 0;
+
+        // Alterna las ranuras como AutoguardadoPartida, con jugadas, pistas,
+        // deshacer y un puzzle nuevo del mismo tamaño a mitad de camino
+        SplittableRandom aleatorio = new SplittableRandom(15);
+        for (int paso = 1; paso <= 200; paso++) {
+            if (paso == 120) {
+                modelo.nuevoJuegoPersonalizado(9, 130);
+            } else if (paso % 25 == 0) {
+                modelo.solicitarPista();
+            } else if (paso % 40 == 0) {
+                modelo.deshacer();
+            } else {
+                jugarCelda(modelo, aleatorio);
+            }
+            InstantaneaModelo partida = modelo.obtenerInstantanea();
+            ranura = 1 - ranura;
+            ByteBuffer enRanura = mapa.slice(ranura * largo, largo);
+            FormatoPartida.actualizar(enRanura, partida, escritas[ranura], paso + 1);
+            escritas[ranura] = partida;
+            if (!enRanura.clear().equals(registro(partida, paso + 1))) {
+                throw new IllegalStateException("la ranura reescrita en el paso " + paso + " no coincide con el registro completo");
+            }
+        }
+    }
+
+    private void comprobarAutoguardado() throws IOException, InterruptedException {
+        ModeloNonograma modelo = modeloDeNivel(NivelDificultad.DIFICIL, 16);
+        Path archivo = carpeta.resolve("autoguardado.partida");
+        AutoguardadoPartida autoguardado = new AutoguardadoPartida(modelo, archivo);
+        autoguardado.iniciar();
+        try {
+            // Con una pausa entre jugadas el escritor llega a escribir casi todas
+            // y no sólo la última, así las dos ranuras se alternan muchas veces
+            SplittableRandom aleatorio = new SplittableRandom(7);
+            for (int jugada = 0; jugada < 200; jugada++) {
+                if (jugada == 100) {
+                    // Otro tamaño de grilla: el archivo se vuelve a crear
+                    modelo.cambiarNivel(NivelDificultad.MEDIO);
+                    modelo.nuevoJuegoDesdeSemilla(17);
+                }
+                jugarCelda(modelo, aleatorio);
+                Thread.sleep(1);
+            }
+        } finally {
+            autoguardado.detener();
+        }
+        if (autoguardado.obtenerUltimoError() != null) {
+            throw autoguardado.obtenerUltimoError();
+        }
+        InstantaneaModelo ultima = modelo.obtenerInstantanea();
+        long largo = 2L * FormatoPartida.calcularLargo(ultima.obtenerFilas(), ultima.obtenerColumnas());
+        if (Files.size(archivo) != largo) {
+            throw new IllegalStateException("el autoguardado tiene " + Files.size(archivo) + " bytes y no " + largo);
+        }
+        afirmarIguales(ultima, ArchivoPartida.cargar(archivo), "del autoguardado");
+    }
+
+    private void comprobarCatalogo() throws IOException {
+        Path catalogo = carpeta.resolve("catalogo");
+        List<PuzzleGenerado> puzzles = puzzlesDeCatalogo();
+        llenarCatalogo(catalogo, puzzles);
+        try (CatalogoPuzzles abierto = CatalogoPuzzles.abrir(catalogo)) {
+            if (abierto.agregar(puzzles.get(1)) != 1) {
+                throw new IllegalStateException("un puzzle repetido se agregó otra vez");
+            }
+        }
+        afirmarCatalogo(catalogo, puzzles, "al volver a abrirlo");
+    }
+
+    private void comprobarIndiceReconstruido() throws IOException {
+        Path catalogo = carpeta.resolve("catalogo-indice");
+        List<PuzzleGenerado> puzzles = puzzlesDeCatalogo();
+        llenarCatalogo(catalogo, puzzles);
+        Path indice = catalogo.resolve("puzzles.idx");
+        long largoIndice = Files.size(indice);
+
+        // Un corte al escribir el índice: faltan las dos últimas entradas y la anterior quedó por la mitad
+        truncar(indice, largoIndice - 2 * LARGO_ENTRADA_INDICE - 10);
+        afirmarCatalogo(catalogo, puzzles, "con el índice cortado");
+        if (Files.size(indice) != largoIndice) {
+            throw new IllegalStateException("el índice cortado no se completó");
+        }
+
+        byte[] conBasura = Files.readAllBytes(indice);
+        Arrays.fill(conBasura, conBasura.length - 3 * LARGO_ENTRADA_INDICE, conBasura.length, (byte) 0x7F);
+        Files.write(indice, conBasura);
+        afirmarCatalogo(catalogo, puzzles, "con basura al final del índice");
+
+        Files.delete(indice);
+        afirmarCatalogo(catalogo, puzzles, "sin el índice");
+    }
+
+    private void comprobarRegistroCortado() throws IOException {
+        Path catalogo = carpeta.resolve("catalogo-cortado");
+        List<PuzzleGenerado> puzzles = puzzlesDeCatalogo();
+        List<PuzzleGenerado> anteriores = puzzles.subList(0, puzzles.size() - 1);
+        llenarCatalogo(catalogo, anteriores);
+        Path datos = catalogo.resolve("puzzles.dat");
+        Path indice = catalogo.resolve("puzzles.idx");
+        long largoDatos = Files.size(datos);
+        long largoIndice = Files.size(indice);
+        llenarCatalogo(catalogo, puzzles);
+
+        // Un corte al escribir el último registro, con su entrada ya en el índice
+        truncar(datos, largoDatos + 30);
+        afirmarCatalogo(catalogo, anteriores, "con el último registro cortado");
+        if (Files.size(datos) != largoDatos || Files.size(indice) != largoIndice) {
+            throw new IllegalStateException("no se descartó el registro cortado");
+        }
+        llenarCatalogo(catalogo, puzzles);
+        afirmarCatalogo(catalogo, puzzles, "al agregar otra vez el registro cortado");
+
+        // Un registro sin entrada en el índice que no pasa el CRC
+        truncar(indice, largoIndice);
+        byte[] dañados = Files.readAllBytes(datos);
+        dañados[dañados.length - 1] ^= 0x5A;
+        Files.write(datos, dañados);
+        afirmarCatalogo(catalogo, anteriores, "con el último registro dañado y sin entrada");
+        if (Files.size(datos) != largoDatos) {
+            throw new IllegalStateException("no se descartó el registro dañado");
+        }
+    }
+
+    // Puzzles de tres tamaños, de semillas fijas
+    private static List<PuzzleGenerado> puzzlesDeCatalogo() {
+        GeneradorDePuzzles generador = new GeneradorDePuzzles();
+        NivelDificultad[] niveles = { NivelDificultad.FACIL, NivelDificultad.MEDIO, NivelDificultad.DESAFIO,
+                NivelDificultad.EXTENSO };
+        List<PuzzleGenerado> puzzles = new ArrayList<>();
+        for (int i = 0; i < 2 * niveles.length; i++) {
+            puzzles.add(generador.generarPuzzle(niveles[i % niveles.length], 100 + i));
+        }
+        return puzzles;
+    }
+
+    // Agrega los puzzles que falten; cada uno tiene que quedar con su posición en la lista como id
+    private static void llenarCatalogo(Path carpetaCatalogo, List<PuzzleGenerado> puzzles) throws IOException {
+        try (CatalogoPuzzles catalogo = CatalogoPuzzles.abrir(carpetaCatalogo)) {
+            for (int id = 0; id < puzzles.size(); id++) {
+                if (catalogo.agregar(puzzles.get(id)) != id) {
+                    throw new IllegalStateException("el puzzle " + id + " quedó con otro id");
+                }
+            }
+        }
+    }
+
+    private static void afirmarCatalogo(Path carpetaCatalogo, List<PuzzleGenerado> puzzles, String cuando)
+            throws IOException {
+        try (CatalogoPuzzles catalogo = CatalogoPuzzles.abrir(carpetaCatalogo)) {
+            if (catalogo.obtenerCantidad() != puzzles.size()) {
+                throw new IllegalStateException("el catálogo " + cuando + " tiene " + catalogo.obtenerCantidad()
+                        + " puzzles y no " + puzzles.size());
+            }
+            for (int id = 0; id < puzzles.size(); id++) {
+                PuzzleGenerado puzzle = puzzles.get(id);
+                GrillaBits esperada = puzzle.obtenerGrillaSolucion();
+                GrillaBits leida = catalogo.obtener(id).obtenerGrillaSolucion();
+                boolean igual = catalogo.obtenerTamaño(id) == puzzle.obtenerFilas()
+                        && catalogo.obtenerDificultad(id) == puzzle.obtenerCalificacion()
+                        && leida.obtenerFilas() == esperada.obtenerFilas()
+                        && catalogo.buscar(puzzle) == id;
+                for (int fila = 0; igual && fila < esperada.obtenerFilas(); fila++) {
+                    for (int palabra = 0; igual && palabra < esperada.obtenerPalabrasPorFila(); palabra++) {
+                        igual = leida.obtenerPalabraLlenas(fila, palabra) == esperada.obtenerPalabraLlenas(fila, palabra);
+                    }
+                }
+                if (!igual) {
+                    throw new IllegalStateException("el puzzle " + id + " del catálogo " + cuando + " no coincide");
+                }
+            }
+        }
+    }
+
+    private static void truncar(Path archivo, long largo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.truncate(largo);
+        }
+    }
+
+    // Partida de un nivel, con el puzzle de una semilla
+    private static ModeloNonograma modeloDeNivel(NivelDificultad nivel, long semilla) {
+        ModeloNonograma modelo = new ModeloNonograma(nivel);
+        modelo.nuevoJuegoDesdeSemilla(semilla);
+        return modelo;
+    }
+
+    // Partida sin nivel, con un puzzle al azar
+    private static ModeloNonograma modeloLibre(int filas, int columnas) {
+        ModeloNonograma modelo = new ModeloNonograma(filas, columnas);
+        modelo.nuevoJuegoPersonalizado(filas, columnas);
+        return modelo;
+    }
+
+    private static InstantaneaModelo jugada(ModeloNonograma modelo, long semilla) {
+        jugarAlAzar(modelo, 40, semilla);
+        return modelo.obtenerInstantanea();
+    }
+
+    // Llena, marca y vacía celdas al azar, y de vez en cuando pide una pista
+    private static void jugarAlAzar(ModeloNonograma modelo, int jugadas, long semilla) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        for (int jugada = 1; jugada <= jugadas; jugada++) {
+            if (jugada % 16 == 0) {
+                modelo.solicitarPista();
+            } else {
+                jugarCelda(modelo, aleatorio);
+            }
+        }
+    }
+
+    private static void jugarCelda(ModeloNonograma modelo, SplittableRandom aleatorio) {
+        EstadoCelda[] estados = EstadoCelda.values();
+        modelo.establecerEstadoCelda(aleatorio.nextInt(modelo.obtenerFilas()),
+                aleatorio.nextInt(modelo.obtenerColumnas()), estados[aleatorio.nextInt(estados.length)]);
+    }
+
+    // Registro completo de una partida, con la posición en 0
+    private static ByteBuffer registro(InstantaneaModelo partida, long secuencia) {
+        ByteBuffer registro = ByteBuffer.allocate(FormatoPartida.calcularLargo(partida.obtenerFilas(),
+                partida.obtenerColumnas()));
+        FormatoPartida.escribir(registro, partida, secuencia);
+        return registro.clear();
+    }
+
+    private static byte[] dosRanuras(InstantaneaModelo primera, long secuenciaPrimera, InstantaneaModelo segunda,
+                                     long secuenciaSegunda) {
+        ByteBuffer archivo = ByteBuffer.allocate(2 * FormatoPartida.calcularLargo(primera.obtenerFilas(),
+                primera.obtenerColumnas()));
+        FormatoPartida.escribir(archivo, primera, secuenciaPrimera);
+        FormatoPartida.escribir(archivo, segunda, secuenciaSegunda);
+        return archivo.array();
+    }
+
+    private static void afirmarQueNoCarga(Path archivo, String como) {
+        try {
+            ArchivoPartida.cargar(archivo);
+        } catch (IOException e) {
+            return;
+        }
+        throw new IllegalStateException("se cargó un archivo " + como);
+    }
+
+    private static void afirmarIguales(InstantaneaModelo esperada, InstantaneaModelo obtenida, String cuando) {
+        String diferencia = null;
+        if (esperada.obtenerFilas() != obtenida.obtenerFilas()
+                || esperada.obtenerColumnas() != obtenida.obtenerColumnas()) {
+            diferencia = "el tamaño";
+        } else if (esperada.obtenerNivel() != obtenida.obtenerNivel()
+                || esperada.obtenerSemilla() != obtenida.obtenerSemilla()) {
+            diferencia = "el nivel o la semilla";
+        } else if (esperada.obtenerEstadoJuego() != obtenida.obtenerEstadoJuego()
+                || esperada.obtenerPistasDisponibles() != obtenida.obtenerPistasDisponibles()) {
+            diferencia = "el estado o las pistas";
+        }
+        for (int fila = 0; diferencia == null && fila < esperada.obtenerFilas(); fila++) {
+            for (int palabra = 0; palabra < esperada.obtenerPalabrasPorFila(); palabra++) {
+                if (esperada.obtenerPalabraSolucion(fila, palabra) != obtenida.obtenerPalabraSolucion(fila, palabra)
+                        || esperada.obtenerPalabraLlenas(fila, palabra) != obtenida.obtenerPalabraLlenas(fila, palabra)
+                        || esperada.obtenerPalabraMarcadas(fila, palabra) != obtenida.obtenerPalabraMarcadas(fila, palabra)
+                        || esperada.obtenerPalabraReveladas(fila, palabra) != obtenida.obtenerPalabraReveladas(fila, palabra)) {
+                    diferencia = "la fila " + fila;
+                    break;
+                }
+            }
+        }
+        if (diferencia != null) {
+            throw new IllegalStateException("la partida " + cuando + " no coincide en " + diferencia);
+        }
+    }
+}
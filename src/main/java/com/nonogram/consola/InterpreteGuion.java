@@ -0,0 +1,369 @@
+package com.nonogram.consola;
+
+import com.nonogram.controlador.ControladorNonograma;
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.ModoPista;
+import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PistasNonograma;
+import com.nonogram.solver.PistaLogica;
+import com.nonogram.solver.ResultadoSolucion;
+import com.nonogram.solver.SolucionadorNonograma;
+import com.nonogram.vista.HiloDirecto;
+import com.nonogram.vista.VistaSinPantalla;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Juega una partida siguiendo un guion de texto, sin pantalla.
+//
+// Cada línea es un comando; las líneas vacías y lo que sigue a '#' se ignoran.
+// Las filas y columnas se cuentan desde 0.
+//
+//   nivel EXPERTO          cambia de nivel y empieza un puzzle
+//   semilla 1234           juega el puzzle de esa semilla con el nivel actual
+//   nuevo                  empieza un puzzle nuevo
+//   tablero 30 80          empieza un puzzle sin nivel de 30 filas y 80 columnas
+//   clic 2 3               como un clic en la celda (alterna llena y marcada)
+//   llenar 2 3             deja la celda llena
+//   marcar 2 3             deja la celda marcada con X
+//   pintar 2 3 2 9 llena   pinta un rectángulo de celdas como un trazo con el mouse
+//   deshacer / rehacer
+//   reiniciar              vacía el tablero del jugador
+//   modo logica|aleatoria  cómo se eligen las pistas
+//   pista                  revela una celda y escribe cuál
+//   resolver               resuelve las pistas con el solucionador y llena el tablero
+//   verificar              verifica la solución del jugador
+//   mostrar / solucion     escribe el tablero del jugador o la solución
+//   tiempo                 escribe el tiempo desde que empezó el puzzle
+//   guardar archivo / cargar archivo
+//   afirmar ganado|jugando|perdido
+//   afirmar incorrectas 0 | afirmar pistas 2 | afirmar celda 2 3 llena
+//   afirmar cambios 12     cambios del modelo que recibió la vista desde el comienzo
+//
+// Los comandos pasan por el controlador, como los de la vista gráfica,
+// salvo llenar, marcar y resolver, que modifican el modelo directamente. Una
+// afirmación que no se cumple se escribe como FALLA y se cuenta, sin cortar
+// el guion, así un guion sirve de prueba de regresión.
+public class InterpreteGuion {
+
+    private final ModeloNonograma modelo;
+    private final ControladorNonograma controlador;
+    private final VistaSinPantalla vista;
+    private final PrintStream salida;
+    private long inicioPuzzle = System.nanoTime();
+    private int numeroLinea;
+    private int fallas;
+
+    // Constructor del intérprete. Arma un controlador con una vista sin pantalla sobre el modelo.
+    //
+    // @param modelo Modelo en el que se juega
+    // @param salida Salida de los resultados y los mensajes de la vista
+    public InterpreteGuion(ModeloNonograma modelo, PrintStream salida) {
+        this.modelo = modelo;
+        this.salida = salida;
+        this.vista = new VistaSinPantalla(salida);
+        this.controlador = new ControladorNonograma(modelo, vista, new HiloDirecto());
+        vista.establecerControlador(controlador);
+    }
+
+    // Ejecuta un guion completo.
+    //
+    // @param guion Texto del guion
+    // @return Cantidad de afirmaciones que fallaron
+    // @throws IOException Si el guion no se puede leer o tiene un comando inválido
+    public int ejecutar(BufferedReader guion) throws IOException {
+        String linea;
+        while ((linea = guion.readLine()) != null) {
+            numeroLinea++;
+            try {
+                ejecutarComando(linea);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Guion inválido en la línea " + numeroLinea + ": " + e.getMessage(), e);
+            }
+        }
+        return fallas;
+    }
+
+    // Ejecuta un comando del guion.
+    //
+    // @param linea Línea del guion
+    // @throws IOException Si falla guardar o cargar una partida
+    // @throws IllegalArgumentException Si el comando no existe o le faltan argumentos
+    public void ejecutarComando(String linea) throws IOException {
+        int comentario = linea.indexOf('#');
+        String[] partes = (comentario >= 0 ? linea.substring(0, comentario) : linea).strip().split("\\s+");
+        if (partes[0].isEmpty()) {
+            return;
+        }
+        switch (partes[0].toLowerCase(Locale.ROOT)) {
+            case "nivel":
+                esperar(controlador.cambiarNivel(leerNivel(argumento(partes, 1))));
+                empezarPuzzle();
+                break;
+            case "semilla":
+                modelo.nuevoJuegoDesdeSemilla(leerLong(argumento(partes, 1)));
+                empezarPuzzle();
+                break;
+            case "nuevo":
+                esperar(controlador.nuevoJuego());
+                empezarPuzzle();
+                break;
+            case "tablero":
+                esperar(controlador.nuevoJuegoPersonalizado(leerEntero(argumento(partes, 1)), leerEntero(argumento(partes, 2))));
+                empezarPuzzle();
+                break;
+            case "clic":
+                esperar(controlador.manejarClicCelda(leerFila(partes, 1), leerColumna(partes, 2)));
+                break;
+            case "llenar":
+                modelo.establecerEstadoCelda(leerFila(partes, 1), leerColumna(partes, 2), EstadoCelda.LLENA);
+                break;
+            case "marcar":
+                modelo.establecerEstadoCelda(leerFila(partes, 1), leerColumna(partes, 2), EstadoCelda.MARCADA);
+                break;
+            case "pintar":
+                esperar(controlador.pintarCeldas(leerFila(partes, 1), leerColumna(partes, 2), leerFila(partes, 3),
+                        leerColumna(partes, 4), leerEstado(argumento(partes, 5))));
+                break;
+            case "deshacer":
+                esperar(controlador.deshacer());
+                break;
+            case "rehacer":
+                esperar(controlador.rehacer());
+                break;
+            case "reiniciar":
+                esperar(controlador.reiniciarJuego());
+                break;
+            case "modo":
+                modelo.establecerModoPista(ModoPista.valueOf(argumento(partes, 1).toUpperCase(Locale.ROOT)));
+                break;
+            case "pista":
+                pedirPista();
+                break;
+            case "resolver":
+                resolver();
+                break;
+            case "verificar":
+                esperar(controlador.verificarSolucion());
+                break;
+            case "mostrar":
+                mostrarTablero();
+                break;
+            case "solucion":
+                controlador.mostrarSolucion();
+                break;
+            case "tiempo":
+                salida.printf(Locale.ROOT, "tiempo: %.3f ms%n", (System.nanoTime() - inicioPuzzle) / 1e6);
+                break;
+            case "guardar":
+                esperar(controlador.guardarPartida(Path.of(argumento(partes, 1))));
+                break;
+            case "cargar":
+                esperar(controlador.cargarPartida(Path.of(argumento(partes, 1))));
+                empezarPuzzle();
+                break;
+            case "afirmar":
+                afirmar(partes);
+                break;
+            default:
+                throw new IllegalArgumentException("comando desconocido: " + partes[0]);
+        }
+    }
+
+    // Obtiene la cantidad de afirmaciones que fallaron.
+    //
+    // @return Afirmaciones fallidas
+    public int obtenerFallas() {
+        return fallas;
+    }
+
+    // Obtiene la vista sin pantalla del intérprete.
+    //
+    // @return Vista que recibe los cambios del modelo
+    public VistaSinPantalla obtenerVista() {
+        return vista;
+    }
+
+    // Obtiene el resultado de un comando del controlador. Como el controlador
+    // del intérprete aplica los comandos en este mismo hilo, el futuro ya está
+    // completo; si el comando falló, se relanza su error.
+    private static <T> T esperar(CompletableFuture<T> comando) throws IOException {
+        try {
+            return comando.join();
+        } catch (CompletionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof IOException) {
+                throw (IOException) causa;
+            }
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new IOException(causa);
+        }
+    }
+
+    private void empezarPuzzle() {
+        inicioPuzzle = System.nanoTime();
+    }
+
+    private void pedirPista() throws IOException {
+        int antes = modelo.obtenerPistasDisponibles();
+        if (!esperar(controlador.solicitarPista())) {
+            salida.println("pista: no hay");
+            return;
+        }
+        PistaLogica pista = modelo.obtenerUltimaPistaLogica();
+        if (pista != null) {
+            salida.println("pista: " + pista.obtenerFila() + " " + pista.obtenerColumna() + " - "
+                    + pista.obtenerDescripcion());
+        } else {
+            salida.println("pista: al azar (quedan " + modelo.obtenerPistasDisponibles() + " de " + antes + ")");
+        }
+    }
+
+    // Resuelve el puzzle sólo con sus pistas y pasa la solución al tablero en un lote.
+    private void resolver() {
+        long inicio = System.nanoTime();
+        PistasNonograma pistas = modelo.obtenerPistas();
+        SolucionadorNonograma solucionador = new SolucionadorNonograma(pistas.obtenerFilas(),
+                pistas.obtenerColumnas(), pistas.obtenerLargos(), pistas.obtenerInicios());
+        ResultadoSolucion resultado = solucionador.resolver();
+        if (!resultado.estaResuelto()) {
+            salida.println("resolver: las pistas no tienen solución");
+            return;
+        }
+        int filas = modelo.obtenerFilas();
+        int columnas = modelo.obtenerColumnas();
+        modelo.editar(editor -> {
+            for (int fila = 0; fila < filas; fila++) {
+                for (int columna = 0; columna < columnas; columna++) {
+                    if (!modelo.esCeldaRevelada(fila, columna)) {
+                        editor.establecerEstadoCelda(fila, columna,
+                                resultado.estaLlena(fila, columna) ? EstadoCelda.LLENA : EstadoCelda.MARCADA);
+                    }
+                }
+            }
+        });
+        salida.printf(Locale.ROOT, "resolver: %.3f ms, %s%n", (System.nanoTime() - inicio) / 1e6,
+                resultado.obtenerEstadisticas());
+    }
+
+    private void mostrarTablero() {
+        int filas = modelo.obtenerFilas();
+        int columnas = modelo.obtenerColumnas();
+        StringBuilder texto = new StringBuilder(filas * (columnas + 1));
+        for (int fila = 0; fila < filas; fila++) {
+            for (int columna = 0; columna < columnas; columna++) {
+                EstadoCelda estado = modelo.obtenerEstadoCelda(fila, columna);
+                texto.append(estado == EstadoCelda.LLENA ? '#' : estado == EstadoCelda.MARCADA ? 'x' : '.');
+            }
+            texto.append('\n');
+        }
+        salida.print(texto);
+    }
+
+    private void afirmar(String[] partes) {
+        String que = argumento(partes, 1).toLowerCase(Locale.ROOT);
+        String etiqueta = que;
+        String esperado;
+        String obtenido;
+        switch (que) {
+            case "ganado":
+            case "jugando":
+            case "perdido":
+                etiqueta = "estado";
+                esperado = que;
+                obtenido = modelo.obtenerEstadoJuego().name().toLowerCase(Locale.ROOT);
+                break;
+            case "incorrectas":
+                esperado = String.valueOf(leerEntero(argumento(partes, 2)));
+                obtenido = String.valueOf(modelo.obtenerCeldasIncorrectas());
+                break;
+            case "cambios":
+                esperado = String.valueOf(leerLong(argumento(partes, 2)));
+                obtenido = String.valueOf(vista.obtenerCambios());
+                break;
+            case "pistas":
+                esperado = String.valueOf(leerEntero(argumento(partes, 2)));
+                obtenido = String.valueOf(modelo.obtenerPistasDisponibles());
+                break;
+            case "celda":
+                int fila = leerFila(partes, 2);
+                int columna = leerColumna(partes, 3);
+                esperado = leerEstado(argumento(partes, 4)).name();
+                obtenido = modelo.obtenerEstadoCelda(fila, columna).name();
+                break;
+            default:
+                throw new IllegalArgumentException("no se puede afirmar: " + que);
+        }
+        if (!esperado.equalsIgnoreCase(obtenido)) {
+            fallas++;
+            salida.println("FALLA línea " + numeroLinea + ": se esperaba " + etiqueta + " " + esperado
+                    + " y es " + obtenido);
+        }
+    }
+
+    private int leerFila(String[] partes, int posicion) {
+        return leerCoordenada(argumento(partes, posicion), "fila", modelo.obtenerFilas());
+    }
+
+    private int leerColumna(String[] partes, int posicion) {
+        return leerCoordenada(argumento(partes, posicion), "columna", modelo.obtenerColumnas());
+    }
+
+    private int leerCoordenada(String texto, String nombre, int limite) {
+        int valor = leerEntero(texto);
+        if (valor < 0 || valor >= limite) {
+            throw new IllegalArgumentException(nombre + " fuera del tablero: " + valor);
+        }
+        return valor;
+    }
+
+    private static EstadoCelda leerEstado(String texto) {
+        try {
+            return EstadoCelda.valueOf(texto.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("estado desconocido: " + texto);
+        }
+    }
+
+    private static NivelDificultad leerNivel(String texto) {
+        try {
+            return NivelDificultad.valueOf(texto.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("nivel desconocido: " + texto);
+        }
+    }
+
+    private static String argumento(String[] partes, int posicion) {
+        if (posicion >= partes.length) {
+            throw new IllegalArgumentException("faltan argumentos para " + partes[0]);
+        }
+        return partes[posicion];
+    }
+
+    private static int leerEntero(String texto) {
+        try {
+            return Integer.parseInt(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("se esperaba un número: " + texto);
+        }
+    }
+
+    private static long leerLong(String texto) {
+        try {
+            return Long.parseLong(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("se esperaba un número: " + texto);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.nonogram.consola;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Resultado de una simulación de partidas: cuántas se jugaron y ganaron,
+// cuánto tardó todo y la distribución del tiempo por partida.
+public class ResumenSimulacion {
+
+    private final int partidas;
+    private final int ganadas;
+    private final long jugadas;
+    private final long nanosTotales;
+    private final long[] nanosPorPartida;  // ordenado
+
+    // Constructor del resumen.
+    //
+    // @param ganadas Partidas que terminaron ganadas
+    // @param jugadas Jugadas hechas en todas las partidas
+    // @param nanosTotales Tiempo de reloj de toda la simulación
+    // @param nanosPorPartida Duración de cada partida; se ordena en el lugar
+    ResumenSimulacion(int ganadas, long jugadas, long nanosTotales, long[] nanosPorPartida) {
+        Arrays.sort(nanosPorPartida);
+        this.partidas = nanosPorPartida.length;
+        this.ganadas = ganadas;
+        this.jugadas = jugadas;
+        this.nanosTotales = nanosTotales;
+        this.nanosPorPartida = nanosPorPartida;
+    }
+
+    // Obtiene la cantidad de partidas jugadas.
+    //
+    // @return Partidas jugadas
+    public int obtenerPartidas() {
+        return partidas;
+    }
+
+    // Obtiene la cantidad de partidas ganadas.
+    //
+    // @return Partidas ganadas
+    public int obtenerGanadas() {
+        return ganadas;
+    }
+
+    // Obtiene la cantidad de jugadas de todas las partidas (clics, deshacer y pistas).
+    //
+    // @return Jugadas
+    public long obtenerJugadas() {
+        return jugadas;
+    }
+
+    // Obtiene el tiempo de reloj de toda la simulación.
+    //
+    // @return Nanosegundos
+    public long obtenerNanosTotales() {
+        return nanosTotales;
+    }
+
+    // Obtiene las partidas por minuto de reloj.
+    //
+    // @return Partidas por minuto
+    public double obtenerPartidasPorMinuto() {
+        return nanosTotales == 0 ? 0 : partidas * 60e9 / nanosTotales;
+    }
+
+    // Obtiene un percentil de la duración de las partidas.
+    //
+    // @param percentil Percentil entre 0 y 100
+    // @return Nanosegundos, o 0 si no hubo partidas
+    public long obtenerPercentil(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("Percentil inválido: " + percentil);
+        }
+        if (partidas == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil / 100 * partidas) - 1;
+        return nanosPorPartida[Math.max(0, indice)];
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%d partidas, %d ganadas, %d jugadas en %.3f s (%.0f partidas/min); "
+                        + "por partida p50 %.1f us, p90 %.1f us, p99 %.1f us, máx %.1f us",
+                partidas, ganadas, jugadas, nanosTotales / 1e9, obtenerPartidasPorMinuto(),
+                obtenerPercentil(50) / 1e3, obtenerPercentil(90) / 1e3, obtenerPercentil(99) / 1e3,
+                obtenerPercentil(100) / 1e3);
+    }
+}
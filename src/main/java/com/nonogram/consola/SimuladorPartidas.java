@@ -0,0 +1,194 @@
+package com.nonogram.consola;
+
+import com.nonogram.controlador.ControladorNonograma;
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.GeneradorDePuzzles;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PoolDePuzzles;
+import com.nonogram.model.PuzzleGenerado;
+import com.nonogram.vista.HiloDirecto;
+import com.nonogram.vista.VistaSinPantalla;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Simula muchas partidas completas en paralelo, sin pantalla, para medir
+// cuántas partidas por minuto soportan el modelo y el controlador.
+//
+// Hay un trabajador por hilo y cada uno tiene su propio modelo, controlador y
+// VistaSinPantalla sobre HiloDirecto, así los trabajadores no comparten estado
+// mutable salvo el contador de partidas. Los trabajadores son hilos virtuales,
+// que corren sobre el pool fork-join de la JVM (uno por núcleo).
+//
+// Cada partida juega un puzzle como lo haría una persona que conoce la
+// solución: pide una pista, llena las celdas de la solución, se equivoca en
+// algunas celdas vacías y lo deshace, y verifica. Los puzzles se generan antes
+// de empezar a medir, salvo que se pida generarlos en cada partida; en ese caso
+// la medición incluye la generación. Con la misma semilla la simulación juega
+// los mismos puzzles con las mismas jugadas.
+public class SimuladorPartidas {
+
+    // Puzzles distintos que se generan antes de simular
+    public static final int PUZZLES_POR_DEFECTO = 64;
+
+    private final NivelDificultad nivel;
+    private final int partidas;
+    private final int hilos;
+    private final int puzzlesDistintos;
+    private final long semilla;
+    private final boolean generarEnCadaPartida;
+    private final GeneradorDePuzzles generador;
+
+    // Constructor del simulador.
+    //
+    // @param nivel Nivel de los puzzles
+    // @param partidas Cantidad de partidas a jugar
+    // @param hilos Cantidad de trabajadores en paralelo
+    // @param puzzlesDistintos Puzzles que se generan antes y se reparten entre las partidas
+    // @param semilla Semilla de los puzzles y de los errores simulados
+    // @param generarEnCadaPartida true para generar un puzzle nuevo en cada partida
+    public SimuladorPartidas(NivelDificultad nivel, int partidas, int hilos, int puzzlesDistintos, long semilla,
+                             boolean generarEnCadaPartida) {
+        if (nivel == null || partidas <= 0 || hilos <= 0 || puzzlesDistintos <= 0) {
+            throw new IllegalArgumentException("Parámetros de la simulación inválidos");
+        }
+        this.nivel = nivel;
+        this.partidas = partidas;
+        this.hilos = hilos;
+        this.puzzlesDistintos = puzzlesDistintos;
+        this.semilla = semilla;
+        this.generarEnCadaPartida = generarEnCadaPartida;
+        this.generador = new GeneradorDePuzzles();
+    }
+
+    // Constructor con un trabajador por núcleo y los puzzles por defecto.
+    //
+    // @param nivel Nivel de los puzzles
+    // @param partidas Cantidad de partidas a jugar
+    // @param semilla Semilla de los puzzles y de los errores simulados
+    public SimuladorPartidas(NivelDificultad nivel, int partidas, long semilla) {
+        this(nivel, partidas, Runtime.getRuntime().availableProcessors(), PUZZLES_POR_DEFECTO, semilla, false);
+    }
+
+    // Juega todas las partidas y espera a que terminen.
+    //
+    // @return Resumen de la simulación
+    // @throws InterruptedException Si se interrumpe el hilo mientras espera
+    public ResumenSimulacion ejecutar() throws InterruptedException {
+        PuzzleGenerado[] puzzles = generarEnCadaPartida ? null : generarPuzzles();
+        // Sin iniciar: los modelos de los trabajadores no toman puzzles del pool
+        PoolDePuzzles pool = new PoolDePuzzles(generador);
+        long[] nanosPorPartida = new long[partidas];
+        AtomicInteger siguiente = new AtomicInteger();
+
+        long inicio = System.nanoTime();
+        List<Future<long[]>> trabajadores = new ArrayList<>(hilos);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < hilos; i++) {
+                trabajadores.add(ejecutor.submit(() -> trabajar(pool, puzzles, siguiente, nanosPorPartida)));
+            }
+        }
+        long nanosTotales = System.nanoTime() - inicio;
+
+        int ganadas = 0;
+        long jugadas = 0;
+        for (Future<long[]> trabajador : trabajadores) {
+            long[] totales = obtenerResultado(trabajador);
+            ganadas += (int) totales[0];
+            jugadas += totales[1];
+        }
+        return new ResumenSimulacion(ganadas, jugadas, nanosTotales, nanosPorPartida);
+    }
+
+    // Genera en paralelo los puzzles que se reparten entre las partidas.
+    private PuzzleGenerado[] generarPuzzles() throws InterruptedException {
+        int cantidad = Math.min(puzzlesDistintos, partidas);
+        List<Future<PuzzleGenerado>> pendientes = new ArrayList<>(cantidad);
+        try (ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < cantidad; i++) {
+                long semillaPuzzle = semilla + i;
+                pendientes.add(ejecutor.submit(() -> generador.generarPuzzle(nivel, semillaPuzzle)));
+            }
+        }
+        PuzzleGenerado[] puzzles = new PuzzleGenerado[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            puzzles[i] = obtenerResultado(pendientes.get(i));
+        }
+        return puzzles;
+    }
+
+    // Juega partidas hasta que no quede ninguna.
+    //
+    // @return Partidas ganadas y jugadas hechas por este trabajador
+    private long[] trabajar(PoolDePuzzles pool, PuzzleGenerado[] puzzles, AtomicInteger siguiente,
+                            long[] nanosPorPartida) {
+        ModeloNonograma modelo = new ModeloNonograma(nivel, pool);
+        VistaSinPantalla vista = new VistaSinPantalla();
+        ControladorNonograma controlador = new ControladorNonograma(modelo, vista, new HiloDirecto());
+        vista.establecerControlador(controlador);
+
+        long jugadas = 0;
+        int partida;
+        while ((partida = siguiente.getAndIncrement()) < partidas) {
+            long inicio = System.nanoTime();
+            PuzzleGenerado puzzle = puzzles != null
+                    ? puzzles[partida % puzzles.length]
+                    : generador.generarPuzzle(nivel, semilla + partida);
+            modelo.jugarPuzzle(puzzle);
+            jugadas += jugar(modelo, controlador, new SplittableRandom(semilla ^ partida));
+            controlador.verificarSolucion();
+            nanosPorPartida[partida] = System.nanoTime() - inicio;
+        }
+        return new long[] {vista.obtenerVictorias(), jugadas};
+    }
+
+    // Juega una partida con la solución a la vista y algunos errores corregidos con deshacer.
+    //
+    // @return Jugadas hechas
+    private static long jugar(ModeloNonograma modelo, ControladorNonograma controlador, SplittableRandom aleatorio) {
+        long jugadas = 0;
+        if (controlador.solicitarPista().join()) {
+            jugadas++;
+        }
+        int filas = modelo.obtenerFilas();
+        int columnas = modelo.obtenerColumnas();
+        for (int fila = 0; fila < filas; fila++) {
+            for (int columna = 0; columna < columnas; columna++) {
+                if (modelo.esCeldaRevelada(fila, columna)) {
+                    continue;
+                }
+                if (modelo.obtenerEstadoCeldaSolucion(fila, columna) == EstadoCelda.LLENA) {
+                    controlador.manejarClicCelda(fila, columna);
+                    jugadas++;
+                } else if (aleatorio.nextInt(8) == 0) {
+                    controlador.manejarClicCelda(fila, columna);
+                    controlador.deshacer();
+                    jugadas += 2;
+                }
+            }
+        }
+        return jugadas;
+    }
+
+    private static <T> T obtenerResultado(Future<T> tarea) throws InterruptedException {
+        try {
+            return tarea.get();
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) {
+                throw (RuntimeException) causa;
+            }
+            if (causa instanceof Error) {
+                throw (Error) causa;
+            }
+            throw new IllegalStateException("Falló una partida simulada", causa);
+        }
+    }
+}
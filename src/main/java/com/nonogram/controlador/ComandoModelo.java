@@ -0,0 +1,55 @@
+package com.nonogram.controlador;
+
+import com.nonogram.model.ModeloNonograma;
+
+// Acción del jugador lista para aplicarse al modelo en el hilo del modelo.
+//
+// Un comando no cambia después de creado: lleva un nombre y una acción que
+// ya tiene todos sus datos (celdas, nivel, archivo). El EjecutorModelo los
+// aplica de a uno y en el orden en que llegaron.
+public final class ComandoModelo<T> {
+
+    // Lo que hace el comando con el modelo.
+    public interface Accion<T> {
+        // @param modelo Modelo del juego; sólo se toca desde el hilo del modelo
+        // @return Resultado del comando
+        // @throws Exception Si el comando falla; el futuro del comando termina con ese error
+        T aplicar(ModeloNonograma modelo) throws Exception;
+    }
+
+    private final String nombre;
+    private final Accion<T> accion;
+
+    // Constructor del comando.
+    //
+    // @param nombre Nombre del comando, para mensajes y depuración
+    // @param accion Acción a aplicar al modelo
+    public ComandoModelo(String nombre, Accion<T> accion) {
+        if (nombre == null || accion == null) {
+            throw new IllegalArgumentException("El comando necesita un nombre y una acción");
+        }
+        this.nombre = nombre;
+        this.accion = accion;
+    }
+
+    // Obtiene el nombre del comando.
+    //
+    // @return Nombre del comando
+    public String obtenerNombre() {
+        return nombre;
+    }
+
+    // Aplica el comando al modelo.
+    //
+    // @param modelo Modelo del juego
+    // @return Resultado del comando
+    // @throws Exception Si el comando falla
+    T aplicar(ModeloNonograma modelo) throws Exception {
+        return accion.aplicar(modelo);
+    }
+
+    @Override
+    public String toString() {
+        return "ComandoModelo[" + nombre + "]";
+    }
+}
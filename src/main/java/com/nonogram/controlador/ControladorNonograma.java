@@ -1,11 +1,29 @@
 package com.nonogram.controlador;
 
+import com.nonogram.model.CambioModelo;
 import com.nonogram.model.EstadoCelda;
 import com.nonogram.model.EstadoJuego;
+import com.nonogram.model.HiloObservador;
+import com.nonogram.model.InstantaneaModelo;
+import com.nonogram.model.LecturaNonograma;
 import com.nonogram.model.ModeloNonograma;
 import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PuzzleGenerado;
+import com.nonogram.model.TipoCambio;
+import com.nonogram.importacion.ImportadorPuzzles;
+import com.nonogram.importacion.ResumenImportacion;
+import com.nonogram.persistencia.ArchivoPartida;
+import com.nonogram.persistencia.CatalogoPuzzles;
+import com.nonogram.vista.HiloSwing;
 import com.nonogram.vista.VistaNonograma;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
 // Controlador del Nonograma que maneja la interacción entre el modelo y la vista.
 // 
 // Este controlador implementa:
@@ -15,110 +33,404 @@ import com.nonogram.vista.VistaNonograma;
 // 
 // Patrón MVC: El controlador actúa como intermediario entre el modelo y la vista,
 // procesando las acciones del usuario y actualizando ambos componentes.
+// 
+// Cada acción se envía como un ComandoModelo al EjecutorModelo y devuelve un
+// CompletableFuture. Con la vista Swing el modelo corre en su propio hilo y
+// el hilo de eventos nunca espera a que se genere un puzzle o se lea un
+// archivo. Los cambios del modelo se juntan en el hilo del modelo y se le
+// entregan a la vista de a tandas, con una sola instantánea por tanda; la
+// vista lee esa instantánea (obtenerLectura), nunca el modelo. Lo que se
+// encadene al futuro de una acción corre después de que la vista recibió
+// los cambios de esa acción.
 public class ControladorNonograma {
     
     private ModeloNonograma modelo;
     private VistaNonograma vista;
+    private final HiloObservador hiloVista;    // Hilo en el que se le habla a la vista
+    private final EjecutorModelo ejecutor;     // Único hilo que cambia el modelo
+    private CatalogoPuzzles catalogo;         // Catálogo donde se importan puzzles; null si no hay
+    
+    // Cambios que esperan la próxima publicación; sólo los toca el hilo del modelo
+    private final ArrayList<CambioModelo> cambiosPendientes = new ArrayList<>();
+    private volatile InstantaneaModelo instantaneaVista; // Último estado entregado a la vista
    
+    // Constructor para una vista Swing: el modelo corre en su propio hilo y
+    // los cambios se le entregan a la vista en el hilo de eventos.
+    // 
+    // @param modelo Modelo del juego
+    // @param vista Vista Swing
     public ControladorNonograma(ModeloNonograma modelo, VistaNonograma vista) {
+        this(modelo, vista, new HiloSwing(), EjecutorModelo.enHiloPropio(modelo, "modelo"));
+    }
+    
+    // Constructor con el hilo en el que la vista recibe los cambios (por
+    // ejemplo, HiloDirecto para una vista sin pantalla). Los comandos se
+    // aplican en el hilo que los envía y sus futuros vuelven completos.
+    // 
+    // @param modelo Modelo del juego
+    // @param vista Vista del juego
+    // @param hiloVista Hilo de la vista
+    public ControladorNonograma(ModeloNonograma modelo, VistaNonograma vista, HiloObservador hiloVista) {
+        this(modelo, vista, hiloVista, EjecutorModelo.enHiloQueLlama(modelo));
+    }
+    
+    // Constructor con el hilo de la vista y el ejecutor de los comandos.
+    // Con un ejecutor de hilo propio el modelo sólo se puede cambiar con comandos.
+    // 
+    // @param modelo Modelo del juego
+    // @param vista Vista del juego
+    // @param hiloVista Hilo de la vista
+    // @param ejecutor Ejecutor de los comandos sobre este modelo
+    public ControladorNonograma(ModeloNonograma modelo, VistaNonograma vista, HiloObservador hiloVista,
+                                EjecutorModelo ejecutor) {
         this.modelo = modelo;
         this.vista = vista;
+        this.hiloVista = hiloVista;
+        this.ejecutor = ejecutor;
         
-        // Registrar este controlador como observador del modelo
-        modelo.agregarObservador(new ModeloNonograma.ObservadorModelo() {
-            @Override
-            public void alCambiarModelo() {
-                actualizarVista();
-            }
-        });
+        if (ejecutor.tieneHiloPropio()) {
+            // Los cambios llegan en el hilo del modelo y se publican juntos cuando se vacía la cola
+            instantaneaVista = modelo.obtenerInstantanea();
+            modelo.agregarObservador(new ModeloNonograma.ObservadorModelo() {
+                @Override
+                public void alCambiarModelo(CambioModelo cambio) {
+                    cambiosPendientes.add(cambio);
+                }
+            });
+            ejecutor.establecerPublicacion(this::publicarCambios);
+            ejecutor.establecerOyenteOcupado(() -> hiloVista.ejecutarLuego(
+                    () -> vista.mostrarProcesando(ejecutor.estaOcupado())));
+        } else {
+            // Registrar este controlador como observador del modelo; los cambios
+            // se le entregan a la vista en su hilo
+            modelo.agregarObservador(new ModeloNonograma.ObservadorModelo() {
+                @Override
+                public void alCambiarModelo(CambioModelo cambio) {
+                    actualizarVista(cambio);
+                }
+            }, hiloVista);
+        }
+    }
+    
+    // Envía un comando cualquiera al hilo del modelo, detrás de los que ya se enviaron.
+    // 
+    // @param comando Comando a aplicar
+    // @return Futuro con el resultado del comando
+    public <T> CompletableFuture<T> ejecutar(ComandoModelo<T> comando) {
+        return ejecutor.enviar(comando);
     }
     
     // Maneja el clic en una celda de la grilla.
-    public void manejarClicCelda(int fila, int columna) {
+    // 
+    // @return Futuro que termina cuando el clic se aplicó
+    public CompletableFuture<Void> manejarClicCelda(int fila, int columna) {
+        return ejecutor.enviar(new ComandoModelo<Void>("clic", modelo -> {
+            // El estado se decide en el hilo del modelo, con los clics anteriores ya aplicados
+            EstadoCelda nuevoEstado = obtenerEstadoTrazo(modelo, fila, columna);
+            if (nuevoEstado != null) {
+                modelo.establecerEstadoCelda(fila, columna, nuevoEstado);
+            }
+            return null;
+        }));
+    }
+    
+    // Obtiene el estado que pinta un trazo que empieza en una celda: el que
+    // le daría un clic a esa celda, que cicla entre MARCADA -> LLENA -> MARCADA.
+    // Se decide con el estado que ve la vista, así que sólo sirve para mostrar
+    // el trazo mientras se arrastra: con comandos pendientes puede no ser el
+    // que termine pintando pintarTrazo.
+    // 
+    // @param fila Fila de la celda donde empieza el trazo
+    // @param columna Columna de la celda donde empieza el trazo
+    // @return Estado a pintar, o null si el juego terminó o la celda fue revelada como pista
+    public EstadoCelda obtenerEstadoTrazo(int fila, int columna) {
+        return obtenerEstadoTrazo(obtenerLectura(), fila, columna);
+    }
+    
+    private static EstadoCelda obtenerEstadoTrazo(LecturaNonograma modelo, int fila, int columna) {
         if (modelo.obtenerEstadoJuego() != EstadoJuego.JUGANDO) {
-            return; // No permitir cambios si el juego terminó
+            return null; // No permitir cambios si el juego terminó
         }
         
         // Verificar si la celda ha sido revelada como pista
         if (modelo.esCeldaRevelada(fila, columna)) {
-            return; // No permitir cambios en celdas reveladas como pista
+            return null; // No permitir cambios en celdas reveladas como pista
         }
         
         EstadoCelda estadoActual = modelo.obtenerEstadoCelda(fila, columna);
-        EstadoCelda nuevoEstado;
-        
-        // Clic: cicla entre MARCADA -> LLENA -> MARCADA
         switch (estadoActual) {
             case MARCADA:
-                nuevoEstado = EstadoCelda.LLENA;
-                break;
+                return EstadoCelda.LLENA;
             case LLENA:
-                nuevoEstado = EstadoCelda.MARCADA;
-                break;
+                return EstadoCelda.MARCADA;
             default:
-                nuevoEstado = EstadoCelda.LLENA;
+                return EstadoCelda.LLENA;
         }
-        
-        modelo.establecerEstadoCelda(fila, columna, nuevoEstado);
+    }
+    
+    // Aplica un trazo hecho con el mouse: pinta el rectángulo entre dos
+    // esquinas con el estado que le daría un clic a la celda donde empezó.
+    // Como en manejarClicCelda, ese estado se decide en el hilo del modelo,
+    // con los comandos anteriores ya aplicados. Si mientras tanto se puso otro
+    // puzzle en juego el trazo se descarta, porque se hizo sobre el anterior.
+    // 
+    // @param numeroPuzzle Número del puzzle que se veía al empezar el trazo
+    //                     (LecturaNonograma.obtenerNumeroPuzzle)
+    // @param filaDesde Fila de la celda donde empezó el trazo
+    // @param columnaDesde Columna de la celda donde empezó el trazo
+    // @param filaHasta Fila de la esquina opuesta
+    // @param columnaHasta Columna de la esquina opuesta
+    // @return Futuro que termina cuando el trazo se aplicó o se descartó
+    public CompletableFuture<Void> pintarTrazo(long numeroPuzzle, int filaDesde, int columnaDesde, int filaHasta,
+                                               int columnaHasta) {
+        return ejecutor.enviar(new ComandoModelo<Void>("trazo", modelo -> {
+            if (modelo.obtenerNumeroPuzzle() != numeroPuzzle) {
+                return null;
+            }
+            EstadoCelda estado = obtenerEstadoTrazo(modelo, filaDesde, columnaDesde);
+            if (estado != null) {
+                pintarRectangulo(modelo, filaDesde, columnaDesde, filaHasta, columnaHasta, estado);
+            }
+            return null;
+        }));
+    }
+    
+    // Pinta con un mismo estado todas las celdas de un rectángulo (una fila o
+    // columna si tiene un solo alto o ancho), salvo las reveladas como pista.
+    // Todo se aplica en un solo lote: una notificación, un repintado y una
+    // jugada para deshacer.
+    // 
+    // @param filaDesde Fila de una esquina
+    // @param columnaDesde Columna de una esquina
+    // @param filaHasta Fila de la esquina opuesta
+    // @param columnaHasta Columna de la esquina opuesta
+    // @param estado Estado a pintar
+    // @return Futuro que termina cuando el rectángulo se pintó
+    public CompletableFuture<Void> pintarCeldas(int filaDesde, int columnaDesde, int filaHasta, int columnaHasta,
+                                                EstadoCelda estado) {
+        if (estado == null) {
+            throw new IllegalArgumentException("Falta el estado a pintar");
+        }
+        return ejecutor.enviar(new ComandoModelo<Void>("pintar", modelo -> {
+            if (modelo.obtenerEstadoJuego() == EstadoJuego.JUGANDO) {
+                pintarRectangulo(modelo, filaDesde, columnaDesde, filaHasta, columnaHasta, estado);
+            }
+            return null;
+        }));
+    }
+    
+    private static void pintarRectangulo(ModeloNonograma modelo, int filaDesde, int columnaDesde, int filaHasta,
+                                         int columnaHasta, EstadoCelda estado) {
+        int primeraFila = Math.max(0, Math.min(filaDesde, filaHasta));
+        int ultimaFila = Math.min(modelo.obtenerFilas() - 1, Math.max(filaDesde, filaHasta));
+        int primeraColumna = Math.max(0, Math.min(columnaDesde, columnaHasta));
+        int ultimaColumna = Math.min(modelo.obtenerColumnas() - 1, Math.max(columnaDesde, columnaHasta));
+        modelo.editar(editor -> {
+            for (int fila = primeraFila; fila <= ultimaFila; fila++) {
+                for (int columna = primeraColumna; columna <= ultimaColumna; columna++) {
+                    if (!modelo.esCeldaRevelada(fila, columna)) {
+                        editor.establecerEstadoCelda(fila, columna, estado);
+                    }
+                }
+            }
+        });
+    }
+    
+    // Deshace la última jugada del jugador.
+    // 
+    // @return Futuro que termina cuando se deshizo
+    public CompletableFuture<Void> deshacer() {
+        return ejecutor.enviar(new ComandoModelo<Void>("deshacer", modelo -> {
+            if (modelo.obtenerEstadoJuego() == EstadoJuego.JUGANDO) {
+                modelo.deshacer();
+            }
+            return null;
+        }));
+    }
+    
+    // Rehace la última jugada deshecha.
+    // 
+    // @return Futuro que termina cuando se rehizo
+    public CompletableFuture<Void> rehacer() {
+        return ejecutor.enviar(new ComandoModelo<Void>("rehacer", modelo -> {
+            if (modelo.obtenerEstadoJuego() == EstadoJuego.JUGANDO) {
+                modelo.rehacer();
+            }
+            return null;
+        }));
     }
     
     // Inicia un nuevo juego.
-    public void nuevoJuego() {
-        modelo.nuevoJuego();
+    // 
+    // @return Futuro que termina cuando el puzzle nuevo está en juego
+    public CompletableFuture<Void> nuevoJuego() {
+        CompletableFuture<Void> comando = ejecutor.enviar(new ComandoModelo<Void>("nuevoJuego", modelo -> {
+            modelo.nuevoJuego();
+            return null;
+        }));
         // Deshabilitar el botón de ver solución en nuevo juego
-        vista.deshabilitarBotonSolucion();
+        return luegoEnVista(comando, resultado -> vista.deshabilitarBotonSolucion());
+    }
+    
+    // Inicia un juego sin nivel con un tablero de cualquier tamaño.
+    // 
+    // @param filas Cantidad de filas, hasta ModeloNonograma.LADO_MAXIMO
+    // @param columnas Cantidad de columnas, hasta ModeloNonograma.LADO_MAXIMO
+    // @return Futuro que termina cuando el tablero está en juego; falla con
+    //         IllegalArgumentException si el tamaño no es válido
+    public CompletableFuture<Void> nuevoJuegoPersonalizado(int filas, int columnas) {
+        CompletableFuture<Void> comando = ejecutor.enviar(new ComandoModelo<Void>("nuevoJuegoPersonalizado",
+                modelo -> {
+                    modelo.nuevoJuegoPersonalizado(filas, columnas);
+                    return null;
+                }));
+        return luegoEnVista(comando, resultado -> vista.deshabilitarBotonSolucion());
     }
     
     // Reinicia el juego actual.
-    public void reiniciarJuego() {
-        modelo.reiniciarJuego();
+    // 
+    // @return Futuro que termina cuando el tablero quedó vacío
+    public CompletableFuture<Void> reiniciarJuego() {
+        return ejecutor.enviar(new ComandoModelo<Void>("reiniciar", modelo -> {
+            modelo.reiniciarJuego();
+            return null;
+        }));
     }
     
     // Verifica la solución actual del jugador.
-    public void verificarSolucion() {
+    // 
+    // @return Futuro con true si la solución es correcta
+    public CompletableFuture<Boolean> verificarSolucion() {
+        CompletableFuture<Boolean> comando = ejecutor.enviar(
+                new ComandoModelo<>("verificar", ModeloNonograma::verificarSolucion));
         // Verificar si la solución es correcta
-        if (modelo.verificarSolucion()) {
-            vista.mostrarJuegoGanado();
-        } else {
-            vista.mostrarJuegoPerdido();
-        }
+        return luegoEnVista(comando, correcta -> {
+            if (correcta) {
+                vista.mostrarJuegoGanado();
+            } else {
+                vista.mostrarJuegoPerdido();
+            }
+        });
     }
     
-    // Muestra la solución del puzzle.
+    // Muestra la solución del puzzle con el último estado entregado a la vista.
     public void mostrarSolucion() {
-        vista.mostrarSolucion(modelo);
+        vista.mostrarSolucion(obtenerLectura());
     }
     
     // Solicita una pista al modelo.
     // 
-    // @return true si se pudo revelar una pista, false si no hay pistas disponibles
-    public boolean solicitarPista() {
-        return modelo.solicitarPista();
+    // @return Futuro con true si se pudo revelar una pista, false si no hay pistas disponibles
+    public CompletableFuture<Boolean> solicitarPista() {
+        return ejecutor.enviar(new ComandoModelo<>("pista", ModeloNonograma::solicitarPista));
     }
     
     // Cambia el nivel de dificultad del juego.
     // 
     // @param nivel Nuevo nivel de dificultad
-    public void cambiarNivel(NivelDificultad nivel) {
-        modelo.cambiarNivel(nivel);
+    // @return Futuro que termina cuando el puzzle del nivel está en juego
+    public CompletableFuture<Void> cambiarNivel(NivelDificultad nivel) {
+        CompletableFuture<Void> comando = ejecutor.enviar(new ComandoModelo<Void>("cambiarNivel", modelo -> {
+            modelo.cambiarNivel(nivel);
+            return null;
+        }));
         // Deshabilitar el botón de ver solución al cambiar nivel
-        vista.deshabilitarBotonSolucion();
+        return luegoEnVista(comando, resultado -> vista.deshabilitarBotonSolucion());
+    }
+    
+    // Guarda la partida actual en un archivo. El archivo se escribe en el
+    // hilo del modelo, así guarda exactamente las jugadas enviadas antes.
+    // 
+    // @param archivo Ruta del archivo
+    // @return Futuro que termina al escribir el archivo; falla con IOException
+    //         si no se puede escribir
+    public CompletableFuture<Void> guardarPartida(Path archivo) {
+        return ejecutor.enviar(new ComandoModelo<Void>("guardar", modelo -> {
+            ArchivoPartida.guardar(modelo.obtenerInstantanea(), archivo);
+            return null;
+        }));
     }
     
-    // Obtiene el número de pistas disponibles.
+    // Carga una partida guardada y la pone en juego.
+    // 
+    // @param archivo Ruta del archivo
+    // @return Futuro que termina cuando la partida está en juego; falla con
+    //         IOException si el archivo no existe o está dañado
+    public CompletableFuture<Void> cargarPartida(Path archivo) {
+        CompletableFuture<Void> comando = ejecutor.enviar(new ComandoModelo<Void>("cargar", modelo -> {
+            modelo.restaurar(ArchivoPartida.cargar(archivo));
+            return null;
+        }));
+        return luegoEnVista(comando, resultado -> vista.deshabilitarBotonSolucion());
+    }
+    
+    // Establece el catálogo de puzzles donde se guardan las colecciones importadas.
+    // 
+    // @param catalogo Catálogo abierto
+    public void establecerCatalogo(CatalogoPuzzles catalogo) {
+        this.catalogo = catalogo;
+    }
+    
+    // Importa una colección de puzzles (.non, XML o JSON) al catálogo. La
+    // importación corre en segundo plano y al terminar la vista muestra el resumen.
+    // Los niveles del catálogo son cuadrados, así que los puzzles rectangulares
+    // válidos no se guardan y sólo se cuentan.
+    // 
+    // @param archivo Archivo de la colección
+    public void importarColeccion(Path archivo) {
+        if (catalogo == null) {
+            throw new IllegalStateException("No hay un catálogo de puzzles abierto");
+        }
+        CatalogoPuzzles destino = catalogo;
+        Thread.ofVirtual().name("importacion").start(() -> {
+            String mensaje;
+            try {
+                int antes = destino.obtenerCantidad();
+                int[] rectangulares = new int[1];
+                ResumenImportacion resumen = new ImportadorPuzzles().importar(archivo, importado -> {
+                    if (!importado.esValido()) {
+                        return;
+                    }
+                    PuzzleGenerado puzzle = importado.obtenerPuzzle();
+                    if (puzzle.obtenerFilas() != puzzle.obtenerColumnas()) {
+                        rectangulares[0]++;
+                        return;
+                    }
+                    try {
+                        destino.agregar(puzzle);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                destino.sincronizar();
+                mensaje = resumen + ". Puzzles nuevos en el catálogo: " + (destino.obtenerCantidad() - antes);
+                if (rectangulares[0] > 0) {
+                    mensaje += ". No se guardaron " + rectangulares[0] + " puzzles rectangulares";
+                }
+            } catch (IOException e) {
+                mensaje = "No se pudo importar: " + e.getMessage();
+            } catch (UncheckedIOException e) {
+                mensaje = "No se pudo importar: " + e.getCause().getMessage();
+            }
+            String resultado = mensaje;
+            hiloVista.ejecutarLuego(() -> vista.mostrarResultadoImportacion(resultado));
+        });
+    }
+    
+    // Obtiene el número de pistas disponibles que ve la vista.
     // 
     // @return Número de pistas disponibles
     public int obtenerPistasDisponibles() {
-        return modelo.obtenerPistasDisponibles();
+        return obtenerLectura().obtenerPistasDisponibles();
     }
     
 
     
-    // Obtiene el nivel de dificultad actual.
+    // Obtiene el nivel de dificultad que ve la vista.
     // 
-    // @return Nivel de dificultad actual
+    // @return Nivel de dificultad actual, o null si el tablero no tiene nivel
     public NivelDificultad obtenerNivelActual() {
-        return modelo.obtenerNivelActual();
+        return ejecutor.tieneHiloPropio() ? instantaneaVista.obtenerNivel() : modelo.obtenerNivelActual();
     }
     
     // Obtiene todos los niveles disponibles.
@@ -128,16 +440,90 @@ public class ControladorNonograma {
         return ModeloNonograma.obtenerNivelesDisponibles();
     }
     
+    // Indica si hay acciones enviadas que el modelo todavía no terminó.
+    // 
+    // @return true si hay comandos pendientes
+    public boolean hayComandosPendientes() {
+        return ejecutor.estaOcupado();
+    }
+    
 
     
-    // Actualiza la vista con los datos del modelo.
-    private void actualizarVista() {
-        vista.actualizarVisualizacion();
+    // Actualiza la vista con lo que cambió en el modelo.
+    // 
+    // @param cambio Cambio notificado por el modelo
+    private void actualizarVista(CambioModelo cambio) {
+        vista.actualizarCambio(cambio);
     }
     
+    // Corre en el hilo del modelo cuando se vacía la cola: toma una sola
+    // instantánea para todos los cambios juntados y se los pasa a la vista.
+    private void publicarCambios() {
+        if (cambiosPendientes.isEmpty()) {
+            return;
+        }
+        CambioModelo[] cambios = cambiosPendientes.toArray(new CambioModelo[0]);
+        cambiosPendientes.clear();
+        InstantaneaModelo instantanea = modelo.obtenerInstantanea();
+        hiloVista.ejecutarLuego(() -> entregarCambios(cambios, instantanea));
+    }
+    
+    // Entrega en orden una tanda de cambios, todos con la instantánea de
+    // después del último. Lo que queda tapado por un cambio posterior de
+    // todo el tablero no se entrega.
+    private void entregarCambios(CambioModelo[] cambios, InstantaneaModelo instantanea) {
+        instantaneaVista = instantanea;
+        int primero = 0;
+        for (int i = 0; i < cambios.length; i++) {
+            if (cambios[i].incluye(TipoCambio.PISTAS_REEMPLAZADAS)) {
+                primero = i; // Puzzle nuevo: lo anterior ya no se ve
+            }
+        }
+        int ultimoReinicio = -1;
+        for (int i = primero; i < cambios.length; i++) {
+            if (cambios[i].incluye(TipoCambio.TABLERO_REINICIADO)) {
+                ultimoReinicio = i;
+            }
+        }
+        for (int i = primero; i < cambios.length; i++) {
+            CambioModelo cambio = cambios[i];
+            if (i < ultimoReinicio && estaCubierto(cambio, cambios[ultimoReinicio])) {
+                continue;
+            }
+            actualizarVista(cambio.conInstantanea(instantanea));
+        }
+    }
+    
+    // Un cambio está cubierto por un reinicio posterior si el reinicio ya
+    // actualiza todo lo que él actualiza
+    private static boolean estaCubierto(CambioModelo cambio, CambioModelo reinicio) {
+        for (TipoCambio tipo : TipoCambio.values()) {
+            if (cambio.incluye(tipo) && tipo != TipoCambio.CELDA && !reinicio.incluye(tipo)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    // Cuando el comando termina bien, ejecuta una tarea en el hilo de la vista
+    // antes que lo que encadene quien envió el comando
+    private <T> CompletableFuture<T> luegoEnVista(CompletableFuture<T> comando, Consumer<T> tarea) {
+        return comando.thenApply(resultado -> {
+            hiloVista.ejecutarLuego(() -> tarea.accept(resultado));
+            return resultado;
+        });
+    }
+    
+    // Obtiene lo que puede leer la vista: con el modelo en su propio hilo, la
+    // última instantánea entregada; si no, el modelo mismo.
+    // 
+    // @return Estado del juego para la vista
+    public LecturaNonograma obtenerLectura() {
+        return ejecutor.tieneHiloPropio() ? instantaneaVista : modelo;
+    }
 
-
-    // Obtiene el modelo del juego.
+    // Obtiene el modelo del juego. Con el modelo en su propio hilo sólo se
+    // puede usar desde los comandos.
     // 
     // @return El modelo del juego
     public ModeloNonograma obtenerModelo() {
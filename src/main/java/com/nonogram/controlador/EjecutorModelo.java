@@ -0,0 +1,202 @@
+package com.nonogram.controlador;
+
+import com.nonogram.model.ModeloNonograma;
+
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Único hilo que escribe el modelo. Aplica los comandos de a uno, en el
+// orden en que se enviaron, así el resultado no depende de cuánto tarde cada
+// uno y el modelo no necesita locks.
+//
+// Cada comando devuelve un CompletableFuture, pero los futuros no se
+// completan apenas termina su comando: se juntan y se completan cuando la
+// cola se vacía, después de ejecutar la tarea de publicación
+// (establecerPublicacion). Así una ráfaga de comandos produce una sola
+// publicación, y lo que se encadene a un futuro ve siempre los cambios de su
+// comando ya publicados.
+//
+// Con enHiloQueLlama no hay hilo propio: cada comando se aplica en el hilo
+// que lo envía y su futuro vuelve completo. Lo usan el modo consola y el
+// simulador, que quieren todo en orden y sin hilos.
+public class EjecutorModelo {
+
+    private static final int MAXIMO_SIN_PUBLICAR = 64; // Una ráfaga larga publica cada tantos comandos
+
+    // Recibe los cambios entre ocupado (hay comandos sin terminar) y libre.
+    public interface OyenteOcupado {
+        // Se llama en el hilo que envía el primer comando o en el del modelo
+        // al terminar el último; hay que leer estaOcupado para saber el estado actual.
+        void alCambiarOcupado();
+    }
+
+    private final ModeloNonograma modelo;
+    private final BlockingQueue<Runnable> cola; // null: los comandos corren en el hilo que los envía
+    private final Thread hilo;
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final ArrayList<Runnable> completaciones = new ArrayList<>(); // Sólo del hilo del modelo
+    private volatile Runnable publicacion = () -> { };
+    private volatile OyenteOcupado oyenteOcupado;
+
+    private EjecutorModelo(ModeloNonograma modelo, String nombreHilo) {
+        if (modelo == null) {
+            throw new IllegalArgumentException("Falta el modelo");
+        }
+        this.modelo = modelo;
+        if (nombreHilo == null) {
+            cola = null;
+            hilo = null;
+        } else {
+            cola = new LinkedBlockingQueue<>();
+            hilo = new Thread(this::atender, nombreHilo);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+    }
+
+    // Crea un ejecutor con un hilo propio para el modelo.
+    //
+    // @param modelo Modelo del juego; desde ahora sólo se cambia con comandos
+    // @param nombreHilo Nombre del hilo
+    // @return Ejecutor listo para recibir comandos
+    public static EjecutorModelo enHiloPropio(ModeloNonograma modelo, String nombreHilo) {
+        if (nombreHilo == null) {
+            throw new IllegalArgumentException("Falta el nombre del hilo");
+        }
+        return new EjecutorModelo(modelo, nombreHilo);
+    }
+
+    // Crea un ejecutor que aplica cada comando en el hilo que lo envía.
+    //
+    // @param modelo Modelo del juego
+    // @return Ejecutor sin hilo propio
+    public static EjecutorModelo enHiloQueLlama(ModeloNonograma modelo) {
+        return new EjecutorModelo(modelo, null);
+    }
+
+    // Establece la tarea que se ejecuta en el hilo del modelo cuando la cola
+    // se vacía, antes de completar los futuros de los comandos que terminaron.
+    //
+    // @param publicacion Tarea de publicación
+    public void establecerPublicacion(Runnable publicacion) {
+        this.publicacion = publicacion != null ? publicacion : () -> { };
+    }
+
+    // Establece quién se entera de que el ejecutor pasó a estar ocupado o libre.
+    //
+    // @param oyente Oyente, o null para ninguno
+    public void establecerOyenteOcupado(OyenteOcupado oyente) {
+        this.oyenteOcupado = oyente;
+    }
+
+    // Envía un comando. Con hilo propio vuelve enseguida; si no, después de aplicarlo.
+    // No hay que esperar el futuro desde el hilo del modelo: el comando no
+    // correría nunca.
+    //
+    // @param comando Comando a aplicar
+    // @return Futuro con el resultado del comando, o con su error
+    public <T> CompletableFuture<T> enviar(ComandoModelo<T> comando) {
+        if (comando == null) {
+            throw new IllegalArgumentException("Falta el comando");
+        }
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        if (pendientes.getAndIncrement() == 0) {
+            avisarOcupado();
+        }
+        Runnable tarea = () -> aplicar(comando, futuro);
+        if (cola == null) {
+            tarea.run();
+            publicar();
+        } else {
+            cola.add(tarea);
+        }
+        return futuro;
+    }
+
+    // Indica si hay comandos enviados que todavía no terminaron.
+    //
+    // @return true si hay comandos pendientes
+    public boolean estaOcupado() {
+        return pendientes.get() > 0;
+    }
+
+    // Indica si los comandos corren en un hilo propio.
+    //
+    // @return true si el ejecutor tiene su hilo
+    public boolean tieneHiloPropio() {
+        return hilo != null;
+    }
+
+    // Indica si el hilo que llama es el que aplica los comandos.
+    //
+    // @return true en el hilo del modelo
+    public boolean esHiloDelModelo() {
+        return hilo == null || Thread.currentThread() == hilo;
+    }
+
+    private void atender() {
+        while (true) {
+            Runnable tarea;
+            try {
+                tarea = cola.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            tarea.run();
+            if (cola.isEmpty() || completaciones.size() >= MAXIMO_SIN_PUBLICAR) {
+                publicar();
+            }
+        }
+    }
+
+    // Aplica un comando y deja su futuro listo para completarse en la próxima publicación
+    private <T> void aplicar(ComandoModelo<T> comando, CompletableFuture<T> futuro) {
+        T resultado = null;
+        Throwable error = null;
+        try {
+            resultado = comando.aplicar(modelo);
+        } catch (Throwable e) {
+            // También los Error: el hilo del modelo tiene que seguir atendiendo
+            error = e;
+        }
+        T obtenido = resultado;
+        Throwable fallo = error;
+        completaciones.add(() -> {
+            if (fallo != null) {
+                futuro.completeExceptionally(fallo);
+            } else {
+                futuro.complete(obtenido);
+            }
+        });
+    }
+
+    private void publicar() {
+        try {
+            publicacion.run();
+        } catch (RuntimeException e) {
+            // Un error al publicar no puede dejar al hilo del modelo ni a los futuros colgados
+            Thread actual = Thread.currentThread();
+            actual.getUncaughtExceptionHandler().uncaughtException(actual, e);
+        } finally {
+            // Lo encadenado a un futuro puede enviar otros comandos; se completan sólo los de esta ronda
+            Runnable[] terminados = completaciones.toArray(new Runnable[0]);
+            completaciones.clear();
+            for (Runnable completar : terminados) {
+                if (pendientes.decrementAndGet() == 0) {
+                    avisarOcupado();
+                }
+                completar.run();
+            }
+        }
+    }
+
+    private void avisarOcupado() {
+        OyenteOcupado oyente = oyenteOcupado;
+        if (oyente != null) {
+            oyente.alCambiarOcupado();
+        }
+    }
+}
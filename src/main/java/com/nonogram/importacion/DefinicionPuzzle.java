@@ -0,0 +1,168 @@
+package com.nonogram.importacion;
+
+import java.util.List;
+
+// Pistas de un puzzle tal como se leyeron de un archivo, todavía sin resolver.
+//
+// Las pistas se guardan aplanadas como en el solucionador: los bloques de la
+// línea l (filas primero, después columnas) ocupan largos[inicios[l]] hasta
+// largos[inicios[l + 1] - 1]. Si el puzzle está mal escrito (faltan líneas,
+// una pista no entra en su línea, un número no se entiende) la definición
+// guarda el error en lugar de las pistas, y el importador lo rechaza sin que
+// eso corte la lectura del resto del archivo.
+public class DefinicionPuzzle {
+
+    // Máximo de filas o columnas que aceptan los lectores (y largo máximo de un bloque)
+    static final int LINEAS_MAXIMAS = 32_768;
+
+    private final long indice;
+    private final int linea;
+    private final String titulo;
+    private final int filas;
+    private final int columnas;
+    private final int[] largos;
+    private final int[] inicios;
+    private final String error;
+
+    private DefinicionPuzzle(long indice, int linea, String titulo, int filas, int columnas,
+                             int[] largos, int[] inicios, String error) {
+        this.indice = indice;
+        this.linea = linea;
+        this.titulo = titulo;
+        this.filas = filas;
+        this.columnas = columnas;
+        this.largos = largos;
+        this.inicios = inicios;
+        this.error = error;
+    }
+
+    // Arma una definición a partir de las pistas de cada línea, comprobando
+    // que coincidan con las dimensiones declaradas y que cada pista entre en su línea.
+    //
+    // @param indice Posición del puzzle en el archivo, desde 0
+    // @param linea Línea del archivo donde empieza el puzzle
+    // @param titulo Título, o null si el archivo no lo trae
+    // @param ancho Ancho declarado, o -1 si no se declaró
+    // @param alto Alto declarado, o -1 si no se declaró
+    // @param pistasFilas Bloques de cada fila (una línea vacía es un arreglo vacío)
+    // @param pistasColumnas Bloques de cada columna
+    // @return Definición con las pistas aplanadas, o con el error encontrado
+    static DefinicionPuzzle desdeLineas(long indice, int linea, String titulo, int ancho, int alto,
+                                        List<int[]> pistasFilas, List<int[]> pistasColumnas) {
+        int filas = pistasFilas.size();
+        int columnas = pistasColumnas.size();
+        if (filas == 0 || columnas == 0) {
+            return conError(indice, linea, titulo, "faltan las pistas de filas o de columnas");
+        }
+        if ((alto >= 0 && alto != filas) || (ancho >= 0 && ancho != columnas)) {
+            return conError(indice, linea, titulo, "se declararon " + ancho + "x" + alto
+                    + " pero hay " + columnas + " columnas y " + filas + " filas");
+        }
+        int[] inicios = new int[filas + columnas + 1];
+        int total = 0;
+        for (int l = 0; l < filas + columnas; l++) {
+            int[] bloques = l < filas ? pistasFilas.get(l) : pistasColumnas.get(l - filas);
+            int largoLinea = l < filas ? columnas : filas;
+            long ocupadas = 0;
+            for (int bloque : bloques) {
+                if (bloque <= 0) {
+                    return conError(indice, linea, titulo, "bloque de largo " + bloque + " en "
+                            + nombrarLinea(l, filas));
+                }
+                ocupadas += bloque;
+            }
+            ocupadas += Math.max(0, bloques.length - 1);
+            if (ocupadas > largoLinea) {
+                return conError(indice, linea, titulo, "la pista de " + nombrarLinea(l, filas) + " no entra");
+            }
+            inicios[l] = total;
+            total += bloques.length;
+        }
+        inicios[filas + columnas] = total;
+
+        int[] largos = new int[total];
+        for (int l = 0; l < filas + columnas; l++) {
+            int[] bloques = l < filas ? pistasFilas.get(l) : pistasColumnas.get(l - filas);
+            System.arraycopy(bloques, 0, largos, inicios[l], bloques.length);
+        }
+        return new DefinicionPuzzle(indice, linea, titulo, filas, columnas, largos, inicios, null);
+    }
+
+    // Arma una definición que sólo guarda por qué no se pudo leer el puzzle.
+    //
+    // @param indice Posición del puzzle en el archivo, desde 0
+    // @param linea Línea del archivo donde empieza el puzzle
+    // @param titulo Título, o null si no se llegó a leer
+    // @param error Descripción del problema
+    // @return Definición con error
+    static DefinicionPuzzle conError(long indice, int linea, String titulo, String error) {
+        return new DefinicionPuzzle(indice, linea, titulo, 0, 0, null, null, error);
+    }
+
+    private static String nombrarLinea(int linea, int filas) {
+        return linea < filas ? "la fila " + (linea + 1) : "la columna " + (linea - filas + 1);
+    }
+
+    // Obtiene la posición del puzzle en el archivo.
+    //
+    // @return Índice desde 0
+    public long obtenerIndice() {
+        return indice;
+    }
+
+    // Obtiene la línea del archivo donde empieza el puzzle.
+    //
+    // @return Número de línea desde 1
+    public int obtenerLinea() {
+        return linea;
+    }
+
+    // Obtiene el título del puzzle.
+    //
+    // @return Título, o null si el archivo no lo trae
+    public String obtenerTitulo() {
+        return titulo;
+    }
+
+    // Indica si el puzzle se pudo leer.
+    //
+    // @return true si las pistas están completas y son coherentes
+    public boolean esValida() {
+        return error == null;
+    }
+
+    // Obtiene el problema encontrado al leer el puzzle.
+    //
+    // @return Descripción del error, o null si la definición es válida
+    public String obtenerError() {
+        return error;
+    }
+
+    // Obtiene la cantidad de filas.
+    //
+    // @return Cantidad de filas (0 si la definición tiene error)
+    public int obtenerFilas() {
+        return filas;
+    }
+
+    // Obtiene la cantidad de columnas.
+    //
+    // @return Cantidad de columnas (0 si la definición tiene error)
+    public int obtenerColumnas() {
+        return columnas;
+    }
+
+    // Obtiene los largos de todos los bloques, filas primero. No se debe modificar.
+    //
+    // @return Largos de los bloques, o null si la definición tiene error
+    public int[] obtenerLargos() {
+        return largos;
+    }
+
+    // Obtiene la posición del primer bloque de cada línea. No se debe modificar.
+    //
+    // @return Arreglo con filas + columnas + 1 posiciones, o null si la definición tiene error
+    public int[] obtenerInicios() {
+        return inicios;
+    }
+}
@@ -0,0 +1,233 @@
+package com.nonogram.importacion;
+
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.GrillaBits;
+import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.PuzzleGenerado;
+import com.nonogram.solver.ResultadoSolucion;
+import com.nonogram.solver.SolucionadorNonograma;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// Importa colecciones de puzzles (.non, XML o JSON) y valida cada puzzle
+// resolviéndolo.
+//
+// El hilo que llama lee el archivo con un LectorPuzzles y arma bloques de
+// puzzles; cada bloque se valida en un hilo virtual, así que los bloques se
+// resuelven en paralelo hasta la cantidad de núcleos. Los resultados se
+// entregan en el hilo que llama y en el orden del archivo. Como mucho hay
+// unos pocos bloques en curso: si los hilos no dan abasto, la lectura espera
+// (contrapresión) y la memoria no crece con el tamaño del archivo.
+//
+// Un puzzle es válido si se puede jugar: ningún lado pasa de
+// ModeloNonograma.LADO_MAXIMO y las pistas tienen exactamente una solución,
+// que se encuentra dentro del límite de trabajo.
+public class ImportadorPuzzles {
+
+    // Puzzles por bloque de validación
+    public static final int TAMAÑO_BLOQUE_POR_DEFECTO = 256;
+
+    // Líneas resueltas como máximo por puzzle; no depende de la máquina, así
+    // que el mismo archivo siempre acepta los mismos puzzles
+    public static final long LIMITE_LINEAS_POR_DEFECTO = 5_000_000;
+
+    private final int tamañoBloque;
+    private final int bloquesEnCurso;
+    private final long limiteLineas;
+
+    // Constructor del importador.
+    //
+    // @param tamañoBloque Puzzles por bloque de validación
+    // @param bloquesEnCurso Bloques que se validan a la vez como máximo
+    // @param limiteLineas Líneas resueltas como máximo por puzzle
+    public ImportadorPuzzles(int tamañoBloque, int bloquesEnCurso, long limiteLineas) {
+        if (tamañoBloque < 1 || bloquesEnCurso < 1 || limiteLineas < 1) {
+            throw new IllegalArgumentException("Parámetros de importación inválidos");
+        }
+        this.tamañoBloque = tamañoBloque;
+        this.bloquesEnCurso = bloquesEnCurso;
+        this.limiteLineas = limiteLineas;
+    }
+
+    // Constructor con bloques por defecto y dos bloques en curso por núcleo.
+    public ImportadorPuzzles() {
+        this(TAMAÑO_BLOQUE_POR_DEFECTO, 2 * Runtime.getRuntime().availableProcessors(), LIMITE_LINEAS_POR_DEFECTO);
+    }
+
+    // Importa un archivo, reconociendo el formato por su primer carácter: '<'
+    // es XML, '{' o '[' es JSON y cualquier otro es .non.
+    //
+    // @param archivo Archivo a importar
+    // @param destino Recibe cada puzzle, válido o no, en el orden del archivo
+    // @return Totales de la importación
+    // @throws IOException Si el archivo no se puede leer o no tiene el formato esperado
+    public ResumenImportacion importar(Path archivo, Consumer<PuzzleImportado> destino) throws IOException {
+        try (LectorPuzzles lector = abrir(archivo)) {
+            return importar(lector, destino);
+        }
+    }
+
+    // Importa los puzzles de un lector ya abierto. El lector no se cierra.
+    //
+    // @param lector Lector de puzzles
+    // @param destino Recibe cada puzzle, válido o no, en el orden del lector
+    // @return Totales de la importación
+    // @throws IOException Si el lector falla
+    public ResumenImportacion importar(LectorPuzzles lector, Consumer<PuzzleImportado> destino) throws IOException {
+        long inicio = System.nanoTime();
+        long leidos = 0;
+        long validos = 0;
+        ArrayDeque<Future<List<PuzzleImportado>>> enCurso = new ArrayDeque<>();
+        ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<DefinicionPuzzle> bloque = new ArrayList<>(tamañoBloque);
+            DefinicionPuzzle definicion;
+            while ((definicion = lector.siguiente()) != null) {
+                leidos++;
+                bloque.add(definicion);
+                if (bloque.size() == tamañoBloque) {
+                    enCurso.add(enviar(hilos, bloque));
+                    bloque = new ArrayList<>(tamañoBloque);
+                    // Con el máximo de bloques en curso se entrega el más viejo antes de seguir leyendo
+                    while (enCurso.size() >= bloquesEnCurso) {
+                        validos += entregar(enCurso.poll(), destino);
+                    }
+                }
+            }
+            if (!bloque.isEmpty()) {
+                enCurso.add(enviar(hilos, bloque));
+            }
+            while (!enCurso.isEmpty()) {
+                validos += entregar(enCurso.poll(), destino);
+            }
+        } finally {
+            hilos.shutdownNow();
+        }
+        return new ResumenImportacion(leidos, validos, System.nanoTime() - inicio);
+    }
+
+    // Abre un lector para un archivo según su primer carácter.
+    //
+    // @param archivo Archivo a leer
+    // @return Lector del formato del archivo
+    // @throws IOException Si el archivo no se puede abrir
+    public static LectorPuzzles abrir(Path archivo) throws IOException {
+        BufferedReader entrada = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+        try {
+            entrada.mark(4096);
+            int c;
+            do {
+                c = entrada.read();
+            } while (c != -1 && (Character.isWhitespace(c) || c == '\uFEFF'));
+            entrada.reset();
+            if (c == '<') {
+                return new LectorXml(entrada);
+            }
+            if (c == '{' || c == '[') {
+                return new LectorJson(entrada);
+            }
+            return new LectorNon(entrada);
+        } catch (IOException | RuntimeException e) {
+            entrada.close();
+            throw e;
+        }
+    }
+
+    // Valida un puzzle resolviéndolo.
+    //
+    // @param definicion Pistas leídas
+    // @return Puzzle importado, válido o con el motivo del rechazo
+    public PuzzleImportado validar(DefinicionPuzzle definicion) {
+        if (!definicion.esValida()) {
+            return new PuzzleImportado(definicion, null, definicion.obtenerError());
+        }
+        int filas = definicion.obtenerFilas();
+        int columnas = definicion.obtenerColumnas();
+        if (filas > ModeloNonograma.LADO_MAXIMO || columnas > ModeloNonograma.LADO_MAXIMO) {
+            return new PuzzleImportado(definicion, null, "el tablero es de " + columnas + "x" + filas
+                    + " y el lado máximo es " + ModeloNonograma.LADO_MAXIMO);
+        }
+        SolucionadorNonograma solucionador = new SolucionadorNonograma(filas, columnas,
+                definicion.obtenerLargos(), definicion.obtenerInicios());
+        solucionador.establecerLimiteLineas(limiteLineas);
+        ResultadoSolucion resultado = solucionador.verificarUnicidad(Long.MAX_VALUE);
+        if (!resultado.esUnica()) {
+            String motivo;
+            if (resultado.seAgotoElPlazo()) {
+                motivo = "no se pudo resolver dentro del límite de " + limiteLineas + " líneas";
+            } else if (!resultado.estaResuelto()) {
+                motivo = "las pistas no tienen solución";
+            } else {
+                motivo = "las pistas tienen más de una solución";
+            }
+            return new PuzzleImportado(definicion, null, motivo);
+        }
+
+        GrillaBits solucion = new GrillaBits(filas, columnas);
+        for (int fila = 0; fila < filas; fila++) {
+            for (int columna = 0; columna < columnas; columna++) {
+                if (resultado.estaLlena(fila, columna)) {
+                    solucion.establecerEstado(fila, columna, EstadoCelda.LLENA);
+                }
+            }
+        }
+        // Las mismas pistas siempre dan la misma semilla, así la partida revela las mismas pistas
+        long semilla = Arrays.hashCode(definicion.obtenerLargos()) * 0x9E3779B97F4A7C15L
+                ^ Arrays.hashCode(definicion.obtenerInicios());
+        // La verificación ya calificó el puzzle; el catálogo no necesita volver a resolverlo
+        int calificacion = resultado.obtenerEstadisticas().calcularCalificacion();
+        return new PuzzleImportado(definicion, PuzzleGenerado.desdeSolucion(solucion, semilla, calificacion), null);
+    }
+
+    private Future<List<PuzzleImportado>> enviar(ExecutorService hilos, List<DefinicionPuzzle> bloque) {
+        return hilos.submit(() -> {
+            List<PuzzleImportado> resultados = new ArrayList<>(bloque.size());
+            for (DefinicionPuzzle definicion : bloque) {
+                resultados.add(validar(definicion));
+            }
+            return resultados;
+        });
+    }
+
+    // Espera un bloque y entrega sus puzzles; devuelve cuántos son válidos.
+    private static long entregar(Future<List<PuzzleImportado>> bloque, Consumer<PuzzleImportado> destino)
+            throws IOException {
+        List<PuzzleImportado> resultados;
+        try {
+            resultados = bloque.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Importación interrumpida");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException error) {
+                throw error;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(e.getCause());
+        }
+        long validos = 0;
+        for (PuzzleImportado puzzle : resultados) {
+            if (puzzle.esValido()) {
+                validos++;
+            }
+            destino.accept(puzzle);
+        }
+        return validos;
+    }
+}
@@ -0,0 +1,372 @@
+package com.nonogram.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Lector de listas de pistas en JSON.
+//
+// Cada puzzle es un objeto con las pistas de filas y columnas como arreglos de
+// arreglos de números; el título es opcional:
+//
+//   {"title": "Pato", "rows": [[1, 2], [3], []], "columns": [[2], [1, 1], [2]]}
+//
+// También se aceptan las claves "titulo"/"name", "filas" y "columnas"/"cols".
+// Los puzzles pueden venir en un arreglo, en un objeto con la clave "puzzles",
+// o uno por línea (JSON Lines). Se lee carácter por carácter con un
+// analizador propio, sin armar el documento completo: sólo el puzzle actual
+// está en memoria. Las demás claves se saltean.
+public class LectorJson implements LectorPuzzles {
+
+    private final BufferedReader entrada;
+    private int numeroLinea = 1;
+    private int caracterPendiente = -2;  // -2: no hay carácter devuelto
+    private int profundidadColeccion;    // Arreglos abiertos que contienen puzzles
+    private boolean comenzado;
+    private boolean enEnvoltorio;        // Dentro de un objeto {"puzzles": [...]}
+    private long indice;
+
+    // Constructor del lector.
+    //
+    // @param entrada Texto JSON a leer; se cierra al cerrar el lector
+    public LectorJson(Reader entrada) {
+        this.entrada = entrada instanceof BufferedReader lector ? lector : new BufferedReader(entrada, 1 << 16);
+    }
+
+    @Override
+    public DefinicionPuzzle siguiente() throws IOException {
+        while (true) {
+            int c = leerSinEspacios();
+            if (c == -1) {
+                if (profundidadColeccion > 0) {
+                    throw error("el archivo termina dentro de un arreglo");
+                }
+                return null;
+            }
+            if (profundidadColeccion > 0 && comenzado && c == ',') {
+                continue;
+            }
+            if (c == ']' && profundidadColeccion > 0) {
+                profundidadColeccion--;
+                if (profundidadColeccion == 0 && enEnvoltorio) {
+                    cerrarEnvoltorio();
+                }
+                continue;
+            }
+            if (c == '[') {
+                profundidadColeccion++;
+                comenzado = false;
+                continue;
+            }
+            if (c != '{') {
+                throw error("se esperaba un puzzle y se encontró '" + (char) c + "'");
+            }
+            comenzado = true;
+            DefinicionPuzzle puzzle = leerPuzzle();
+            if (puzzle != null) {
+                return puzzle;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    // Lee un objeto ya abierto. Devuelve null si el objeto sólo envolvía la
+    // clave "puzzles": en ese caso queda abierto el arreglo de puzzles.
+    private DefinicionPuzzle leerPuzzle() throws IOException {
+        int inicio = numeroLinea;
+        String titulo = null;
+        List<int[]> filas = null;
+        List<int[]> columnas = null;
+        String[] error = new String[1];
+
+        int c = leerSinEspacios();
+        if (c == '}') {
+            return DefinicionPuzzle.conError(indice++, inicio, null, "objeto vacío");
+        }
+        devolver(c);
+        while (true) {
+            String clave = leerCadena();
+            esperar(':');
+            switch (clave) {
+                case "puzzles":
+                    esperar('[');
+                    profundidadColeccion++;
+                    comenzado = false;
+                    enEnvoltorio = profundidadColeccion == 1;
+                    return null;
+                case "title":
+                case "titulo":
+                case "name":
+                    c = leerSinEspacios();
+                    devolver(c);
+                    if (c == '"') {
+                        titulo = leerCadena();
+                    } else {
+                        saltearValor();
+                    }
+                    break;
+                case "rows":
+                case "filas":
+                    filas = leerLineas(error);
+                    break;
+                case "columns":
+                case "columnas":
+                case "cols":
+                    columnas = leerLineas(error);
+                    break;
+                default:
+                    saltearValor();
+            }
+            c = leerSinEspacios();
+            if (c == '}') {
+                break;
+            }
+            if (c != ',') {
+                throw error("se esperaba ',' o '}'");
+            }
+        }
+        long actual = indice++;
+        if (error[0] != null) {
+            return DefinicionPuzzle.conError(actual, inicio, titulo, error[0]);
+        }
+        return DefinicionPuzzle.desdeLineas(actual, inicio, titulo, -1, -1,
+                filas != null ? filas : List.of(), columnas != null ? columnas : List.of());
+    }
+
+    // Saltea las claves que siguen al arreglo "puzzles" hasta cerrar el objeto que lo envuelve.
+    private void cerrarEnvoltorio() throws IOException {
+        enEnvoltorio = false;
+        int c = leerSinEspacios();
+        while (c == ',') {
+            leerCadena();
+            esperar(':');
+            saltearValor();
+            c = leerSinEspacios();
+        }
+        if (c != '}') {
+            throw error("se esperaba '}'");
+        }
+    }
+
+    // Lee un arreglo de líneas de pistas. Los problemas de contenido (números
+    // inválidos) se anotan en error y no cortan la lectura.
+    private List<int[]> leerLineas(String[] error) throws IOException {
+        List<int[]> lineas = new ArrayList<>();
+        esperar('[');
+        int c = leerSinEspacios();
+        if (c == ']') {
+            return lineas;
+        }
+        devolver(c);
+        while (true) {
+            int[] linea = leerLinea(error);
+            if (lineas.size() < DefinicionPuzzle.LINEAS_MAXIMAS) {
+                lineas.add(linea);
+            } else if (error[0] == null) {
+                error[0] = "más de " + DefinicionPuzzle.LINEAS_MAXIMAS + " líneas";
+            }
+            c = leerSinEspacios();
+            if (c == ']') {
+                return lineas;
+            }
+            if (c != ',') {
+                throw error("se esperaba ',' o ']'");
+            }
+        }
+    }
+
+    // Lee una línea: un arreglo de números, o una cadena con el formato de .non ("1,2").
+    private int[] leerLinea(String[] error) throws IOException {
+        int c = leerSinEspacios();
+        if (c == '"') {
+            devolver(c);
+            String texto = leerCadena();
+            int[] bloques = LectorNon.leerBloques(texto.strip());
+            if (bloques == null) {
+                anotar(error, "pista inválida en la línea " + numeroLinea + ": " + texto);
+                return new int[0];
+            }
+            return bloques;
+        }
+        if (c != '[') {
+            throw error("se esperaba una línea de pistas");
+        }
+        int[] bloques = new int[8];
+        int cantidad = 0;
+        boolean cero = false;
+        c = leerSinEspacios();
+        if (c == ']') {
+            return new int[0];
+        }
+        devolver(c);
+        while (true) {
+            long valor = leerNumero();
+            if (valor == 0) {
+                cero = true;
+            } else if (valor < 0 || valor > DefinicionPuzzle.LINEAS_MAXIMAS) {
+                anotar(error, "bloque inválido en la línea " + numeroLinea + ": " + valor);
+            } else {
+                if (cantidad == bloques.length) {
+                    bloques = Arrays.copyOf(bloques, cantidad * 2);
+                }
+                bloques[cantidad++] = (int) valor;
+            }
+            c = leerSinEspacios();
+            if (c == ']') {
+                break;
+            }
+            if (c != ',') {
+                throw error("se esperaba ',' o ']'");
+            }
+        }
+        if (cero && cantidad > 0) {
+            anotar(error, "bloque de largo 0 en la línea " + numeroLinea);
+        }
+        return Arrays.copyOf(bloques, cantidad);
+    }
+
+    private long leerNumero() throws IOException {
+        int c = leerSinEspacios();
+        boolean negativo = c == '-';
+        if (negativo) {
+            c = leer();
+        }
+        if (c < '0' || c > '9') {
+            throw error("se esperaba un número");
+        }
+        long valor = 0;
+        while (c >= '0' && c <= '9') {
+            valor = Math.min(valor * 10 + (c - '0'), Integer.MAX_VALUE);
+            c = leer();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            throw error("los bloques deben ser enteros");
+        }
+        devolver(c);
+        return negativo ? -valor : valor;
+    }
+
+    private String leerCadena() throws IOException {
+        if (leerSinEspacios() != '"') {
+            throw error("se esperaba una cadena");
+        }
+        StringBuilder texto = new StringBuilder();
+        while (true) {
+            int c = leer();
+            if (c == -1 || c == '\n') {
+                throw error("cadena sin cerrar");
+            }
+            if (c == '"') {
+                return texto.toString();
+            }
+            if (c == '\\') {
+                c = leer();
+                switch (c) {
+                    case 'n': texto.append('\n'); break;
+                    case 't': texto.append('\t'); break;
+                    case 'r': texto.append('\r'); break;
+                    case 'b': texto.append('\b'); break;
+                    case 'f': texto.append('\f'); break;
+                    case 'u':
+                        int codigo = 0;
+                        for (int i = 0; i < 4; i++) {
+                            int digito = Character.digit(leer(), 16);
+                            if (digito < 0) {
+                                throw error("escape \\u inválido");
+                            }
+                            codigo = codigo * 16 + digito;
+                        }
+                        texto.append((char) codigo);
+                        break;
+                    case -1:
+                        throw error("cadena sin cerrar");
+                    default:
+                        texto.append((char) c);
+                }
+            } else {
+                texto.append((char) c);
+            }
+        }
+    }
+
+    // Saltea un valor cualquiera (objeto, arreglo, cadena, número o literal).
+    private void saltearValor() throws IOException {
+        int c = leerSinEspacios();
+        if (c == '"') {
+            devolver(c);
+            leerCadena();
+            return;
+        }
+        if (c == '{' || c == '[') {
+            int profundidad = 1;
+            while (profundidad > 0) {
+                c = leerSinEspacios();
+                if (c == -1) {
+                    throw error("el archivo termina dentro de un valor");
+                }
+                if (c == '"') {
+                    devolver(c);
+                    leerCadena();
+                } else if (c == '{' || c == '[') {
+                    profundidad++;
+                } else if (c == '}' || c == ']') {
+                    profundidad--;
+                }
+            }
+            return;
+        }
+        while (c != -1 && c != ',' && c != '}' && c != ']' && !Character.isWhitespace(c)) {
+            c = leer();
+        }
+        devolver(c);
+    }
+
+    private void esperar(char esperado) throws IOException {
+        int c = leerSinEspacios();
+        if (c != esperado) {
+            throw error("se esperaba '" + esperado + "'");
+        }
+    }
+
+    private static void anotar(String[] error, String mensaje) {
+        if (error[0] == null) {
+            error[0] = mensaje;
+        }
+    }
+
+    private int leerSinEspacios() throws IOException {
+        int c;
+        do {
+            c = leer();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\uFEFF');
+        return c;
+    }
+
+    private int leer() throws IOException {
+        if (caracterPendiente != -2) {
+            int c = caracterPendiente;
+            caracterPendiente = -2;
+            return c;
+        }
+        int c = entrada.read();
+        if (c == '\n') {
+            numeroLinea++;
+        }
+        return c;
+    }
+
+    private void devolver(int c) {
+        caracterPendiente = c;
+    }
+
+    private IOException error(String mensaje) {
+        return new IOException("JSON inválido en la línea " + numeroLinea + ": " + mensaje);
+    }
+}
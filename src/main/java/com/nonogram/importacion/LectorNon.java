@@ -0,0 +1,224 @@
+package com.nonogram.importacion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+// Lector del formato de texto .non (el de Steve Simpson).
+//
+// Cada puzzle es una serie de líneas "clave valor" (title, width, height,
+// ...) y dos secciones, "rows" y "columns", seguidas por una línea de pistas
+// por fila o columna, con los bloques separados por comas ("0" o una línea
+// vacía es una línea sin bloques). Las claves que no hacen falta para jugar
+// (autor, licencia, goal, ...) se ignoran.
+//
+// Un archivo puede traer varios puzzles seguidos: uno nuevo empieza cuando,
+// con las filas y las columnas ya leídas, aparece una clave de cabecera o una
+// sección repetida.
+public class LectorNon implements LectorPuzzles {
+
+    private static final List<String> CLAVES_INICIO = List.of("catalogue", "title", "by", "copyright",
+            "license", "width", "height");
+
+    private final BufferedReader entrada;
+    private int numeroLinea;
+    private String lineaPendiente;   // Línea leída de más, que pertenece al próximo puzzle o sección
+    private long indice;
+
+    // Estado del puzzle que se está leyendo
+    private String error;
+
+    // Constructor del lector.
+    //
+    // @param entrada Texto a leer; se cierra al cerrar el lector
+    public LectorNon(Reader entrada) {
+        this.entrada = entrada instanceof BufferedReader lector ? lector : new BufferedReader(entrada, 1 << 16);
+    }
+
+    @Override
+    public DefinicionPuzzle siguiente() throws IOException {
+        String titulo = null;
+        int ancho = -1;
+        int alto = -1;
+        List<int[]> filas = null;
+        List<int[]> columnas = null;
+        int inicio = -1;
+        error = null;
+
+        String linea;
+        while ((linea = leerLinea()) != null) {
+            String texto = linea.strip();
+            if (texto.isEmpty() || texto.startsWith("#")) {
+                continue;
+            }
+            int separador = buscarEspacio(texto);
+            String clave = (separador < 0 ? texto : texto.substring(0, separador)).toLowerCase(Locale.ROOT);
+            String valor = separador < 0 ? "" : texto.substring(separador + 1).strip();
+            boolean completo = filas != null && columnas != null;
+            if ((completo && CLAVES_INICIO.contains(clave))
+                    || (clave.equals("rows") && filas != null) || (clave.equals("columns") && columnas != null)) {
+                lineaPendiente = linea;
+                break;
+            }
+            if (inicio < 0) {
+                inicio = numeroLinea;
+            }
+            switch (clave) {
+                case "title":
+                    titulo = sacarComillas(valor);
+                    break;
+                case "width":
+                    ancho = leerDimension(valor, "width");
+                    break;
+                case "height":
+                    alto = leerDimension(valor, "height");
+                    break;
+                case "rows":
+                    filas = leerSeccion(alto, "rows");
+                    break;
+                case "columns":
+                    columnas = leerSeccion(ancho, "columns");
+                    break;
+                default:
+                    // Datos que no hacen falta para jugar
+            }
+        }
+        if (inicio < 0) {
+            return null;
+        }
+        long actual = indice++;
+        if (error != null) {
+            return DefinicionPuzzle.conError(actual, inicio, titulo, error);
+        }
+        return DefinicionPuzzle.desdeLineas(actual, inicio, titulo, ancho, alto,
+                filas != null ? filas : List.of(), columnas != null ? columnas : List.of());
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    // Lee las líneas de pistas de una sección. Con la cantidad declarada se leen
+    // exactamente esas líneas; si no, mientras las líneas empiecen con un número.
+    private List<int[]> leerSeccion(int cantidad, String seccion) throws IOException {
+        List<int[]> lineas = new ArrayList<>(cantidad >= 0 ? cantidad : 16);
+        String linea;
+        while ((cantidad < 0 || lineas.size() < cantidad) && (linea = leerLinea()) != null) {
+            String texto = linea.strip();
+            if (texto.startsWith("#")) {
+                continue;
+            }
+            boolean esPista = texto.isEmpty() || Character.isDigit(texto.charAt(0));
+            if (!esPista || (cantidad < 0 && texto.isEmpty())) {
+                if (!esPista) {
+                    lineaPendiente = linea;
+                }
+                break;
+            }
+            if (lineas.size() == DefinicionPuzzle.LINEAS_MAXIMAS) {
+                registrarError("la sección " + seccion + " tiene más de " + DefinicionPuzzle.LINEAS_MAXIMAS + " líneas");
+                continue;
+            }
+            int[] bloques = leerBloques(texto);
+            if (bloques == null) {
+                registrarError("pista inválida en la línea " + numeroLinea + ": " + texto);
+                bloques = new int[0];
+            }
+            lineas.add(bloques);
+        }
+        if (cantidad >= 0 && lineas.size() < cantidad) {
+            registrarError("la sección " + seccion + " tiene " + lineas.size() + " líneas y se esperaban " + cantidad);
+        }
+        return lineas;
+    }
+
+    private int leerDimension(String valor, String clave) {
+        try {
+            int dimension = Integer.parseInt(valor);
+            if (dimension > 0 && dimension <= DefinicionPuzzle.LINEAS_MAXIMAS) {
+                return dimension;
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo
+        }
+        registrarError(clave + " inválido en la línea " + numeroLinea + ": " + valor);
+        return -1;
+    }
+
+    private void registrarError(String mensaje) {
+        if (error == null) {
+            error = mensaje;
+        }
+    }
+
+    private String leerLinea() throws IOException {
+        if (lineaPendiente != null) {
+            String linea = lineaPendiente;
+            lineaPendiente = null;
+            return linea;
+        }
+        String linea = entrada.readLine();
+        if (linea != null) {
+            numeroLinea++;
+        }
+        return linea;
+    }
+
+    // Interpreta una línea de pistas: números positivos separados por comas o
+    // espacios. "0" y la línea vacía son una línea sin bloques.
+    //
+    // @param texto Línea de pistas
+    // @return Largos de los bloques, o null si la línea no se entiende
+    static int[] leerBloques(String texto) {
+        int[] bloques = new int[8];
+        int cantidad = 0;
+        int valor = -1;
+        boolean cero = false;
+        for (int i = 0; i <= texto.length(); i++) {
+            char c = i < texto.length() ? texto.charAt(i) : ',';
+            if (c >= '0' && c <= '9') {
+                valor = (valor < 0 ? 0 : valor) * 10 + (c - '0');
+                if (valor > DefinicionPuzzle.LINEAS_MAXIMAS) {
+                    return null;
+                }
+            } else if (c == ',' || Character.isWhitespace(c)) {
+                if (valor == 0) {
+                    cero = true;
+                } else if (valor > 0) {
+                    if (cantidad == bloques.length) {
+                        bloques = Arrays.copyOf(bloques, cantidad * 2);
+                    }
+                    bloques[cantidad++] = valor;
+                }
+                valor = -1;
+            } else {
+                return null;
+            }
+        }
+        if (cero && cantidad > 0) {
+            return null;
+        }
+        return Arrays.copyOf(bloques, cantidad);
+    }
+
+    private static int buscarEspacio(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (Character.isWhitespace(texto.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String sacarComillas(String valor) {
+        if (valor.length() >= 2 && valor.startsWith("\"") && valor.endsWith("\"")) {
+            return valor.substring(1, valor.length() - 1);
+        }
+        return valor;
+    }
+}
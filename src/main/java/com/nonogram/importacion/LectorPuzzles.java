@@ -0,0 +1,19 @@
+package com.nonogram.importacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Lector secuencial de puzzles de un archivo (pull parser).
+//
+// Cada llamada a siguiente() avanza lo justo para leer un puzzle más, así que
+// se pueden recorrer colecciones de cientos de miles de puzzles sin cargar el
+// archivo entero. Un puzzle mal escrito se devuelve como definición con error;
+// sólo un archivo ilegible (por ejemplo, XML mal formado) corta la lectura.
+public interface LectorPuzzles extends Closeable {
+
+    // Lee el próximo puzzle del archivo.
+    //
+    // @return Definición del puzzle, o null si no quedan más
+    // @throws IOException Si el archivo no se puede leer o no tiene el formato esperado
+    DefinicionPuzzle siguiente() throws IOException;
+}
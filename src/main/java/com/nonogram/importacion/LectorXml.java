@@ -0,0 +1,173 @@
+package com.nonogram.importacion;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Lector de colecciones XML con el esquema de webpbn:
+//
+//   <puzzleset>
+//     <puzzle>
+//       <title>...</title>
+//       <clues type="columns"><line><count>2</count><count>1</count></line>...</clues>
+//       <clues type="rows">...</clues>
+//     </puzzle>
+//     ...
+//   </puzzleset>
+//
+// También se acepta cada línea como texto ("<line>2 1</line>"). Se lee con
+// StAX (XMLStreamReader), que entrega los elementos a medida que avanza, así
+// que sólo el puzzle actual está en memoria. Las DTD y entidades externas
+// están deshabilitadas.
+public class LectorXml implements LectorPuzzles {
+
+    private final Reader origen;
+    private final XMLStreamReader entrada;
+    private long indice;
+
+    // Constructor del lector.
+    //
+    // @param entrada Texto XML a leer; se cierra al cerrar el lector
+    // @throws IOException Si el XML no se puede abrir
+    public LectorXml(Reader entrada) throws IOException {
+        XMLInputFactory fabrica = XMLInputFactory.newFactory();
+        fabrica.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        fabrica.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            this.origen = entrada;
+            this.entrada = fabrica.createXMLStreamReader(entrada);
+        } catch (XMLStreamException e) {
+            throw new IOException("XML inválido: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public DefinicionPuzzle siguiente() throws IOException {
+        try {
+            while (entrada.hasNext()) {
+                if (entrada.next() == XMLStreamConstants.START_ELEMENT && entrada.getLocalName().equals("puzzle")) {
+                    return leerPuzzle();
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("XML inválido: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            entrada.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            origen.close();
+        }
+    }
+
+    // Lee desde <puzzle> hasta su cierre.
+    private DefinicionPuzzle leerPuzzle() throws XMLStreamException {
+        int inicio = entrada.getLocation().getLineNumber();
+        long actual = indice++;
+        String titulo = null;
+        String error = null;
+        List<int[]> filas = new ArrayList<>();
+        List<int[]> columnas = new ArrayList<>();
+        List<int[]> seccion = null;
+        int[] bloques = null;
+        int cantidad = 0;
+        StringBuilder texto = new StringBuilder();
+
+        int profundidad = 1;
+        while (profundidad > 0) {
+            int evento = entrada.next();
+            if (evento == XMLStreamConstants.START_ELEMENT) {
+                String nombre = entrada.getLocalName();
+                switch (nombre) {
+                    case "title":
+                        titulo = entrada.getElementText().strip();
+                        continue;
+                    case "clues":
+                        String tipo = entrada.getAttributeValue(null, "type");
+                        seccion = "rows".equals(tipo) ? filas : "columns".equals(tipo) ? columnas : null;
+                        if (seccion == null && error == null) {
+                            error = "tipo de pistas desconocido: " + tipo;
+                        }
+                        break;
+                    case "line":
+                        bloques = new int[8];
+                        cantidad = 0;
+                        texto.setLength(0);
+                        break;
+                    case "count":
+                        String color = entrada.getAttributeValue(null, "color");
+                        String valor = entrada.getElementText().strip();
+                        int largo = leerEntero(valor);
+                        if (color != null && !color.equals("black") && error == null) {
+                            error = "los puzzles de colores no están soportados";
+                        }
+                        if (largo <= 0 && error == null) {
+                            error = "bloque inválido en la línea " + entrada.getLocation().getLineNumber() + ": " + valor;
+                        }
+                        if (bloques != null && largo > 0) {
+                            if (cantidad == bloques.length) {
+                                bloques = Arrays.copyOf(bloques, cantidad * 2);
+                            }
+                            bloques[cantidad++] = largo;
+                        }
+                        continue;
+                    default:
+                }
+                profundidad++;
+            } else if (evento == XMLStreamConstants.CHARACTERS && bloques != null) {
+                texto.append(entrada.getText());
+            } else if (evento == XMLStreamConstants.END_ELEMENT) {
+                profundidad--;
+                if (entrada.getLocalName().equals("line") && bloques != null) {
+                    int[] linea = Arrays.copyOf(bloques, cantidad);
+                    if (cantidad == 0 && !texto.toString().isBlank()) {
+                        linea = LectorNon.leerBloques(texto.toString().strip());
+                        if (linea == null) {
+                            if (error == null) {
+                                error = "pista inválida en la línea " + entrada.getLocation().getLineNumber();
+                            }
+                            linea = new int[0];
+                        }
+                    }
+                    if (seccion != null) {
+                        if (seccion.size() == DefinicionPuzzle.LINEAS_MAXIMAS) {
+                            if (error == null) {
+                                error = "más de " + DefinicionPuzzle.LINEAS_MAXIMAS + " líneas";
+                            }
+                        } else {
+                            seccion.add(linea);
+                        }
+                    }
+                    bloques = null;
+                } else if (entrada.getLocalName().equals("clues")) {
+                    seccion = null;
+                }
+            }
+        }
+        if (error != null) {
+            return DefinicionPuzzle.conError(actual, inicio, titulo, error);
+        }
+        return DefinicionPuzzle.desdeLineas(actual, inicio, titulo, -1, -1, filas, columnas);
+    }
+
+    private static int leerEntero(String valor) {
+        try {
+            int numero = Integer.parseInt(valor);
+            return numero <= DefinicionPuzzle.LINEAS_MAXIMAS ? numero : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.nonogram.importacion;
+
+import com.nonogram.model.PuzzleGenerado;
+
+// Resultado de importar un puzzle: la definición leída y, si pasó la
+// validación, el puzzle listo para jugar (ModeloNonograma.jugarPuzzle).
+// Si no, el motivo del rechazo.
+public class PuzzleImportado {
+
+    private final DefinicionPuzzle definicion;
+    private final PuzzleGenerado puzzle;
+    private final String motivoRechazo;
+
+    PuzzleImportado(DefinicionPuzzle definicion, PuzzleGenerado puzzle, String motivoRechazo) {
+        this.definicion = definicion;
+        this.puzzle = puzzle;
+        this.motivoRechazo = motivoRechazo;
+    }
+
+    // Obtiene la definición tal como se leyó del archivo.
+    //
+    // @return Definición del puzzle
+    public DefinicionPuzzle obtenerDefinicion() {
+        return definicion;
+    }
+
+    // Indica si el puzzle se puede jugar.
+    //
+    // @return true si tiene solución única y entra en el tablero
+    public boolean esValido() {
+        return puzzle != null;
+    }
+
+    // Obtiene el puzzle listo para jugar.
+    //
+    // @return Puzzle con su solución
+    public PuzzleGenerado obtenerPuzzle() {
+        if (puzzle == null) {
+            throw new IllegalStateException("Puzzle rechazado: " + motivoRechazo);
+        }
+        return puzzle;
+    }
+
+    // Obtiene por qué se rechazó el puzzle.
+    //
+    // @return Motivo del rechazo, o null si el puzzle es válido
+    public String obtenerMotivoRechazo() {
+        return motivoRechazo;
+    }
+
+    @Override
+    public String toString() {
+        String titulo = definicion.obtenerTitulo() != null ? " \"" + definicion.obtenerTitulo() + "\"" : "";
+        return "Puzzle #" + (definicion.obtenerIndice() + 1) + titulo + " (línea " + definicion.obtenerLinea() + "): "
+                + (puzzle != null ? "válido" : motivoRechazo);
+    }
+}
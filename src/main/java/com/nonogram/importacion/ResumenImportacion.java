@@ -0,0 +1,49 @@
+package com.nonogram.importacion;
+
+// Totales de una importación.
+public class ResumenImportacion {
+
+    private final long leidos;
+    private final long validos;
+    private final long nanos;
+
+    ResumenImportacion(long leidos, long validos, long nanos) {
+        this.leidos = leidos;
+        this.validos = validos;
+        this.nanos = nanos;
+    }
+
+    // Obtiene la cantidad de puzzles leídos del archivo.
+    //
+    // @return Puzzles leídos, válidos o no
+    public long obtenerLeidos() {
+        return leidos;
+    }
+
+    // Obtiene la cantidad de puzzles que pasaron la validación.
+    //
+    // @return Puzzles válidos
+    public long obtenerValidos() {
+        return validos;
+    }
+
+    // Obtiene la cantidad de puzzles rechazados.
+    //
+    // @return Puzzles rechazados
+    public long obtenerRechazados() {
+        return leidos - validos;
+    }
+
+    // Obtiene la duración total de la importación.
+    //
+    // @return Duración en nanosegundos
+    public long obtenerNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return leidos + " puzzles leídos, " + validos + " válidos, " + obtenerRechazados() + " rechazados en "
+                + (nanos / 1_000_000) + " ms";
+    }
+}
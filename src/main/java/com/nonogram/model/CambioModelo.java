@@ -0,0 +1,190 @@
+package com.nonogram.model;
+
+// Cambio del modelo que reciben los observadores.
+//
+// Indica qué partes cambiaron (ver TipoCambio) y, para un cambio de celda,
+// cuál fue, así la vista actualiza sólo eso en lugar de releer toda la grilla.
+// Una misma operación puede incluir varios tipos: por ejemplo, revelar una
+// pista cambia una celda y las pistas disponibles. Un lote de ediciones (ver
+// ModeloNonograma.editar) notifica un solo cambio con todas las celdas
+// tocadas en una máscara de bits por fila.
+public class CambioModelo {
+
+    private final int tipos;   // Un bit por TipoCambio
+    private final int fila;    // Celda del cambio CELDA, -1 si no hay o si son varias
+    private final int columna;
+    private final long[] modificadas; // Celdas de un lote, por fila; null si no es un lote
+    private final int columnas;
+    private final int cantidadModificadas;
+    private final InstantaneaModelo instantanea; // Estado al momento del cambio, si se entrega en otro hilo
+
+    private CambioModelo(int tipos, int fila, int columna, long[] modificadas, int columnas, int cantidadModificadas) {
+        this.tipos = tipos;
+        this.fila = fila;
+        this.columna = columna;
+        this.modificadas = modificadas;
+        this.columnas = columnas;
+        this.cantidadModificadas = cantidadModificadas;
+        this.instantanea = null;
+    }
+
+    private CambioModelo(CambioModelo otro, InstantaneaModelo instantanea) {
+        this.tipos = otro.tipos;
+        this.fila = otro.fila;
+        this.columna = otro.columna;
+        this.modificadas = otro.modificadas;
+        this.columnas = otro.columnas;
+        this.cantidadModificadas = otro.cantidadModificadas;
+        this.instantanea = instantanea;
+    }
+
+    // Crea una copia del cambio que lleva el estado del modelo, para entregarla en otro hilo.
+    //
+    // @param instantanea Estado del modelo después del cambio; puede incluir cambios posteriores
+    // @return Cambio con la instantánea
+    public CambioModelo conInstantanea(InstantaneaModelo instantanea) {
+        return new CambioModelo(this, instantanea);
+    }
+
+    // Crea el cambio de una celda.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @param otros Otros tipos de cambio de la misma operación
+    // @return Cambio de la celda
+    static CambioModelo deCelda(int fila, int columna, TipoCambio... otros) {
+        return new CambioModelo(bit(TipoCambio.CELDA) | bits(otros), fila, columna, null, 0, 1);
+    }
+
+    // Crea el cambio de un lote de celdas. La máscara no se copia.
+    //
+    // @param modificadas Celdas modificadas, por fila, (columnas + 63) / 64 palabras por fila
+    // @param columnas Cantidad de columnas de la grilla
+    // @param cantidad Cantidad de celdas modificadas
+    // @return Cambio de las celdas
+    static CambioModelo deCeldas(long[] modificadas, int columnas, int cantidad) {
+        return new CambioModelo(bit(TipoCambio.CELDA), -1, -1, modificadas, columnas, cantidad);
+    }
+
+    // Crea un cambio que no afecta a una celda en particular.
+    //
+    // @param tipos Tipos de cambio de la operación
+    // @return Cambio con esos tipos
+    static CambioModelo de(TipoCambio... tipos) {
+        return new CambioModelo(bits(tipos), -1, -1, null, 0, 0);
+    }
+
+    private static int bit(TipoCambio tipo) {
+        return 1 << tipo.ordinal();
+    }
+
+    private static int bits(TipoCambio[] tipos) {
+        int resultado = 0;
+        for (TipoCambio tipo : tipos) {
+            resultado |= bit(tipo);
+        }
+        return resultado;
+    }
+
+    // Indica si el cambio incluye un tipo.
+    //
+    // @param tipo Tipo de cambio
+    // @return true si la operación cambió esa parte del modelo
+    public boolean incluye(TipoCambio tipo) {
+        return (tipos & bit(tipo)) != 0;
+    }
+
+    // Indica si una celda pudo haber cambiado. Un reinicio del tablero o un
+    // puzzle nuevo afectan a todas las celdas.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si hay que volver a leer la celda
+    public boolean esCeldaModificada(int fila, int columna) {
+        if (incluye(TipoCambio.TABLERO_REINICIADO) || incluye(TipoCambio.PISTAS_REEMPLAZADAS)) {
+            return true;
+        }
+        if (modificadas != null) {
+            int palabrasPorFila = (columnas + 63) >>> 6;
+            return (modificadas[fila * palabrasPorFila + (columna >>> 6)] & (1L << columna)) != 0;
+        }
+        return this.fila == fila && this.columna == columna;
+    }
+
+    // Obtiene la cantidad de celdas modificadas por un cambio CELDA.
+    //
+    // @return Cantidad de celdas, 0 si el cambio no incluye celdas
+    public int obtenerCantidadModificadas() {
+        return cantidadModificadas;
+    }
+
+    // Busca la próxima celda modificada en orden de filas, para recorrer las
+    // celdas de un cambio sin revisar toda la grilla:
+    // for (int celda = cambio.siguienteModificada(0, n); celda >= 0; celda = cambio.siguienteModificada(celda + 1, n))
+    //
+    // @param desde Índice fila * columnas + columna desde el que buscar
+    // @param columnas Cantidad de columnas de la grilla
+    // @return Índice de la próxima celda modificada, o -1 si no hay más
+    public int siguienteModificada(int desde, int columnas) {
+        if (modificadas == null) {
+            int celda = fila >= 0 ? fila * columnas + columna : -1;
+            return celda >= desde ? celda : -1;
+        }
+        int palabrasPorFila = (columnas + 63) >>> 6;
+        int filaActual = desde / columnas;
+        int columnaActual = desde % columnas;
+        while (filaActual * palabrasPorFila < modificadas.length) {
+            int palabra = columnaActual >>> 6;
+            long bits = modificadas[filaActual * palabrasPorFila + palabra] & (-1L << columnaActual);
+            while (bits == 0 && ++palabra < palabrasPorFila) {
+                bits = modificadas[filaActual * palabrasPorFila + palabra];
+            }
+            if (bits != 0) {
+                return filaActual * columnas + (palabra << 6) + Long.numberOfTrailingZeros(bits);
+            }
+            filaActual++;
+            columnaActual = 0;
+        }
+        return -1;
+    }
+
+    // Obtiene la fila de la celda que cambió.
+    //
+    // @return Fila, o -1 si el cambio no es de una celda o es de varias
+    public int obtenerFila() {
+        return fila;
+    }
+
+    // Obtiene la columna de la celda que cambió.
+    //
+    // @return Columna, o -1 si el cambio no es de una celda o es de varias
+    public int obtenerColumna() {
+        return columna;
+    }
+
+    // Obtiene el estado del modelo justo después del cambio. Sólo está cuando el
+    // cambio se entrega en un hilo distinto del que modificó el modelo; en ese
+    // caso el observador debe leer de acá y no del modelo, que puede haber
+    // seguido cambiando.
+    //
+    // @return Instantánea del modelo, o null si el cambio se entrega en el mismo hilo
+    public InstantaneaModelo obtenerInstantanea() {
+        return instantanea;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("CambioModelo[");
+        for (TipoCambio tipo : TipoCambio.values()) {
+            if (incluye(tipo)) {
+                texto.append(tipo).append(' ');
+            }
+        }
+        if (fila >= 0) {
+            texto.append('(').append(fila).append(", ").append(columna).append(')');
+        } else if (modificadas != null) {
+            texto.append(cantidadModificadas).append(" celdas");
+        }
+        return texto.toString().trim() + "]";
+    }
+}
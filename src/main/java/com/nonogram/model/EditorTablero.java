@@ -0,0 +1,47 @@
+package com.nonogram.model;
+
+// Acceso a la grilla del jugador dentro de un lote de ediciones
+// (ver ModeloNonograma.editar).
+//
+// Los cambios se aplican enseguida, pero el modelo valida las celdas tocadas
+// y notifica a los observadores una sola vez, al cerrar el lote.
+public class EditorTablero {
+
+    private final ModeloNonograma modelo;
+
+    EditorTablero(ModeloNonograma modelo) {
+        this.modelo = modelo;
+    }
+
+    // Establece el estado de una celda de la grilla del jugador.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @param estado Nuevo estado
+    public void establecerEstadoCelda(int fila, int columna, EstadoCelda estado) {
+        modelo.establecerEstadoCelda(fila, columna, estado);
+    }
+
+    // Obtiene el estado de una celda, con los cambios del lote ya aplicados.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return Estado actual de la celda
+    public EstadoCelda obtenerEstadoCelda(int fila, int columna) {
+        return modelo.obtenerEstadoCelda(fila, columna);
+    }
+
+    // Obtiene la cantidad de filas de la grilla.
+    //
+    // @return Cantidad de filas
+    public int obtenerFilas() {
+        return modelo.obtenerFilas();
+    }
+
+    // Obtiene la cantidad de columnas de la grilla.
+    //
+    // @return Cantidad de columnas
+    public int obtenerColumnas() {
+        return modelo.obtenerColumnas();
+    }
+}
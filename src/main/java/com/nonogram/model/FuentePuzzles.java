@@ -0,0 +1,13 @@
+package com.nonogram.model;
+
+// Origen de puzzles ya preparados para un nivel (por ejemplo, un catálogo en
+// disco). El modelo la consulta antes de usar el pool de puzzles generados;
+// si no tiene ninguno para el nivel, el puzzle se genera como siempre.
+public interface FuentePuzzles {
+
+    // Toma un puzzle para un nivel. Se llama desde el hilo del modelo.
+    //
+    // @param nivel Nivel de dificultad
+    // @return Puzzle del tamaño del nivel, o null si no hay ninguno
+    PuzzleGenerado tomar(NivelDificultad nivel);
+}
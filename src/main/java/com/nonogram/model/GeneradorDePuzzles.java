@@ -1,54 +1,481 @@
 package com.nonogram.model;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+import com.nonogram.solver.EstadisticasSolucion;
+import com.nonogram.solver.ResultadoSolucion;
+import com.nonogram.solver.SolucionadorNonograma;
+import com.nonogram.telemetria.Telemetria;
+
+// Generador de soluciones para el Nonograma.
+//
+// Toda la aleatoriedad sale del RandomGenerator que se pasa a cada método, y el
+// presupuesto de la verificación de unicidad se mide en líneas resueltas por el
+// solucionador en lugar de tiempo. Así el mismo tamaño y la misma semilla dan
+// siempre el mismo puzzle, en cualquier máquina y desde cualquier hilo.
+//
+// Cada puzzle de solución única queda calificado con el trabajo que hizo el
+// solucionador para verificarlo (ver EstadisticasSolucion). Para apuntar a un
+// rango de calificación se generan tableros al azar con una densidad de celdas
+// llenas que se ajusta según la calificación del intento anterior: los
+// tableros muy llenos se resuelven con superposición y los cercanos a la
+// mitad necesitan sondeo o suposiciones.
 public class GeneradorDePuzzles {
 
+	// Presupuesto por defecto, en líneas resueltas, para generar un puzzle de
+	// solución única (unos 40 ms para una grilla de 20x20 en un núcleo)
+	public static final long PRESUPUESTO_POR_DEFECTO = 12_000;
+
+	// Presupuesto por defecto para buscar un puzzle dentro de un rango de
+	// calificación, repartido entre todos sus intentos. Los niveles se generan
+	// en los productores de PoolDePuzzles, en segundo plano, así que puede ser
+	// mucho mayor que el de un puzzle: con él los rangos de los niveles se
+	// alcanzan casi siempre (unos 300 ms en el peor caso en 20x20)
+	public static final long PRESUPUESTO_RANGO_POR_DEFECTO = 16 * PRESUPUESTO_POR_DEFECTO;
+
+	// Celdas (filas x columnas) hasta las que se prueba que la solución sea
+	// única. Más allá verificar un tablero lleva de cientos de milisegundos a
+	// varios segundos (100x100, 200x200), así que se usa el primer tablero sin
+	// verificar y sin calificar
+	public static final int CELDAS_MAXIMAS_VERIFICADAS = 50 * 50;
+
+	// Tableros descartados seguidos después de los cuales se informa que no se
+	// encontró ninguno único. Sólo pasa en grillas chicas que no tienen ninguno
+	// con las condiciones de asegurarValidezPuzzle (por ejemplo, 2x2)
+	private static final int DESCARTES_MAXIMOS = 1_000;
+
+	// Parte del presupuesto que se dedica a buscar una segunda solución en cada intento
+	private static final int FRACCION_BUSQUEDA = 10;
+
+	// Reparaciones que se intentan sobre un tablero antes de descartarlo
+	private static final int REPARACIONES_POR_TABLERO = 6;
+
+	// En cada reparación se invierte una de cada DIVISOR_REPARACION celdas ambiguas
+	private static final int DIVISOR_REPARACION = 4;
+
+	// Algoritmos de generarSolucionAleatoria: formas geométricas, patrones
+	// simétricos, secuencias lógicas, densidad variable y bordes con centro
+	public static final int CANTIDAD_ALGORITMOS = 5;
+
+	// Densidades de celdas llenas entre las que se buscan tableros para un rango
+	// de calificación. Por debajo de la mínima casi ningún tablero es único y
+	// verificar cada uno se lleva buena parte del presupuesto
+	private static final double DENSIDAD_MINIMA = 0.48;
+	private static final double DENSIDAD_MAXIMA = 0.85;
+
+	// Cambio de densidad después de un intento fuera del rango
+	private static final double PASO_DENSIDAD = 0.04;
+
+	// Densidad de los tableros al azar que reemplazan a los de los algoritmos
+	// cuando ninguno se pudo probar único con el presupuesto. Hasta 50x50 casi
+	// todos son únicos y se verifican con pocos cientos de líneas
+	private static final double DENSIDAD_RESPALDO = 0.70;
+
+	private final long presupuestoLineas;
+	private final long presupuestoRango;
+
+	// Tablero verificado por el solucionador, con su calificación si se probó único.
+	private static final class Candidata {
+		GrillaBits solucion;
+		boolean unica;
+		int calificacion = -1;
+		long lineas;
+
+		Candidata(GrillaBits solucion) {
+			this.solucion = solucion;
+		}
+
+		void calificar(ResultadoSolucion resultado) {
+			unica = true;
+			calificacion = resultado.obtenerEstadisticas().calcularCalificacion();
+		}
+	}
+
+	public GeneradorDePuzzles() {
+		this(PRESUPUESTO_POR_DEFECTO, PRESUPUESTO_RANGO_POR_DEFECTO);
+	}
+
+	// @param presupuestoLineas Líneas que puede resolver el solucionador para generar un puzzle de solución única
+	public GeneradorDePuzzles(long presupuestoLineas) {
+		this(presupuestoLineas, presupuestoLineas * (PRESUPUESTO_RANGO_POR_DEFECTO / PRESUPUESTO_POR_DEFECTO));
+	}
+
+	// @param presupuestoLineas Líneas que puede resolver el solucionador para generar un puzzle de solución única
+	// @param presupuestoRango Líneas para todos los intentos de un puzzle con rango de calificación
+	public GeneradorDePuzzles(long presupuestoLineas, long presupuestoRango) {
+		if (presupuestoLineas <= 0 || presupuestoRango <= 0) {
+			throw new IllegalArgumentException("El presupuesto debe ser positivo");
+		}
+		this.presupuestoLineas = presupuestoLineas;
+		this.presupuestoRango = presupuestoRango;
+	}
+
+	// Genera un puzzle de solución única con una semilla al azar.
+	// No guarda estado, así que se puede llamar desde varios hilos a la vez.
+	//
+	// @param tamañoGrilla Tamaño de la grilla
+	// @return Puzzle con la solución, las pistas de filas y columnas y la semilla
+	public PuzzleGenerado generarPuzzle(int tamañoGrilla) {
+		return generarPuzzle(tamañoGrilla, ThreadLocalRandom.current().nextLong());
+	}
+
+	// Genera el puzzle cuadrado de solución única que corresponde a una semilla.
+	// La misma semilla y el mismo tamaño dan siempre el mismo puzzle.
+	//
+	// @param tamañoGrilla Tamaño de la grilla
+	// @param semilla Semilla de 64 bits del puzzle
+	// @return Puzzle con la solución, las pistas de filas y columnas y la semilla
+	public PuzzleGenerado generarPuzzle(int tamañoGrilla, long semilla) {
+		return generarPuzzle(tamañoGrilla, tamañoGrilla, semilla);
+	}
+
+	// Genera el puzzle de solución única que corresponde a una semilla, con
+	// cualquier cantidad de filas y columnas.
+	//
+	// Por encima de CELDAS_MAXIMAS_VERIFICADAS no se prueba la unicidad y se
+	// devuelve el primer tablero sin calificar; el costo en memoria y en
+	// tiempo de armar el tablero y sus pistas es lineal en la cantidad de celdas.
+	//
+	// @param filas Cantidad de filas
+	// @param columnas Cantidad de columnas
+	// @param semilla Semilla de 64 bits del puzzle
+	// @return Puzzle con la solución, las pistas de filas y columnas y la semilla
+	// @throws IllegalStateException Si la grilla es tan chica que no tiene tableros únicos
+	public PuzzleGenerado generarPuzzle(int filas, int columnas, long semilla) {
+		long inicio = System.nanoTime();
+		Candidata candidata = generarCandidataUnica(filas, columnas, new SplittableRandom(semilla));
+		PuzzleGenerado puzzle = new PuzzleGenerado(candidata.solucion, PistasNonograma.calcular(candidata.solucion),
+				semilla, candidata.calificacion);
+		Telemetria.GENERACION_PUZZLE.registrarDesde(inicio);
+		return puzzle;
+	}
+
+	// Genera el puzzle de un nivel: su tamaño y una calificación dentro de su rango.
+	// La misma semilla y el mismo nivel dan siempre el mismo puzzle.
+	//
+	// @param nivel Nivel de dificultad
+	// @param semilla Semilla de 64 bits del puzzle
+	// @return Puzzle con la solución, las pistas de filas y columnas y la semilla
+	public PuzzleGenerado generarPuzzle(NivelDificultad nivel, long semilla) {
+		return generarPuzzle(nivel.obtenerTamañoGrilla(), nivel.obtenerCalificacionMinima(),
+				nivel.obtenerCalificacionMaxima(), semilla);
+	}
+
+	// Genera un puzzle cuadrado de solución única cuya calificación cae en un rango.
+	//
+	// @param tamañoGrilla Tamaño de la grilla
+	// @param calificacionMinima Calificación mínima, incluida
+	// @param calificacionMaxima Calificación máxima, incluida
+	// @param semilla Semilla de 64 bits del puzzle
+	// @return Puzzle con la solución, las pistas de filas y columnas y la semilla
+	public PuzzleGenerado generarPuzzle(int tamañoGrilla, int calificacionMinima, int calificacionMaxima,
+										long semilla) {
+		return generarPuzzle(tamañoGrilla, tamañoGrilla, calificacionMinima, calificacionMaxima, semilla);
+	}
+
+	// Genera un puzzle de solución única cuya calificación cae en un rango.
+	//
+	// Se prueban tableros al azar; después de cada intento la densidad de
+	// celdas llenas baja si el puzzle salió más fácil que el rango y sube si
+	// salió más difícil. Cada tablero se verifica con el presupuesto de un
+	// puzzle sin rango, y todos los intentos comparten el presupuesto de rango
+	// (ver PRESUPUESTO_RANGO_POR_DEFECTO). Si se agota sin llegar al rango se
+	// devuelve el puzzle único de calificación más cercana; con el presupuesto
+	// por defecto no pasó en 200 semillas de ningún nivel. Los que necesitan
+	// el rango exacto (PoolDePuzzles) descartan esos puzzles. Nunca se
+	// devuelve un tablero sin probar que sea único: si el presupuesto se agota
+	// antes del primero se sigue probando hasta encontrarlo.
+	//
+	// @param filas Cantidad de filas
+	// @param columnas Cantidad de columnas
+	// @param calificacionMinima Calificación mínima, incluida
+	// @param calificacionMaxima Calificación máxima, incluida
+	// @param semilla Semilla de 64 bits del puzzle
+	// @return Puzzle con la solución, las pistas de filas y columnas y la semilla
+	// @throws IllegalArgumentException Si el rango está vacío o la grilla supera CELDAS_MAXIMAS_VERIFICADAS
+	// @throws IllegalStateException Si la grilla es tan chica que no tiene tableros únicos
+	public PuzzleGenerado generarPuzzle(int filas, int columnas, int calificacionMinima, int calificacionMaxima,
+										long semilla) {
+		if (calificacionMinima > calificacionMaxima) {
+			throw new IllegalArgumentException("Rango de calificación vacío");
+		}
+		if ((long) filas * columnas > CELDAS_MAXIMAS_VERIFICADAS) {
+			throw new IllegalArgumentException("Sin verificar la unicidad no hay calificación: " + filas + "x" + columnas);
+		}
+		long inicio = System.nanoTime();
+		RandomGenerator aleatorio = new SplittableRandom(semilla);
+		long restante = presupuestoRango;
+		// Los rangos fáciles empiezan con tableros llenos y los difíciles cerca de la mitad
+		double medio = (calificacionMinima + calificacionMaxima) / 2.0 / EstadisticasSolucion.CALIFICACION_MAXIMA;
+		double densidad = DENSIDAD_MAXIMA - (DENSIDAD_MAXIMA - DENSIDAD_MINIMA) * Math.min(1.0, Math.max(0.0, medio));
+		Candidata mejor = null;
+		int mejorDistancia = Integer.MAX_VALUE;
+		int descartesSeguidos = 0;
+		while (true) {
+			Candidata candidata = verificarYReparar(generarSolucionConDensidad(filas, columnas, densidad, aleatorio),
+					presupuestoLineas, aleatorio);
+			restante -= candidata.lineas;
+			if (!candidata.unica && ++descartesSeguidos >= DESCARTES_MAXIMOS) {
+				throw new IllegalStateException("No se encontró un tablero de " + filas + "x" + columnas
+						+ " con solución única");
+			}
+			if (candidata.unica) {
+				descartesSeguidos = 0;
+				int distancia = candidata.calificacion < calificacionMinima
+						? calificacionMinima - candidata.calificacion
+						: Math.max(0, candidata.calificacion - calificacionMaxima);
+				if (distancia < mejorDistancia) {
+					mejor = candidata;
+					mejorDistancia = distancia;
+				}
+				if (distancia == 0) {
+					break;
+				}
+				densidad += candidata.calificacion < calificacionMinima ? -PASO_DENSIDAD : PASO_DENSIDAD;
+				densidad = Math.min(DENSIDAD_MAXIMA, Math.max(DENSIDAD_MINIMA, densidad));
+			}
+			if (restante <= 0 && mejor != null) {
+				break;
+			}
+			Telemetria.REINTENTOS_GENERADOR.increment();
+		}
+		PuzzleGenerado puzzle = new PuzzleGenerado(mejor.solucion, PistasNonograma.calcular(mejor.solucion), semilla,
+				mejor.calificacion);
+		Telemetria.GENERACION_PUZZLE.registrarDesde(inicio);
+		return puzzle;
+	}
+
+	// Genera una solución única usando el generador aleatorio del hilo actual.
+	//
+	// @param tamañoGrilla Tamaño de la grilla
+	// @return Matriz con la solución
+	public EstadoCelda[][] generarSolucionUnica(int tamañoGrilla) {
+		return generarSolucionUnica(tamañoGrilla, ThreadLocalRandom.current());
+	}
+
+	// Genera una solución cuyas pistas admiten una única solución.
+	//
+	// Cada tablero se pasa por el solucionador. Si la deducción (propagación de
+	// líneas y sondeo) fija todas las celdas sin suponer nada, la solución es
+	// única y además se puede resolver sin adivinar. Si se estanca, se busca una
+	// segunda solución con una fracción del presupuesto; cuando aparece (o no
+	// alcanza el presupuesto) se invierten en el tablero algunas celdas ambiguas
+	// y se vuelve a verificar. Si las reparaciones no alcanzan se descarta el
+	// tablero y se genera otro. Cuando los tableros de los algoritmos agotan el
+	// presupuesto sin ninguno único, se siguen probando tableros al azar de
+	// DENSIDAD_RESPALDO, que casi siempre lo son: nunca se devuelve un tablero
+	// sin probar, salvo por encima de CELDAS_MAXIMAS_VERIFICADAS.
+	//
+	// @param tamañoGrilla Tamaño de la grilla
+	// @param aleatorio Fuente de aleatoriedad (no se comparte entre hilos)
+	// @return Matriz con la solución
+	// @throws IllegalStateException Si la grilla es tan chica que no tiene tableros únicos
+	public EstadoCelda[][] generarSolucionUnica(int tamañoGrilla, RandomGenerator aleatorio) {
+		return generarCandidataUnica(tamañoGrilla, tamañoGrilla, aleatorio).solucion.copiarAMatriz();
+	}
+
+	private Candidata generarCandidataUnica(int filas, int columnas, RandomGenerator aleatorio) {
+		if ((long) filas * columnas > CELDAS_MAXIMAS_VERIFICADAS) {
+			return new Candidata(
+					generarTableroAleatorio(filas, columnas, aleatorio.nextInt(CANTIDAD_ALGORITMOS), aleatorio));
+		}
+		long restante = presupuestoLineas;
+		for (int descartes = 0; descartes < DESCARTES_MAXIMOS; descartes++) {
+			// Cada tablero de respaldo tiene el presupuesto entero: suelen usar unos cientos de líneas
+			Candidata candidata = restante > 0
+					? verificarYReparar(generarTableroAleatorio(filas, columnas,
+							aleatorio.nextInt(CANTIDAD_ALGORITMOS), aleatorio), restante, aleatorio)
+					: verificarYReparar(generarSolucionConDensidad(filas, columnas, DENSIDAD_RESPALDO, aleatorio),
+							presupuestoLineas, aleatorio);
+			restante -= candidata.lineas;
+			if (candidata.unica) {
+				return candidata;
+			}
+			Telemetria.REINTENTOS_GENERADOR.increment();
+		}
+		throw new IllegalStateException("No se encontró un tablero de " + filas + "x" + columnas
+				+ " con solución única");
+	}
+
+	// Verifica un tablero y, mientras sus pistas admitan más de una solución,
+	// lo repara hasta REPARACIONES_POR_TABLERO veces. Modifica el tablero.
+	//
+	// @param solucion Tablero a verificar
+	// @param restante Líneas que puede resolver el solucionador
+	// @param aleatorio Fuente de aleatoriedad para las reparaciones
+	// @return Candidata única y calificada, o no única si no alcanzaron las reparaciones o el presupuesto
+	private Candidata verificarYReparar(GrillaBits solucion, long restante, RandomGenerator aleatorio) {
+		Candidata candidata = new Candidata(solucion);
+		for (int reparacion = 0; reparacion < REPARACIONES_POR_TABLERO; reparacion++) {
+			long disponible = restante - candidata.lineas;
+			if (disponible <= 0) {
+				return candidata;
+			}
+			PistasNonograma pistas = PistasNonograma.calcular(solucion);
+			SolucionadorNonograma solucionador = new SolucionadorNonograma(
+					pistas.obtenerFilas(), pistas.obtenerColumnas(), pistas.obtenerLargos(), pistas.obtenerInicios());
+			solucionador.establecerLimiteLineas(disponible);
+			ResultadoSolucion resultado = solucionador.deducir(Long.MAX_VALUE);
+			candidata.lineas += solucionador.obtenerLineasResueltas();
+			if (resultado.esUnica()) {
+				candidata.calificar(resultado);
+				return candidata;
+			}
+			disponible = restante - candidata.lineas;
+			if (resultado.seAgotoElPlazo() || disponible <= 0) {
+				return candidata;
+			}
+			solucionador.establecerLimiteLineas(Math.min(disponible, presupuestoLineas / FRACCION_BUSQUEDA));
+			ResultadoSolucion busqueda = solucionador.verificarUnicidad(Long.MAX_VALUE);
+			candidata.lineas += solucionador.obtenerLineasResueltas();
+			if (busqueda.esUnica()) {
+				candidata.calificar(busqueda);
+				return candidata;
+			}
+			repararAmbiguedad(solucion, busqueda.obtenerCantidadSoluciones() > 1 ? busqueda : resultado, aleatorio);
+		}
+		return candidata;
+	}
+
+	// Invierte al azar una parte de las celdas ambiguas: las que difieren entre las
+	// dos soluciones encontradas o, si no se encontraron dos, las que no se pudieron
+	// deducir. Invertir una sola por vez converge muy lento en tableros con
+	// muchas zonas ambiguas independientes. Las ambiguas se cuentan antes de
+	// juntarlas para no reservar un arreglo del tamaño de la grilla.
+	private void repararAmbiguedad(GrillaBits solucion, ResultadoSolucion resultado, RandomGenerator aleatorio) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		boolean hayDosSoluciones = resultado.obtenerCantidadSoluciones() > 1;
+		int cantidad = 0;
+		for (int fila = 0; fila < filas; fila++) {
+			for (int col = 0; col < columnas; col++) {
+				if (esAmbigua(resultado, hayDosSoluciones, fila, col)) {
+					cantidad++;
+				}
+			}
+		}
+		int[] candidatas = new int[cantidad];
+		int siguiente = 0;
+		for (int fila = 0; fila < filas && siguiente < cantidad; fila++) {
+			for (int col = 0; col < columnas; col++) {
+				if (esAmbigua(resultado, hayDosSoluciones, fila, col)) {
+					candidatas[siguiente++] = fila * columnas + col;
+				}
+			}
+		}
+		int aInvertir = cantidad == 0 ? 0 : 1 + cantidad / DIVISOR_REPARACION;
+		for (int i = 0; i < aInvertir; i++) {
+			// Selección parcial de Fisher-Yates
+			int elegida = i + aleatorio.nextInt(cantidad - i);
+			int celda = candidatas[elegida];
+			candidatas[elegida] = candidatas[i];
+			int fila = celda / columnas;
+			int col = celda % columnas;
+			solucion.establecerEstado(fila, col, solucion.estaLlena(fila, col) ? EstadoCelda.VACIA : EstadoCelda.LLENA);
+		}
+		asegurarValidezPuzzle(solucion);
+	}
+
+	private static boolean esAmbigua(ResultadoSolucion resultado, boolean hayDosSoluciones, int fila, int col) {
+		return hayDosSoluciones
+				? resultado.estaLlena(fila, col) != resultado.estaLlenaEnOtraSolucion(fila, col)
+				: !resultado.estaDeducida(fila, col);
+	}
+
 	public EstadoCelda[][] generarSolucionAleatoria(int tamañoGrilla) {
-		EstadoCelda[][] solucion = crearMatrizVacia(tamañoGrilla);
-		int algoritmo = (int)(Math.random() * 5); // 0-4 algoritmos diferentes
+		return generarSolucionAleatoria(tamañoGrilla, ThreadLocalRandom.current());
+	}
+
+	public EstadoCelda[][] generarSolucionAleatoria(int tamañoGrilla, RandomGenerator aleatorio) {
+		return generarSolucionAleatoria(tamañoGrilla, aleatorio.nextInt(CANTIDAD_ALGORITMOS), aleatorio);
+	}
+
+	// Genera un tablero cuadrado con uno de los algoritmos, sin verificar la unicidad.
+	//
+	// @param tamañoGrilla Tamaño de la grilla
+	// @param algoritmo Algoritmo, de 0 a CANTIDAD_ALGORITMOS - 1
+	// @param aleatorio Fuente de aleatoriedad (sólo la usa el algoritmo de densidad variable)
+	// @return Matriz con la solución
+	public EstadoCelda[][] generarSolucionAleatoria(int tamañoGrilla, int algoritmo, RandomGenerator aleatorio) {
+		return generarTableroAleatorio(tamañoGrilla, tamañoGrilla, algoritmo, aleatorio).copiarAMatriz();
+	}
+
+	// Genera un tablero con uno de los algoritmos, sin verificar la unicidad.
+	// Los patrones se estiran para llenar filas x columnas; con una grilla
+	// cuadrada dan lo mismo que generarSolucionAleatoria.
+	//
+	// @param filas Cantidad de filas
+	// @param columnas Cantidad de columnas
+	// @param algoritmo Algoritmo, de 0 a CANTIDAD_ALGORITMOS - 1
+	// @param aleatorio Fuente de aleatoriedad (sólo la usa el algoritmo de densidad variable)
+	// @return Grilla con la solución en el plano de llenas
+	public GrillaBits generarTableroAleatorio(int filas, int columnas, int algoritmo, RandomGenerator aleatorio) {
+		if (algoritmo < 0 || algoritmo >= CANTIDAD_ALGORITMOS) {
+			throw new IllegalArgumentException("Algoritmo inválido: " + algoritmo);
+		}
+		long inicio = System.nanoTime();
+		GrillaBits solucion = new GrillaBits(filas, columnas);
 		switch (algoritmo) {
 			case 0: generarPuzzleConFormasGeometricas(solucion); break;
 			case 1: generarPuzzleConPatronesSimetricos(solucion); break;
 			case 2: generarPuzzleConSecuenciasLogicas(solucion); break;
-			case 3: generarPuzzleConDensidadVariable(solucion); break;
+			case 3: generarPuzzleConDensidadVariable(solucion, aleatorio); break;
 			case 4: generarPuzzleConBordesYCentro(solucion); break;
 		}
 		asegurarValidezPuzzle(solucion);
+		Telemetria.GENERACION_SOLUCION.registrarDesde(inicio);
 		return solucion;
 	}
 
-	private EstadoCelda[][] crearMatrizVacia(int tamañoGrilla) {
-		EstadoCelda[][] matriz = new EstadoCelda[tamañoGrilla][tamañoGrilla];
-		for (int fila = 0; fila < tamañoGrilla; fila++) {
-			for (int columna = 0; columna < tamañoGrilla; columna++) {
-				matriz[fila][columna] = EstadoCelda.VACIA;
+	// Genera un tablero con cada celda llena con la probabilidad dada.
+	private GrillaBits generarSolucionConDensidad(int filas, int columnas, double densidad, RandomGenerator aleatorio) {
+		long inicio = System.nanoTime();
+		GrillaBits solucion = new GrillaBits(filas, columnas);
+		for (int fila = 0; fila < filas; fila++) {
+			for (int col = 0; col < columnas; col++) {
+				if (aleatorio.nextDouble() < densidad) {
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
+				}
 			}
 		}
-		return matriz;
+		asegurarValidezPuzzle(solucion);
+		Telemetria.GENERACION_SOLUCION.registrarDesde(inicio);
+		return solucion;
 	}
 
 	// Algoritmo 1: Genera puzzles con formas geométricas básicas
-	private void generarPuzzleConFormasGeometricas(EstadoCelda[][] solucion) {
-		int n = solucion.length;
-		int centro = n / 2;
+	private void generarPuzzleConFormasGeometricas(GrillaBits solucion) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		int n = Math.min(filas, columnas);
+		int centroFila = filas / 2;
+		int centroCol = columnas / 2;
 		if (n <= 5) {
-			for (int fila = centro - 1; fila <= centro + 1; fila++) {
-				for (int col = centro - 1; col <= centro + 1; col++) {
-					if (fila >= 0 && fila < n && col >= 0 && col < n) {
-						solucion[fila][col] = EstadoCelda.LLENA;
+			for (int fila = centroFila - 1; fila <= centroFila + 1; fila++) {
+				for (int col = centroCol - 1; col <= centroCol + 1; col++) {
+					if (fila >= 0 && fila < filas && col >= 0 && col < columnas) {
+						solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 					}
 				}
 			}
 		} else if (n <= 10) {
-			for (int i = 0; i < n; i++) {
-				solucion[centro][i] = EstadoCelda.LLENA;
-				solucion[i][centro] = EstadoCelda.LLENA;
+			for (int col = 0; col < columnas; col++) {
+				solucion.establecerEstado(centroFila, col, EstadoCelda.LLENA);
+			}
+			for (int fila = 0; fila < filas; fila++) {
+				solucion.establecerEstado(fila, centroCol, EstadoCelda.LLENA);
 			}
 		} else {
-			for (int fila = 0; fila < n; fila++) {
-				for (int col = 0; col < n; col++) {
-					int distancia = Math.abs(fila - centro) + Math.abs(col - centro);
-					if (distancia <= n / 4) {
-						solucion[fila][col] = EstadoCelda.LLENA;
+			// Rombo con radios de un cuarto de cada lado: |df|/radioFilas + |dc|/radioCols <= 1
+			long radioFilas = filas / 4;
+			long radioCols = columnas / 4;
+			for (int fila = 0; fila < filas; fila++) {
+				for (int col = 0; col < columnas; col++) {
+					long distancia = Math.abs(fila - centroFila) * radioCols + Math.abs(col - centroCol) * radioFilas;
+					if (distancia <= radioFilas * radioCols) {
+						solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 					}
 				}
 			}
@@ -56,102 +483,126 @@ public class GeneradorDePuzzles {
 	}
 
 	// Algoritmo 2: Genera puzzles con patrones simétricos
-	private void generarPuzzleConPatronesSimetricos(EstadoCelda[][] solucion) {
-		int n = solucion.length;
-		for (int fila = 0; fila < n; fila++) {
-			for (int col = 0; col < n; col++) {
-				if ((fila + col) % 2 == 0 && (fila < n / 2 || col < n / 2)) {
-					solucion[fila][col] = EstadoCelda.LLENA;
+	private void generarPuzzleConPatronesSimetricos(GrillaBits solucion) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		for (int fila = 0; fila < filas; fila++) {
+			for (int col = 0; col < columnas; col++) {
+				if ((fila + col) % 2 == 0 && (fila < filas / 2 || col < columnas / 2)) {
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 				}
-				if (fila == col || fila == n - 1 - col) {
-					solucion[fila][col] = EstadoCelda.LLENA;
+				// Diagonales estiradas de esquina a esquina, sin huecos en ninguna dirección
+				int espejo = columnas - 1 - col;
+				if (fila == col * filas / columnas || col == fila * columnas / filas
+						|| fila == espejo * filas / columnas || espejo == fila * columnas / filas) {
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 				}
 			}
 		}
 	}
 
 	// Algoritmo 3: Genera puzzles con secuencias lógicas
-	private void generarPuzzleConSecuenciasLogicas(EstadoCelda[][] solucion) {
-		int n = solucion.length;
-		for (int fila = 0; fila < n; fila++) {
-			for (int col = 0; col < n; col++) {
+	private void generarPuzzleConSecuenciasLogicas(GrillaBits solucion) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		boolean[] primos = cribarPrimos(filas + columnas);
+		for (int fila = 0; fila < filas; fila++) {
+			for (int col = 0; col < columnas; col++) {
 				if ((fila + col) % 3 == 0 && (fila * col) % 2 == 0) {
-					solucion[fila][col] = EstadoCelda.LLENA;
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 				}
-				if (esPrimo(fila + col) && (fila + col) > 1) {
-					solucion[fila][col] = EstadoCelda.LLENA;
+				if (primos[fila + col]) {
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 				}
 			}
 		}
 	}
 
-	private boolean esPrimo(int numero) {
-		if (numero <= 1) return false;
-		if (numero <= 3) return true;
-		if (numero % 2 == 0 || numero % 3 == 0) return false;
-		for (int i = 5; i * i <= numero; i += 6) {
-			if (numero % i == 0 || numero % (i + 2) == 0) {
-				return false;
+	// Criba de Eratóstenes: primos[i] indica si i es primo, para i < limite.
+	private boolean[] cribarPrimos(int limite) {
+		boolean[] primos = new boolean[limite];
+		for (int i = 2; i < limite; i++) {
+			primos[i] = true;
+		}
+		for (int i = 2; (long) i * i < limite; i++) {
+			if (primos[i]) {
+				for (int multiplo = i * i; multiplo < limite; multiplo += i) {
+					primos[multiplo] = false;
+				}
 			}
 		}
-		return true;
+		return primos;
 	}
 
 	// Algoritmo 4: Genera puzzles con densidad variable
-	private void generarPuzzleConDensidadVariable(EstadoCelda[][] solucion) {
-		int n = solucion.length;
-		for (int fila = 0; fila < n; fila++) {
-			for (int col = 0; col < n; col++) {
-				double distanciaAlCentro = Math.sqrt(Math.pow(fila - n/2.0, 2) + Math.pow(col - n/2.0, 2));
-				double probabilidad = Math.max(0.1, 1.0 - distanciaAlCentro / (n/2.0));
-				if (Math.random() < probabilidad) {
-					solucion[fila][col] = EstadoCelda.LLENA;
+	private void generarPuzzleConDensidadVariable(GrillaBits solucion, RandomGenerator aleatorio) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		// Las filas se escalan a columnas para que la caída sea una elipse que toca los cuatro bordes
+		double escala = (double) columnas / filas;
+		for (int fila = 0; fila < filas; fila++) {
+			for (int col = 0; col < columnas; col++) {
+				double distanciaAlCentro = Math.sqrt(Math.pow((fila - filas/2.0) * escala, 2) + Math.pow(col - columnas/2.0, 2));
+				double probabilidad = Math.max(0.1, 1.0 - distanciaAlCentro / (columnas/2.0));
+				if (aleatorio.nextDouble() < probabilidad) {
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 				}
 			}
 		}
 	}
 
 	// Algoritmo 5: Genera puzzles con bordes y centro
-	private void generarPuzzleConBordesYCentro(EstadoCelda[][] solucion) {
-		int n = solucion.length;
-		for (int i = 0; i < n; i++) {
-			solucion[0][i] = EstadoCelda.LLENA;
-			solucion[n-1][i] = EstadoCelda.LLENA;
-			solucion[i][0] = EstadoCelda.LLENA;
-			solucion[i][n-1] = EstadoCelda.LLENA;
-		}
-		int centro = n / 2;
-		int radio = Math.max(1, n / 6);
-		for (int fila = centro - radio; fila <= centro + radio; fila++) {
-			for (int col = centro - radio; col <= centro + radio; col++) {
-				if (fila >= 0 && fila < n && col >= 0 && col < n) {
-					solucion[fila][col] = EstadoCelda.LLENA;
+	private void generarPuzzleConBordesYCentro(GrillaBits solucion) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		for (int col = 0; col < columnas; col++) {
+			solucion.establecerEstado(0, col, EstadoCelda.LLENA);
+			solucion.establecerEstado(filas-1, col, EstadoCelda.LLENA);
+		}
+		for (int fila = 0; fila < filas; fila++) {
+			solucion.establecerEstado(fila, 0, EstadoCelda.LLENA);
+			solucion.establecerEstado(fila, columnas-1, EstadoCelda.LLENA);
+		}
+		int centroFila = filas / 2;
+		int centroCol = columnas / 2;
+		int radioFilas = Math.max(1, filas / 6);
+		int radioCols = Math.max(1, columnas / 6);
+		for (int fila = centroFila - radioFilas; fila <= centroFila + radioFilas; fila++) {
+			for (int col = centroCol - radioCols; col <= centroCol + radioCols; col++) {
+				if (fila >= 0 && fila < filas && col >= 0 && col < columnas) {
+					solucion.establecerEstado(fila, col, EstadoCelda.LLENA);
 				}
 			}
 		}
 	}
 
-	private void asegurarValidezPuzzle(EstadoCelda[][] solucion) {
-		int n = solucion.length;
-		for (int fila = 0; fila < n; fila++) {
+	// Evita filas y columnas vacías o completas. Trabaja palabra a palabra: las
+	// columnas se revisan con el OR de las filas ya corregidas.
+	private void asegurarValidezPuzzle(GrillaBits solucion) {
+		int filas = solucion.obtenerFilas();
+		int columnas = solucion.obtenerColumnas();
+		int palabras = solucion.obtenerPalabrasPorFila();
+		for (int fila = 0; fila < filas; fila++) {
 			int llenas = 0;
-			int vacias = 0;
-			for (int col = 0; col < n; col++) {
-				if (solucion[fila][col] == EstadoCelda.LLENA) llenas++;
-				else vacias++;
+			for (int palabra = 0; palabra < palabras; palabra++) {
+				llenas += Long.bitCount(solucion.obtenerPalabraLlenas(fila, palabra));
 			}
-			if (llenas == 0) solucion[fila][n/2] = EstadoCelda.LLENA;
-			else if (vacias == 0) solucion[fila][n/2] = EstadoCelda.VACIA;
+			if (llenas == 0) solucion.establecerEstado(fila, columnas/2, EstadoCelda.LLENA);
+			else if (llenas == columnas) solucion.establecerEstado(fila, columnas/2, EstadoCelda.VACIA);
 		}
-		for (int col = 0; col < n; col++) {
-			int llenas = 0;
-			int vacias = 0;
-			for (int fila = 0; fila < n; fila++) {
-				if (solucion[fila][col] == EstadoCelda.LLENA) llenas++;
-				else vacias++;
+		long[] algunaLlena = new long[palabras];
+		long[] algunaVacia = new long[palabras];
+		for (int fila = 0; fila < filas; fila++) {
+			for (int palabra = 0; palabra < palabras; palabra++) {
+				long bits = solucion.obtenerPalabraLlenas(fila, palabra);
+				algunaLlena[palabra] |= bits;
+				algunaVacia[palabra] |= ~bits;
 			}
-			if (llenas == 0) solucion[n/2][col] = EstadoCelda.LLENA;
-			else if (vacias == 0) solucion[n/2][col] = EstadoCelda.VACIA;
+		}
+		for (int col = 0; col < columnas; col++) {
+			long bit = 1L << col;
+			if ((algunaLlena[col >>> 6] & bit) == 0) solucion.establecerEstado(filas/2, col, EstadoCelda.LLENA);
+			else if ((algunaVacia[col >>> 6] & bit) == 0) solucion.establecerEstado(filas/2, col, EstadoCelda.VACIA);
 		}
 	}
 }
@@ -0,0 +1,460 @@
+package com.nonogram.model;
+
+import java.util.Arrays;
+
+// Grilla del Nonograma guardada en planos de bits.
+//
+// Cada fila se empaqueta en palabras long consecutivas (64 celdas por palabra)
+// y hay tres planos independientes:
+// - llenas: celdas en estado LLENA
+// - marcadas: celdas en estado MARCADA (X)
+// - reveladas: celdas reveladas como pista
+//
+// Una celda sin bit en llenas ni en marcadas está VACIA. Así una grilla de
+// 1000x1000 ocupa unos pocos cientos de KB (una de 5000x5000, unos 9 MB) y
+// las comparaciones de filas completas se resuelven palabra a palabra con AND/XOR.
+public class GrillaBits {
+
+    private static final int BITS_POR_PALABRA = 64;
+
+    private final int filas;
+    private final int columnas;
+    private final int palabrasPorFila;
+    private final long mascaraUltimaPalabra; // Bits válidos de la última palabra de cada fila
+    private final long[] llenas;
+    private final long[] marcadas;
+    private final long[] reveladas;
+    // Filas cambiadas desde la última copiarInmutable, un bit por fila; null hasta la primera
+    private long[] filasModificadas;
+    private GrillaInmutable ultimaCopia;
+
+    // Constructor de la grilla. Todas las celdas empiezan VACIA y sin revelar.
+    //
+    // @param filas Cantidad de filas
+    // @param columnas Cantidad de columnas
+    public GrillaBits(int filas, int columnas) {
+        if (filas <= 0 || columnas <= 0) {
+            throw new IllegalArgumentException("Tamaño de grilla inválido");
+        }
+        this.filas = filas;
+        this.columnas = columnas;
+        this.palabrasPorFila = (columnas + BITS_POR_PALABRA - 1) / BITS_POR_PALABRA;
+        int bitsUltimaPalabra = columnas % BITS_POR_PALABRA;
+        this.mascaraUltimaPalabra = bitsUltimaPalabra == 0 ? -1L : (1L << bitsUltimaPalabra) - 1;
+        this.llenas = new long[filas * palabrasPorFila];
+        this.marcadas = new long[filas * palabrasPorFila];
+        this.reveladas = new long[filas * palabrasPorFila];
+    }
+
+    // Constructor de copia: la nueva grilla no comparte arreglos con la original.
+    //
+    // @param otra Grilla a copiar
+    public GrillaBits(GrillaBits otra) {
+        this.filas = otra.filas;
+        this.columnas = otra.columnas;
+        this.palabrasPorFila = otra.palabrasPorFila;
+        this.mascaraUltimaPalabra = otra.mascaraUltimaPalabra;
+        this.llenas = otra.llenas.clone();
+        this.marcadas = otra.marcadas.clone();
+        this.reveladas = otra.reveladas.clone();
+    }
+
+    // Obtiene la cantidad de filas.
+    //
+    // @return Cantidad de filas
+    public int obtenerFilas() {
+        return filas;
+    }
+
+    // Obtiene la cantidad de columnas.
+    //
+    // @return Cantidad de columnas
+    public int obtenerColumnas() {
+        return columnas;
+    }
+
+    // Obtiene la cantidad de palabras long usadas por cada fila.
+    //
+    // @return Palabras por fila
+    public int obtenerPalabrasPorFila() {
+        return palabrasPorFila;
+    }
+
+    // Obtiene el estado de una celda.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return Estado de la celda
+    public EstadoCelda obtenerEstado(int fila, int columna) {
+        int indice = indicePalabra(fila, columna);
+        long bit = 1L << columna;
+        if ((llenas[indice] & bit) != 0) {
+            return EstadoCelda.LLENA;
+        }
+        if ((marcadas[indice] & bit) != 0) {
+            return EstadoCelda.MARCADA;
+        }
+        return EstadoCelda.VACIA;
+    }
+
+    // Establece el estado de una celda.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @param estado Nuevo estado de la celda
+    public void establecerEstado(int fila, int columna, EstadoCelda estado) {
+        int indice = indicePalabra(fila, columna);
+        long bit = 1L << columna;
+        llenas[indice] &= ~bit;
+        marcadas[indice] &= ~bit;
+        if (estado == EstadoCelda.LLENA) {
+            llenas[indice] |= bit;
+        } else if (estado == EstadoCelda.MARCADA) {
+            marcadas[indice] |= bit;
+        }
+        marcarModificada(fila);
+    }
+
+    // Indica si una celda está llena.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si la celda está LLENA
+    public boolean estaLlena(int fila, int columna) {
+        return (llenas[indicePalabra(fila, columna)] & (1L << columna)) != 0;
+    }
+
+    // Indica si una celda fue revelada como pista.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si la celda está revelada
+    public boolean estaRevelada(int fila, int columna) {
+        return (reveladas[indicePalabra(fila, columna)] & (1L << columna)) != 0;
+    }
+
+    // Marca o desmarca una celda como revelada.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @param revelada true para revelarla
+    public void establecerRevelada(int fila, int columna, boolean revelada) {
+        int indice = indicePalabra(fila, columna);
+        long bit = 1L << columna;
+        if (revelada) {
+            reveladas[indice] |= bit;
+        } else {
+            reveladas[indice] &= ~bit;
+        }
+        marcarModificada(fila);
+    }
+
+    // Obtiene una palabra del plano de celdas llenas.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila (columnas palabra*64 a palabra*64+63)
+    // @return Bits de las celdas llenas
+    public long obtenerPalabraLlenas(int fila, int palabra) {
+        return llenas[fila * palabrasPorFila + palabra];
+    }
+
+    // Obtiene una palabra del plano de celdas marcadas.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas marcadas
+    public long obtenerPalabraMarcadas(int fila, int palabra) {
+        return marcadas[fila * palabrasPorFila + palabra];
+    }
+
+    // Obtiene una palabra del plano de celdas reveladas.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas reveladas
+    public long obtenerPalabraReveladas(int fila, int palabra) {
+        return reveladas[fila * palabrasPorFila + palabra];
+    }
+
+    // Pone todas las celdas en el mismo estado, sin tocar las reveladas.
+    //
+    // @param estado Estado para todas las celdas
+    public void rellenar(EstadoCelda estado) {
+        for (int fila = 0; fila < filas; fila++) {
+            int base = fila * palabrasPorFila;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long mascara = mascaraPalabra(palabra);
+                llenas[base + palabra] = estado == EstadoCelda.LLENA ? mascara : 0L;
+                marcadas[base + palabra] = estado == EstadoCelda.MARCADA ? mascara : 0L;
+            }
+        }
+        marcarTodasModificadas();
+    }
+
+    // Copia los planos de celdas llenas y marcadas a dos arreglos, sin las reveladas.
+    //
+    // @param llenasDestino Arreglo de filas * palabrasPorFila palabras para las llenas
+    // @param marcadasDestino Arreglo del mismo tamaño para las marcadas
+    public void copiarEstadosA(long[] llenasDestino, long[] marcadasDestino) {
+        System.arraycopy(llenas, 0, llenasDestino, 0, llenas.length);
+        System.arraycopy(marcadas, 0, marcadasDestino, 0, marcadas.length);
+    }
+
+    // Reemplaza los planos de celdas llenas y marcadas. Las reveladas no cambian.
+    //
+    // @param llenasOrigen Palabras de las celdas llenas, como las deja copiarEstadosA
+    // @param marcadasOrigen Palabras de las celdas marcadas
+    public void copiarEstadosDesde(long[] llenasOrigen, long[] marcadasOrigen) {
+        System.arraycopy(llenasOrigen, 0, llenas, 0, llenas.length);
+        System.arraycopy(marcadasOrigen, 0, marcadas, 0, marcadas.length);
+        marcarTodasModificadas();
+    }
+
+    // Reemplaza los tres planos de la grilla con datos externos (por ejemplo, un
+    // archivo), verificando que tengan el largo correcto, que ninguna celda esté
+    // llena y marcada a la vez y que no haya bits fuera de las columnas.
+    //
+    // @param llenasOrigen Palabras de las celdas llenas
+    // @param marcadasOrigen Palabras de las celdas marcadas
+    // @param reveladasOrigen Palabras de las celdas reveladas
+    public void cargarPlanos(long[] llenasOrigen, long[] marcadasOrigen, long[] reveladasOrigen) {
+        if (llenasOrigen.length != llenas.length || marcadasOrigen.length != marcadas.length
+                || reveladasOrigen.length != reveladas.length) {
+            throw new IllegalArgumentException("Los planos no tienen el tamaño de la grilla");
+        }
+        for (int fila = 0; fila < filas; fila++) {
+            int base = fila * palabrasPorFila;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long fuera = ~mascaraPalabra(palabra);
+                int indice = base + palabra;
+                if ((llenasOrigen[indice] & marcadasOrigen[indice]) != 0L
+                        || ((llenasOrigen[indice] | marcadasOrigen[indice] | reveladasOrigen[indice]) & fuera) != 0L) {
+                    throw new IllegalArgumentException("Planos inválidos en la fila " + fila);
+                }
+            }
+        }
+        System.arraycopy(llenasOrigen, 0, llenas, 0, llenas.length);
+        System.arraycopy(marcadasOrigen, 0, marcadas, 0, marcadas.length);
+        System.arraycopy(reveladasOrigen, 0, reveladas, 0, reveladas.length);
+        marcarTodasModificadas();
+    }
+
+    // Copia los tres planos de otra grilla del mismo tamaño.
+    //
+    // @param otra Grilla a copiar
+    public void copiarDesde(GrillaBits otra) {
+        verificarMismoTamaño(otra);
+        System.arraycopy(otra.llenas, 0, llenas, 0, llenas.length);
+        System.arraycopy(otra.marcadas, 0, marcadas, 0, marcadas.length);
+        System.arraycopy(otra.reveladas, 0, reveladas, 0, reveladas.length);
+        marcarTodasModificadas();
+    }
+
+    // Copia los tres planos de una copia inmutable del mismo tamaño.
+    void copiarDesde(GrillaInmutable copia) {
+        if (copia.obtenerFilas() != filas || copia.obtenerColumnas() != columnas) {
+            throw new IllegalArgumentException("Las grillas tienen distinto tamaño");
+        }
+        for (int fila = 0; fila < filas; fila++) {
+            long[] palabrasFila = copia.obtenerFila(fila);
+            int base = fila * palabrasPorFila;
+            System.arraycopy(palabrasFila, 0, llenas, base, palabrasPorFila);
+            System.arraycopy(palabrasFila, palabrasPorFila, marcadas, base, palabrasPorFila);
+            System.arraycopy(palabrasFila, 2 * palabrasPorFila, reveladas, base, palabrasPorFila);
+        }
+        marcarTodasModificadas();
+    }
+
+    // Desmarca todas las celdas reveladas.
+    public void limpiarReveladas() {
+        Arrays.fill(reveladas, 0L);
+        marcarTodasModificadas();
+    }
+
+    // Copia una matriz de estados en la grilla. Las reveladas no cambian.
+    //
+    // @param matriz Matriz con el mismo tamaño que la grilla
+    public void copiarDesde(EstadoCelda[][] matriz) {
+        if (matriz == null || matriz.length != filas || matriz[0].length != columnas) {
+            throw new IllegalArgumentException("Tamaño de matriz inválido");
+        }
+        for (int fila = 0; fila < filas; fila++) {
+            int base = fila * palabrasPorFila;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long bitsLlenas = 0L;
+                long bitsMarcadas = 0L;
+                int inicio = palabra * BITS_POR_PALABRA;
+                int fin = Math.min(columnas, inicio + BITS_POR_PALABRA);
+                for (int columna = inicio; columna < fin; columna++) {
+                    EstadoCelda estado = matriz[fila][columna];
+                    if (estado == EstadoCelda.LLENA) {
+                        bitsLlenas |= 1L << columna;
+                    } else if (estado == EstadoCelda.MARCADA) {
+                        bitsMarcadas |= 1L << columna;
+                    }
+                }
+                llenas[base + palabra] = bitsLlenas;
+                marcadas[base + palabra] = bitsMarcadas;
+            }
+        }
+        marcarTodasModificadas();
+    }
+
+    // Arma una copia inmutable de la grilla (ver GrillaInmutable). Desde la
+    // primera llamada la grilla anota qué filas cambian, y cada copia nueva
+    // comparte con la anterior las filas que no cambiaron: sólo se copian las
+    // otras. Sin cambios desde la última copia, devuelve la misma.
+    GrillaInmutable copiarInmutable() {
+        if (filasModificadas == null) {
+            filasModificadas = new long[(filas + BITS_POR_PALABRA - 1) / BITS_POR_PALABRA];
+            marcarTodasModificadas();
+        }
+        long[][] palabras = new long[filas][];
+        boolean huboCambios = ultimaCopia == null;
+        for (int fila = 0; fila < filas; fila++) {
+            if (ultimaCopia != null && (filasModificadas[fila >>> 6] & (1L << fila)) == 0) {
+                palabras[fila] = ultimaCopia.obtenerFila(fila);
+                continue;
+            }
+            long[] palabrasFila = new long[3 * palabrasPorFila];
+            int base = fila * palabrasPorFila;
+            System.arraycopy(llenas, base, palabrasFila, 0, palabrasPorFila);
+            System.arraycopy(marcadas, base, palabrasFila, palabrasPorFila, palabrasPorFila);
+            System.arraycopy(reveladas, base, palabrasFila, 2 * palabrasPorFila, palabrasPorFila);
+            palabras[fila] = palabrasFila;
+            huboCambios = true;
+        }
+        if (huboCambios) {
+            ultimaCopia = new GrillaInmutable(filas, columnas, palabrasPorFila, palabras);
+        }
+        Arrays.fill(filasModificadas, 0L);
+        return ultimaCopia;
+    }
+
+    // Arma una matriz con los estados de la grilla, sin las reveladas.
+    //
+    // @return Matriz nueva de filas x columnas
+    public EstadoCelda[][] copiarAMatriz() {
+        EstadoCelda[][] matriz = new EstadoCelda[filas][columnas];
+        for (int fila = 0; fila < filas; fila++) {
+            for (int columna = 0; columna < columnas; columna++) {
+                matriz[fila][columna] = obtenerEstado(fila, columna);
+            }
+        }
+        return matriz;
+    }
+
+    // Obtiene las celdas de una palabra que no coinciden con la solución
+    // (ver contarIncorrectasFila).
+    //
+    // @param solucion Grilla con la solución
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas incorrectas
+    public long obtenerPalabraIncorrectas(GrillaBits solucion, int fila, int palabra) {
+        verificarMismoTamaño(solucion);
+        return palabraIncorrecta(solucion, fila * palabrasPorFila + palabra, palabra);
+    }
+
+    // Cuenta las celdas de una fila que no coinciden con la solución.
+    // Una celda es correcta si está LLENA donde la solución está llena
+    // o MARCADA donde la solución está vacía.
+    //
+    // @param solucion Grilla con la solución (sólo se usa el plano de llenas)
+    // @param fila Fila a comparar
+    // @return Cantidad de celdas incorrectas en la fila
+    public int contarIncorrectasFila(GrillaBits solucion, int fila) {
+        verificarMismoTamaño(solucion);
+        int base = fila * palabrasPorFila;
+        int incorrectas = 0;
+        for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+            incorrectas += Long.bitCount(palabraIncorrecta(solucion, base + palabra, palabra));
+        }
+        return incorrectas;
+    }
+
+    // Cuenta todas las celdas de la grilla que no coinciden con la solución.
+    //
+    // @param solucion Grilla con la solución
+    // @return Cantidad de celdas incorrectas
+    public int contarIncorrectas(GrillaBits solucion) {
+        int incorrectas = 0;
+        for (int fila = 0; fila < filas; fila++) {
+            incorrectas += contarIncorrectasFila(solucion, fila);
+        }
+        return incorrectas;
+    }
+
+    // Cuenta las celdas llenas de toda la grilla.
+    //
+    // @return Cantidad de celdas LLENA
+    public int contarLlenas() {
+        int total = 0;
+        for (long palabra : llenas) {
+            total += Long.bitCount(palabra);
+        }
+        return total;
+    }
+
+    // Indica si una fila completa coincide con la solución.
+    //
+    // @param solucion Grilla con la solución
+    // @param fila Fila a comparar
+    // @return true si todas las celdas de la fila son correctas
+    public boolean filaCoincideCon(GrillaBits solucion, int fila) {
+        verificarMismoTamaño(solucion);
+        int base = fila * palabrasPorFila;
+        for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+            if (palabraIncorrecta(solucion, base + palabra, palabra) != 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Indica si toda la grilla coincide con la solución.
+    //
+    // @param solucion Grilla con la solución
+    // @return true si todas las celdas son correctas
+    public boolean coincideCon(GrillaBits solucion) {
+        for (int fila = 0; fila < filas; fila++) {
+            if (!filaCoincideCon(solucion, fila)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Bits de las celdas incorrectas de una palabra comparada contra la solución.
+    private long palabraIncorrecta(GrillaBits solucion, int indice, int palabra) {
+        long solucionLlenas = solucion.llenas[indice];
+        long incorrectas = (llenas[indice] ^ solucionLlenas) | (marcadas[indice] ^ ~solucionLlenas);
+        return incorrectas & mascaraPalabra(palabra);
+    }
+
+    private void marcarModificada(int fila) {
+        if (filasModificadas != null) {
+            filasModificadas[fila >>> 6] |= 1L << fila;
+        }
+    }
+
+    private void marcarTodasModificadas() {
+        if (filasModificadas != null) {
+            Arrays.fill(filasModificadas, -1L);
+        }
+    }
+
+    private long mascaraPalabra(int palabra) {
+        return palabra == palabrasPorFila - 1 ? mascaraUltimaPalabra : -1L;
+    }
+
+    private int indicePalabra(int fila, int columna) {
+        return fila * palabrasPorFila + (columna >>> 6);
+    }
+
+    private void verificarMismoTamaño(GrillaBits otra) {
+        if (otra.filas != filas || otra.columnas != columnas) {
+            throw new IllegalArgumentException("Las grillas tienen distinto tamaño");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.nonogram.model;
+
+// Copia inmutable de una GrillaBits, guardada por filas. La arma
+// GrillaBits.copiarInmutable y la usan las instantáneas del modelo.
+//
+// Cada fila es un arreglo propio con sus palabras de llenas, marcadas y
+// reveladas, una tras otra. Como nadie modifica esos arreglos, dos copias
+// sucesivas de la misma grilla comparten las filas que no cambiaron entre
+// una y otra: copiar después de una jugada cuesta lo que las filas tocadas,
+// no lo que el tablero entero.
+final class GrillaInmutable {
+
+    private final int filas;
+    private final int columnas;
+    private final int palabrasPorFila;
+    private final long[][] palabras; // Por fila: llenas, marcadas y reveladas, palabrasPorFila de cada una
+
+    GrillaInmutable(int filas, int columnas, int palabrasPorFila, long[][] palabras) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.palabrasPorFila = palabrasPorFila;
+        this.palabras = palabras;
+    }
+
+    int obtenerFilas() {
+        return filas;
+    }
+
+    int obtenerColumnas() {
+        return columnas;
+    }
+
+    int obtenerPalabrasPorFila() {
+        return palabrasPorFila;
+    }
+
+    EstadoCelda obtenerEstado(int fila, int columna) {
+        long[] palabrasFila = palabras[fila];
+        int palabra = columna >>> 6;
+        long bit = 1L << columna;
+        if ((palabrasFila[palabra] & bit) != 0) {
+            return EstadoCelda.LLENA;
+        }
+        if ((palabrasFila[palabrasPorFila + palabra] & bit) != 0) {
+            return EstadoCelda.MARCADA;
+        }
+        return EstadoCelda.VACIA;
+    }
+
+    boolean estaRevelada(int fila, int columna) {
+        return (palabras[fila][2 * palabrasPorFila + (columna >>> 6)] & (1L << columna)) != 0;
+    }
+
+    long obtenerPalabraLlenas(int fila, int palabra) {
+        return palabras[fila][palabra];
+    }
+
+    long obtenerPalabraMarcadas(int fila, int palabra) {
+        return palabras[fila][palabrasPorFila + palabra];
+    }
+
+    long obtenerPalabraReveladas(int fila, int palabra) {
+        return palabras[fila][2 * palabrasPorFila + palabra];
+    }
+
+    // Indica si las dos copias comparten una fila, es decir, si esa fila no
+    // cambió entre una y otra. Que no la compartan no quiere decir que sea distinta.
+    boolean compartenFila(GrillaInmutable otra, int fila) {
+        return otra != null && otra.filas == filas && otra.columnas == columnas && palabras[fila] == otra.palabras[fila];
+    }
+
+    // Palabras de una fila, en el orden llenas, marcadas, reveladas. No hay que modificarlas.
+    long[] obtenerFila(int fila) {
+        return palabras[fila];
+    }
+}
@@ -0,0 +1,18 @@
+package com.nonogram.model;
+
+// Hilo en el que un observador quiere recibir las notificaciones del modelo.
+//
+// Si el cambio ocurre en otro hilo, el modelo le pasa al observador una
+// instantánea del estado (CambioModelo.obtenerInstantanea) y la entrega con
+// ejecutarLuego; si ocurre en el mismo hilo, lo llama directamente. Así las
+// vistas Swing reciben todo en el hilo de eventos sin que el modelo dependa de Swing.
+public interface HiloObservador {
+
+    // @return true si el hilo que llama es el del observador
+    boolean esHiloActual();
+
+    // Encola una tarea para ejecutarla en el hilo del observador.
+    //
+    // @param tarea Tarea a ejecutar
+    void ejecutarLuego(Runnable tarea);
+}
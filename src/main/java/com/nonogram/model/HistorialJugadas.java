@@ -0,0 +1,311 @@
+package com.nonogram.model;
+
+import java.util.Arrays;
+
+// Historial de jugadas para deshacer y rehacer.
+//
+// Cada jugada se empaqueta en un long: el índice de la celda (fila * columnas
+// + columna) en los bits altos, un bit que indica si continúa el grupo de la
+// jugada anterior y el estado anterior y el nuevo en los 4 bits bajos. Las
+// jugadas se guardan en un buffer circular de long; al llenarse se pierden las
+// más viejas, así que la memoria no crece con la partida. Deshacer o rehacer
+// una jugada cuesta O(1).
+//
+// Las jugadas registradas entre iniciarGrupo y cerrarGrupo (por ejemplo, las
+// celdas de un trazo con el mouse) forman un grupo que el modelo deshace y
+// rehace de una sola vez.
+//
+// Cada intervaloPuntos jugadas se guarda una copia de los planos de la grilla
+// (un punto de control). Para saltar a cualquier jugada se parte del punto más
+// cercano que siga en el buffer y se aplican a lo sumo intervaloPuntos
+// jugadas, así el costo no depende de cuántas jugadas haya hecho el jugador.
+// Los puntos también van en un buffer circular y su cantidad se ajusta para
+// no pasar el límite de memoria: en grillas grandes se toman más espaciados.
+public class HistorialJugadas {
+
+    public static final int CAPACIDAD_POR_DEFECTO = 100_000;
+    public static final int INTERVALO_POR_DEFECTO = 1_024;
+    public static final long LIMITE_BYTES_POR_DEFECTO = 16L << 20; // 16 MB
+
+    private static final EstadoCelda[] ESTADOS = EstadoCelda.values();
+    private static final long CONTINUA = 1L << 4; // La jugada sigue el grupo de la anterior
+    private static final int DESPLAZAMIENTO_CELDA = 5;
+
+    private final long[] jugadas;
+    private final int intervaloPuntos;
+    private final long[][] puntosLlenas;
+    private final long[][] puntosMarcadas;
+    private final long[] numeroPunto; // Jugada de cada punto de control, -1 si el lugar está libre
+
+    // Las jugadas se numeran desde el comienzo de la partida; la posición en el buffer es numero % capacidad
+    private long primera;  // Jugada más vieja que sigue en el buffer
+    private long actual;   // Cantidad de jugadas aplicadas
+    private long ultima;   // Cantidad de jugadas registradas, incluidas las que se pueden rehacer
+    private boolean agrupando;
+    private boolean grupoVacio; // La próxima jugada del grupo es la primera
+
+    // Constructor con la capacidad, el intervalo y el límite de memoria por defecto.
+    //
+    // @param grilla Grilla del jugador en el estado inicial (se guarda como primer punto)
+    public HistorialJugadas(GrillaBits grilla) {
+        this(grilla, CAPACIDAD_POR_DEFECTO, INTERVALO_POR_DEFECTO, LIMITE_BYTES_POR_DEFECTO);
+    }
+
+    // Constructor del historial.
+    //
+    // @param grilla Grilla del jugador en el estado inicial (se guarda como primer punto)
+    // @param capacidad Cantidad máxima de jugadas guardadas
+    // @param intervaloPuntos Jugadas entre dos puntos de control
+    // @param limiteBytes Memoria máxima aproximada para jugadas y puntos
+    public HistorialJugadas(GrillaBits grilla, int capacidad, int intervaloPuntos, long limiteBytes) {
+        if (capacidad <= 0 || intervaloPuntos <= 0 || limiteBytes <= 0) {
+            throw new IllegalArgumentException("Parámetros de historial inválidos");
+        }
+        int palabras = grilla.obtenerFilas() * grilla.obtenerPalabrasPorFila();
+        long bytesPunto = 2L * palabras * Long.BYTES;
+        // Las jugadas usan a lo sumo la mitad del límite; el resto es para los puntos
+        capacidad = (int) Math.max(1, Math.min(capacidad, limiteBytes / 2 / Long.BYTES));
+        // Al menos un punto además de los dos de margen, aunque una grilla enorme pase el límite
+        long puntosPosibles = Math.max(3, (limiteBytes - (long) capacidad * Long.BYTES) / bytesPunto);
+        // Con pocos puntos se espacian más para que cubran todo el buffer
+        int intervalo = intervaloPuntos;
+        if ((capacidad + intervalo - 1) / intervalo + 2 > puntosPosibles) {
+            intervalo = (int) ((capacidad + puntosPosibles - 3) / (puntosPosibles - 2));
+            intervalo = Math.max(1, intervalo);
+        }
+        int cantidadPuntos = (capacidad + intervalo - 1) / intervalo + 2;
+
+        this.jugadas = new long[capacidad];
+        this.intervaloPuntos = intervalo;
+        this.puntosLlenas = new long[cantidadPuntos][palabras];
+        this.puntosMarcadas = new long[cantidadPuntos][palabras];
+        this.numeroPunto = new long[cantidadPuntos];
+        Arrays.fill(numeroPunto, -1L);
+        guardarPunto(grilla);
+    }
+
+    // Vacía el historial para una partida nueva con la misma grilla.
+    //
+    // @param grilla Grilla del jugador en el estado inicial
+    public void reiniciar(GrillaBits grilla) {
+        primera = 0;
+        actual = 0;
+        ultima = 0;
+        agrupando = false;
+        Arrays.fill(numeroPunto, -1L);
+        guardarPunto(grilla);
+    }
+
+    // Empaqueta una jugada en un long.
+    //
+    // @param celda Índice de la celda, fila * columnas + columna
+    // @param anterior Estado antes de la jugada
+    // @param nuevo Estado después de la jugada
+    // @return Jugada empaquetada
+    public static long empaquetar(int celda, EstadoCelda anterior, EstadoCelda nuevo) {
+        return empaquetar(celda, anterior, nuevo, false);
+    }
+
+    // Empaqueta una jugada en un long.
+    //
+    // @param celda Índice de la celda, fila * columnas + columna
+    // @param anterior Estado antes de la jugada
+    // @param nuevo Estado después de la jugada
+    // @param continua true si la jugada pertenece al mismo grupo que la anterior
+    // @return Jugada empaquetada
+    public static long empaquetar(int celda, EstadoCelda anterior, EstadoCelda nuevo, boolean continua) {
+        return ((long) celda << DESPLAZAMIENTO_CELDA) | (continua ? CONTINUA : 0)
+                | (anterior.ordinal() << 2) | nuevo.ordinal();
+    }
+
+    // @param jugada Jugada empaquetada
+    // @return Índice de la celda
+    public static int obtenerCelda(long jugada) {
+        return (int) (jugada >>> DESPLAZAMIENTO_CELDA);
+    }
+
+    // @param jugada Jugada empaquetada
+    // @return true si la jugada se deshace y rehace junto con la anterior
+    public static boolean esContinuacion(long jugada) {
+        return (jugada & CONTINUA) != 0;
+    }
+
+    // @param jugada Jugada empaquetada
+    // @return Estado de la celda antes de la jugada
+    public static EstadoCelda obtenerAnterior(long jugada) {
+        return ESTADOS[(int) (jugada >>> 2) & 3];
+    }
+
+    // @param jugada Jugada empaquetada
+    // @return Estado de la celda después de la jugada
+    public static EstadoCelda obtenerNuevo(long jugada) {
+        return ESTADOS[(int) jugada & 3];
+    }
+
+    // Registra una jugada nueva. Descarta las jugadas que se podían rehacer y,
+    // si el buffer está lleno, la más vieja. Cuando toca, guarda un punto de
+    // control con la grilla ya modificada.
+    //
+    // @param celda Índice de la celda
+    // @param anterior Estado antes de la jugada
+    // @param nuevo Estado después de la jugada
+    // @param grilla Grilla del jugador con la jugada aplicada
+    public void registrar(int celda, EstadoCelda anterior, EstadoCelda nuevo, GrillaBits grilla) {
+        if (ultima > actual) {
+            descartarPuntosDesde(actual + 1);
+        }
+        jugadas[(int) (actual % jugadas.length)] = empaquetar(celda, anterior, nuevo, agrupando && !grupoVacio);
+        grupoVacio = false;
+        actual++;
+        ultima = actual;
+        if (actual - primera > jugadas.length) {
+            primera = actual - jugadas.length;
+        }
+        if (actual % intervaloPuntos == 0) {
+            guardarPunto(grilla);
+        }
+    }
+
+    // Empieza un grupo: las jugadas que se registren hasta cerrarGrupo se
+    // marcan como continuación de la primera.
+    public void iniciarGrupo() {
+        agrupando = true;
+        grupoVacio = true;
+    }
+
+    // Cierra el grupo abierto con iniciarGrupo.
+    public void cerrarGrupo() {
+        agrupando = false;
+    }
+
+    // @return true si la próxima jugada a rehacer pertenece al grupo de la última rehecha
+    public boolean siguienteContinua() {
+        return puedeRehacer() && esContinuacion(jugadas[(int) (actual % jugadas.length)]);
+    }
+
+    // @return true si hay una jugada para deshacer
+    public boolean puedeDeshacer() {
+        return actual > primera;
+    }
+
+    // @return true si hay una jugada deshecha para rehacer
+    public boolean puedeRehacer() {
+        return ultima > actual;
+    }
+
+    // Retrocede una jugada. Quien llama aplica el estado anterior de la jugada.
+    //
+    // @return Jugada deshecha
+    public long deshacer() {
+        if (!puedeDeshacer()) {
+            throw new IllegalStateException("No hay jugadas para deshacer");
+        }
+        actual--;
+        return jugadas[(int) (actual % jugadas.length)];
+    }
+
+    // Avanza una jugada deshecha. Quien llama aplica el estado nuevo de la jugada.
+    //
+    // @return Jugada rehecha
+    public long rehacer() {
+        if (!puedeRehacer()) {
+            throw new IllegalStateException("No hay jugadas para rehacer");
+        }
+        long jugada = jugadas[(int) (actual % jugadas.length)];
+        actual++;
+        return jugada;
+    }
+
+    // Lleva la grilla a como estaba después de una jugada, partiendo del punto
+    // de control más cercano. Aplica a lo sumo intervaloPuntos jugadas (más la
+    // copia del punto), sin importar cuán lejos esté la jugada pedida. Las
+    // celdas reveladas no se tocan; quien llama debe volver a ponerlas en su estado.
+    //
+    // @param numero Jugada destino, entre obtenerPrimera() y obtenerUltima()
+    // @param grilla Grilla del jugador, en el estado de la jugada actual
+    public void irA(long numero, GrillaBits grilla) {
+        if (numero < primera || numero > ultima) {
+            throw new IllegalArgumentException("Jugada fuera del historial: " + numero);
+        }
+        // Si está cerca alcanza con ir jugada por jugada desde la actual
+        long origen = actual;
+        long mejorDistancia = Math.abs(numero - actual);
+        int mejorPunto = -1;
+        // Punto anterior (se avanza) y posterior (se retrocede) más cercanos
+        long[] candidatos = {
+            Math.floorDiv(numero, intervaloPuntos) * intervaloPuntos,
+            Math.floorDiv(numero + intervaloPuntos - 1, intervaloPuntos) * intervaloPuntos
+        };
+        for (long candidato : candidatos) {
+            int lugar = lugarPunto(candidato);
+            if (candidato >= primera && candidato <= ultima && numeroPunto[lugar] == candidato
+                    && Math.abs(numero - candidato) < mejorDistancia) {
+                mejorDistancia = Math.abs(numero - candidato);
+                mejorPunto = lugar;
+                origen = candidato;
+            }
+        }
+        if (mejorPunto >= 0) {
+            grilla.copiarEstadosDesde(puntosLlenas[mejorPunto], puntosMarcadas[mejorPunto]);
+        }
+        int columnas = grilla.obtenerColumnas();
+        for (long n = origen; n > numero; n--) {
+            long jugada = jugadas[(int) ((n - 1) % jugadas.length)];
+            int celda = obtenerCelda(jugada);
+            grilla.establecerEstado(celda / columnas, celda % columnas, obtenerAnterior(jugada));
+        }
+        for (long n = origen; n < numero; n++) {
+            long jugada = jugadas[(int) (n % jugadas.length)];
+            int celda = obtenerCelda(jugada);
+            grilla.establecerEstado(celda / columnas, celda % columnas, obtenerNuevo(jugada));
+        }
+        actual = numero;
+    }
+
+    // @return Número de la jugada actual (cantidad de jugadas aplicadas desde el comienzo)
+    public long obtenerActual() {
+        return actual;
+    }
+
+    // @return Número de la jugada más vieja a la que se puede volver
+    public long obtenerPrimera() {
+        return primera;
+    }
+
+    // @return Número de la última jugada que se puede rehacer
+    public long obtenerUltima() {
+        return ultima;
+    }
+
+    // @return Jugadas entre dos puntos de control (ajustado al límite de memoria)
+    public int obtenerIntervaloPuntos() {
+        return intervaloPuntos;
+    }
+
+    // Calcula la memoria usada por el buffer de jugadas y los puntos de control.
+    //
+    // @return Bytes aproximados
+    public long obtenerMemoriaUsada() {
+        return (long) jugadas.length * Long.BYTES
+                + 2L * numeroPunto.length * puntosLlenas[0].length * Long.BYTES;
+    }
+
+    private void guardarPunto(GrillaBits grilla) {
+        int lugar = lugarPunto(actual);
+        grilla.copiarEstadosA(puntosLlenas[lugar], puntosMarcadas[lugar]);
+        numeroPunto[lugar] = actual;
+    }
+
+    // Los puntos posteriores a una jugada dejan de valer cuando se registra otra rama
+    private void descartarPuntosDesde(long numero) {
+        for (int lugar = 0; lugar < numeroPunto.length; lugar++) {
+            if (numeroPunto[lugar] >= numero) {
+                numeroPunto[lugar] = -1L;
+            }
+        }
+    }
+
+    private int lugarPunto(long numero) {
+        return (int) ((numero / intervaloPuntos) % numeroPunto.length);
+    }
+}
@@ -0,0 +1,228 @@
+package com.nonogram.model;
+
+// Copia inmutable del estado de una partida en un momento dado.
+//
+// La crea el hilo que modifica el modelo (ModeloNonograma.obtenerInstantanea)
+// y después se puede leer desde cualquier hilo sin sincronizar: todos los
+// campos son finales y las grillas son copias que nadie más modifica. La del
+// jugador está guardada por filas y comparte con la instantánea anterior las
+// filas que no cambiaron (ver GrillaInmutable), así que armar una después de
+// una jugada no copia el tablero entero. Sirve
+// para que el guardado, el solucionador o las vistas trabajen en segundo plano
+// sobre un estado consistente mientras el juego sigue. También es lo que se
+// guarda y se carga de disco (ver ModeloNonograma.restaurar).
+public class InstantaneaModelo implements LecturaNonograma {
+
+    private final long version;
+    private final long numeroPuzzle;
+    private final GrillaInmutable grillaJuego;
+    private final GrillaBits grillaSolucion;
+    private final PistasNonograma pistas;
+    private final EstadoJuego estadoJuego;
+    private final int pistasDisponibles;
+    private final int celdasIncorrectas;
+    private final NivelDificultad nivel;
+    private final long semilla;
+
+    // Ninguna grilla se copia: la del jugador ya es inmutable y la solución es
+    // una copia que el modelo comparte entre todas las instantáneas del puzzle.
+    InstantaneaModelo(long version, long numeroPuzzle, GrillaInmutable grillaJuego, GrillaBits grillaSolucion,
+                      PistasNonograma pistas, EstadoJuego estadoJuego, int pistasDisponibles, int celdasIncorrectas,
+                      NivelDificultad nivel, long semilla) {
+        this.version = version;
+        this.numeroPuzzle = numeroPuzzle;
+        this.grillaJuego = grillaJuego;
+        this.grillaSolucion = grillaSolucion;
+        this.pistas = pistas;
+        this.estadoJuego = estadoJuego;
+        this.pistasDisponibles = pistasDisponibles;
+        this.celdasIncorrectas = celdasIncorrectas;
+        this.nivel = nivel;
+        this.semilla = semilla;
+    }
+
+    // Arma una instantánea a partir de planos de bits por fila, como los que
+    // devuelven los métodos obtenerPalabra*. Las pistas y las celdas incorrectas
+    // se recalculan a partir de la solución. Sirve para cargar partidas guardadas.
+    //
+    // @param filas Cantidad de filas
+    // @param columnas Cantidad de columnas
+    // @param nivel Nivel, o null si la grilla no corresponde a un nivel
+    // @param semilla Semilla del puzzle
+    // @param pistasDisponibles Pistas que quedan
+    // @param estadoJuego Estado de la partida
+    // @param solucion Celdas llenas de la solución
+    // @param llenas Celdas llenas del jugador
+    // @param marcadas Celdas marcadas del jugador
+    // @param reveladas Celdas reveladas como pista
+    // @return Instantánea con ese estado
+    public static InstantaneaModelo desdePlanos(int filas, int columnas, NivelDificultad nivel, long semilla, int pistasDisponibles,
+                                                EstadoJuego estadoJuego, long[] solucion, long[] llenas,
+                                                long[] marcadas, long[] reveladas) {
+        if (nivel != null && (nivel.obtenerTamañoGrilla() != filas || nivel.obtenerTamañoGrilla() != columnas)) {
+            throw new IllegalArgumentException("El tamaño no corresponde al nivel");
+        }
+        if (pistasDisponibles < 0 || estadoJuego == null) {
+            throw new IllegalArgumentException("Estado de partida inválido");
+        }
+        GrillaBits grillaSolucion = new GrillaBits(filas, columnas);
+        grillaSolucion.cargarPlanos(solucion, new long[solucion.length], new long[solucion.length]);
+        GrillaBits grillaJuego = new GrillaBits(filas, columnas);
+        grillaJuego.cargarPlanos(llenas, marcadas, reveladas);
+        return new InstantaneaModelo(-1, -1, grillaJuego.copiarInmutable(), grillaSolucion,
+                PistasNonograma.calcular(grillaSolucion), estadoJuego, pistasDisponibles,
+                grillaJuego.contarIncorrectas(grillaSolucion), nivel, semilla);
+    }
+
+    // Copia las grillas de la instantánea en las del modelo, que deben tener el mismo tamaño.
+    void copiarGrillasA(GrillaBits juego, GrillaBits solucion) {
+        juego.copiarDesde(grillaJuego);
+        solucion.copiarDesde(grillaSolucion);
+    }
+
+    // Indica si una fila de la grilla del jugador puede ser distinta en otra
+    // instantánea. Es false cuando las dos comparten la fila, sin comparar sus
+    // celdas, así que sirve para escribir sólo lo que cambió (ver AutoguardadoPartida).
+    //
+    // @param otra Instantánea con la que se compara, o null
+    // @param fila Fila de la grilla
+    // @return true si la fila pudo cambiar
+    public boolean puedeDiferirFila(InstantaneaModelo otra, int fila) {
+        return otra == null || !grillaJuego.compartenFila(otra.grillaJuego, fila);
+    }
+
+    // Indica si otra instantánea tiene la misma solución porque comparte su
+    // copia, como las de un mismo puzzle del modelo.
+    //
+    // @param otra Instantánea con la que se compara, o null
+    // @return true si las dos comparten la solución
+    public boolean compartenSolucion(InstantaneaModelo otra) {
+        return otra != null && otra.grillaSolucion == grillaSolucion;
+    }
+
+    // Obtiene la versión del modelo copiada. Aumenta con cada cambio, así que
+    // dos instantáneas con la misma versión tienen el mismo estado.
+    //
+    // @return Versión del modelo
+    public long obtenerVersion() {
+        return version;
+    }
+
+    @Override
+    public long obtenerNumeroPuzzle() {
+        return numeroPuzzle;
+    }
+
+    @Override
+    public int obtenerFilas() {
+        return grillaJuego.obtenerFilas();
+    }
+
+    @Override
+    public int obtenerColumnas() {
+        return grillaJuego.obtenerColumnas();
+    }
+
+    @Override
+    public EstadoCelda obtenerEstadoCelda(int fila, int columna) {
+        if (fila >= 0 && fila < grillaJuego.obtenerFilas() && columna >= 0 && columna < grillaJuego.obtenerColumnas()) {
+            return grillaJuego.obtenerEstado(fila, columna);
+        }
+        return EstadoCelda.VACIA;
+    }
+
+    @Override
+    public EstadoCelda obtenerEstadoCeldaSolucion(int fila, int columna) {
+        if (fila >= 0 && fila < grillaSolucion.obtenerFilas() && columna >= 0 && columna < grillaSolucion.obtenerColumnas()) {
+            return grillaSolucion.obtenerEstado(fila, columna);
+        }
+        return EstadoCelda.VACIA;
+    }
+
+    @Override
+    public boolean esCeldaRevelada(int fila, int columna) {
+        if (fila >= 0 && fila < grillaJuego.obtenerFilas() && columna >= 0 && columna < grillaJuego.obtenerColumnas()) {
+            return grillaJuego.estaRevelada(fila, columna);
+        }
+        return false;
+    }
+
+    // Obtiene una palabra de 64 celdas llenas de la grilla del jugador.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas llenas
+    public long obtenerPalabraLlenas(int fila, int palabra) {
+        return grillaJuego.obtenerPalabraLlenas(fila, palabra);
+    }
+
+    // Obtiene una palabra de 64 celdas marcadas de la grilla del jugador.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas marcadas
+    public long obtenerPalabraMarcadas(int fila, int palabra) {
+        return grillaJuego.obtenerPalabraMarcadas(fila, palabra);
+    }
+
+    // Obtiene una palabra de 64 celdas reveladas.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas reveladas
+    public long obtenerPalabraReveladas(int fila, int palabra) {
+        return grillaJuego.obtenerPalabraReveladas(fila, palabra);
+    }
+
+    // Obtiene una palabra de 64 celdas llenas de la solución.
+    //
+    // @param fila Fila
+    // @param palabra Índice de la palabra dentro de la fila
+    // @return Bits de las celdas llenas de la solución
+    public long obtenerPalabraSolucion(int fila, int palabra) {
+        return grillaSolucion.obtenerPalabraLlenas(fila, palabra);
+    }
+
+    // Obtiene la cantidad de palabras long por fila de las grillas.
+    //
+    // @return Palabras por fila
+    public int obtenerPalabrasPorFila() {
+        return grillaJuego.obtenerPalabrasPorFila();
+    }
+
+    @Override
+    public PistasNonograma obtenerPistas() {
+        return pistas;
+    }
+
+    @Override
+    public EstadoJuego obtenerEstadoJuego() {
+        return estadoJuego;
+    }
+
+    @Override
+    public int obtenerPistasDisponibles() {
+        return pistasDisponibles;
+    }
+
+    // Obtiene la cantidad de celdas que no coincidían con la solución.
+    //
+    // @return Número de celdas incorrectas
+    public int obtenerCeldasIncorrectas() {
+        return celdasIncorrectas;
+    }
+
+    // Obtiene el nivel de la partida.
+    //
+    // @return Nivel, o null si la grilla tiene un tamaño libre
+    public NivelDificultad obtenerNivel() {
+        return nivel;
+    }
+
+    // Obtiene la semilla del puzzle.
+    //
+    // @return Semilla de 64 bits
+    public long obtenerSemilla() {
+        return semilla;
+    }
+}
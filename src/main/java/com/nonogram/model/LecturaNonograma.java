@@ -0,0 +1,64 @@
+package com.nonogram.model;
+
+// Operaciones de sólo lectura del estado de una partida.
+//
+// La implementan el modelo, que se lee desde el hilo que lo modifica, y las
+// instantáneas inmutables (InstantaneaModelo), que se pueden leer desde
+// cualquier hilo. Las vistas dibujan a partir de esta interfaz sin saber cuál
+// de las dos reciben.
+public interface LecturaNonograma {
+
+    // Obtiene la cantidad de filas de la grilla.
+    //
+    // @return Cantidad de filas
+    int obtenerFilas();
+
+    // Obtiene la cantidad de columnas de la grilla.
+    //
+    // @return Cantidad de columnas
+    int obtenerColumnas();
+
+    // Obtiene el estado de una celda de la grilla del jugador.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return Estado de la celda
+    EstadoCelda obtenerEstadoCelda(int fila, int columna);
+
+    // Obtiene el estado de una celda en la solución.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return Estado de la celda en la solución
+    EstadoCelda obtenerEstadoCeldaSolucion(int fila, int columna);
+
+    // Indica si una celda fue revelada como pista.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si la celda fue revelada
+    boolean esCeldaRevelada(int fila, int columna);
+
+    // Obtiene las pistas de filas y columnas.
+    //
+    // @return Pistas del puzzle
+    PistasNonograma obtenerPistas();
+
+    // Obtiene el estado de la partida.
+    //
+    // @return Estado del juego
+    EstadoJuego obtenerEstadoJuego();
+
+    // Obtiene la cantidad de pistas (ayudas) que quedan.
+    //
+    // @return Número de pistas disponibles
+    int obtenerPistasDisponibles();
+
+    // Obtiene el número del puzzle en juego. Aumenta cada vez que el modelo
+    // pone otro puzzle en juego (nuevo, de otro nivel o cargado de un
+    // archivo), pero no al reiniciar el mismo; sirve para descartar jugadas
+    // pensadas para un puzzle que ya no está.
+    //
+    // @return Número del puzzle
+    long obtenerNumeroPuzzle();
+}
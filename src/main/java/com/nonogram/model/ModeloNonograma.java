@@ -1,8 +1,14 @@
 package com.nonogram.model;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.random.RandomGenerator;
+
+import com.nonogram.solver.AsistenteLogico;
+import com.nonogram.solver.PistaLogica;
+import com.nonogram.telemetria.Telemetria;
 
 // Modelo del Nonograma que implementa la lógica del juego.
 // 
@@ -14,39 +20,118 @@ import java.util.Random;
 // 
 // Patrón Observer: El modelo notifica a los observadores (vista) cuando
 // hay cambios en el estado del juego.
-public class ModeloNonograma {
+// 
+// Hilos: el modelo tiene un único escritor. Todos los métodos que lo modifican,
+// y las lecturas directas, se llaman desde un mismo hilo: en la aplicación, el
+// hilo "modelo" de EjecutorModelo; en el modo consola y el simulador, el hilo
+// que llama (EjecutorModelo.enHiloQueLlama). Los demás hilos, incluido el de
+// eventos de Swing, leen instantáneas inmutables (obtenerInstantanea /
+// obtenerUltimaInstantanea) sin tomar locks. La lista de
+// observadores es copy-on-write: notificar la recorre sin copiar ni bloquear,
+// y agregar o quitar observadores desde otro hilo no la corrompe.
+public class ModeloNonograma implements LecturaNonograma {
     
-    private int tamañoGrilla;
-    private EstadoCelda[][] grillaJuego;      // Grilla actual del jugador
-    private EstadoCelda[][] grillaSolucion;   // Grilla con la solución
-    private List<List<Integer>> pistasFilas;  // Pistas de las filas
-    private List<List<Integer>> pistasColumnas; // Pistas de las columnas
+    // Lado máximo de un tablero personalizado. Las grillas, el índice de
+    // incorrectas y las pistas ocupan memoria lineal en las celdas: un tablero
+    // de 5000x5000 usa unos 30 MB además del historial.
+    public static final int LADO_MAXIMO = 5000;
+    
+    private int filas;
+    private int columnas;
+    private GrillaBits grillaJuego;           // Grilla actual del jugador (incluye las celdas reveladas)
+    private GrillaBits grillaSolucion;        // Grilla con la solución
+    private int celdasIncorrectas;            // Celdas del jugador que no coinciden con la solución
+    private IndiceCeldas incorrectasSinRevelar; // Celdas incorrectas no reveladas, candidatas a pista
+    private PistasNonograma pistas;           // Pistas de filas y columnas
     private EstadoJuego estadoJuego;
-    private List<ObservadorModelo> observadores; // Lista de observadores (patrón Observer)
+    private final CopyOnWriteArrayList<RegistroObservador> observadores; // Observadores (patrón Observer)
+    private long version;                     // Aumenta con cada cambio del modelo
+    private long numeroPuzzle;                // Aumenta con cada puzzle que se pone en juego
+    private volatile InstantaneaModelo ultimaInstantanea; // Última instantánea publicada
+    private GrillaBits solucionInstantaneas;  // Copia de la solución compartida por las instantáneas; null si cambió
     
     // Nuevas funcionalidades
     private int pistasDisponibles;            // Número de pistas disponibles
-    private boolean[][] celdasReveladas;      // Celdas que han sido reveladas como/por pista
     private NivelDificultad nivelActual;      // Nivel de dificultad actual
     private final GeneradorDePuzzles generador;
+    private final PoolDePuzzles poolDePuzzles; // Puzzles de cada nivel; si está iniciado, los genera en segundo plano
+    private FuentePuzzles fuentePuzzles;      // Se consulta antes que el pool; null si no hay
+    private long semillaActual;               // Semilla del puzzle en juego
+    private RandomGenerator aleatorioPistas;  // Elige las celdas a revelar; se siembra con el puzzle
+    private ModoPista modoPista;              // Cómo se elige la celda de cada pista
+    private AsistenteLogico asistenteLogico;  // Deduce pistas lógicas; guarda en caché el estado de cada línea
+    private PistaLogica ultimaPistaLogica;    // Justificación de la última pista, null si fue aleatoria
+    
+    // Lote de ediciones abierto (ver editar)
+    private final EditorTablero editor = new EditorTablero(this);
+    private int profundidadLote;              // Lotes anidados abiertos; 0 si no hay lote
+    private long[] modificadasLote;           // Celdas tocadas en el lote, por fila
+    private long[] correctasAntesLote;        // De las celdas tocadas, las que eran correctas antes del lote
+    private int cantidadModificadasLote;
     
-    // Constructor del modelo del Nonograma.
+    // Historial para deshacer y rehacer jugadas
+    private HistorialJugadas historial;
+    private int capacidadHistorial = HistorialJugadas.CAPACIDAD_POR_DEFECTO;
+    private int intervaloPuntosHistorial = HistorialJugadas.INTERVALO_POR_DEFECTO;
+    private long limiteBytesHistorial = HistorialJugadas.LIMITE_BYTES_POR_DEFECTO;
+    private boolean aplicandoHistorial;       // true mientras se deshace o rehace, para no registrar la jugada
+    
+    // Constructor del modelo del Nonograma. Los constructores sin pool no
+    // arrancan hilos: cada puzzle de nivel se genera en el momento en que se
+    // pide. Para tenerlos listos en segundo plano hay que pasar un pool iniciado.
     // 
     // @param tamañoGrilla Tamaño de la grilla (por defecto 5x5)
     public ModeloNonograma(int tamañoGrilla) {
-        this.tamañoGrilla = tamañoGrilla;
+        this(tamañoGrilla, tamañoGrilla, nuevoPool());
+    }
+    
+    // Constructor con una grilla rectangular, sin nivel.
+    // 
+    // @param filas Cantidad de filas, entre 1 y LADO_MAXIMO
+    // @param columnas Cantidad de columnas, entre 1 y LADO_MAXIMO
+    public ModeloNonograma(int filas, int columnas) {
+        this(verificarLado(filas), verificarLado(columnas), nuevoPool());
+    }
+    
+    // Constructor con un pool de puzzles que no es propio del modelo: uno
+    // iniciado por la aplicación, que genera en segundo plano, uno compartido
+    // por varios modelos (por ejemplo, las partidas simultáneas de una prueba
+    // de carga) o uno sin iniciar, que genera cada puzzle en el momento.
+    // cerrar() detiene el pool para todos los que lo usen.
+    // 
+    // @param nivel Nivel de dificultad del juego
+    // @param pool Pool del que se toman los puzzles de cada nivel
+    public ModeloNonograma(NivelDificultad nivel, PoolDePuzzles pool) {
+        this(nivel.obtenerTamañoGrilla(), nivel.obtenerTamañoGrilla(), pool);
+        this.nivelActual = nivel;
+        this.pistasDisponibles = nivel.obtenerPistasDisponibles();
+    }
+    
+    private ModeloNonograma(int filas, int columnas, PoolDePuzzles pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("El pool de puzzles no puede ser null");
+        }
+        this.filas = filas;
+        this.columnas = columnas;
         this.estadoJuego = EstadoJuego.JUGANDO;
-        this.observadores = new ArrayList<>();
+        this.observadores = new CopyOnWriteArrayList<>();
         
         // Inicializar nuevas funcionalidades
         this.pistasDisponibles = 3; // 3 pistas disponibles por defecto
-        this.celdasReveladas = new boolean[tamañoGrilla][tamañoGrilla];
+        this.aleatorioPistas = new SplittableRandom();
+        this.modoPista = ModoPista.LOGICA;
         
         // Inicializar grillas
         inicializarGrillas();
         
-        //inicializo el generador
-        this.generador = new GeneradorDePuzzles();
+        // El generador del pool también genera los puzzles de tamaño libre
+        this.generador = pool.obtenerGenerador();
+        this.poolDePuzzles = pool;
+    }
+    
+    // Pool propio sin iniciar: genera cada puzzle cuando se lo pide
+    private static PoolDePuzzles nuevoPool() {
+        return new PoolDePuzzles(new GeneradorDePuzzles());
     }
     
     // Constructor por defecto con grilla 5x5.
@@ -64,16 +149,48 @@ public class ModeloNonograma {
     }
     
     // Interfaz para los observadores del modelo (patrón Observer).
+    // Cada notificación dice qué cambió (ver CambioModelo).
     public interface ObservadorModelo {
-        void alCambiarModelo();
+        void alCambiarModelo(CambioModelo cambio);
+    }
+    
+    // Observador registrado junto con el hilo en el que quiere las notificaciones.
+    private static final class RegistroObservador {
+        private final ObservadorModelo observador;
+        private final HiloObservador hilo; // null: se notifica en el hilo que cambió el modelo
+
+        private RegistroObservador(ObservadorModelo observador, HiloObservador hilo) {
+            this.observador = observador;
+            this.hilo = hilo;
+        }
     }
     
-    // Agrega un observador al modelo (patrón Observer).
+    // Agrega un observador al modelo (patrón Observer). Se lo notifica en el
+    // mismo hilo que hace el cambio.
     // 
     // @param observador Observador que será notificado de cambios
     public void agregarObservador(ObservadorModelo observador) {
-        if (!observadores.contains(observador)) {
-            observadores.add(observador);
+        agregarObservador(observador, null);
+    }
+    
+    // Agrega un observador que recibe las notificaciones en su propio hilo; por
+    // ejemplo, las vistas Swing en el hilo de eventos. Si el cambio ocurre en
+    // otro hilo, el observador recibe una instantánea del modelo en el cambio.
+    // 
+    // @param observador Observador que será notificado de cambios
+    // @param hilo Hilo del observador, o null para notificarlo en el hilo del cambio
+    public void agregarObservador(ObservadorModelo observador, HiloObservador hilo) {
+        if (observador == null) {
+            throw new IllegalArgumentException("Observador inválido");
+        }
+        // Las altas son raras: se sincronizan para que la verificación y el alta sean atómicas
+        synchronized (observadores) {
+            for (RegistroObservador registro : observadores) {
+                if (registro.observador == observador) {
+                    return;
+                }
+            }
+            observadores.add(new RegistroObservador(observador, hilo));
         }
     }
     
@@ -81,47 +198,228 @@ public class ModeloNonograma {
     // 
     // @param observador Observador a remover
     public void removerObservador(ObservadorModelo observador) {
-        observadores.remove(observador);
+        synchronized (observadores) {
+            observadores.removeIf(registro -> registro.observador == observador);
+        }
     }
     
     // Notifica a todos los observadores sobre cambios en el modelo.
     // Este método implementa el patrón Observer.
-    private void notificarObservadores() {
-        for (ObservadorModelo observador : observadores) {
-            observador.alCambiarModelo();
+    // 
+    // @param cambio Qué cambió en el modelo
+    private void notificarObservadores(CambioModelo cambio) {
+        version++;
+        Telemetria.NOTIFICACIONES.increment();
+        CambioModelo cambioConInstantanea = null;
+        for (RegistroObservador registro : observadores) {
+            if (registro.hilo == null || registro.hilo.esHiloActual()) {
+                registro.observador.alCambiarModelo(cambio);
+            } else {
+                // Otro hilo: se le pasa una copia del estado, que puede seguir cambiando acá
+                if (cambioConInstantanea == null) {
+                    cambioConInstantanea = cambio.conInstantanea(obtenerInstantanea());
+                }
+                CambioModelo entregado = cambioConInstantanea;
+                registro.hilo.ejecutarLuego(() -> registro.observador.alCambiarModelo(entregado));
+            }
         }
     }
     
-    // Inicializa las grillas del juego y solución.
-    private void inicializarGrillas() {
-        grillaJuego = new EstadoCelda[tamañoGrilla][tamañoGrilla];
-        grillaSolucion = new EstadoCelda[tamañoGrilla][tamañoGrilla];
-        
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                grillaJuego[fila][columna] = EstadoCelda.MARCADA; // Las celdas vacías muestran X
-                grillaSolucion[fila][columna] = EstadoCelda.VACIA;
+    // Obtiene una copia inmutable del estado actual. Se llama desde el hilo que
+    // modifica el modelo; mientras no haya cambios devuelve la misma instancia.
+    // La instantánea queda publicada para obtenerUltimaInstantanea. Sólo se
+    // copian las filas que cambiaron desde la anterior; las demás se comparten.
+    // 
+    // @return Instantánea del modelo
+    public InstantaneaModelo obtenerInstantanea() {
+        InstantaneaModelo instantanea = ultimaInstantanea;
+        if (instantanea == null || instantanea.obtenerVersion() != version) {
+            if (solucionInstantaneas == null) {
+                solucionInstantaneas = new GrillaBits(grillaSolucion);
             }
+            instantanea = new InstantaneaModelo(version, numeroPuzzle, grillaJuego.copiarInmutable(),
+                    solucionInstantaneas, pistas, estadoJuego, pistasDisponibles, celdasIncorrectas, nivelActual,
+                    semillaActual);
+            ultimaInstantanea = instantanea;
+        }
+        return instantanea;
+    }
+    
+    // Reemplaza la partida por la de una instantánea: solución, grilla del
+    // jugador, celdas reveladas, pistas que quedan, nivel y semilla. El
+    // historial de jugadas empieza vacío.
+    // 
+    // @param partida Instantánea a restaurar (por ejemplo, cargada de un archivo)
+    public void restaurar(InstantaneaModelo partida) {
+        verificarSinLote();
+        cambiarDimensiones(partida.obtenerFilas(), partida.obtenerColumnas());
+        nivelActual = partida.obtenerNivel();
+        partida.copiarGrillasA(grillaJuego, grillaSolucion);
+        solucionInstantaneas = null;
+        pistas = partida.obtenerPistas();
+        asistenteLogico = new AsistenteLogico(pistas.obtenerFilas(), pistas.obtenerColumnas(),
+                pistas.obtenerLargos(), pistas.obtenerInicios());
+        ultimaPistaLogica = null;
+        semillaActual = partida.obtenerSemilla();
+        reiniciarAleatorioPistas();
+        pistasDisponibles = partida.obtenerPistasDisponibles();
+        estadoJuego = partida.obtenerEstadoJuego();
+        celdasIncorrectas = grillaJuego.contarIncorrectas(grillaSolucion);
+        reconstruirIndiceIncorrectas();
+        historial.reiniciar(grillaJuego);
+        numeroPuzzle++;
+        notificarObservadores(CambioModelo.de(TipoCambio.PISTAS_REEMPLAZADAS,
+                TipoCambio.TABLERO_REINICIADO, TipoCambio.ESTADO_JUEGO));
+    }
+    
+    // Obtiene la última instantánea publicada. Se puede llamar desde cualquier
+    // hilo sin bloquear; puede estar atrasada respecto del modelo, pero nunca
+    // mezcla estados de dos momentos distintos.
+    // 
+    // @return Última instantánea, o null si todavía no se creó ninguna
+    public InstantaneaModelo obtenerUltimaInstantanea() {
+        return ultimaInstantanea;
+    }
+    
+    // Cambia las dimensiones de la grilla; si son otras, vuelve a crear las grillas.
+    private void cambiarDimensiones(int nuevasFilas, int nuevasColumnas) {
+        if (nuevasFilas != filas || nuevasColumnas != columnas) {
+            filas = nuevasFilas;
+            columnas = nuevasColumnas;
+            inicializarGrillas();
+        }
+    }
+    
+    // Verifica que un lado de tablero personalizado esté en el rango admitido.
+    private static int verificarLado(int lado) {
+        if (lado <= 0 || lado > LADO_MAXIMO) {
+            throw new IllegalArgumentException("El lado debe estar entre 1 y " + LADO_MAXIMO + ": " + lado);
         }
+        return lado;
+    }
+    
+    // Inicializa las grillas del juego y solución.
+    private void inicializarGrillas() {
+        grillaJuego = new GrillaBits(filas, columnas);
+        grillaSolucion = new GrillaBits(filas, columnas);
+        solucionInstantaneas = null;
+        grillaJuego.rellenar(EstadoCelda.MARCADA); // Las celdas vacías muestran X
+        celdasIncorrectas = 0; // La solución vacía coincide con una grilla toda marcada
+        incorrectasSinRevelar = new IndiceCeldas(filas * columnas);
+        historial = new HistorialJugadas(grillaJuego, capacidadHistorial, intervaloPuntosHistorial, limiteBytesHistorial);
     }
     
     // Limpia solo la grilla del jugador, manteniendo la solución intacta.
     private void limpiarGrillaJugador() {
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                grillaJuego[fila][columna] = EstadoCelda.MARCADA; // Las celdas vacías muestran X
+        grillaJuego.rellenar(EstadoCelda.MARCADA); // Las celdas vacías muestran X
+        // Con todo marcado, sólo están mal las celdas que la solución tiene llenas
+        celdasIncorrectas = grillaSolucion.contarLlenas();
+        reconstruirIndiceIncorrectas();
+        historial.reiniciar(grillaJuego);
+    }
+    
+    // Vuelve a armar el índice de celdas incorrectas sin revelar. Recorre la
+    // grilla palabra a palabra, así que sólo toca una por una las celdas incorrectas.
+    private void reconstruirIndiceIncorrectas() {
+        incorrectasSinRevelar.limpiar();
+        int palabrasPorFila = grillaJuego.obtenerPalabrasPorFila();
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long incorrectas = grillaJuego.obtenerPalabraIncorrectas(grillaSolucion, fila, palabra)
+                        & ~grillaJuego.obtenerPalabraReveladas(fila, palabra);
+                while (incorrectas != 0) {
+                    int columna = (palabra << 6) + Long.numberOfTrailingZeros(incorrectas);
+                    incorrectas &= incorrectas - 1;
+                    incorrectasSinRevelar.agregar(fila * columnas + columna);
+                }
             }
         }
     }
     
+    // Agrega o quita una celda del índice según su estado actual.
+    private void actualizarIndiceIncorrectas(int fila, int columna) {
+        int celda = fila * columnas + columna;
+        if (!grillaJuego.estaRevelada(fila, columna) && !esEstadoCorrecto(fila, columna)) {
+            incorrectasSinRevelar.agregar(celda);
+        } else {
+            incorrectasSinRevelar.quitar(celda);
+        }
+    }
+    
     // Genera un nuevo puzzle automáticamente.
     public void nuevoJuego() {
-        // Generar solución y aplicarla
-        EstadoCelda[][] nuevaSolucion = generador.generarSolucionAleatoria(tamañoGrilla);
-        aplicarSolucion(nuevaSolucion);
-        
-        // Generar pistas basadas en la solución
-        generarPistas();
+        iniciarPuzzle(obtenerPuzzle());
+    }
+    
+    // Regenera el puzzle de una semilla con el nivel actual o, sin nivel, con
+    // las filas y columnas actuales.
+    // 
+    // @param semilla Semilla del puzzle (ver obtenerSemilla)
+    public void nuevoJuegoDesdeSemilla(long semilla) {
+        if (tieneTamañoDelNivel()) {
+            iniciarPuzzle(generador.generarPuzzle(nivelActual, semilla));
+        } else {
+            iniciarPuzzle(generador.generarPuzzle(filas, columnas, semilla));
+        }
+    }
+    
+    // Empieza una partida sin nivel en un tablero de cualquier tamaño, hasta
+    // LADO_MAXIMO de cada lado. Por encima de
+    // GeneradorDePuzzles.CELDAS_MAXIMAS_VERIFICADAS el generador no prueba que
+    // la solución sea única. Si no se puede generar el puzzle, la partida
+    // anterior sigue como estaba.
+    // 
+    // @param nuevasFilas Cantidad de filas
+    // @param nuevasColumnas Cantidad de columnas
+    // @throws IllegalStateException Si el tablero es tan chico que no tiene puzzles de solución única
+    public void nuevoJuegoPersonalizado(int nuevasFilas, int nuevasColumnas) {
+        verificarSinLote();
+        verificarLado(nuevasFilas);
+        verificarLado(nuevasColumnas);
+        PuzzleGenerado puzzle = generador.generarPuzzle(nuevasFilas, nuevasColumnas, new SplittableRandom().nextLong());
+        nivelActual = null;
+        cambiarDimensiones(nuevasFilas, nuevasColumnas);
+        iniciarPuzzle(puzzle);
+    }
+    
+    // Indica si hay un nivel y la grilla tiene su tamaño.
+    private boolean tieneTamañoDelNivel() {
+        return nivelActual != null && filas == columnas && nivelActual.obtenerTamañoGrilla() == filas;
+    }
+    
+    // Empieza una partida con un puzzle dado (por ejemplo, uno importado). Si el
+    // tamaño no es el del nivel actual se juega con un nivel de ese tamaño (el
+    // que admite su calificación, si se conoce), o sin nivel si no hay ninguno.
+    // 
+    // @param puzzle Puzzle a jugar
+    public void jugarPuzzle(PuzzleGenerado puzzle) {
+        verificarSinLote();
+        cambiarDimensiones(puzzle.obtenerFilas(), puzzle.obtenerColumnas());
+        if (!tieneTamañoDelNivel()) {
+            nivelActual = null;
+            for (NivelDificultad nivel : NivelDificultad.values()) {
+                if (filas != columnas || nivel.obtenerTamañoGrilla() != filas) {
+                    continue;
+                }
+                if (nivelActual == null) {
+                    nivelActual = nivel;
+                }
+                if (nivel.admiteCalificacion(puzzle.obtenerCalificacion())) {
+                    nivelActual = nivel;
+                    break;
+                }
+            }
+        }
+        iniciarPuzzle(puzzle);
+    }
+    
+    // Aplica un puzzle nuevo y reinicia la partida.
+    private void iniciarPuzzle(PuzzleGenerado puzzle) {
+        verificarSinLote();
+        // Aplicar la solución y las pistas del puzzle
+        aplicarSolucion(puzzle.obtenerGrillaSolucion());
+        generarPistas(puzzle);
+        sembrarPuzzle(puzzle);
         
         // Reiniciar grilla del jugador
         limpiarGrillaJugador();
@@ -136,166 +434,220 @@ public class ModeloNonograma {
         limpiarCeldasReveladas();
         
         // Notificar cambios
-        notificarObservadores();
+        numeroPuzzle++;
+        notificarObservadores(CambioModelo.de(TipoCambio.PISTAS_REEMPLAZADAS,
+                TipoCambio.TABLERO_REINICIADO, TipoCambio.ESTADO_JUEGO));
     }
     
 
-    // Aplica una solución completa validando tamaño
-    private void aplicarSolucion(EstadoCelda[][] nuevaSolucion) {
-        if (nuevaSolucion == null || nuevaSolucion.length != tamañoGrilla || nuevaSolucion[0].length != tamañoGrilla) {
-            throw new IllegalArgumentException("Tamaño de solución inválido");
-        }
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                grillaSolucion[fila][columna] = nuevaSolucion[fila][columna];
-            }
+    // Obtiene un puzzle del nivel actual desde la fuente de puzzles o, si no
+    // tiene ninguno, desde el pool. Sin nivel (tamaño libre) se genera en el momento.
+    private PuzzleGenerado obtenerPuzzle() {
+        if (tieneTamañoDelNivel()) {
+            PuzzleGenerado puzzle = fuentePuzzles != null ? fuentePuzzles.tomar(nivelActual) : null;
+            return puzzle != null ? puzzle : poolDePuzzles.tomar(nivelActual);
         }
+        return generador.generarPuzzle(filas, columnas, new SplittableRandom().nextLong());
     }
     
-   
+    // Establece de dónde salen los puzzles de cada nivel antes de generarlos
+    // (por ejemplo, un catálogo en disco).
+    // 
+    // @param fuente Fuente de puzzles, o null para usar sólo los generados
+    public void establecerFuentePuzzles(FuentePuzzles fuente) {
+        this.fuentePuzzles = fuente;
+    }
     
-    // Genera las pistas (hints) basadas en la solución.
-    // Las pistas indican las longitudes de las secuencias de celdas llenas.
-    private void generarPistas() {
-        // Generar pistas de filas
-        pistasFilas = new ArrayList<>();
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            List<Integer> pistas = obtenerPistasFila(fila);
-            pistasFilas.add(pistas);
-        }
-        
-        // Generar pistas de columnas
-        pistasColumnas = new ArrayList<>();
-        for (int columna = 0; columna < tamañoGrilla; columna++) {
-            List<Integer> pistas = obtenerPistasColumna(columna);
-            pistasColumnas.add(pistas);
-        }
+    // Guarda la semilla del puzzle y siembra con ella la elección de pistas,
+    // así la misma partida revela las mismas celdas.
+    private void sembrarPuzzle(PuzzleGenerado puzzle) {
+        semillaActual = puzzle.obtenerSemilla();
+        reiniciarAleatorioPistas();
     }
     
-    // Obtiene las pistas para una fila específica.
-    // 
-    // @param fila Índice de la fila
-    // @return Lista con las longitudes de las secuencias de celdas llenas
-    private List<Integer> obtenerPistasFila(int fila) {
-        List<Integer> pistas = new ArrayList<>();
-        int contadorActual = 0;
-        
-        for (int columna = 0; columna < tamañoGrilla; columna++) {
-            if (grillaSolucion[fila][columna] == EstadoCelda.LLENA) {
-                contadorActual++;
-            } else if (contadorActual > 0) {
-                pistas.add(contadorActual);
-                contadorActual = 0;
-            }
-        }
-        
-        // Agregar el último grupo si existe
-        if (contadorActual > 0) {
-            pistas.add(contadorActual);
-        }
-        
-        return pistas.isEmpty() ? java.util.Arrays.asList(0) : pistas;
+    // Se divide la raíz para no repetir la secuencia que usó el generador con la misma semilla.
+    private void reiniciarAleatorioPistas() {
+        aleatorioPistas = new SplittableRandom(semillaActual).split();
     }
     
-    // Obtiene las pistas para una columna específica.
+    // Obtiene la semilla del puzzle en juego. Con ella y las dimensiones de la grilla
+    // se puede regenerar el mismo puzzle (nuevoJuegoDesdeSemilla).
     // 
-    // @param columna Índice de la columna
-    // @return Lista con las longitudes de las secuencias de celdas llenas
-    private List<Integer> obtenerPistasColumna(int columna) {
-        List<Integer> pistas = new ArrayList<>();
-        int contadorActual = 0;
-        
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            if (grillaSolucion[fila][columna] == EstadoCelda.LLENA) {
-                contadorActual++;
-            } else if (contadorActual > 0) {
-                pistas.add(contadorActual);
-                contadorActual = 0;
-            }
-        }
-        
-        // Agregar el último grupo si existe
-        if (contadorActual > 0) {
-            pistas.add(contadorActual);
+    // @return Semilla de 64 bits
+    public long obtenerSemilla() {
+        return semillaActual;
+    }
+    
+    // Detiene la generación de puzzles en segundo plano, si el pool del modelo la había iniciado.
+    public void cerrar() {
+        poolDePuzzles.detener();
+    }
+    
+    // Aplica una solución completa validando tamaño
+    private void aplicarSolucion(GrillaBits nuevaSolucion) {
+        if (nuevaSolucion == null || nuevaSolucion.obtenerFilas() != filas || nuevaSolucion.obtenerColumnas() != columnas) {
+            throw new IllegalArgumentException("Tamaño de solución inválido");
         }
-        
-        return pistas.isEmpty() ? java.util.Arrays.asList(0) : pistas;
+        grillaSolucion.copiarDesde(nuevaSolucion);
+        solucionInstantaneas = null;
+        celdasIncorrectas = grillaJuego.contarIncorrectas(grillaSolucion);
+        reconstruirIndiceIncorrectas();
+    }
+    
+   
+    
+    // Carga las pistas (hints) ya calculadas del puzzle.
+    // Las pistas indican las longitudes de las secuencias de celdas llenas.
+    private void generarPistas(PuzzleGenerado puzzle) {
+        long inicio = System.nanoTime();
+        pistas = puzzle.obtenerPistas();
+        asistenteLogico = new AsistenteLogico(pistas.obtenerFilas(), pistas.obtenerColumnas(),
+                pistas.obtenerLargos(), pistas.obtenerInicios());
+        ultimaPistaLogica = null;
+        Telemetria.PISTAS.registrarDesde(inicio);
     }
     
     
     // Verifica si la solución actual del jugador es correcta.
     public boolean verificarSolucion() {
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                if (!esEstadoCorrecto(fila, columna)) {
-                    return false;
-                }
+        verificarSinLote();
+        long inicio = System.nanoTime();
+        try {
+            if (celdasIncorrectas != 0) {
+                return false;
             }
+            
+            // Si llegamos aquí, la solución es correcta
+            estadoJuego = EstadoJuego.GANADO;
+            notificarObservadores(CambioModelo.de(TipoCambio.ESTADO_JUEGO));
+            return true;
+        } finally {
+            Telemetria.VERIFICAR_SOLUCION.registrarDesde(inicio);
         }
-        
-        // Si llegamos aquí, la solución es correcta
-        estadoJuego = EstadoJuego.GANADO;
-        notificarObservadores();
-        return true;
     }
     
     // Solicita una pista al modelo.
+    // En modo LOGICA revela la próxima celda deducible (ver obtenerPistaLogica);
+    // si no hay ninguna, o en modo ALEATORIA, elige al azar una celda del índice
+    // de incorrectas sin revelar. Cada pedido cuesta tiempo acotado sin importar
+    // cuántas celdas falten.
     // 
     // @return true si se pudo revelar una pista, false si no hay pistas disponibles
     public boolean solicitarPista() {
+        verificarSinLote();
+        Telemetria.INTENTOS_PISTA.increment();
+        long inicio = System.nanoTime();
+        try {
+            return revelarPista();
+        } finally {
+            Telemetria.SOLICITAR_PISTA.registrarDesde(inicio);
+        }
+    }
+    
+    private boolean revelarPista() {
         if (pistasDisponibles <= 0) {
             return false; // No hay pistas disponibles
         }
-        else {
-        
-        	// Buscar una celda no revelada para mostrar como pista
-        	boolean pista = false;
-        	Random rand = new Random();
-
-        	
-        	while(!pista) {
-        		int n = tamañoGrilla;           // cantidad de filas
-            	int fila = rand.nextInt(n);      // índice aleatorio de fila
-            	int columna = rand.nextInt(n);   // índice aleatorio de columna
-            	if (!celdasReveladas[fila][columna] && 
-                        !esEstadoCorrecto(fila, columna)) {
-                	// Revelar esta celda como pista
-                		grillaJuego[fila][columna] = grillaSolucion[fila][columna];
-                		celdasReveladas[fila][columna] = true;
-                		pistasDisponibles--;
-                		pista = true;
-                    
-                		// Notificar cambios
-                		notificarObservadores();
-                		return true;
-                	}
-            	else if(celdasEnJuegoIgualGrillaSolucion()) {
-            		return false;
-            	}
-        	}
-        	
+        ultimaPistaLogica = modoPista == ModoPista.LOGICA ? obtenerPistaLogica() : null;
+        if (ultimaPistaLogica != null) {
+            revelarCelda(ultimaPistaLogica.obtenerFila(), ultimaPistaLogica.obtenerColumna());
+            return true;
         }
+        int candidatas = incorrectasSinRevelar.obtenerCantidad();
+        if (candidatas == 0) {
+            return false; // Todas las celdas sin revelar ya son correctas
+        }
+        int celda = incorrectasSinRevelar.obtener(aleatorioPistas.nextInt(candidatas));
+        revelarCelda(celda / columnas, celda % columnas);
+        return true;
+    }
+    
+    // Revela una celda incorrecta como pista y notifica el cambio.
+    private void revelarCelda(int fila, int columna) {
+        // Las celdas vacías de la solución se revelan marcadas (X), que es el estado correcto
+        grillaJuego.establecerEstado(fila, columna, grillaSolucion.estaLlena(fila, columna) ? EstadoCelda.LLENA : EstadoCelda.MARCADA);
+        grillaJuego.establecerRevelada(fila, columna, true);
+        incorrectasSinRevelar.quitar(fila * columnas + columna);
+        celdasIncorrectas--; // la celda revelada estaba mal y ahora coincide
+        pistasDisponibles--;
         
-        
-        return false; // No se pudo revelar ninguna pista
+        // Notificar cambios: la celda y el contador de pistas
+        notificarObservadores(CambioModelo.deCelda(fila, columna, TipoCambio.ESTADO_JUEGO));
     }
     
- // Devuelve true si **todas** las celdas del jugador coinciden con la solución
-    private boolean celdasEnJuegoIgualGrillaSolucion() {
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                if (!esEstadoCorrecto(fila, columna)) {
-                    return false; // hay al menos una celda incorrecta
-                }
+    // Busca la próxima celda que el jugador puede deducir con lógica de líneas,
+    // sin revelarla ni gastar una pista.
+    // 
+    // Se toma como conocido lo que el jugador tiene bien: las celdas llenas
+    // correctas y las reveladas. Las marcadas no cuentan, porque MARCADA es el
+    // estado inicial de todas las celdas. La pista es la primera celda
+    // incorrecta que aparece al propagar esas líneas.
+    // 
+    // @return La celda deducida con la línea que la justifica, o null si no hay ninguna
+    public PistaLogica obtenerPistaLogica() {
+        if (asistenteLogico == null) {
+            return null;
+        }
+        int palabrasPorFila = grillaJuego.obtenerPalabrasPorFila();
+        long[] conocidasLlenas = new long[filas * palabrasPorFila];
+        long[] conocidasVacias = new long[filas * palabrasPorFila];
+        long[] llenasJugador = new long[filas * palabrasPorFila];
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                int indice = fila * palabrasPorFila + palabra;
+                long solucion = grillaSolucion.obtenerPalabraLlenas(fila, palabra);
+                long reveladas = grillaJuego.obtenerPalabraReveladas(fila, palabra);
+                llenasJugador[indice] = grillaJuego.obtenerPalabraLlenas(fila, palabra);
+                conocidasLlenas[indice] = (llenasJugador[indice] | reveladas) & solucion;
+                conocidasVacias[indice] = reveladas & ~solucion;
             }
         }
-        return true; // todas las celdas están correctas
+        return asistenteLogico.buscarPista(conocidasLlenas, conocidasVacias, llenasJugador);
+    }
+    
+    // Obtiene la justificación de la última pista revelada.
+    // 
+    // @return La pista lógica, o null si la última pista fue aleatoria
+    public PistaLogica obtenerUltimaPistaLogica() {
+        return ultimaPistaLogica;
+    }
+    
+    // Establece cómo se eligen las celdas de las pistas.
+    // 
+    // @param modo Modo de pista
+    public void establecerModoPista(ModoPista modo) {
+        if (modo == null) {
+            throw new IllegalArgumentException("Modo de pista inválido");
+        }
+        this.modoPista = modo;
+    }
+    
+    // Obtiene el modo de pista actual.
+    // 
+    // @return Modo de pista
+    public ModoPista obtenerModoPista() {
+        return modoPista;
+    }
+    
+    // Indica si la grilla del jugador coincide con la solución.
+    // Usa el contador de celdas incorrectas, así que cuesta tiempo constante.
+    // 
+    // @return true si el tablero está resuelto
+    public boolean estaResuelto() {
+        return celdasIncorrectas == 0;
+    }
+    
+    // Obtiene la cantidad de celdas que todavía no coinciden con la solución.
+    // 
+    // @return Número de celdas incorrectas
+    public int obtenerCeldasIncorrectas() {
+        return celdasIncorrectas;
     }
 
 	// Verifica si el estado actual de una celda coincide con la solución
     private boolean esEstadoCorrecto(int fila, int columna) {
-        EstadoCelda estadoJuego = grillaJuego[fila][columna];
-        EstadoCelda estadoSolucion = grillaSolucion[fila][columna];
+        EstadoCelda estadoJuego = grillaJuego.obtenerEstado(fila, columna);
+        EstadoCelda estadoSolucion = grillaSolucion.obtenerEstado(fila, columna);
         
         // Si la solución es VACIA, el juego debe ser MARCADA (X)
         if (estadoSolucion == EstadoCelda.VACIA) {
@@ -314,18 +666,282 @@ public class ModeloNonograma {
     // @param fila Fila de la celda
     // @param columna Columna de la celda
     // @return Estado actual de la celda
+    @Override
     public EstadoCelda obtenerEstadoCelda(int fila, int columna) {
-        if (fila >= 0 && fila < tamañoGrilla && columna >= 0 && columna < tamañoGrilla) {
-            return grillaJuego[fila][columna];
+        if (fila >= 0 && fila < filas && columna >= 0 && columna < columnas) {
+            return grillaJuego.obtenerEstado(fila, columna);
         }
         return EstadoCelda.VACIA;
     }
     
     // Establece el estado de una celda en la grilla del jugador.
+    // Si el estado no cambia no se notifica a los observadores.
     public void establecerEstadoCelda(int fila, int columna, EstadoCelda estado) {
-        if (fila >= 0 && fila < tamañoGrilla && columna >= 0 && columna < tamañoGrilla) {
-            grillaJuego[fila][columna] = estado;
-            notificarObservadores();
+        if (fila >= 0 && fila < filas && columna >= 0 && columna < columnas) {
+            EstadoCelda anterior = grillaJuego.obtenerEstado(fila, columna);
+            if (anterior == estado) {
+                return;
+            }
+            if (profundidadLote > 0) {
+                version++; // Se notifica al cerrar el lote, pero la instantánea ya no vale
+                registrarEnLote(fila, columna);
+                grillaJuego.establecerEstado(fila, columna, estado);
+                registrarJugada(fila, columna, anterior, estado);
+                return;
+            }
+            boolean eraCorrecta = esEstadoCorrecto(fila, columna);
+            grillaJuego.establecerEstado(fila, columna, estado);
+            registrarJugada(fila, columna, anterior, estado);
+            boolean esCorrecta = esEstadoCorrecto(fila, columna);
+            if (eraCorrecta && !esCorrecta) {
+                celdasIncorrectas++;
+            } else if (!eraCorrecta && esCorrecta) {
+                celdasIncorrectas--;
+            }
+            actualizarIndiceIncorrectas(fila, columna);
+            notificarObservadores(CambioModelo.deCelda(fila, columna));
+        }
+    }
+    
+    // Guarda la jugada en el historial, salvo que sea un deshacer o rehacer.
+    private void registrarJugada(int fila, int columna, EstadoCelda anterior, EstadoCelda nuevo) {
+        if (!aplicandoHistorial) {
+            historial.registrar(fila * columnas + columna, anterior, nuevo, grillaJuego);
+        }
+    }
+    
+    // Deshace la última jugada, o todas las de un lote de ediciones (ver
+    // editar), con una sola notificación. Las celdas reveladas como pista no
+    // vuelven atrás.
+    // 
+    // @return true si había una jugada para deshacer
+    public boolean deshacer() {
+        verificarSinLote();
+        if (!historial.puedeDeshacer()) {
+            return false;
+        }
+        iniciarLote();
+        try {
+            long jugada;
+            do {
+                jugada = historial.deshacer();
+                aplicarJugadaHistorial(HistorialJugadas.obtenerCelda(jugada), HistorialJugadas.obtenerAnterior(jugada));
+            } while (HistorialJugadas.esContinuacion(jugada) && historial.puedeDeshacer());
+        } finally {
+            confirmarLote();
+        }
+        return true;
+    }
+    
+    // Rehace la última jugada deshecha, o todas las de un lote de ediciones.
+    // 
+    // @return true si había una jugada para rehacer
+    public boolean rehacer() {
+        verificarSinLote();
+        if (!historial.puedeRehacer()) {
+            return false;
+        }
+        iniciarLote();
+        try {
+            do {
+                long jugada = historial.rehacer();
+                aplicarJugadaHistorial(HistorialJugadas.obtenerCelda(jugada), HistorialJugadas.obtenerNuevo(jugada));
+            } while (historial.siguienteContinua());
+        } finally {
+            confirmarLote();
+        }
+        return true;
+    }
+    
+    private void aplicarJugadaHistorial(int celda, EstadoCelda estado) {
+        int fila = celda / columnas;
+        int columna = celda % columnas;
+        if (grillaJuego.estaRevelada(fila, columna)) {
+            return;
+        }
+        aplicandoHistorial = true;
+        try {
+            establecerEstadoCelda(fila, columna, estado);
+        } finally {
+            aplicandoHistorial = false;
+        }
+    }
+    
+    // Lleva la grilla a como estaba después de una jugada del historial. Parte del
+    // punto de control más cercano, así que cuesta lo mismo volver 10 jugadas que
+    // 100.000. Las celdas reveladas como pista conservan su estado.
+    // 
+    // @param jugada Número de jugada, entre obtenerPrimeraJugada() y obtenerUltimaJugada()
+    public void irAJugada(long jugada) {
+        verificarSinLote();
+        if (jugada == historial.obtenerActual()) {
+            return;
+        }
+        historial.irA(jugada, grillaJuego);
+        restaurarCeldasReveladas();
+        celdasIncorrectas = grillaJuego.contarIncorrectas(grillaSolucion);
+        reconstruirIndiceIncorrectas();
+        notificarObservadores(CambioModelo.de(TipoCambio.TABLERO_REINICIADO));
+    }
+    
+    // Vuelve a poner las celdas reveladas en el estado de la solución.
+    private void restaurarCeldasReveladas() {
+        int palabrasPorFila = grillaJuego.obtenerPalabrasPorFila();
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long reveladas = grillaJuego.obtenerPalabraReveladas(fila, palabra);
+                while (reveladas != 0) {
+                    int columna = (palabra << 6) + Long.numberOfTrailingZeros(reveladas);
+                    reveladas &= reveladas - 1;
+                    grillaJuego.establecerEstado(fila, columna,
+                            grillaSolucion.estaLlena(fila, columna) ? EstadoCelda.LLENA : EstadoCelda.MARCADA);
+                }
+            }
+        }
+    }
+    
+    // Indica si hay una jugada para deshacer.
+    // 
+    // @return true si se puede deshacer
+    public boolean puedeDeshacer() {
+        return historial.puedeDeshacer();
+    }
+    
+    // Indica si hay una jugada deshecha para rehacer.
+    // 
+    // @return true si se puede rehacer
+    public boolean puedeRehacer() {
+        return historial.puedeRehacer();
+    }
+    
+    // Obtiene el número de la jugada actual, contando desde el comienzo de la partida.
+    // 
+    // @return Jugadas aplicadas
+    public long obtenerJugadaActual() {
+        return historial.obtenerActual();
+    }
+    
+    // Obtiene la jugada más vieja que sigue en el historial.
+    // 
+    // @return Número de jugada
+    public long obtenerPrimeraJugada() {
+        return historial.obtenerPrimera();
+    }
+    
+    // Obtiene la última jugada que se puede rehacer.
+    // 
+    // @return Número de jugada
+    public long obtenerUltimaJugada() {
+        return historial.obtenerUltima();
+    }
+    
+    // Configura el tamaño del historial. Se aplica desde ya y descarta el historial actual.
+    // 
+    // @param capacidad Cantidad máxima de jugadas guardadas
+    // @param intervaloPuntos Jugadas entre dos puntos de control
+    // @param limiteBytes Memoria máxima aproximada del historial
+    public void configurarHistorial(int capacidad, int intervaloPuntos, long limiteBytes) {
+        verificarSinLote();
+        historial = new HistorialJugadas(grillaJuego, capacidad, intervaloPuntos, limiteBytes);
+        this.capacidadHistorial = capacidad;
+        this.intervaloPuntosHistorial = intervaloPuntos;
+        this.limiteBytesHistorial = limiteBytes;
+    }
+    
+    // Aplica varias ediciones como una sola operación. Las celdas tocadas se
+    // validan una vez al final y los observadores reciben un único cambio con
+    // todas ellas, así un lote de miles de celdas produce un solo repintado.
+    // En el historial el lote es una sola jugada para deshacer y rehacer.
+    // Si la edición lanza una excepción, lo aplicado hasta ahí queda y se notifica igual.
+    // 
+    // @param edicion Bloque que edita la grilla a través del editor
+    public void editar(Consumer<EditorTablero> edicion) {
+        iniciarLote();
+        try {
+            edicion.accept(editor);
+        } finally {
+            confirmarLote();
+        }
+    }
+    
+    // Abre un lote de ediciones: hasta confirmarLote, establecerEstadoCelda
+    // aplica los cambios sin validar ni notificar. Los lotes se pueden anidar;
+    // sólo el más externo valida y notifica.
+    public void iniciarLote() {
+        if (profundidadLote++ > 0) {
+            return;
+        }
+        historial.iniciarGrupo();
+        int palabras = filas * grillaJuego.obtenerPalabrasPorFila();
+        if (modificadasLote == null || modificadasLote.length != palabras) {
+            modificadasLote = new long[palabras];
+            correctasAntesLote = new long[palabras];
+        }
+        cantidadModificadasLote = 0;
+    }
+    
+    // Cierra el lote abierto por iniciarLote. Al cerrar el más externo se
+    // actualizan el contador y el índice de incorrectas de las celdas tocadas
+    // y se notifica un único cambio.
+    public void confirmarLote() {
+        if (profundidadLote == 0) {
+            throw new IllegalStateException("No hay un lote de ediciones abierto");
+        }
+        if (--profundidadLote > 0) {
+            return;
+        }
+        historial.cerrarGrupo();
+        if (cantidadModificadasLote == 0) {
+            return;
+        }
+        int palabrasPorFila = grillaJuego.obtenerPalabrasPorFila();
+        int ultimaFila = -1;
+        int ultimaColumna = -1;
+        for (int indice = 0; indice < modificadasLote.length; indice++) {
+            long bits = modificadasLote[indice];
+            while (bits != 0) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int fila = indice / palabrasPorFila;
+                int columna = ((indice % palabrasPorFila) << 6) + bit;
+                boolean eraCorrecta = (correctasAntesLote[indice] & (1L << bit)) != 0;
+                boolean esCorrecta = esEstadoCorrecto(fila, columna);
+                if (eraCorrecta && !esCorrecta) {
+                    celdasIncorrectas++;
+                } else if (!eraCorrecta && esCorrecta) {
+                    celdasIncorrectas--;
+                }
+                actualizarIndiceIncorrectas(fila, columna);
+                ultimaFila = fila;
+                ultimaColumna = columna;
+            }
+        }
+        CambioModelo cambio = cantidadModificadasLote == 1
+                ? CambioModelo.deCelda(ultimaFila, ultimaColumna)
+                : CambioModelo.deCeldas(modificadasLote.clone(), columnas, cantidadModificadasLote);
+        Arrays.fill(modificadasLote, 0L);
+        Arrays.fill(correctasAntesLote, 0L);
+        cantidadModificadasLote = 0;
+        notificarObservadores(cambio);
+    }
+    
+    // Marca una celda como tocada en el lote y guarda si era correcta antes del primer cambio.
+    private void registrarEnLote(int fila, int columna) {
+        int indice = fila * grillaJuego.obtenerPalabrasPorFila() + (columna >>> 6);
+        long bit = 1L << columna;
+        if ((modificadasLote[indice] & bit) == 0) {
+            modificadasLote[indice] |= bit;
+            if (esEstadoCorrecto(fila, columna)) {
+                correctasAntesLote[indice] |= bit;
+            }
+            cantidadModificadasLote++;
+        }
+    }
+    
+    // Las operaciones que reemplazan toda la grilla no se pueden mezclar con un lote abierto.
+    private void verificarSinLote() {
+        if (profundidadLote > 0) {
+            throw new IllegalStateException("Hay un lote de ediciones abierto");
         }
     }
     
@@ -334,9 +950,10 @@ public class ModeloNonograma {
     // @param fila Fila de la celda
     // @param columna Columna de la celda
     // @return Estado de la celda en la solución
+    @Override
     public EstadoCelda obtenerEstadoCeldaSolucion(int fila, int columna) {
-        if (fila >= 0 && fila < tamañoGrilla && columna >= 0 && columna < tamañoGrilla) {
-            return grillaSolucion[fila][columna];
+        if (fila >= 0 && fila < filas && columna >= 0 && columna < columnas) {
+            return grillaSolucion.obtenerEstado(fila, columna);
         }
         return EstadoCelda.VACIA;
     }
@@ -345,60 +962,73 @@ public class ModeloNonograma {
     
 
     
-    // Obtiene las pistas de todas las filas.
-    // 
-    // @return Lista de pistas por fila
-    public List<List<Integer>> obtenerPistasFilas() {
-        return pistasFilas;
-    }
-    
-    // Obtiene las pistas de todas las columnas.
+    // Obtiene las pistas de filas y columnas.
     // 
-    // @return Lista de pistas por columna
-    public List<List<Integer>> obtenerPistasColumnas() {
-        return pistasColumnas;
+    // @return Pistas del puzzle actual
+    @Override
+    public PistasNonograma obtenerPistas() {
+        return pistas;
     }
     
     // Obtiene el estado actual del juego.
     // 
     // @return Estado actual del juego
+    @Override
     public EstadoJuego obtenerEstadoJuego() {
         return estadoJuego;
     }
     
-    // Obtiene el tamaño de la grilla.
+    // Obtiene la cantidad de filas de la grilla.
+    // 
+    // @return Cantidad de filas
+    @Override
+    public int obtenerFilas() {
+        return filas;
+    }
+    
+    // Obtiene la cantidad de columnas de la grilla.
     // 
-    // @return Tamaño de la grilla
-    public int obtenerTamañoGrilla() {
-        return tamañoGrilla;
+    // @return Cantidad de columnas
+    @Override
+    public int obtenerColumnas() {
+        return columnas;
     }
     
     // Reinicia el juego actual sin generar un nuevo puzzle.
     // Notifica a los observadores sobre el cambio.
     public void reiniciarJuego() {
+        verificarSinLote();
         limpiarGrillaJugador();
+        reiniciarAleatorioPistas();
         estadoJuego = EstadoJuego.JUGANDO;
         pistasDisponibles = (nivelActual != null ? nivelActual.obtenerPistasDisponibles() : 3);
         limpiarCeldasReveladas();
-        notificarObservadores();
+        notificarObservadores(CambioModelo.de(TipoCambio.TABLERO_REINICIADO, TipoCambio.ESTADO_JUEGO));
     }
     
     // Limpia las celdas reveladas.
     private void limpiarCeldasReveladas() {
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                celdasReveladas[fila][columna] = false;
-            }
-        }
+        grillaJuego.limpiarReveladas();
+        // Las celdas que estaban reveladas vuelven a ser candidatas a pista
+        reconstruirIndiceIncorrectas();
     }
     
     // Obtiene el número de pistas disponibles.
     // 
     // @return Número de pistas disponibles
+    @Override
     public int obtenerPistasDisponibles() {
         return pistasDisponibles;
     }
     
+    // Obtiene el número del puzzle en juego (ver LecturaNonograma).
+    // 
+    // @return Número del puzzle
+    @Override
+    public long obtenerNumeroPuzzle() {
+        return numeroPuzzle;
+    }
+    
 
     
     // Verifica si una celda ha sido revelada como pista.
@@ -406,9 +1036,10 @@ public class ModeloNonograma {
     // @param fila Fila de la celda
     // @param columna Columna de la celda
     // @return true si la celda fue revelada como pista
+    @Override
     public boolean esCeldaRevelada(int fila, int columna) {
-        if (fila >= 0 && fila < tamañoGrilla && columna >= 0 && columna < tamañoGrilla) {
-            return celdasReveladas[fila][columna];
+        if (fila >= 0 && fila < filas && columna >= 0 && columna < columnas) {
+            return grillaJuego.estaRevelada(fila, columna);
         }
         return false;
     }
@@ -417,38 +1048,20 @@ public class ModeloNonograma {
     // 
     // @param nuevoNivel Nuevo nivel de dificultad
     public void cambiarNivel(NivelDificultad nuevoNivel) {
+        verificarSinLote();
         this.nivelActual = nuevoNivel;
-        this.tamañoGrilla = nuevoNivel.obtenerTamañoGrilla();
+        this.filas = nuevoNivel.obtenerTamañoGrilla();
+        this.columnas = nuevoNivel.obtenerTamañoGrilla();
         this.pistasDisponibles = nuevoNivel.obtenerPistasDisponibles();
         
-        // Redimensionar el array de celdas reveladas
-        this.celdasReveladas = new boolean[tamañoGrilla][tamañoGrilla];
-        
-        // Asegurar que todas las celdas estén marcadas como no reveladas
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                celdasReveladas[fila][columna] = false;
-            }
-        }
-        
-        // Reinicializar las grillas con el nuevo tamaño
-        this.grillaJuego = new EstadoCelda[tamañoGrilla][tamañoGrilla];
-        this.grillaSolucion = new EstadoCelda[tamañoGrilla][tamañoGrilla];
-        
-        // Inicializar grillas vacías
-        for (int fila = 0; fila < tamañoGrilla; fila++) {
-            for (int columna = 0; columna < tamañoGrilla; columna++) {
-                grillaJuego[fila][columna] = EstadoCelda.MARCADA; // Las celdas vacías muestran X
-                grillaSolucion[fila][columna] = EstadoCelda.VACIA;
-            }
-        }
-        
-        // Generar la solución primero
-        EstadoCelda[][] nuevaSolucion = generador.generarSolucionAleatoria(tamañoGrilla);
-        aplicarSolucion(nuevaSolucion);
+        // Reinicializar las grillas con el nuevo tamaño (las reveladas empiezan limpias)
+        inicializarGrillas();
         
-        // Luego generar las pistas basadas en la solución
-        generarPistas();
+        // Tomar un puzzle listo del nuevo nivel con su solución y sus pistas
+        PuzzleGenerado puzzle = obtenerPuzzle();
+        aplicarSolucion(puzzle.obtenerGrillaSolucion());
+        generarPistas(puzzle);
+        sembrarPuzzle(puzzle);
         
 
         
@@ -459,7 +1072,9 @@ public class ModeloNonograma {
         estadoJuego = EstadoJuego.JUGANDO;
         
         // Notificar observadores una sola vez
-        notificarObservadores();
+        numeroPuzzle++;
+        notificarObservadores(CambioModelo.de(TipoCambio.PISTAS_REEMPLAZADAS,
+                TipoCambio.TABLERO_REINICIADO, TipoCambio.ESTADO_JUEGO));
     }
     
     // Obtiene el nivel de dificultad actual.
@@ -0,0 +1,7 @@
+package com.nonogram.model;
+
+// Enum que representa cómo se elige la celda que revela una pista.
+public enum ModoPista {
+    ALEATORIA,  // Una celda incorrecta cualquiera
+    LOGICA;     // La próxima celda que se puede deducir de las pistas y lo que el jugador ya tiene bien
+}
@@ -1,43 +1,80 @@
 package com.nonogram.model;
 
 // Enum que define los diferentes niveles de dificultad del juego.
-// 
-// Cada nivel tiene un tamaño de grilla específico y un número de pistas disponibles.
+//
+// Cada nivel tiene un tamaño de grilla, un rango de calificación de dificultad
+// (ver EstadisticasSolucion: 0-24 se resuelve por superposición, 25-49 con
+// deducción exacta de líneas, 50-74 con sondeo y 75-100 adivinando) y un
+// número de pistas disponibles. El tamaño y la calificación son
+// independientes: hay un 10x10 difícil y un 20x20 fácil.
+//
+// Los niveles nuevos se agregan al final: las partidas guardadas identifican
+// el nivel por su posición.
 public enum NivelDificultad {
-    
-    FACIL(5, 3),      // 5x5 con 3 pistas
-    MEDIO(10, 3),     // 10x10 con 3 pistas
-    DIFICIL(15, 3),   // 15x15 con 3 pistas
-    EXPERTO(20, 3);   // 20x20 con 3 pistas
-    
+
+    FACIL(5, 0, 24, 3),          // 5x5, sólo superposición
+    MEDIO(10, 0, 49, 3),         // 10x10, superposición o deducción exacta
+    DIFICIL(15, 25, 74, 3),      // 15x15, deducción exacta o sondeo
+    EXPERTO(20, 50, 100, 3),     // 20x20, sondeo o suposiciones
+    DESAFIO(10, 50, 100, 3),     // 10x10, sondeo o suposiciones
+    EXTENSO(20, 0, 24, 3);       // 20x20, sólo superposición
+
     private final int tamañoGrilla;
+    private final int calificacionMinima;
+    private final int calificacionMaxima;
     private final int pistasDisponibles;
-    
+
     // Constructor del enum.
-    // 
+    //
     // @param tamañoGrilla Tamaño de la grilla (NxN)
+    // @param calificacionMinima Calificación mínima de los puzzles, incluida
+    // @param calificacionMaxima Calificación máxima de los puzzles, incluida
     // @param pistasDisponibles Número de pistas disponibles
-    NivelDificultad(int tamañoGrilla, int pistasDisponibles) {
+    NivelDificultad(int tamañoGrilla, int calificacionMinima, int calificacionMaxima, int pistasDisponibles) {
         this.tamañoGrilla = tamañoGrilla;
+        this.calificacionMinima = calificacionMinima;
+        this.calificacionMaxima = calificacionMaxima;
         this.pistasDisponibles = pistasDisponibles;
     }
-    
+
     // Obtiene el tamaño de la grilla para este nivel.
-    // 
+    //
     // @return Tamaño de la grilla
     public int obtenerTamañoGrilla() {
         return tamañoGrilla;
     }
-    
+
+    // Obtiene la calificación mínima de los puzzles de este nivel.
+    //
+    // @return Calificación mínima, incluida
+    public int obtenerCalificacionMinima() {
+        return calificacionMinima;
+    }
+
+    // Obtiene la calificación máxima de los puzzles de este nivel.
+    //
+    // @return Calificación máxima, incluida
+    public int obtenerCalificacionMaxima() {
+        return calificacionMaxima;
+    }
+
+    // Indica si una calificación está dentro del rango del nivel.
+    //
+    // @param calificacion Calificación de un puzzle
+    // @return true si corresponde a este nivel
+    public boolean admiteCalificacion(int calificacion) {
+        return calificacion >= calificacionMinima && calificacion <= calificacionMaxima;
+    }
+
     // Obtiene el número de pistas disponibles para este nivel.
-    // 
+    //
     // @return Número de pistas disponibles
     public int obtenerPistasDisponibles() {
         return pistasDisponibles;
     }
-    
+
     // Obtiene el nombre del nivel para mostrar en la interfaz.
-    // 
+    //
     // @return Nombre del nivel
     public String obtenerNombre() {
         switch (this) {
@@ -49,6 +86,10 @@ public enum NivelDificultad {
                 return "Difícil (15x15) - 3 pistas";
             case EXPERTO:
                 return "Experto (20x20) - 3 pistas";
+            case DESAFIO:
+                return "Desafío (10x10, difícil) - 3 pistas";
+            case EXTENSO:
+                return "Extenso (20x20, fácil) - 3 pistas";
             default:
                 return "Desconocido";
         }
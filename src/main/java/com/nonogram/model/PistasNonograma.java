@@ -0,0 +1,214 @@
+package com.nonogram.model;
+
+// Pistas de un Nonograma guardadas en arreglos primitivos planos.
+//
+// Los largos de los bloques de todas las líneas van seguidos en un único
+// int[]: primero las filas y después las columnas. La línea l (l = fila para
+// las filas y l = filas + columna para las columnas) ocupa desde inicios[l]
+// hasta inicios[l + 1] - 1; una línea vacía no ocupa lugar. Es el mismo formato
+// que reciben SolucionadorNonograma y AsistenteLogico, así que se les pasan los
+// arreglos sin convertir.
+//
+// Las dos direcciones se calculan recorriendo la solución por filas, palabra
+// por palabra (64 celdas por long): los bloques de una fila empiezan donde un
+// bit está en 1 y el anterior en 0, y los de una columna donde la celda está
+// llena y la de la fila anterior no. Las posiciones se sacan con
+// numberOfTrailingZeros, así que el costo depende de la cantidad de bloques y
+// no de celdas. Una instancia no se modifica después de creada.
+public class PistasNonograma {
+
+    private final int filas;
+    private final int columnas;
+    private final int[] largos;
+    private final int[] inicios;
+
+    private PistasNonograma(int filas, int columnas, int[] largos, int[] inicios) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.largos = largos;
+        this.inicios = inicios;
+    }
+
+    // Calcula las pistas de una solución guardada como grilla de bits.
+    //
+    // @param solucion Grilla con la solución
+    // @return Pistas de filas y columnas
+    public static PistasNonograma calcular(GrillaBits solucion) {
+        int filas = solucion.obtenerFilas();
+        int palabrasPorFila = solucion.obtenerPalabrasPorFila();
+        long[] llenas = new long[filas * palabrasPorFila];
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                llenas[fila * palabrasPorFila + palabra] = solucion.obtenerPalabraLlenas(fila, palabra);
+            }
+        }
+        return calcular(filas, solucion.obtenerColumnas(), llenas);
+    }
+
+    // Calcula las pistas de una solución guardada como matriz.
+    //
+    // @param solucion Matriz con la solución
+    // @return Pistas de filas y columnas
+    public static PistasNonograma calcular(EstadoCelda[][] solucion) {
+        if (solucion == null || solucion.length == 0 || solucion[0].length == 0) {
+            throw new IllegalArgumentException("Solución inválida");
+        }
+        int filas = solucion.length;
+        int columnas = solucion[0].length;
+        int palabrasPorFila = (columnas + 63) >>> 6;
+        long[] llenas = new long[filas * palabrasPorFila];
+        for (int fila = 0; fila < filas; fila++) {
+            if (solucion[fila].length != columnas) {
+                throw new IllegalArgumentException("La solución no es rectangular");
+            }
+            for (int col = 0; col < columnas; col++) {
+                if (solucion[fila][col] == EstadoCelda.LLENA) {
+                    llenas[fila * palabrasPorFila + (col >>> 6)] |= 1L << col;
+                }
+            }
+        }
+        return calcular(filas, columnas, llenas);
+    }
+
+    // Calcula las pistas a partir de las celdas llenas, por fila, en palabras de 64 bits.
+    // Hace dos pasadas por filas: la primera cuenta los bloques de cada línea para
+    // ubicar los inicios y la segunda escribe los largos.
+    private static PistasNonograma calcular(int filas, int columnas, long[] llenas) {
+        int palabrasPorFila = (columnas + 63) >>> 6;
+        int lineas = filas + columnas;
+
+        // Primera pasada: cantidad de bloques de cada línea, guardada en inicios[l + 1]
+        int[] inicios = new int[lineas + 1];
+        for (int fila = 0; fila < filas; fila++) {
+            int base = fila * palabrasPorFila;
+            long acarreo = 0; // Último bit de la palabra anterior de la fila
+            int bloquesFila = 0;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long actual = llenas[base + palabra];
+                long anteriorFila = fila > 0 ? llenas[base - palabrasPorFila + palabra] : 0L;
+                bloquesFila += Long.bitCount(actual & ~((actual << 1) | acarreo));
+                acarreo = actual >>> 63;
+                long comienzanColumnas = actual & ~anteriorFila;
+                int primeraColumna = filas + 1 + (palabra << 6);
+                while (comienzanColumnas != 0) {
+                    inicios[primeraColumna + Long.numberOfTrailingZeros(comienzanColumnas)]++;
+                    comienzanColumnas &= comienzanColumnas - 1;
+                }
+            }
+            inicios[fila + 1] = bloquesFila;
+        }
+        for (int linea = 0; linea < lineas; linea++) {
+            inicios[linea + 1] += inicios[linea];
+        }
+
+        // Segunda pasada: largos de los bloques
+        int[] largos = new int[inicios[lineas]];
+        int[] siguienteColumna = new int[columnas]; // Próxima posición libre de cada columna
+        int[] filaInicioColumna = new int[columnas]; // Fila donde empezó el bloque abierto de cada columna
+        System.arraycopy(inicios, filas, siguienteColumna, 0, columnas);
+        for (int fila = 0; fila <= filas; fila++) {
+            int base = fila * palabrasPorFila;
+            int siguienteFila = fila < filas ? inicios[fila] : 0;
+            int abierto = -1; // Columna donde empezó el bloque abierto de la fila
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long actual = fila < filas ? llenas[base + palabra] : 0L;
+                long anteriorFila = fila > 0 ? llenas[base - palabrasPorFila + palabra] : 0L;
+                int desplazamiento = palabra << 6;
+
+                // Bloques de columnas: cierran donde la fila anterior estaba llena y ésta no
+                long terminanColumnas = anteriorFila & ~actual;
+                while (terminanColumnas != 0) {
+                    int col = desplazamiento + Long.numberOfTrailingZeros(terminanColumnas);
+                    largos[siguienteColumna[col]++] = fila - filaInicioColumna[col];
+                    terminanColumnas &= terminanColumnas - 1;
+                }
+                long comienzanColumnas = actual & ~anteriorFila;
+                while (comienzanColumnas != 0) {
+                    filaInicioColumna[desplazamiento + Long.numberOfTrailingZeros(comienzanColumnas)] = fila;
+                    comienzanColumnas &= comienzanColumnas - 1;
+                }
+
+                // Bloques de la fila: comienzos y finales alternan en orden de columna
+                long acarreoAnterior = palabra > 0 && fila < filas ? llenas[base + palabra - 1] >>> 63 : 0L;
+                long siguiente = palabra + 1 < palabrasPorFila && fila < filas ? llenas[base + palabra + 1] : 0L;
+                long comienzan = actual & ~((actual << 1) | acarreoAnterior);
+                long terminan = actual & ~((actual >>> 1) | (siguiente << 63));
+                while ((comienzan | terminan) != 0) {
+                    if (abierto < 0) {
+                        abierto = desplazamiento + Long.numberOfTrailingZeros(comienzan);
+                        comienzan &= comienzan - 1;
+                    } else {
+                        largos[siguienteFila++] = desplazamiento + Long.numberOfTrailingZeros(terminan) - abierto + 1;
+                        terminan &= terminan - 1;
+                        abierto = -1;
+                    }
+                }
+            }
+        }
+        return new PistasNonograma(filas, columnas, largos, inicios);
+    }
+
+    // Obtiene la cantidad de filas.
+    //
+    // @return Cantidad de filas
+    public int obtenerFilas() {
+        return filas;
+    }
+
+    // Obtiene la cantidad de columnas.
+    //
+    // @return Cantidad de columnas
+    public int obtenerColumnas() {
+        return columnas;
+    }
+
+    // Obtiene la cantidad de bloques de una fila (0 si la fila está vacía).
+    //
+    // @param fila Índice de la fila
+    // @return Cantidad de bloques
+    public int obtenerCantidadFila(int fila) {
+        return inicios[fila + 1] - inicios[fila];
+    }
+
+    // Obtiene el largo de un bloque de una fila.
+    //
+    // @param fila Índice de la fila
+    // @param bloque Índice del bloque, de izquierda a derecha
+    // @return Largo del bloque
+    public int obtenerLargoFila(int fila, int bloque) {
+        return largos[inicios[fila] + bloque];
+    }
+
+    // Obtiene la cantidad de bloques de una columna (0 si la columna está vacía).
+    //
+    // @param columna Índice de la columna
+    // @return Cantidad de bloques
+    public int obtenerCantidadColumna(int columna) {
+        return inicios[filas + columna + 1] - inicios[filas + columna];
+    }
+
+    // Obtiene el largo de un bloque de una columna.
+    //
+    // @param columna Índice de la columna
+    // @param bloque Índice del bloque, de arriba hacia abajo
+    // @return Largo del bloque
+    public int obtenerLargoColumna(int columna, int bloque) {
+        return largos[inicios[filas + columna] + bloque];
+    }
+
+    // Obtiene los largos de todos los bloques, primero los de las filas.
+    // Se devuelve el arreglo interno sin copiar: no se debe modificar.
+    //
+    // @return Largos de los bloques
+    public int[] obtenerLargos() {
+        return largos;
+    }
+
+    // Obtiene la posición del primer bloque de cada línea, con una posición extra al final.
+    // Se devuelve el arreglo interno sin copiar: no se debe modificar.
+    //
+    // @return Inicios de las líneas, filas + columnas + 1 posiciones
+    public int[] obtenerInicios() {
+        return inicios;
+    }
+}
@@ -0,0 +1,148 @@
+package com.nonogram.model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.nonogram.telemetria.Telemetria;
+
+// Pool de puzzles pre-generados en segundo plano.
+//
+// Por cada NivelDificultad hay una cola acotada de puzzles listos (solución y
+// pistas, con el tamaño y el rango de calificación del nivel) y un hilo
+// virtual que la rellena. Los hilos virtuales corren sobre el
+// pool fork-join de la JVM, así que los niveles se generan en paralelo hasta
+// la cantidad de núcleos sin crear hilos de plataforma.
+//
+// Cuando una cola está llena su productor queda bloqueado en put() hasta que se
+// consuma un puzzle (contrapresión): nunca se genera más de lo que se usa.
+// Tomar un puzzle es sólo sacarlo de la cola; si la cola está vacía se genera
+// en el momento, con el presupuesto del generador.
+//
+// El generador puede devolver un puzzle único fuera del rango del nivel si se
+// le agota el presupuesto de rango. El pool los descarta y genera otro, así
+// que todo puzzle que entrega tiene la calificación de su nivel.
+//
+// Las semillas de los puzzles salen de un SplittableRandom raíz que se divide
+// en uno independiente por productor, así los hilos no comparten generador y,
+// con la misma semilla raíz, cada nivel produce la misma secuencia de puzzles.
+public class PoolDePuzzles {
+
+    // Puzzles listos que se guardan por nivel
+    public static final int CAPACIDAD_POR_DEFECTO = 3;
+
+    private final GeneradorDePuzzles generador;
+    private final Map<NivelDificultad, BlockingQueue<PuzzleGenerado>> colas;
+    private final List<Thread> productores;
+    private final SplittableRandom semillas;           // Raíz de la que se dividen los productores
+    private final SplittableRandom semillasSincronicas; // Semillas de los puzzles generados al vuelo
+
+    // Constructor del pool. Los productores no arrancan hasta llamar a iniciar().
+    //
+    // @param generador Generador usado por todos los productores
+    // @param capacidadPorNivel Cantidad máxima de puzzles listos por nivel
+    // @param semillaRaiz Semilla de la que se derivan las de todos los puzzles
+    public PoolDePuzzles(GeneradorDePuzzles generador, int capacidadPorNivel, long semillaRaiz) {
+        if (generador == null || capacidadPorNivel <= 0) {
+            throw new IllegalArgumentException("Parámetros del pool inválidos");
+        }
+        this.generador = generador;
+        this.colas = new EnumMap<>(NivelDificultad.class);
+        for (NivelDificultad nivel : NivelDificultad.values()) {
+            colas.put(nivel, new ArrayBlockingQueue<>(capacidadPorNivel));
+        }
+        this.productores = new ArrayList<>();
+        this.semillas = new SplittableRandom(semillaRaiz);
+        this.semillasSincronicas = semillas.split();
+    }
+
+    // Constructor con la capacidad por defecto y una semilla raíz al azar.
+    //
+    // @param generador Generador usado por todos los productores
+    public PoolDePuzzles(GeneradorDePuzzles generador) {
+        this(generador, CAPACIDAD_POR_DEFECTO, new SplittableRandom().nextLong());
+    }
+
+    // Arranca un productor por nivel. Llamarlo más de una vez no tiene efecto.
+    public synchronized void iniciar() {
+        if (!productores.isEmpty()) {
+            return;
+        }
+        for (NivelDificultad nivel : NivelDificultad.values()) {
+            BlockingQueue<PuzzleGenerado> cola = colas.get(nivel);
+            SplittableRandom semillasNivel = semillas.split();
+            productores.add(Thread.ofVirtual()
+                    .name("generador-" + nivel.name().toLowerCase())
+                    .start(() -> producir(nivel, cola, semillasNivel)));
+        }
+    }
+
+    // Detiene los productores. Los puzzles que ya estaban listos siguen disponibles.
+    public synchronized void detener() {
+        for (Thread productor : productores) {
+            productor.interrupt();
+        }
+        productores.clear();
+    }
+
+    // Toma un puzzle listo del nivel pedido, o lo genera en el momento si no hay ninguno.
+    //
+    // @param nivel Nivel de dificultad
+    // @return Puzzle con solución única, sus pistas y una calificación del rango del nivel
+    public PuzzleGenerado tomar(NivelDificultad nivel) {
+        PuzzleGenerado puzzle = colas.get(nivel).poll();
+        while (puzzle == null) {
+            long semilla;
+            synchronized (semillasSincronicas) {
+                semilla = semillasSincronicas.nextLong();
+            }
+            puzzle = generarDelNivel(nivel, semilla);
+        }
+        return puzzle;
+    }
+
+    // Obtiene el generador que usan los productores.
+    //
+    // @return Generador del pool
+    public GeneradorDePuzzles obtenerGenerador() {
+        return generador;
+    }
+
+    // Obtiene la cantidad de puzzles listos de un nivel.
+    //
+    // @param nivel Nivel de dificultad
+    // @return Cantidad de puzzles en la cola
+    public int obtenerDisponibles(NivelDificultad nivel) {
+        return colas.get(nivel).size();
+    }
+
+    // Genera puzzles del nivel mientras haya lugar en la cola; si no, espera.
+    private void producir(NivelDificultad nivel, BlockingQueue<PuzzleGenerado> cola, SplittableRandom semillasNivel) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                PuzzleGenerado puzzle = generarDelNivel(nivel, semillasNivel.nextLong());
+                if (puzzle != null) {
+                    cola.put(puzzle);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Genera un puzzle del nivel y lo descarta si su calificación quedó fuera del rango.
+    //
+    // @return El puzzle, o null si hay que probar con otra semilla
+    private PuzzleGenerado generarDelNivel(NivelDificultad nivel, long semilla) {
+        PuzzleGenerado puzzle = generador.generarPuzzle(nivel, semilla);
+        if (!nivel.admiteCalificacion(puzzle.obtenerCalificacion())) {
+            Telemetria.REINTENTOS_GENERADOR.increment();
+            return null;
+        }
+        return puzzle;
+    }
+}
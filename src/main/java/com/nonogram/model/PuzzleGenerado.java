@@ -0,0 +1,126 @@
+package com.nonogram.model;
+
+// Puzzle listo para jugar: la solución y sus pistas ya calculadas, junto con
+// la semilla que permite regenerarlo (GeneradorDePuzzles.generarPuzzle).
+//
+// Se genera en segundo plano (ver PoolDePuzzles) y se pasa al modelo sin
+// copiar, así que la solución y las pistas no se deben modificar. La solución
+// se guarda en bits para que un puzzle de 5000x5000 ocupe unos 3 MB y no los
+// 100 MB de una matriz de referencias.
+public class PuzzleGenerado {
+
+    private final GrillaBits solucion;
+    private final PistasNonograma pistas;
+    private final long semilla;
+    private final int calificacion;
+
+    // Constructor del puzzle.
+    //
+    // @param solucion Grilla con la solución (sólo el plano de llenas)
+    // @param pistas Pistas de filas y columnas de la solución
+    // @param semilla Semilla con la que se generó
+    // @param calificacion Calificación de dificultad, o -1 si no se midió
+    PuzzleGenerado(GrillaBits solucion, PistasNonograma pistas, long semilla, int calificacion) {
+        this.solucion = solucion;
+        this.pistas = pistas;
+        this.semilla = semilla;
+        this.calificacion = calificacion;
+    }
+
+    // Crea un puzzle a partir de una solución que no salió del generador (por
+    // ejemplo, uno importado). La semilla sólo siembra la elección de pistas:
+    // GeneradorDePuzzles no puede regenerar el puzzle con ella.
+    //
+    // @param solucion Matriz con la solución, de cualquier cantidad de filas y columnas
+    // @param semilla Semilla para las pistas
+    // @return Puzzle con las pistas calculadas
+    public static PuzzleGenerado desdeSolucion(EstadoCelda[][] solucion, long semilla) {
+        return desdeSolucion(solucion, semilla, -1);
+    }
+
+    // Crea un puzzle a partir de una solución ya calificada (por ejemplo, al
+    // validar un puzzle importado con el solucionador).
+    //
+    // @param solucion Matriz con la solución, de cualquier cantidad de filas y columnas
+    // @param semilla Semilla para las pistas
+    // @param calificacion Calificación de dificultad, o -1 si no se midió
+    // @return Puzzle con las pistas calculadas
+    public static PuzzleGenerado desdeSolucion(EstadoCelda[][] solucion, long semilla, int calificacion) {
+        if (solucion.length == 0 || solucion[0].length == 0) {
+            throw new IllegalArgumentException("La solución no tiene celdas");
+        }
+        for (EstadoCelda[] fila : solucion) {
+            if (fila.length != solucion[0].length) {
+                throw new IllegalArgumentException("Las filas de la solución tienen distinto largo");
+            }
+        }
+        GrillaBits grilla = new GrillaBits(solucion.length, solucion[0].length);
+        grilla.copiarDesde(solucion);
+        return desdeSolucion(grilla, semilla, calificacion);
+    }
+
+    // Crea un puzzle a partir de una solución en bits, sin pasar por una matriz.
+    //
+    // @param solucion Grilla con la solución (sólo se usa el plano de llenas); no se copia
+    // @param semilla Semilla para las pistas
+    // @param calificacion Calificación de dificultad, o -1 si no se midió
+    // @return Puzzle con las pistas calculadas
+    public static PuzzleGenerado desdeSolucion(GrillaBits solucion, long semilla, int calificacion) {
+        if (calificacion < -1 || calificacion > 100) {
+            throw new IllegalArgumentException("Calificación inválida: " + calificacion);
+        }
+        return new PuzzleGenerado(solucion, PistasNonograma.calcular(solucion), semilla, calificacion);
+    }
+
+    // Obtiene la semilla con la que se generó el puzzle.
+    //
+    // @return Semilla de 64 bits
+    public long obtenerSemilla() {
+        return semilla;
+    }
+
+    // Obtiene la calificación de dificultad con la que se generó el puzzle
+    // (ver EstadisticasSolucion).
+    //
+    // @return Calificación de 0 a 100, o -1 si no se midió (por ejemplo, si no
+    //         se llegó a probar que la solución es única)
+    public int obtenerCalificacion() {
+        return calificacion;
+    }
+
+    // Obtiene la solución como matriz. Arma una matriz nueva en cada llamada,
+    // así que para tableros grandes conviene obtenerGrillaSolucion.
+    //
+    // @return Matriz nueva con la solución
+    public EstadoCelda[][] obtenerSolucion() {
+        return solucion.copiarAMatriz();
+    }
+
+    // Obtiene la solución en bits, compartida con el puzzle.
+    //
+    // @return Grilla con la solución; no se debe modificar
+    public GrillaBits obtenerGrillaSolucion() {
+        return solucion;
+    }
+
+    // Obtiene las pistas de filas y columnas.
+    //
+    // @return Pistas del puzzle
+    public PistasNonograma obtenerPistas() {
+        return pistas;
+    }
+
+    // Obtiene la cantidad de filas de la grilla.
+    //
+    // @return Cantidad de filas
+    public int obtenerFilas() {
+        return solucion.obtenerFilas();
+    }
+
+    // Obtiene la cantidad de columnas de la grilla.
+    //
+    // @return Cantidad de columnas
+    public int obtenerColumnas() {
+        return solucion.obtenerColumnas();
+    }
+}
@@ -0,0 +1,9 @@
+package com.nonogram.model;
+
+// Enum que representa qué parte del modelo cambió en una notificación.
+public enum TipoCambio {
+    CELDA,                // Cambió el estado de una celda de la grilla del jugador
+    TABLERO_REINICIADO,   // Se reinició toda la grilla del jugador
+    PISTAS_REEMPLAZADAS,  // Hay un puzzle nuevo: otras pistas y posiblemente otro tamaño
+    ESTADO_JUEGO;         // Cambió el estado de la partida o las pistas disponibles
+}
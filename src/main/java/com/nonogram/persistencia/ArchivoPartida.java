@@ -0,0 +1,102 @@
+package com.nonogram.persistencia;
+
+import com.nonogram.model.InstantaneaModelo;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Guarda y carga partidas en archivos con el formato de FormatoPartida.
+//
+// Los archivos se escriben y se leen mapeados en memoria (FileChannel.map): el
+// registro se arma directamente sobre las páginas del archivo, sin buffers
+// intermedios. Guardar escribe primero un archivo temporal y después lo mueve
+// sobre el destino, así un corte a mitad de camino nunca deja una partida a
+// medio escribir.
+//
+// Un archivo puede tener una o dos ranuras del mismo largo (el autoguardado
+// alterna entre dos); al cargar se usa la ranura válida con la secuencia más alta.
+public final class ArchivoPartida {
+
+    private ArchivoPartida() {
+    }
+
+    // Guarda una partida en un archivo, reemplazándolo si ya existe.
+    //
+    // @param partida Instantánea a guardar
+    // @param archivo Ruta del archivo
+    // @throws IOException Si no se puede escribir el archivo
+    public static void guardar(InstantaneaModelo partida, Path archivo) throws IOException {
+        escribirArchivo(archivo, partida, 1, 1);
+    }
+
+    // Carga una partida guardada.
+    //
+    // @param archivo Ruta del archivo
+    // @return Partida guardada
+    // @throws IOException Si el archivo no existe o no tiene ninguna ranura válida
+    public static InstantaneaModelo cargar(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long largoArchivo = canal.size();
+            if (largoArchivo > Integer.MAX_VALUE) {
+                throw new IOException("Archivo demasiado grande: " + largoArchivo + " bytes");
+            }
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, largoArchivo);
+            int largo = (int) largoArchivo;
+
+            int mejorInicio = -1;
+            long mejorSecuencia = Long.MIN_VALUE;
+            IOException primerError = null;
+            int[] inicios = { 0, largo / 2 };
+            for (int i = 0; i < inicios.length; i++) {
+                if (i > 0 && inicios[i] == inicios[0]) {
+                    break;
+                }
+                try {
+                    long secuencia = FormatoPartida.leerSecuencia(mapa.slice(inicios[i], largo - inicios[i]));
+                    if (secuencia > mejorSecuencia) {
+                        mejorSecuencia = secuencia;
+                        mejorInicio = inicios[i];
+                    }
+                } catch (IOException e) {
+                    if (primerError == null) {
+                        primerError = e;
+                    }
+                }
+            }
+            if (mejorInicio < 0) {
+                throw primerError;
+            }
+            return FormatoPartida.leer(mapa.slice(mejorInicio, largo - mejorInicio));
+        }
+    }
+
+    // Escribe un archivo nuevo con la partida en la primera ranura y las demás
+    // vacías, pasando por un archivo temporal.
+    //
+    // @param archivo Ruta del archivo
+    // @param partida Instantánea a guardar
+    // @param secuencia Secuencia del registro
+    // @param ranuras Cantidad de ranuras del archivo
+    static void escribirArchivo(Path archivo, InstantaneaModelo partida, long secuencia, int ranuras)
+            throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        long largo = (long) FormatoPartida.calcularLargo(partida.obtenerFilas(), partida.obtenerColumnas()) * ranuras;
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, largo);
+            FormatoPartida.escribir(mapa, partida, secuencia);
+            mapa.force();
+        }
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
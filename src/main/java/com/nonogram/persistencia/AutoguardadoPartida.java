@@ -0,0 +1,185 @@
+package com.nonogram.persistencia;
+
+import com.nonogram.model.CambioModelo;
+import com.nonogram.model.InstantaneaModelo;
+import com.nonogram.model.ModeloNonograma;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Guarda la partida en disco después de cada cambio del modelo.
+//
+// El observador corre en el hilo del modelo y sólo deja la instantánea del
+// cambio en una referencia atómica y despierta al hilo escritor: nunca toca el
+// disco ni espera, así que no frena al hilo de eventos. El escritor (un hilo
+// virtual) toma siempre la última instantánea pendiente; si llegan varios
+// cambios mientras escribe, los intermedios se descartan.
+//
+// El archivo tiene dos ranuras del mismo largo y queda mapeado en memoria
+// mientras el tamaño de la grilla no cambie. Cada guardado escribe la ranura
+// que no tiene la última partida, con una secuencia mayor, y fuerza sólo esas
+// páginas al disco: si el proceso se corta a mitad de una escritura la otra
+// ranura sigue siendo válida (ArchivoPartida.cargar elige la mejor). En la
+// ranura sólo se reescriben las filas que cambiaron desde la partida que tenía
+// (FormatoPartida.actualizar), así que en un tablero grande una jugada ensucia
+// y fuerza unas pocas páginas en lugar de la ranura entera. Cuando cambia el
+// tamaño de la grilla el archivo se vuelve a crear completo.
+public class AutoguardadoPartida implements ModeloNonograma.ObservadorModelo {
+
+    private final ModeloNonograma modelo;
+    private final Path archivo;
+    private final AtomicReference<InstantaneaModelo> pendiente;
+    private volatile Thread escritor;
+    private volatile boolean detenido;
+    private volatile IOException ultimoError;
+
+    // Estado del hilo escritor
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private int largoRegistro;
+    private int ranuraActual;    // Ranura con la última partida escrita
+    private final InstantaneaModelo[] escritas = new InstantaneaModelo[2]; // Partida de cada ranura, o null
+    private long secuencia;
+
+    // Constructor del autoguardado. No observa el modelo hasta llamar a iniciar().
+    //
+    // @param modelo Modelo a guardar
+    // @param archivo Archivo de autoguardado
+    public AutoguardadoPartida(ModeloNonograma modelo, Path archivo) {
+        this.modelo = modelo;
+        this.archivo = archivo;
+        this.pendiente = new AtomicReference<>();
+    }
+
+    // Arranca el escritor, empieza a observar el modelo y guarda el estado
+    // actual. Se llama desde el hilo del modelo. Llamarlo más de una vez no tiene efecto.
+    public synchronized void iniciar() {
+        if (escritor != null) {
+            return;
+        }
+        detenido = false;
+        escritor = Thread.ofVirtual().name("autoguardado").start(this::escribirPendientes);
+        modelo.agregarObservador(this);
+        ofrecer(modelo.obtenerInstantanea());
+    }
+
+    // Deja de observar el modelo, espera a que se escriba la última partida
+    // pendiente y cierra el archivo. Se puede llamar desde cualquier hilo.
+    public synchronized void detener() {
+        Thread hilo = escritor;
+        if (hilo == null) {
+            return;
+        }
+        modelo.removerObservador(this);
+        detenido = true;
+        LockSupport.unpark(hilo);
+        boolean interrumpido = false;
+        while (hilo.isAlive()) {
+            try {
+                hilo.join();
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        escritor = null;
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void alCambiarModelo(CambioModelo cambio) {
+        InstantaneaModelo instantanea = cambio.obtenerInstantanea();
+        ofrecer(instantanea != null ? instantanea : modelo.obtenerInstantanea());
+    }
+
+    // Obtiene el último error de escritura, si lo hubo.
+    //
+    // @return Último error, o null si todos los guardados funcionaron
+    public IOException obtenerUltimoError() {
+        return ultimoError;
+    }
+
+    // Obtiene la ruta del archivo de autoguardado.
+    //
+    // @return Ruta del archivo
+    public Path obtenerArchivo() {
+        return archivo;
+    }
+
+    private void ofrecer(InstantaneaModelo instantanea) {
+        pendiente.set(instantanea);
+        Thread hilo = escritor;
+        if (hilo != null) {
+            LockSupport.unpark(hilo);
+        }
+    }
+
+    private void escribirPendientes() {
+        try {
+            while (true) {
+                InstantaneaModelo partida = pendiente.getAndSet(null);
+                if (partida == null) {
+                    if (detenido) {
+                        return;
+                    }
+                    LockSupport.park(this);
+                    continue;
+                }
+                try {
+                    escribir(partida);
+                    ultimoError = null;
+                } catch (IOException e) {
+                    ultimoError = e;
+                    cerrarArchivo();
+                }
+            }
+        } finally {
+            cerrarArchivo();
+        }
+    }
+
+    private void escribir(InstantaneaModelo partida) throws IOException {
+        secuencia++;
+        int largo = FormatoPartida.calcularLargo(partida.obtenerFilas(), partida.obtenerColumnas());
+        if (mapa == null || largo != largoRegistro) {
+            cerrarArchivo();
+            ArchivoPartida.escribirArchivo(archivo, partida, secuencia, 2);
+            canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, 2L * largo);
+            largoRegistro = largo;
+            ranuraActual = 0;
+            escritas[0] = partida;
+            escritas[1] = null;
+            return;
+        }
+        int ranura = 1 - ranuraActual;
+        int inicio = ranura * largo;
+        InstantaneaModelo anterior = escritas[ranura];
+        // Si algo falla no se sabe qué quedó en la ranura; el archivo se vuelve a crear
+        escritas[ranura] = null;
+        FormatoPartida.actualizar(mapa.slice(inicio, largo), partida, anterior, secuencia);
+        mapa.force(inicio, largo);
+        escritas[ranura] = partida;
+        ranuraActual = ranura;
+    }
+
+    private void cerrarArchivo() {
+        mapa = null;
+        escritas[0] = null;
+        escritas[1] = null;
+        if (canal != null) {
+            try {
+                canal.close();
+            } catch (IOException e) {
+                ultimoError = e;
+            }
+            canal = null;
+        }
+    }
+}
@@ -0,0 +1,570 @@
+package com.nonogram.persistencia;
+
+import com.nonogram.model.FuentePuzzles;
+import com.nonogram.model.GrillaBits;
+import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.PistasNonograma;
+import com.nonogram.model.PuzzleGenerado;
+import com.nonogram.solver.EstadisticasSolucion;
+import com.nonogram.solver.ResultadoSolucion;
+import com.nonogram.solver.SolucionadorNonograma;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+import java.util.zip.CRC32C;
+
+// Catálogo de puzzles en disco con acceso por id, tamaño, dificultad y contenido.
+//
+// Se guarda en dos archivos de una carpeta:
+// - puzzles.dat: registros que sólo se agregan al final. Cada uno tiene el
+//   tamaño, la dificultad, el hash del contenido, un CRC32C y la solución
+//   empaquetada a 1 bit por celda (las pistas se recalculan al leerlo).
+// - puzzles.idx: una entrada de 24 bytes por puzzle (posición en puzzles.dat,
+//   hash, tamaño y dificultad). El id de un puzzle es su posición en el índice.
+//
+// Al abrir se lee el índice entero a memoria. Si el proceso se cortó entre
+// escribir un registro y su entrada, el índice se completa recorriendo el
+// final de puzzles.dat, y un registro a medio escribir se descarta.
+//
+// En memoria se arma:
+// - posiciones por id: obtener(id) es O(1) más una lectura del archivo
+// - una tabla hash por contenido: agregar detecta duplicados en O(1)
+// - por tamaño, las claves (dificultad, id) ordenadas: contar y elegir al azar
+//   dentro de un rango de dificultad es O(log n). Las claves nuevas se ordenan
+//   una sola vez en la próxima consulta, así una importación masiva no paga
+//   una inserción ordenada por puzzle.
+//
+// La dificultad es la calificación de 0 a 100 que da el solucionador al
+// verificar la solución única (ver EstadisticasSolucion), la misma con la que
+// se definen los rangos de NivelDificultad.
+//
+// Los métodos están sincronizados: se puede importar desde un hilo mientras el
+// juego toma puzzles desde otro.
+public class CatalogoPuzzles implements FuentePuzzles, Closeable {
+
+    private static final int MAGICO_DATOS = 0x4E434154;  // "NCAT"
+    private static final int MAGICO_INDICE = 0x4E494458; // "NIDX"
+    private static final short VERSION = 2;  // La versión 1 medía la dificultad en líneas resueltas
+    private static final int LARGO_CABECERA_ARCHIVO = 16;
+    private static final int LARGO_CABECERA_REGISTRO = 24;
+    private static final int LARGO_ENTRADA = 24;
+    private static final int TAMAÑO_MAXIMO = 32_768;
+
+    // Líneas que puede resolver el solucionador al medir la dificultad de un puzzle
+    private static final long LIMITE_MEDICION = 5_000_000;
+
+    private final FileChannel datos;
+    private final FileChannel indice;
+    private long finDatos;
+
+    // Entradas del índice, por id
+    private long[] posiciones = new long[1024];
+    private long[] hashes = new long[1024];
+    private int[] tamaños = new int[1024];
+    private int[] dificultades = new int[1024];
+    private int cantidad;
+
+    // Tabla hash por contenido (direccionamiento abierto): ids, -1 si la casilla está libre
+    private int[] tablaHash = nuevaTabla(2048);
+
+    // Claves (dificultad << 32 | id) por tamaño
+    private final Map<Integer, ClavesGrilla> porTamaño = new HashMap<>();
+
+    private final RandomGenerator aleatorio = new SplittableRandom();
+
+    // Claves de un tamaño de grilla; se ordenan al consultarlas.
+    private static final class ClavesGrilla {
+        long[] claves = new long[64];
+        int cantidad;
+        boolean ordenadas = true;
+
+        void agregar(long clave) {
+            if (cantidad == claves.length) {
+                claves = Arrays.copyOf(claves, cantidad * 2);
+            }
+            if (cantidad > 0 && claves[cantidad - 1] > clave) {
+                ordenadas = false;
+            }
+            claves[cantidad++] = clave;
+        }
+
+        void ordenar() {
+            if (!ordenadas) {
+                Arrays.sort(claves, 0, cantidad);
+                ordenadas = true;
+            }
+        }
+
+        // Primera posición con clave >= buscada
+        int buscar(long clave) {
+            int desde = 0;
+            int hasta = cantidad;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                if (claves[medio] < clave) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+    }
+
+    private CatalogoPuzzles(FileChannel datos, FileChannel indice) {
+        this.datos = datos;
+        this.indice = indice;
+    }
+
+    // Abre el catálogo de una carpeta, creándolo si no existe.
+    //
+    // @param carpeta Carpeta del catálogo
+    // @return Catálogo abierto
+    // @throws IOException Si los archivos no se pueden abrir o no son de un catálogo
+    public static CatalogoPuzzles abrir(Path carpeta) throws IOException {
+        Files.createDirectories(carpeta);
+        FileChannel datos = FileChannel.open(carpeta.resolve("puzzles.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel indice = null;
+        try {
+            indice = FileChannel.open(carpeta.resolve("puzzles.idx"),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            CatalogoPuzzles catalogo = new CatalogoPuzzles(datos, indice);
+            catalogo.cargar();
+            return catalogo;
+        } catch (IOException | RuntimeException e) {
+            datos.close();
+            if (indice != null) {
+                indice.close();
+            }
+            throw e;
+        }
+    }
+
+    // Agrega un puzzle al final del catálogo, salvo que ya esté.
+    //
+    // @param puzzle Puzzle con solución única
+    // @return Id del puzzle (el que ya tenía, si estaba repetido)
+    // @throws IOException Si no se puede escribir
+    public synchronized int agregar(PuzzleGenerado puzzle) throws IOException {
+        GrillaBits solucion = puzzle.obtenerGrillaSolucion();
+        int tamaño = solucion.obtenerFilas();
+        if (tamaño > TAMAÑO_MAXIMO) {
+            throw new IllegalArgumentException("Grilla demasiado grande: " + tamaño);
+        }
+        long[] palabras = empaquetar(solucion);
+        long hash = calcularHash(tamaño, palabras);
+        int existente = buscarContenido(hash, tamaño, palabras);
+        if (existente >= 0) {
+            return existente;
+        }
+        // Los puzzles generados ya traen la calificación con la que se verificaron
+        int dificultad = puzzle.obtenerCalificacion() >= 0
+                ? puzzle.obtenerCalificacion() : medirDificultad(puzzle.obtenerPistas());
+
+        ByteBuffer registro = ByteBuffer.allocate(LARGO_CABECERA_REGISTRO + palabras.length * Long.BYTES);
+        registro.putInt(tamaño).putInt(dificultad).putLong(hash).putInt(calcularCrc(palabras)).putInt(0);
+        registro.asLongBuffer().put(palabras);
+        long posicion = finDatos;
+        escribirCompleto(datos, registro, posicion);
+        finDatos = posicion + registro.capacity();
+
+        ByteBuffer entrada = ByteBuffer.allocate(LARGO_ENTRADA);
+        entrada.putLong(posicion).putLong(hash).putInt(tamaño).putInt(dificultad).flip();
+        escribirCompleto(indice, entrada, LARGO_CABECERA_ARCHIVO + (long) cantidad * LARGO_ENTRADA);
+        return registrar(posicion, hash, tamaño, dificultad);
+    }
+
+    // Lee un puzzle del catálogo.
+    //
+    // @param id Id del puzzle
+    // @return Puzzle con su solución y sus pistas
+    // @throws IOException Si el registro no se puede leer o está dañado
+    public synchronized PuzzleGenerado obtener(int id) throws IOException {
+        verificarId(id);
+        int tamaño = tamaños[id];
+        long[] palabras = leerSolucion(id);
+        GrillaBits solucion = new GrillaBits(tamaño, tamaño);
+        try {
+            solucion.cargarPlanos(palabras, new long[palabras.length], new long[palabras.length]);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Puzzle " + id + " dañado: " + e.getMessage(), e);
+        }
+        return PuzzleGenerado.desdeSolucion(solucion, hashes[id], -1);
+    }
+
+    // Busca un puzzle por contenido.
+    //
+    // @param puzzle Puzzle a buscar
+    // @return Id del puzzle, o -1 si no está
+    // @throws IOException Si no se pueden leer los candidatos
+    public synchronized int buscar(PuzzleGenerado puzzle) throws IOException {
+        GrillaBits solucion = puzzle.obtenerGrillaSolucion();
+        if (solucion.obtenerFilas() != solucion.obtenerColumnas()) {
+            return -1;
+        }
+        long[] palabras = empaquetar(solucion);
+        return buscarContenido(calcularHash(solucion.obtenerFilas(), palabras), solucion.obtenerFilas(), palabras);
+    }
+
+    // Cuenta los puzzles de un tamaño dentro de un rango de dificultad.
+    //
+    // @param tamaño Tamaño de la grilla
+    // @param dificultadMinima Dificultad mínima, incluida
+    // @param dificultadMaxima Dificultad máxima, incluida
+    // @return Cantidad de puzzles
+    public synchronized int contar(int tamaño, int dificultadMinima, int dificultadMaxima) {
+        ClavesGrilla claves = porTamaño.get(tamaño);
+        if (claves == null || dificultadMinima > dificultadMaxima) {
+            return 0;
+        }
+        claves.ordenar();
+        return claves.buscar(claveMaxima(dificultadMaxima)) - claves.buscar(claveMinima(dificultadMinima));
+    }
+
+    // Elige al azar un puzzle de un tamaño dentro de un rango de dificultad.
+    //
+    // @param tamaño Tamaño de la grilla
+    // @param dificultadMinima Dificultad mínima, incluida
+    // @param dificultadMaxima Dificultad máxima, incluida
+    // @param aleatorio Fuente de aleatoriedad
+    // @return Id del puzzle, o -1 si no hay ninguno
+    public synchronized int elegirAlAzar(int tamaño, int dificultadMinima, int dificultadMaxima,
+                                         RandomGenerator aleatorio) {
+        ClavesGrilla claves = porTamaño.get(tamaño);
+        if (claves == null || dificultadMinima > dificultadMaxima) {
+            return -1;
+        }
+        claves.ordenar();
+        int desde = claves.buscar(claveMinima(dificultadMinima));
+        int hasta = claves.buscar(claveMaxima(dificultadMaxima));
+        if (desde >= hasta) {
+            return -1;
+        }
+        return (int) claves.claves[desde + aleatorio.nextInt(hasta - desde)];
+    }
+
+    // Toma al azar un puzzle del tamaño y el rango de calificación del nivel. Si
+    // el registro no se puede leer devuelve null, y el modelo genera el puzzle
+    // como si el catálogo no lo tuviera.
+    @Override
+    public synchronized PuzzleGenerado tomar(NivelDificultad nivel) {
+        int id = elegirAlAzar(nivel.obtenerTamañoGrilla(), nivel.obtenerCalificacionMinima(),
+                nivel.obtenerCalificacionMaxima(), aleatorio);
+        if (id < 0) {
+            return null;
+        }
+        try {
+            return obtener(id);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Obtiene la cantidad de puzzles del catálogo.
+    //
+    // @return Cantidad de puzzles; los ids van de 0 a cantidad - 1
+    public synchronized int obtenerCantidad() {
+        return cantidad;
+    }
+
+    // Obtiene el tamaño de grilla de un puzzle.
+    //
+    // @param id Id del puzzle
+    // @return Tamaño de la grilla
+    public synchronized int obtenerTamaño(int id) {
+        verificarId(id);
+        return tamaños[id];
+    }
+
+    // Obtiene la dificultad medida de un puzzle.
+    //
+    // @param id Id del puzzle
+    // @return Calificación de dificultad, de 0 a 100
+    public synchronized int obtenerDificultad(int id) {
+        verificarId(id);
+        return dificultades[id];
+    }
+
+    // Fuerza los dos archivos al disco.
+    //
+    // @throws IOException Si no se pueden escribir
+    public synchronized void sincronizar() throws IOException {
+        datos.force(false);
+        indice.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sincronizar();
+        } finally {
+            try {
+                datos.close();
+            } finally {
+                indice.close();
+            }
+        }
+    }
+
+    // Mide la dificultad de un puzzle: la calificación que da el solucionador al
+    // verificar la solución única. Si no termina dentro del límite de medición
+    // se toma la calificación máxima.
+    //
+    // @param pistas Pistas del puzzle
+    // @return Calificación de 0 a 100
+    public static int medirDificultad(PistasNonograma pistas) {
+        SolucionadorNonograma solucionador = new SolucionadorNonograma(pistas.obtenerFilas(),
+                pistas.obtenerColumnas(), pistas.obtenerLargos(), pistas.obtenerInicios());
+        solucionador.establecerLimiteLineas(LIMITE_MEDICION);
+        ResultadoSolucion resultado = solucionador.verificarUnicidad(Long.MAX_VALUE);
+        if (resultado.seAgotoElPlazo()) {
+            return EstadisticasSolucion.CALIFICACION_MAXIMA;
+        }
+        return resultado.obtenerEstadisticas().calcularCalificacion();
+    }
+
+    // Lee el índice y lo completa con los registros de puzzles.dat que no tengan entrada.
+    private void cargar() throws IOException {
+        prepararCabecera(datos, MAGICO_DATOS, "puzzles.dat");
+        prepararCabecera(indice, MAGICO_INDICE, "puzzles.idx");
+        long largoDatos = datos.size();
+        finDatos = LARGO_CABECERA_ARCHIVO;
+
+        long entradas = (indice.size() - LARGO_CABECERA_ARCHIVO) / LARGO_ENTRADA;
+        ByteBuffer bloque = ByteBuffer.allocate(LARGO_ENTRADA * 4096);
+        long leidas = 0;
+        boolean valido = true;
+        while (valido && leidas < entradas) {
+            bloque.clear();
+            long posicionBloque = LARGO_CABECERA_ARCHIVO + leidas * LARGO_ENTRADA;
+            int aLeer = (int) Math.min(bloque.capacity(), (entradas - leidas) * LARGO_ENTRADA);
+            bloque.limit(aLeer);
+            leerCompleto(indice, bloque, posicionBloque);
+            bloque.flip();
+            while (bloque.remaining() >= LARGO_ENTRADA) {
+                long posicion = bloque.getLong();
+                long hash = bloque.getLong();
+                int tamaño = bloque.getInt();
+                int dificultad = bloque.getInt();
+                // Las entradas tienen que describir registros seguidos y completos
+                if (posicion != finDatos || tamaño <= 0 || tamaño > TAMAÑO_MAXIMO || dificultad < 0
+                        || posicion + calcularLargoRegistro(tamaño) > largoDatos) {
+                    valido = false;
+                    break;
+                }
+                registrar(posicion, hash, tamaño, dificultad);
+                finDatos = posicion + calcularLargoRegistro(tamaño);
+                leidas++;
+            }
+        }
+
+        // Registros escritos sin entrada en el índice (corte entre las dos escrituras)
+        ByteBuffer cabecera = ByteBuffer.allocate(LARGO_CABECERA_REGISTRO);
+        while (finDatos + LARGO_CABECERA_REGISTRO <= largoDatos) {
+            cabecera.clear();
+            leerCompleto(datos, cabecera, finDatos);
+            cabecera.flip();
+            int tamaño = cabecera.getInt();
+            int dificultad = cabecera.getInt();
+            long hash = cabecera.getLong();
+            if (tamaño <= 0 || tamaño > TAMAÑO_MAXIMO || dificultad < 0
+                    || finDatos + calcularLargoRegistro(tamaño) > largoDatos) {
+                break;
+            }
+            ByteBuffer registro = ByteBuffer.allocate(calcularLargoRegistro(tamaño));
+            leerCompleto(datos, registro, finDatos);
+            try {
+                decodificar(registro, tamaño, cantidad);
+            } catch (IOException e) {
+                break;
+            }
+            int id = registrar(finDatos, hash, tamaño, dificultad);
+            ByteBuffer entrada = ByteBuffer.allocate(LARGO_ENTRADA);
+            entrada.putLong(finDatos).putLong(hash).putInt(tamaño).putInt(dificultad).flip();
+            escribirCompleto(indice, entrada, LARGO_CABECERA_ARCHIVO + (long) id * LARGO_ENTRADA);
+            finDatos += calcularLargoRegistro(tamaño);
+        }
+        datos.truncate(finDatos);
+        indice.truncate(LARGO_CABECERA_ARCHIVO + (long) cantidad * LARGO_ENTRADA);
+    }
+
+    private static void prepararCabecera(FileChannel canal, int magico, String nombre) throws IOException {
+        ByteBuffer cabecera = ByteBuffer.allocate(LARGO_CABECERA_ARCHIVO);
+        if (canal.size() < LARGO_CABECERA_ARCHIVO) {
+            cabecera.putInt(magico).putShort(VERSION).putShort((short) 0).putLong(0).flip();
+            canal.truncate(0);
+            escribirCompleto(canal, cabecera, 0);
+            return;
+        }
+        leerCompleto(canal, cabecera, 0);
+        cabecera.flip();
+        if (cabecera.getInt() != magico) {
+            throw new IOException(nombre + " no es un archivo de catálogo");
+        }
+        if (cabecera.getShort() != VERSION) {
+            throw new IOException(nombre + " tiene una versión de formato no soportada");
+        }
+    }
+
+    // Agrega una entrada a las estructuras en memoria y devuelve su id.
+    private int registrar(long posicion, long hash, int tamaño, int dificultad) {
+        if (cantidad == posiciones.length) {
+            int capacidad = cantidad * 2;
+            posiciones = Arrays.copyOf(posiciones, capacidad);
+            hashes = Arrays.copyOf(hashes, capacidad);
+            tamaños = Arrays.copyOf(tamaños, capacidad);
+            dificultades = Arrays.copyOf(dificultades, capacidad);
+        }
+        int id = cantidad++;
+        posiciones[id] = posicion;
+        hashes[id] = hash;
+        tamaños[id] = tamaño;
+        dificultades[id] = dificultad;
+
+        if (cantidad * 2 > tablaHash.length) {
+            int[] anterior = tablaHash;
+            tablaHash = nuevaTabla(anterior.length * 2);
+            for (int otro : anterior) {
+                if (otro >= 0) {
+                    insertarEnTabla(otro);
+                }
+            }
+        }
+        insertarEnTabla(id);
+        porTamaño.computeIfAbsent(tamaño, t -> new ClavesGrilla()).agregar(((long) dificultad << 32) | id);
+        return id;
+    }
+
+    private void insertarEnTabla(int id) {
+        int mascara = tablaHash.length - 1;
+        int casilla = mezclar(hashes[id]) & mascara;
+        while (tablaHash[casilla] >= 0) {
+            casilla = (casilla + 1) & mascara;
+        }
+        tablaHash[casilla] = id;
+    }
+
+    // Busca un id con el mismo contenido; los candidatos con el mismo hash se comparan completos.
+    private int buscarContenido(long hash, int tamaño, long[] palabras) throws IOException {
+        int mascara = tablaHash.length - 1;
+        for (int casilla = mezclar(hash) & mascara; tablaHash[casilla] >= 0; casilla = (casilla + 1) & mascara) {
+            int id = tablaHash[casilla];
+            if (hashes[id] == hash && tamaños[id] == tamaño && Arrays.equals(leerSolucion(id), palabras)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private long[] leerSolucion(int id) throws IOException {
+        int tamaño = tamaños[id];
+        ByteBuffer registro = ByteBuffer.allocate(calcularLargoRegistro(tamaño));
+        leerCompleto(datos, registro, posiciones[id]);
+        return decodificar(registro, tamaño, id);
+    }
+
+    // Verifica un registro leído completo y devuelve su solución.
+    private static long[] decodificar(ByteBuffer registro, int tamaño, int id) throws IOException {
+        registro.flip();
+        if (registro.getInt(0) != tamaño) {
+            throw new IOException("El registro " + id + " no coincide con el índice");
+        }
+        int crc = registro.getInt(16);
+        long[] palabras = new long[tamaño * ((tamaño + 63) >>> 6)];
+        registro.position(LARGO_CABECERA_REGISTRO);
+        registro.asLongBuffer().get(palabras);
+        if (calcularCrc(palabras) != crc) {
+            throw new IOException("El registro " + id + " está dañado (CRC incorrecto)");
+        }
+        return palabras;
+    }
+
+    private void verificarId(int id) {
+        if (id < 0 || id >= cantidad) {
+            throw new IllegalArgumentException("Id fuera del catálogo: " + id);
+        }
+    }
+
+    private static long[] empaquetar(GrillaBits solucion) {
+        int tamaño = solucion.obtenerFilas();
+        if (solucion.obtenerColumnas() != tamaño) {
+            throw new IllegalArgumentException("La solución debe ser una grilla cuadrada");
+        }
+        int palabrasPorFila = solucion.obtenerPalabrasPorFila();
+        long[] palabras = new long[tamaño * palabrasPorFila];
+        for (int fila = 0; fila < tamaño; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                palabras[fila * palabrasPorFila + palabra] = solucion.obtenerPalabraLlenas(fila, palabra);
+            }
+        }
+        return palabras;
+    }
+
+    private static long calcularHash(int tamaño, long[] palabras) {
+        long hash = 0x9E3779B97F4A7C15L * (tamaño + 1);
+        for (long palabra : palabras) {
+            hash = Long.rotateLeft(hash ^ palabra, 29) * 0xBF58476D1CE4E5B9L;
+        }
+        hash ^= hash >>> 31;
+        return hash * 0x94D049BB133111EBL ^ (hash >>> 29);
+    }
+
+    private static int calcularCrc(long[] palabras) {
+        ByteBuffer bytes = ByteBuffer.allocate(palabras.length * Long.BYTES);
+        bytes.asLongBuffer().put(palabras);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static int mezclar(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static int[] nuevaTabla(int capacidad) {
+        int[] tabla = new int[capacidad];
+        Arrays.fill(tabla, -1);
+        return tabla;
+    }
+
+    private static long claveMinima(int dificultad) {
+        return (long) Math.max(0, dificultad) << 32;
+    }
+
+    // Primera clave después de todas las de la dificultad dada
+    private static long claveMaxima(int dificultad) {
+        return dificultad == Integer.MAX_VALUE ? Long.MAX_VALUE : (long) (dificultad + 1) << 32;
+    }
+
+    private static int calcularLargoRegistro(int tamaño) {
+        return LARGO_CABECERA_REGISTRO + tamaño * ((tamaño + 63) >>> 6) * Long.BYTES;
+    }
+
+    private static void escribirCompleto(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining()) {
+            posicion += canal.write(buffer, posicion);
+        }
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            int leidos = canal.read(buffer, posicion);
+            if (leidos < 0) {
+                throw new IOException("Fin de archivo inesperado");
+            }
+            posicion += leidos;
+        }
+    }
+}
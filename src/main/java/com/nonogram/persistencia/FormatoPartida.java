@@ -0,0 +1,263 @@
+package com.nonogram.persistencia;
+
+import com.nonogram.model.EstadoJuego;
+import com.nonogram.model.InstantaneaModelo;
+import com.nonogram.model.NivelDificultad;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32C;
+
+// Formato binario de una partida guardada.
+//
+// Un registro tiene una cabecera fija de 48 bytes seguida de cuatro planos de
+// bits con el mismo orden que GrillaBits (por fila, 64 celdas por palabra long):
+// la solución, las celdas llenas del jugador, las marcadas y las reveladas. Las
+// llenas y las marcadas juntas son los 2 bits por celda de la grilla del
+// jugador (vacía, llena o marcada).
+//
+// Cabecera (big-endian):
+//   0  int   número mágico "NONG"
+//   4  short versión del formato
+//   6  short reservado
+//   8  long  secuencia (el autoguardado usa la más alta de sus dos copias)
+//  16  int   CRC32C de los bytes desde el 24 hasta el final del registro
+//  20  int   largo total del registro en bytes
+//  24  int   filas de la grilla
+//  28  byte  nivel (ordinal de NivelDificultad, -1 si la grilla no es de un nivel)
+//  29  byte  estado del juego (ordinal de EstadoJuego)
+//  30  short reservado
+//  32  int   pistas disponibles
+//  36  int   columnas de la grilla
+//  40  long  semilla del puzzle
+//
+// La versión 1 sólo guardaba grillas cuadradas y dejaba el 36 en cero; se sigue
+// pudiendo leer y sus grillas tienen tantas columnas como filas.
+public final class FormatoPartida {
+
+    public static final int NUMERO_MAGICO = 0x4E4F4E47; // "NONG"
+    public static final short VERSION = 2;
+    private static final short VERSION_CUADRADA = 1;
+    public static final int LARGO_CABECERA = 48;
+
+    private static final int POSICION_SECUENCIA = 8;
+    private static final int POSICION_CRC = 16;
+    private static final int POSICION_LARGO = 20;
+    private static final int INICIO_CONTROLADO = 24;
+    private static final int POSICION_FILAS = 24;
+    private static final int POSICION_COLUMNAS = 36;
+    private static final int CANTIDAD_PLANOS = 4;
+    private static final int TAMAÑO_MAXIMO = 32_768; // Mantiene el largo del registro dentro de un int
+
+    private FormatoPartida() {
+    }
+
+    // Calcula el largo de un registro para una grilla.
+    //
+    // @param filas Cantidad de filas
+    // @param columnas Cantidad de columnas
+    // @return Largo del registro en bytes
+    public static int calcularLargo(int filas, int columnas) {
+        if (filas <= 0 || columnas <= 0) {
+            throw new IllegalArgumentException("Tamaño de grilla inválido: " + filas + "x" + columnas);
+        }
+        long palabrasPorPlano = (long) filas * ((columnas + 63) >>> 6);
+        long largo = LARGO_CABECERA + CANTIDAD_PLANOS * palabrasPorPlano * Long.BYTES;
+        if (largo > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Grilla demasiado grande: " + filas + "x" + columnas);
+        }
+        return (int) largo;
+    }
+
+    // Escribe una partida en la posición actual del buffer y avanza la posición
+    // hasta el final del registro.
+    //
+    // @param destino Buffer con lugar para el registro
+    // @param partida Instantánea a guardar
+    // @param secuencia Número de secuencia del registro
+    public static void escribir(ByteBuffer destino, InstantaneaModelo partida, long secuencia) {
+        int filas = partida.obtenerFilas();
+        int largo = calcularLargo(filas, partida.obtenerColumnas());
+        ByteBuffer registro = destino.slice(destino.position(), largo).order(ByteOrder.BIG_ENDIAN);
+
+        escribirCabecera(registro, partida, secuencia, largo);
+        int palabrasPorFila = partida.obtenerPalabrasPorFila();
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                registro.putLong(partida.obtenerPalabraSolucion(fila, palabra));
+            }
+        }
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                registro.putLong(partida.obtenerPalabraLlenas(fila, palabra));
+            }
+        }
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                registro.putLong(partida.obtenerPalabraMarcadas(fila, palabra));
+            }
+        }
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                registro.putLong(partida.obtenerPalabraReveladas(fila, palabra));
+            }
+        }
+
+        registro.putInt(POSICION_CRC, calcularCrc(registro, largo));
+        destino.position(destino.position() + largo);
+    }
+
+    // Reescribe, en la posición actual del buffer, un registro que ya tiene
+    // otra partida del mismo tamaño: la cabecera, las filas que pueden haber
+    // cambiado y el CRC, que se vuelve a calcular leyendo el registro entero.
+    // Con instantáneas sucesivas del modelo las filas sin cambios se reconocen
+    // sin compararlas (ver InstantaneaModelo.puedeDiferirFila), así que una
+    // jugada modifica unas pocas páginas y no el registro completo. Si el
+    // tamaño no coincide o no hay partida anterior, escribe todo.
+    // Avanza la posición hasta el final del registro.
+    //
+    // @param destino Buffer con el registro de la partida anterior
+    // @param partida Instantánea a guardar
+    // @param anterior Partida que tiene escrita el registro, o null si no se sabe
+    // @param secuencia Número de secuencia del registro
+    public static void actualizar(ByteBuffer destino, InstantaneaModelo partida, InstantaneaModelo anterior,
+                                  long secuencia) {
+        int filas = partida.obtenerFilas();
+        if (anterior == null || anterior.obtenerFilas() != filas
+                || anterior.obtenerColumnas() != partida.obtenerColumnas()) {
+            escribir(destino, partida, secuencia);
+            return;
+        }
+        int largo = calcularLargo(filas, partida.obtenerColumnas());
+        ByteBuffer registro = destino.slice(destino.position(), largo).order(ByteOrder.BIG_ENDIAN);
+
+        escribirCabecera(registro, partida, secuencia, largo);
+        int palabrasPorFila = partida.obtenerPalabrasPorFila();
+        int bytesPorPlano = filas * palabrasPorFila * Long.BYTES;
+        boolean mismaSolucion = partida.compartenSolucion(anterior);
+        for (int fila = 0; fila < filas; fila++) {
+            boolean cambioFila = partida.puedeDiferirFila(anterior, fila);
+            if (mismaSolucion && !cambioFila) {
+                continue;
+            }
+            int posicion = LARGO_CABECERA + fila * palabrasPorFila * Long.BYTES;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++, posicion += Long.BYTES) {
+                if (!mismaSolucion) {
+                    registro.putLong(posicion, partida.obtenerPalabraSolucion(fila, palabra));
+                }
+                if (cambioFila) {
+                    registro.putLong(posicion + bytesPorPlano, partida.obtenerPalabraLlenas(fila, palabra));
+                    registro.putLong(posicion + 2 * bytesPorPlano, partida.obtenerPalabraMarcadas(fila, palabra));
+                    registro.putLong(posicion + 3 * bytesPorPlano, partida.obtenerPalabraReveladas(fila, palabra));
+                }
+            }
+        }
+
+        registro.putInt(POSICION_CRC, calcularCrc(registro, largo));
+        destino.position(destino.position() + largo);
+    }
+
+    // Escribe la cabecera con el CRC en cero y deja la posición al final de ella
+    private static void escribirCabecera(ByteBuffer registro, InstantaneaModelo partida, long secuencia, int largo) {
+        registro.position(0);
+        registro.putInt(NUMERO_MAGICO);
+        registro.putShort(VERSION);
+        registro.putShort((short) 0);
+        registro.putLong(secuencia);
+        registro.putInt(0); // CRC, se completa al final
+        registro.putInt(largo);
+        registro.putInt(partida.obtenerFilas());
+        registro.put((byte) (partida.obtenerNivel() != null ? partida.obtenerNivel().ordinal() : -1));
+        registro.put((byte) partida.obtenerEstadoJuego().ordinal());
+        registro.putShort((short) 0);
+        registro.putInt(partida.obtenerPistasDisponibles());
+        registro.putInt(partida.obtenerColumnas());
+        registro.putLong(partida.obtenerSemilla());
+    }
+
+    // Lee y valida un registro desde la posición actual del buffer.
+    //
+    // @param origen Buffer con el registro
+    // @return Partida guardada
+    // @throws IOException Si el registro está incompleto, dañado o es de otra versión
+    public static InstantaneaModelo leer(ByteBuffer origen) throws IOException {
+        ByteBuffer registro = validar(origen);
+        int filas = registro.getInt(POSICION_FILAS);
+        int columnas = leerColumnas(registro);
+        int nivel = registro.get(28);
+        int estado = registro.get(29);
+        int pistasDisponibles = registro.getInt(32);
+        long semilla = registro.getLong(40);
+        if (nivel < -1 || nivel >= NivelDificultad.values().length
+                || estado < 0 || estado >= EstadoJuego.values().length) {
+            throw new IOException("Nivel o estado de juego desconocido");
+        }
+
+        int palabrasPorPlano = filas * ((columnas + 63) >>> 6);
+        registro.position(LARGO_CABECERA);
+        long[] solucion = new long[palabrasPorPlano];
+        long[] llenas = new long[palabrasPorPlano];
+        long[] marcadas = new long[palabrasPorPlano];
+        long[] reveladas = new long[palabrasPorPlano];
+        registro.asLongBuffer().get(0, solucion)
+                .get(palabrasPorPlano, llenas)
+                .get(2 * palabrasPorPlano, marcadas)
+                .get(3 * palabrasPorPlano, reveladas);
+        try {
+            return InstantaneaModelo.desdePlanos(filas, columnas, nivel >= 0 ? NivelDificultad.values()[nivel] : null, semilla,
+                    pistasDisponibles, EstadoJuego.values()[estado], solucion, llenas, marcadas, reveladas);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Partida inválida: " + e.getMessage(), e);
+        }
+    }
+
+    // Obtiene la secuencia de un registro válido, sin decodificar las grillas.
+    //
+    // @param origen Buffer con el registro en su posición actual
+    // @return Secuencia del registro
+    // @throws IOException Si el registro no es válido
+    public static long leerSecuencia(ByteBuffer origen) throws IOException {
+        return validar(origen).getLong(POSICION_SECUENCIA);
+    }
+
+    // Comprueba la cabecera y el CRC, y devuelve el registro como un buffer propio.
+    private static ByteBuffer validar(ByteBuffer origen) throws IOException {
+        int disponible = origen.remaining();
+        if (disponible < LARGO_CABECERA) {
+            throw new IOException("Registro incompleto");
+        }
+        ByteBuffer registro = origen.slice().order(ByteOrder.BIG_ENDIAN);
+        if (registro.getInt(0) != NUMERO_MAGICO) {
+            throw new IOException("No es una partida guardada");
+        }
+        short version = registro.getShort(4);
+        if (version != VERSION && version != VERSION_CUADRADA) {
+            throw new IOException("Versión de formato no soportada: " + version);
+        }
+        int filas = registro.getInt(POSICION_FILAS);
+        int columnas = leerColumnas(registro);
+        int largo = registro.getInt(POSICION_LARGO);
+        if (filas <= 0 || filas > TAMAÑO_MAXIMO || columnas <= 0 || columnas > TAMAÑO_MAXIMO
+                || largo != calcularLargo(filas, columnas) || largo > disponible) {
+            throw new IOException("Largo de registro inválido");
+        }
+        registro.limit(largo);
+        if (registro.getInt(POSICION_CRC) != calcularCrc(registro, largo)) {
+            throw new IOException("El registro está dañado (CRC incorrecto)");
+        }
+        return registro;
+    }
+
+    // Las grillas de la versión 1 son cuadradas y no guardan las columnas.
+    private static int leerColumnas(ByteBuffer registro) {
+        return registro.getShort(4) == VERSION_CUADRADA ? registro.getInt(POSICION_FILAS)
+                : registro.getInt(POSICION_COLUMNAS);
+    }
+
+    private static int calcularCrc(ByteBuffer registro, int largo) {
+        CRC32C crc = new CRC32C();
+        crc.update(registro.slice(INICIO_CONTROLADO, largo - INICIO_CONTROLADO));
+        return (int) crc.getValue();
+    }
+}
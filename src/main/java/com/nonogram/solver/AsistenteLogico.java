@@ -0,0 +1,254 @@
+package com.nonogram.solver;
+
+import java.util.Arrays;
+
+// Busca la próxima celda que el jugador puede deducir con lógica de líneas.
+//
+// Parte de lo que el jugador ya sabe (celdas conocidas llenas y vacías) y
+// resuelve líneas: primero con la superposición, que es la deducción más
+// barata, hasta que se estanca, y recién entonces con la deducción exacta.
+// Las celdas deducidas que el jugador ya tiene bien se agregan a lo conocido
+// y se sigue; la primera celda que el jugador tiene mal es la pista, junto con
+// la línea que la obliga.
+//
+// Cada línea guarda el último estado conocido con el que se resolvió y el
+// resultado, para cada tipo de deducción. Entre dos pedidos el jugador suele
+// cambiar pocas celdas, así que casi todas las líneas salen de la caché sin
+// volver a resolverse. Una instancia no debe compartirse entre hilos.
+public class AsistenteLogico {
+
+    private static final int SUPERPOSICION = 0;
+    private static final int EXACTA = 1;
+
+    private final int filas;
+    private final int columnas;
+    private final int palabrasPorFila;
+    private final int palabrasPorColumna;
+    private final int palabrasPorLinea; // Espacio reservado por línea en las cachés
+
+    // Pistas aplanadas: primero las filas, después las columnas
+    private final int[] bloques;
+    private final int[] inicioLinea;
+    private final int[] cantidadLinea;
+
+    // Estado: [filas llenas | filas vacías | columnas llenas | columnas vacías]
+    private final long[] estado;
+    private final int inicioFilasVacias;
+    private final int inicioColumnasLlenas;
+    private final int inicioColumnasVacias;
+    private long[] llenasJugador;
+    private int deducciones;
+
+    // Caché por tipo de deducción y por línea: entrada conocida y resultado
+    private final long[][] cacheEntradaLlenas = new long[2][];
+    private final long[][] cacheEntradaVacias = new long[2][];
+    private final long[][] cacheResultadoLlenas = new long[2][];
+    private final long[][] cacheResultadoVacias = new long[2][];
+    private final boolean[][] cacheValida = new boolean[2][];
+    private final boolean[][] cacheConsistente = new boolean[2][];
+    private long consultasCache;
+    private long aciertosCache;
+
+    private final SolucionadorLinea solucionadorLinea;
+
+    // Constructor del asistente.
+    // Una línea sin bloques puede venir como arreglo vacío o como {0}.
+    //
+    // @param pistasFilas Largos de los bloques de cada fila
+    // @param pistasColumnas Largos de los bloques de cada columna
+    public AsistenteLogico(int[][] pistasFilas, int[][] pistasColumnas) {
+        this(PistasPlanas.desdeMatrices(pistasFilas, pistasColumnas));
+    }
+
+    // Constructor a partir de pistas ya aplanadas, con el mismo formato que
+    // SolucionadorNonograma. Los arreglos no se copian ni se modifican.
+    //
+    // @param filas Cantidad de filas
+    // @param columnas Cantidad de columnas
+    // @param bloques Largos de los bloques de todas las líneas
+    // @param inicios Posición del primer bloque de cada línea, con filas + columnas + 1 posiciones
+    public AsistenteLogico(int filas, int columnas, int[] bloques, int[] inicios) {
+        this(new PistasPlanas(filas, columnas, bloques, inicios));
+    }
+
+    private AsistenteLogico(PistasPlanas pistas) {
+        this.filas = pistas.filas;
+        this.columnas = pistas.columnas;
+        this.palabrasPorFila = (columnas + 63) >>> 6;
+        this.palabrasPorColumna = (filas + 63) >>> 6;
+        this.palabrasPorLinea = Math.max(palabrasPorFila, palabrasPorColumna);
+
+        int lineas = filas + columnas;
+        this.bloques = pistas.bloques;
+        this.inicioLinea = pistas.inicioLinea;
+        this.cantidadLinea = pistas.cantidadLinea;
+
+        this.inicioFilasVacias = filas * palabrasPorFila;
+        this.inicioColumnasLlenas = 2 * filas * palabrasPorFila;
+        this.inicioColumnasVacias = inicioColumnasLlenas + columnas * palabrasPorColumna;
+        this.estado = new long[inicioColumnasVacias + columnas * palabrasPorColumna];
+        for (int modo = SUPERPOSICION; modo <= EXACTA; modo++) {
+            cacheEntradaLlenas[modo] = new long[lineas * palabrasPorLinea];
+            cacheEntradaVacias[modo] = new long[lineas * palabrasPorLinea];
+            cacheResultadoLlenas[modo] = new long[lineas * palabrasPorLinea];
+            cacheResultadoVacias[modo] = new long[lineas * palabrasPorLinea];
+            cacheValida[modo] = new boolean[lineas];
+            cacheConsistente[modo] = new boolean[lineas];
+        }
+        this.solucionadorLinea = new SolucionadorLinea(Math.max(filas, columnas));
+    }
+
+    // Busca la celda más barata de deducir que el jugador todavía tiene mal.
+    // Las máscaras van por fila, con palabrasPorFila palabras long por fila.
+    //
+    // @param conocidasLlenas Celdas que el jugador sabe llenas
+    // @param conocidasVacias Celdas que el jugador sabe vacías
+    // @param llenasJugador Celdas que el jugador tiene llenas (bien o mal)
+    // @return La pista, o null si con lógica de líneas no se deduce ninguna celda útil
+    public PistaLogica buscarPista(long[] conocidasLlenas, long[] conocidasVacias, long[] llenasJugador) {
+        int palabras = filas * palabrasPorFila;
+        if (conocidasLlenas.length < palabras || conocidasVacias.length < palabras || llenasJugador.length < palabras) {
+            throw new IllegalArgumentException("Máscaras de tamaño inválido");
+        }
+        cargarEstado(conocidasLlenas, conocidasVacias);
+        this.llenasJugador = llenasJugador;
+        this.deducciones = 0;
+        while (true) {
+            // Superposición hasta el punto fijo
+            int antes;
+            do {
+                antes = deducciones;
+                for (int linea = 0; linea < filas + columnas; linea++) {
+                    PistaLogica pista = resolverLinea(linea, SUPERPOSICION);
+                    if (pista != null) {
+                        return pista;
+                    }
+                }
+            } while (deducciones != antes);
+            // Deducción exacta; si aparece algo se vuelve a la superposición
+            for (int linea = 0; linea < filas + columnas; linea++) {
+                PistaLogica pista = resolverLinea(linea, EXACTA);
+                if (pista != null) {
+                    return pista;
+                }
+            }
+            if (deducciones == antes) {
+                return null;
+            }
+        }
+    }
+
+    // Obtiene la proporción de líneas respondidas desde la caché.
+    //
+    // @return Aciertos sobre consultas, entre 0 y 1
+    public double obtenerTasaAciertosCache() {
+        return consultasCache == 0 ? 0 : (double) aciertosCache / consultasCache;
+    }
+
+    private void cargarEstado(long[] conocidasLlenas, long[] conocidasVacias) {
+        Arrays.fill(estado, 0L);
+        int palabras = filas * palabrasPorFila;
+        System.arraycopy(conocidasLlenas, 0, estado, 0, palabras);
+        System.arraycopy(conocidasVacias, 0, estado, inicioFilasVacias, palabras);
+        // Trasponer a las máscaras por columna
+        for (int fila = 0; fila < filas; fila++) {
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long llenas = conocidasLlenas[fila * palabrasPorFila + palabra];
+                long vacias = conocidasVacias[fila * palabrasPorFila + palabra];
+                while (llenas != 0L) {
+                    int columna = (palabra << 6) + Long.numberOfTrailingZeros(llenas);
+                    llenas &= llenas - 1;
+                    estado[inicioColumnasLlenas + columna * palabrasPorColumna + (fila >>> 6)] |= 1L << fila;
+                }
+                while (vacias != 0L) {
+                    int columna = (palabra << 6) + Long.numberOfTrailingZeros(vacias);
+                    vacias &= vacias - 1;
+                    estado[inicioColumnasVacias + columna * palabrasPorColumna + (fila >>> 6)] |= 1L << fila;
+                }
+            }
+        }
+    }
+
+    // Resuelve una línea (o la toma de la caché) y aplica las celdas nuevas.
+    //
+    // @return La pista si alguna celda nueva es útil para el jugador, o null
+    private PistaLogica resolverLinea(int linea, int modo) {
+        boolean esFila = linea < filas;
+        int indice = esFila ? linea : linea - filas;
+        int longitud = esFila ? columnas : filas;
+        int palabras = esFila ? palabrasPorFila : palabrasPorColumna;
+        int inicioLlenas = esFila ? indice * palabrasPorFila : inicioColumnasLlenas + indice * palabrasPorColumna;
+        int inicioVacias = esFila ? inicioFilasVacias + indice * palabrasPorFila : inicioColumnasVacias + indice * palabrasPorColumna;
+        int inicioCache = linea * palabrasPorLinea;
+
+        long[] entradaLlenas = cacheEntradaLlenas[modo];
+        long[] entradaVacias = cacheEntradaVacias[modo];
+        long[] resultadoLlenas = cacheResultadoLlenas[modo];
+        long[] resultadoVacias = cacheResultadoVacias[modo];
+        consultasCache++;
+        if (cacheValida[modo][linea]
+                && Arrays.equals(entradaLlenas, inicioCache, inicioCache + palabras, estado, inicioLlenas, inicioLlenas + palabras)
+                && Arrays.equals(entradaVacias, inicioCache, inicioCache + palabras, estado, inicioVacias, inicioVacias + palabras)) {
+            aciertosCache++;
+        } else {
+            boolean consistente = modo == EXACTA
+                    ? solucionadorLinea.resolverCompleto(bloques, inicioLinea[linea], cantidadLinea[linea], longitud,
+                            estado, inicioLlenas, estado, inicioVacias)
+                    : solucionadorLinea.resolver(bloques, inicioLinea[linea], cantidadLinea[linea], longitud,
+                            estado, inicioLlenas, estado, inicioVacias);
+            System.arraycopy(estado, inicioLlenas, entradaLlenas, inicioCache, palabras);
+            System.arraycopy(estado, inicioVacias, entradaVacias, inicioCache, palabras);
+            System.arraycopy(solucionadorLinea.obtenerLlenas(), 0, resultadoLlenas, inicioCache, palabras);
+            System.arraycopy(solucionadorLinea.obtenerVacias(), 0, resultadoVacias, inicioCache, palabras);
+            cacheValida[modo][linea] = true;
+            cacheConsistente[modo][linea] = consistente;
+        }
+        if (!cacheConsistente[modo][linea]) {
+            return null; // Lo conocido contradice las pistas; esta línea no aporta
+        }
+
+        for (int palabra = 0; palabra < palabras; palabra++) {
+            long nuevasLlenas = resultadoLlenas[inicioCache + palabra] & ~estado[inicioLlenas + palabra];
+            long nuevasVacias = resultadoVacias[inicioCache + palabra] & ~estado[inicioVacias + palabra];
+            while (nuevasLlenas != 0L) {
+                int posicion = (palabra << 6) + Long.numberOfTrailingZeros(nuevasLlenas);
+                nuevasLlenas &= nuevasLlenas - 1;
+                PistaLogica pista = aplicarDeduccion(esFila, indice, posicion, true, modo);
+                if (pista != null) {
+                    return pista;
+                }
+            }
+            while (nuevasVacias != 0L) {
+                int posicion = (palabra << 6) + Long.numberOfTrailingZeros(nuevasVacias);
+                nuevasVacias &= nuevasVacias - 1;
+                PistaLogica pista = aplicarDeduccion(esFila, indice, posicion, false, modo);
+                if (pista != null) {
+                    return pista;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Si el jugador tiene mal la celda deducida la devuelve como pista;
+    // si la tiene bien la agrega a lo conocido.
+    private PistaLogica aplicarDeduccion(boolean esFila, int indice, int posicion, boolean llena, int modo) {
+        int fila = esFila ? indice : posicion;
+        int columna = esFila ? posicion : indice;
+        boolean jugadorLlena = (llenasJugador[fila * palabrasPorFila + (columna >>> 6)] & (1L << columna)) != 0;
+        if (jugadorLlena != llena) {
+            return new PistaLogica(fila, columna, llena, esFila, modo == EXACTA, deducciones);
+        }
+        int indiceFila = fila * palabrasPorFila + (columna >>> 6);
+        int indiceColumna = columna * palabrasPorColumna + (fila >>> 6);
+        if (llena) {
+            estado[indiceFila] |= 1L << columna;
+            estado[inicioColumnasLlenas + indiceColumna] |= 1L << fila;
+        } else {
+            estado[inicioFilasVacias + indiceFila] |= 1L << columna;
+            estado[inicioColumnasVacias + indiceColumna] |= 1L << fila;
+        }
+        deducciones++;
+        return null;
+    }
+}
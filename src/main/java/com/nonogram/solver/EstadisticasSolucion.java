@@ -0,0 +1,130 @@
+package com.nonogram.solver;
+
+// Trabajo que hizo el solucionador en una búsqueda, y la calificación de
+// dificultad que se deriva de él.
+//
+// Las técnicas se ordenan como las usaría una persona: primero la
+// superposición de cada línea, después la deducción exacta de una línea
+// (todas sus ubicaciones posibles), después el sondeo (suponer una celda y
+// ver si lleva a una contradicción) y por último adivinar y volver atrás.
+// La calificación va de 0 a 100 y cada técnica ocupa una franja de 25 puntos:
+//
+//   0-24   sólo superposición; sube con las rondas de propagación
+//   25-49  hizo falta la deducción exacta; sube con las líneas que la necesitaron
+//   50-74  hizo falta sondear; sube con las celdas fijadas por sondeo
+//   75-100 hizo falta ramificar; sube con la profundidad y las ramificaciones
+//
+// Dentro de cada franja los valores se normalizan por la cantidad de líneas
+// del tablero, así que la calificación no depende sólo del tamaño: un 10x10
+// puede ser más difícil que un 20x20.
+public class EstadisticasSolucion {
+
+    // Calificación máxima
+    public static final int CALIFICACION_MAXIMA = 100;
+
+    private static final int ANCHO_FRANJA = 25;
+
+    private final int lineasTablero;
+    private final int rondasPropagacion;
+    private final long lineasVisitadas;
+    private final int deduccionesExactas;
+    private final int deduccionesSondeo;
+    private final int ramificaciones;
+    private final int profundidadMaxima;
+
+    EstadisticasSolucion(int lineasTablero, int rondasPropagacion, long lineasVisitadas, int deduccionesExactas,
+                         int deduccionesSondeo, int ramificaciones, int profundidadMaxima) {
+        this.lineasTablero = lineasTablero;
+        this.rondasPropagacion = rondasPropagacion;
+        this.lineasVisitadas = lineasVisitadas;
+        this.deduccionesExactas = deduccionesExactas;
+        this.deduccionesSondeo = deduccionesSondeo;
+        this.ramificaciones = ramificaciones;
+        this.profundidadMaxima = profundidadMaxima;
+    }
+
+    // Obtiene las rondas de propagación fuera del sondeo. Una ronda resuelve
+    // todas las líneas que estaban pendientes al empezarla, como una pasada
+    // de una persona por filas y columnas.
+    //
+    // @return Rondas de propagación
+    public int obtenerRondasPropagacion() {
+        return rondasPropagacion;
+    }
+
+    // Obtiene las líneas resueltas en total, incluidas las del sondeo y las ramas.
+    //
+    // @return Líneas visitadas
+    public long obtenerLineasVisitadas() {
+        return lineasVisitadas;
+    }
+
+    // Obtiene las veces que la deducción exacta de una línea fijó celdas que
+    // la superposición no había fijado.
+    //
+    // @return Líneas resueltas con deducción exacta que fijaron celdas
+    public int obtenerDeduccionesExactas() {
+        return deduccionesExactas;
+    }
+
+    // Obtiene las veces que el sondeo fijó celdas.
+    //
+    // @return Sondeos con deducciones
+    public int obtenerDeduccionesSondeo() {
+        return deduccionesSondeo;
+    }
+
+    // Obtiene la cantidad de celdas sobre las que se ramificó.
+    //
+    // @return Ramificaciones
+    public int obtenerRamificaciones() {
+        return ramificaciones;
+    }
+
+    // Obtiene la mayor cantidad de suposiciones anidadas.
+    //
+    // @return Profundidad máxima de la búsqueda (0 si no se ramificó)
+    public int obtenerProfundidadMaxima() {
+        return profundidadMaxima;
+    }
+
+    // Indica si hubo que adivinar y volver atrás.
+    //
+    // @return true si se ramificó al menos una vez
+    public boolean necesitoRamificar() {
+        return ramificaciones > 0;
+    }
+
+    // Calcula la calificación de dificultad.
+    //
+    // @return Calificación de 0 a CALIFICACION_MAXIMA
+    public int calcularCalificacion() {
+        int lineas = Math.max(1, lineasTablero);
+        if (ramificaciones > 0) {
+            // Cada nivel de profundidad suma 4 y las ramificaciones suman de a poco
+            int extra = 4 * profundidadMaxima + 31 - Integer.numberOfLeadingZeros(ramificaciones);
+            return 3 * ANCHO_FRANJA + Math.min(ANCHO_FRANJA, extra);
+        }
+        if (deduccionesSondeo > 0) {
+            // Sondeos con deducción cada 10 líneas del tablero
+            return 2 * ANCHO_FRANJA + franja(deduccionesSondeo * 40L / lineas);
+        }
+        if (deduccionesExactas > 0) {
+            // Líneas con deducción exacta cada 4 líneas del tablero
+            return ANCHO_FRANJA + franja(deduccionesExactas * 12L / lineas);
+        }
+        return franja(2L * rondasPropagacion);
+    }
+
+    private static int franja(long valor) {
+        return (int) Math.min(ANCHO_FRANJA - 1, valor);
+    }
+
+    @Override
+    public String toString() {
+        return "calificación " + calcularCalificacion() + " (" + rondasPropagacion + " rondas, "
+                + lineasVisitadas + " líneas, " + deduccionesExactas + " exactas, "
+                + deduccionesSondeo + " sondeos, " + ramificaciones + " ramificaciones, profundidad "
+                + profundidadMaxima + ")";
+    }
+}
@@ -0,0 +1,81 @@
+package com.nonogram.solver;
+
+// Celda que se puede deducir con lógica de líneas, junto con la línea que la justifica.
+public class PistaLogica {
+
+    private final int fila;
+    private final int columna;
+    private final boolean llena;
+    private final boolean justificadaPorFila;
+    private final boolean exacta;
+    private final int deduccionesPrevias;
+
+    PistaLogica(int fila, int columna, boolean llena, boolean justificadaPorFila,
+                boolean exacta, int deduccionesPrevias) {
+        this.fila = fila;
+        this.columna = columna;
+        this.llena = llena;
+        this.justificadaPorFila = justificadaPorFila;
+        this.exacta = exacta;
+        this.deduccionesPrevias = deduccionesPrevias;
+    }
+
+    // Obtiene la fila de la celda deducida.
+    //
+    // @return Fila de la celda
+    public int obtenerFila() {
+        return fila;
+    }
+
+    // Obtiene la columna de la celda deducida.
+    //
+    // @return Columna de la celda
+    public int obtenerColumna() {
+        return columna;
+    }
+
+    // Indica el valor deducido de la celda.
+    //
+    // @return true si la celda tiene que estar llena, false si tiene que estar vacía
+    public boolean esLlena() {
+        return llena;
+    }
+
+    // Indica si la línea que justifica la deducción es la fila (o la columna) de la celda.
+    //
+    // @return true si la justifica la fila
+    public boolean esJustificadaPorFila() {
+        return justificadaPorFila;
+    }
+
+    // Obtiene el índice de la línea que justifica la deducción.
+    //
+    // @return Índice de la fila o de la columna
+    public int obtenerIndiceLinea() {
+        return justificadaPorFila ? fila : columna;
+    }
+
+    // Indica si hizo falta la deducción exacta (todas las ubicaciones de los
+    // bloques) en lugar de la superposición izquierda/derecha.
+    //
+    // @return true si se usó la deducción exacta
+    public boolean requiereDeduccionExacta() {
+        return exacta;
+    }
+
+    // Obtiene cuántas celdas ya conocidas por el jugador hubo que deducir antes de llegar a ésta.
+    //
+    // @return Cantidad de deducciones previas
+    public int obtenerDeduccionesPrevias() {
+        return deduccionesPrevias;
+    }
+
+    // Describe la pista para mostrarla al jugador (filas y columnas desde 1).
+    //
+    // @return Texto con la celda, su valor y la línea que lo justifica
+    public String obtenerDescripcion() {
+        return String.format("Por las pistas de la %s %d, la celda (%d, %d) tiene que estar %s",
+                justificadaPorFila ? "fila" : "columna", obtenerIndiceLinea() + 1,
+                fila + 1, columna + 1, llena ? "llena" : "vacía");
+    }
+}
@@ -0,0 +1,90 @@
+package com.nonogram.solver;
+
+// Pistas aplanadas tal como las usan los solucionadores: los largos de todos
+// los bloques seguidos en un int[] (primero las filas, después las columnas)
+// y, por línea, la posición de su primer bloque.
+final class PistasPlanas {
+
+    final int filas;
+    final int columnas;
+    final int[] bloques;
+    final int[] inicioLinea;   // filas + columnas + 1 posiciones
+    final int[] cantidadLinea;
+    final long sumaFilas;      // Celdas llenas según las filas
+    final long sumaColumnas;   // Celdas llenas según las columnas
+
+    // @param filas Cantidad de filas
+    // @param columnas Cantidad de columnas
+    // @param bloques Largos de los bloques, todos positivos
+    // @param inicioLinea Posición del primer bloque de cada línea y, al final, bloques.length
+    PistasPlanas(int filas, int columnas, int[] bloques, int[] inicioLinea) {
+        if (filas <= 0 || columnas <= 0 || bloques == null || inicioLinea == null
+                || inicioLinea.length != filas + columnas + 1
+                || inicioLinea[0] != 0 || inicioLinea[filas + columnas] > bloques.length) {
+            throw new IllegalArgumentException("Pistas inválidas");
+        }
+        this.filas = filas;
+        this.columnas = columnas;
+        this.bloques = bloques;
+        this.inicioLinea = inicioLinea;
+        this.cantidadLinea = new int[filas + columnas];
+        long llenasPorFilas = 0;
+        long llenasPorColumnas = 0;
+        for (int linea = 0; linea < filas + columnas; linea++) {
+            cantidadLinea[linea] = inicioLinea[linea + 1] - inicioLinea[linea];
+            if (cantidadLinea[linea] < 0) {
+                throw new IllegalArgumentException("Pistas inválidas");
+            }
+            for (int posicion = inicioLinea[linea]; posicion < inicioLinea[linea + 1]; posicion++) {
+                if (bloques[posicion] <= 0) {
+                    throw new IllegalArgumentException("Largo de bloque inválido");
+                }
+                if (linea < filas) {
+                    llenasPorFilas += bloques[posicion];
+                } else {
+                    llenasPorColumnas += bloques[posicion];
+                }
+            }
+        }
+        this.sumaFilas = llenasPorFilas;
+        this.sumaColumnas = llenasPorColumnas;
+    }
+
+    // Aplana pistas dadas como una matriz por línea.
+    // Una línea sin bloques puede venir como arreglo vacío o como {0}.
+    //
+    // @param pistasFilas Largos de los bloques de cada fila
+    // @param pistasColumnas Largos de los bloques de cada columna
+    // @return Pistas aplanadas
+    static PistasPlanas desdeMatrices(int[][] pistasFilas, int[][] pistasColumnas) {
+        if (pistasFilas == null || pistasColumnas == null || pistasFilas.length == 0 || pistasColumnas.length == 0) {
+            throw new IllegalArgumentException("Pistas inválidas");
+        }
+        int filas = pistasFilas.length;
+        int lineas = filas + pistasColumnas.length;
+        int totalBloques = 0;
+        for (int linea = 0; linea < lineas; linea++) {
+            for (int largo : linea < filas ? pistasFilas[linea] : pistasColumnas[linea - filas]) {
+                if (largo < 0) {
+                    throw new IllegalArgumentException("Largo de bloque negativo");
+                }
+                if (largo > 0) {
+                    totalBloques++;
+                }
+            }
+        }
+        int[] bloques = new int[totalBloques];
+        int[] inicioLinea = new int[lineas + 1];
+        int posicion = 0;
+        for (int linea = 0; linea < lineas; linea++) {
+            inicioLinea[linea] = posicion;
+            for (int largo : linea < filas ? pistasFilas[linea] : pistasColumnas[linea - filas]) {
+                if (largo > 0) {
+                    bloques[posicion++] = largo;
+                }
+            }
+        }
+        inicioLinea[lineas] = posicion;
+        return new PistasPlanas(filas, pistasColumnas.length, bloques, inicioLinea);
+    }
+}
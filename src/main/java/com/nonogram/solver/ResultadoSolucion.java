@@ -0,0 +1,119 @@
+package com.nonogram.solver;
+
+// Resultado de resolver un Nonograma a partir de sus pistas.
+//
+// Guarda la primera solución encontrada (y la segunda, si se buscó más de una)
+// y las celdas deducidas antes de la primera suposición, como máscaras de bits
+// por fila, 64 celdas por palabra long.
+public class ResultadoSolucion {
+
+    private final int filas;
+    private final int columnas;
+    private final int palabrasPorFila;
+    private final long[] llenas;      // null si no hay solución
+    private final long[] otraSolucion; // null si no se encontró una segunda solución
+    private final long[] deducidas;   // null si las pistas son contradictorias
+    private final int cantidadSoluciones;
+    private final boolean unica;
+    private final boolean plazoAgotado;
+    private final EstadisticasSolucion estadisticas;
+
+    ResultadoSolucion(int filas, int columnas, long[] llenas, long[] otraSolucion,
+                      int cantidadSoluciones, boolean unica, boolean plazoAgotado, long[] deducidas,
+                      EstadisticasSolucion estadisticas) {
+        this.filas = filas;
+        this.columnas = columnas;
+        this.palabrasPorFila = (columnas + 63) >>> 6;
+        this.llenas = llenas;
+        this.otraSolucion = otraSolucion;
+        this.cantidadSoluciones = cantidadSoluciones;
+        this.unica = unica;
+        this.plazoAgotado = plazoAgotado;
+        this.deducidas = deducidas;
+        this.estadisticas = estadisticas;
+    }
+
+    // Indica si se encontró una solución.
+    //
+    // @return true si las pistas tienen al menos una solución
+    public boolean estaResuelto() {
+        return llenas != null;
+    }
+
+    // Indica si una celda está llena en la solución encontrada.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si la celda está llena
+    public boolean estaLlena(int fila, int columna) {
+        if (llenas == null) {
+            throw new IllegalStateException("El puzzle no tiene solución");
+        }
+        return (llenas[fila * palabrasPorFila + (columna >>> 6)] & (1L << columna)) != 0;
+    }
+
+    // Indica si una celda está llena en la segunda solución encontrada.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si la celda está llena en la otra solución
+    public boolean estaLlenaEnOtraSolucion(int fila, int columna) {
+        if (otraSolucion == null) {
+            throw new IllegalStateException("No se encontró una segunda solución");
+        }
+        return (otraSolucion[fila * palabrasPorFila + (columna >>> 6)] & (1L << columna)) != 0;
+    }
+
+    // Obtiene la cantidad de soluciones encontradas, acotada por el límite de la búsqueda.
+    //
+    // @return Cantidad de soluciones encontradas
+    public int obtenerCantidadSoluciones() {
+        return cantidadSoluciones;
+    }
+
+    // Indica si se probó que el puzzle tiene exactamente una solución: la búsqueda
+    // recorrió todo el árbol o la deducción resolvió todo sin suponer valores.
+    //
+    // @return true si la solución es única
+    public boolean esUnica() {
+        return unica;
+    }
+
+    // Indica si una celda quedó fijada por deducción antes de suponer ningún valor.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    // @return true si la celda se dedujo sólo a partir de las pistas
+    public boolean estaDeducida(int fila, int columna) {
+        return deducidas != null && (deducidas[fila * palabrasPorFila + (columna >>> 6)] & (1L << columna)) != 0;
+    }
+
+    // Indica si la búsqueda se cortó por agotar el plazo de tiempo o el límite de líneas.
+    //
+    // @return true si se agotó el plazo
+    public boolean seAgotoElPlazo() {
+        return plazoAgotado;
+    }
+
+    // Obtiene el trabajo que hizo el solucionador y la calificación de dificultad
+    // que se deriva de él. Sólo mide el puzzle si la búsqueda no se cortó.
+    //
+    // @return Estadísticas de la búsqueda
+    public EstadisticasSolucion obtenerEstadisticas() {
+        return estadisticas;
+    }
+
+    // Obtiene la cantidad de filas.
+    //
+    // @return Cantidad de filas
+    public int obtenerFilas() {
+        return filas;
+    }
+
+    // Obtiene la cantidad de columnas.
+    //
+    // @return Cantidad de columnas
+    public int obtenerColumnas() {
+        return columnas;
+    }
+}
@@ -0,0 +1,396 @@
+package com.nonogram.solver;
+
+import java.util.Arrays;
+
+// Resuelve una sola línea (fila o columna) del Nonograma.
+//
+// Usa el método de superposición izquierda/derecha:
+// - Se calcula la ubicación más a la izquierda de cada bloque que respeta las celdas conocidas
+// - Se calcula la ubicación más a la derecha de la misma forma (invirtiendo la línea)
+// - Las celdas que un bloque cubre en ambas ubicaciones tienen que estar llenas
+// - Las celdas que ningún bloque puede alcanzar tienen que estar vacías
+//
+// Cuando la superposición ya no deduce nada, resolverCompleto hace la deducción
+// exacta: una celda queda fija sólo si tiene el mismo valor en todas las
+// ubicaciones válidas de los bloques.
+//
+// La línea se representa con dos máscaras de bits (celdas conocidas llenas y
+// conocidas vacías), 64 celdas por palabra long. Los buffers se reutilizan entre
+// llamadas, así que una instancia no debe compartirse entre hilos.
+public class SolucionadorLinea {
+
+    private final int longitudMaxima;
+    private final int palabrasMaximas;
+
+    // Resultado de la última llamada a resolver
+    private final long[] resultadoLlenas;
+    private final long[] resultadoVacias;
+
+    // Buffers de trabajo
+    private final int[] prefijoLlenas;
+    private final int[] prefijoVacias;
+    private final int[] siguienteLlena;
+    private final int[] prefijoLlenasInvertido;
+    private final int[] prefijoVaciasInvertido;
+    private final int[] siguienteLlenaInvertido;
+    private int[] largos = new int[0];
+    private int[] largosInvertidos = new int[0];
+    private int[] inicioIzquierda = new int[0];
+    private int[] inicioDerecha = new int[0];
+    private int[] auxiliarInicios = new int[0];
+    private int[] proximoValido = new int[0];
+    private boolean[] prefijoPosible = new boolean[0];
+    private boolean[] sufijoPosible = new boolean[0];
+    private final int[] coberturaLlenas;
+
+    // Constructor del solucionador de líneas.
+    //
+    // @param longitudMaxima Longitud de la línea más larga que se va a resolver
+    public SolucionadorLinea(int longitudMaxima) {
+        this.longitudMaxima = longitudMaxima;
+        this.palabrasMaximas = (longitudMaxima + 63) >>> 6;
+        this.resultadoLlenas = new long[palabrasMaximas];
+        this.resultadoVacias = new long[palabrasMaximas];
+        this.prefijoLlenas = new int[longitudMaxima + 1];
+        this.prefijoVacias = new int[longitudMaxima + 1];
+        this.siguienteLlena = new int[longitudMaxima + 1];
+        this.prefijoLlenasInvertido = new int[longitudMaxima + 1];
+        this.prefijoVaciasInvertido = new int[longitudMaxima + 1];
+        this.siguienteLlenaInvertido = new int[longitudMaxima + 1];
+        this.coberturaLlenas = new int[longitudMaxima + 1];
+    }
+
+    // Deduce todas las celdas posibles de una línea.
+    //
+    // @param bloques Arreglo con los largos de los bloques
+    // @param inicioBloques Posición del primer bloque de la línea en el arreglo
+    // @param cantidadBloques Cantidad de bloques de la línea (0 si la línea va vacía)
+    // @param longitud Longitud de la línea
+    // @param llenas Máscara de celdas conocidas llenas
+    // @param desplazamientoLlenas Posición de la primera palabra de la línea en llenas
+    // @param vacias Máscara de celdas conocidas vacías
+    // @param desplazamientoVacias Posición de la primera palabra de la línea en vacias
+    // @return false si ninguna ubicación de los bloques es compatible con las celdas conocidas
+    public boolean resolver(int[] bloques, int inicioBloques, int cantidadBloques, int longitud,
+                            long[] llenas, int desplazamientoLlenas, long[] vacias, int desplazamientoVacias) {
+        if (!cargarLinea(cantidadBloques, longitud, llenas, desplazamientoLlenas, vacias, desplazamientoVacias)) {
+            return false;
+        }
+        if (cantidadBloques == 0) {
+            return true;
+        }
+
+        prepararBloques(bloques, inicioBloques, cantidadBloques);
+        prepararPrefijos(longitud);
+
+        if (!ubicarIzquierda(largos, cantidadBloques, longitud,
+                prefijoLlenas, prefijoVacias, siguienteLlena, inicioIzquierda)) {
+            return false;
+        }
+        if (!ubicarIzquierda(largosInvertidos, cantidadBloques, longitud,
+                prefijoLlenasInvertido, prefijoVaciasInvertido, siguienteLlenaInvertido, auxiliarInicios)) {
+            return false;
+        }
+        for (int bloque = 0; bloque < cantidadBloques; bloque++) {
+            int invertido = cantidadBloques - 1 - bloque;
+            inicioDerecha[bloque] = longitud - auxiliarInicios[invertido] - largos[bloque];
+        }
+
+        // Superposición: lo que cubre un bloque en sus dos extremos está lleno
+        int alcanzadoHasta = 0;
+        for (int bloque = 0; bloque < cantidadBloques; bloque++) {
+            int finIzquierda = inicioIzquierda[bloque] + largos[bloque];
+            if (inicioDerecha[bloque] < finIzquierda) {
+                ponerRango(resultadoLlenas, inicioDerecha[bloque], finIzquierda);
+            }
+            // Lo que queda entre el alcance del bloque anterior y este bloque va vacío
+            if (alcanzadoHasta < inicioIzquierda[bloque]) {
+                ponerRango(resultadoVacias, alcanzadoHasta, inicioIzquierda[bloque]);
+            }
+            alcanzadoHasta = Math.max(alcanzadoHasta, inicioDerecha[bloque] + largos[bloque]);
+        }
+        if (alcanzadoHasta < longitud) {
+            ponerRango(resultadoVacias, alcanzadoHasta, longitud);
+        }
+        return true;
+    }
+
+    // Deduce las celdas de una línea de forma exacta.
+    //
+    // Calcula con programación dinámica qué prefijos de bloques entran antes de cada
+    // celda y qué sufijos entran después, y con eso qué celdas pueden estar llenas y
+    // cuáles vacías en alguna ubicación válida. Cuesta O(longitud * bloques), así que
+    // conviene usarlo sólo cuando la superposición se estanca.
+    //
+    // Los parámetros y el resultado son los mismos que en resolver.
+    public boolean resolverCompleto(int[] bloques, int inicioBloques, int cantidadBloques, int longitud,
+                                    long[] llenas, int desplazamientoLlenas, long[] vacias, int desplazamientoVacias) {
+        if (!cargarLinea(cantidadBloques, longitud, llenas, desplazamientoLlenas, vacias, desplazamientoVacias)) {
+            return false;
+        }
+        if (cantidadBloques == 0) {
+            return true;
+        }
+        prepararBloques(bloques, inicioBloques, cantidadBloques);
+        prepararPrefijos(longitud);
+
+        int ancho = longitud + 1;
+        int celdasTabla = (cantidadBloques + 1) * ancho;
+        if (prefijoPosible.length < celdasTabla) {
+            prefijoPosible = new boolean[celdasTabla];
+            sufijoPosible = new boolean[celdasTabla];
+        }
+
+        // sufijoPosible[j][p]: los bloques j.. entran en [p, longitud) cubriendo todas las llenas
+        int baseFinal = cantidadBloques * ancho;
+        for (int posicion = 0; posicion <= longitud; posicion++) {
+            sufijoPosible[baseFinal + posicion] = prefijoLlenas[longitud] == prefijoLlenas[posicion];
+        }
+        for (int bloque = cantidadBloques - 1; bloque >= 0; bloque--) {
+            int base = bloque * ancho;
+            int largo = largos[bloque];
+            sufijoPosible[base + longitud] = false;
+            for (int posicion = longitud - 1; posicion >= 0; posicion--) {
+                boolean posible = !estaLlenaConocida(posicion) && sufijoPosible[base + posicion + 1];
+                int fin = posicion + largo;
+                if (!posible && fin <= longitud && prefijoVacias[fin] == prefijoVacias[posicion]) {
+                    posible = fin == longitud
+                            ? sufijoPosible[base + ancho + longitud]
+                            : !estaLlenaConocida(fin) && sufijoPosible[base + ancho + fin + 1];
+                }
+                sufijoPosible[base + posicion] = posible;
+            }
+        }
+        if (!sufijoPosible[0]) {
+            return false;
+        }
+
+        // prefijoPosible[j][p]: los bloques ..j-1 entran en [0, p) cubriendo todas las llenas
+        for (int posicion = 0; posicion <= longitud; posicion++) {
+            prefijoPosible[posicion] = prefijoLlenas[posicion] == 0;
+        }
+        for (int bloque = 1; bloque <= cantidadBloques; bloque++) {
+            int base = bloque * ancho;
+            int largo = largos[bloque - 1];
+            prefijoPosible[base] = false;
+            for (int posicion = 1; posicion <= longitud; posicion++) {
+                boolean posible = !estaLlenaConocida(posicion - 1) && prefijoPosible[base + posicion - 1];
+                int inicio = posicion - largo;
+                if (!posible && inicio >= 0 && prefijoVacias[posicion] == prefijoVacias[inicio]) {
+                    posible = inicio == 0
+                            ? prefijoPosible[base - ancho]
+                            : !estaLlenaConocida(inicio - 1) && prefijoPosible[base - ancho + inicio - 1];
+                }
+                prefijoPosible[base + posicion] = posible;
+            }
+        }
+
+        // Celdas que algún bloque puede cubrir
+        Arrays.fill(coberturaLlenas, 0, longitud + 1, 0);
+        for (int bloque = 0; bloque < cantidadBloques; bloque++) {
+            int base = bloque * ancho;
+            int largo = largos[bloque];
+            for (int inicio = 0; inicio + largo <= longitud; inicio++) {
+                int fin = inicio + largo;
+                if (prefijoVacias[fin] != prefijoVacias[inicio]) {
+                    continue;
+                }
+                boolean antes = inicio == 0
+                        ? prefijoPosible[base]
+                        : !estaLlenaConocida(inicio - 1) && prefijoPosible[base + inicio - 1];
+                boolean despues = fin == longitud
+                        ? sufijoPosible[base + ancho + longitud]
+                        : !estaLlenaConocida(fin) && sufijoPosible[base + ancho + fin + 1];
+                if (antes && despues) {
+                    coberturaLlenas[inicio]++;
+                    coberturaLlenas[fin]--;
+                }
+            }
+        }
+
+        int cubiertas = 0;
+        for (int celda = 0; celda < longitud; celda++) {
+            cubiertas += coberturaLlenas[celda];
+            boolean puedeLlena = cubiertas > 0;
+            boolean puedeVacia = false;
+            if (!estaLlenaConocida(celda)) {
+                for (int bloque = 0; bloque <= cantidadBloques && !puedeVacia; bloque++) {
+                    puedeVacia = prefijoPosible[bloque * ancho + celda] && sufijoPosible[bloque * ancho + celda + 1];
+                }
+            }
+            if (puedeLlena && !puedeVacia) {
+                resultadoLlenas[celda >>> 6] |= 1L << celda;
+            } else if (!puedeLlena && puedeVacia) {
+                resultadoVacias[celda >>> 6] |= 1L << celda;
+            } else if (!puedeLlena) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Obtiene las celdas llenas conocidas después de la última resolución.
+    //
+    // @return Máscara de celdas llenas (no se debe modificar)
+    public long[] obtenerLlenas() {
+        return resultadoLlenas;
+    }
+
+    // Obtiene las celdas vacías conocidas después de la última resolución.
+    //
+    // @return Máscara de celdas vacías (no se debe modificar)
+    public long[] obtenerVacias() {
+        return resultadoVacias;
+    }
+
+    // Copia las máscaras de la línea al resultado y resuelve el caso sin bloques.
+    //
+    // @return false si la línea no tiene bloques pero tiene celdas llenas
+    private boolean cargarLinea(int cantidadBloques, int longitud,
+                                long[] llenas, int desplazamientoLlenas, long[] vacias, int desplazamientoVacias) {
+        if (longitud > longitudMaxima) {
+            throw new IllegalArgumentException("Línea más larga que la máxima del solucionador");
+        }
+        int palabras = (longitud + 63) >>> 6;
+        System.arraycopy(llenas, desplazamientoLlenas, resultadoLlenas, 0, palabras);
+        System.arraycopy(vacias, desplazamientoVacias, resultadoVacias, 0, palabras);
+        if (cantidadBloques == 0) {
+            // Sin bloques: toda la línea va vacía
+            for (int palabra = 0; palabra < palabras; palabra++) {
+                if (resultadoLlenas[palabra] != 0L) {
+                    return false;
+                }
+            }
+            ponerRango(resultadoVacias, 0, longitud);
+        }
+        return true;
+    }
+
+    private boolean estaLlenaConocida(int celda) {
+        return prefijoLlenas[celda + 1] != prefijoLlenas[celda];
+    }
+
+    private void prepararBloques(int[] bloques, int inicioBloques, int cantidadBloques) {
+        if (largos.length < cantidadBloques) {
+            largos = new int[cantidadBloques];
+            largosInvertidos = new int[cantidadBloques];
+            inicioIzquierda = new int[cantidadBloques];
+            inicioDerecha = new int[cantidadBloques];
+            auxiliarInicios = new int[cantidadBloques];
+        }
+        for (int bloque = 0; bloque < cantidadBloques; bloque++) {
+            int largo = bloques[inicioBloques + bloque];
+            largos[bloque] = largo;
+            largosInvertidos[cantidadBloques - 1 - bloque] = largo;
+        }
+    }
+
+    // Arma las sumas prefijas de celdas conocidas, en el sentido normal y en el invertido.
+    private void prepararPrefijos(int longitud) {
+        prefijoLlenas[0] = 0;
+        prefijoVacias[0] = 0;
+        prefijoLlenasInvertido[0] = 0;
+        prefijoVaciasInvertido[0] = 0;
+        for (int celda = 0; celda < longitud; celda++) {
+            prefijoLlenas[celda + 1] = prefijoLlenas[celda] + (int) ((resultadoLlenas[celda >>> 6] >>> celda) & 1L);
+            prefijoVacias[celda + 1] = prefijoVacias[celda] + (int) ((resultadoVacias[celda >>> 6] >>> celda) & 1L);
+            int espejo = longitud - 1 - celda;
+            prefijoLlenasInvertido[celda + 1] = prefijoLlenasInvertido[celda] + (int) ((resultadoLlenas[espejo >>> 6] >>> espejo) & 1L);
+            prefijoVaciasInvertido[celda + 1] = prefijoVaciasInvertido[celda] + (int) ((resultadoVacias[espejo >>> 6] >>> espejo) & 1L);
+        }
+        siguienteLlena[longitud] = longitud;
+        siguienteLlenaInvertido[longitud] = longitud;
+        for (int celda = longitud - 1; celda >= 0; celda--) {
+            siguienteLlena[celda] = prefijoLlenas[celda + 1] != prefijoLlenas[celda] ? celda : siguienteLlena[celda + 1];
+            siguienteLlenaInvertido[celda] = prefijoLlenasInvertido[celda + 1] != prefijoLlenasInvertido[celda]
+                    ? celda : siguienteLlenaInvertido[celda + 1];
+        }
+    }
+
+    // Calcula el inicio más a la izquierda de cada bloque compatible con las celdas conocidas.
+    //
+    // Cada bloque sólo puede empezar dentro de una ventana de "holgura + 1" posiciones.
+    // Se recorre de atrás para adelante guardando, para cada bloque y posición, la
+    // próxima posición en la que el bloque y todos los siguientes entran sin dejar
+    // celdas llenas descubiertas. Después se reconstruye la ubicación de izquierda a derecha.
+    //
+    // @return false si no hay ninguna ubicación válida
+    private boolean ubicarIzquierda(int[] largo, int cantidad, int longitud,
+                                    int[] prefLlenas, int[] prefVacias, int[] sigLlena, int[] salida) {
+        int ocupado = cantidad - 1;
+        for (int bloque = 0; bloque < cantidad; bloque++) {
+            ocupado += largo[bloque];
+        }
+        int holgura = longitud - ocupado;
+        if (holgura < 0) {
+            return false;
+        }
+        int ancho = holgura + 1;
+        if (proximoValido.length < cantidad * ancho) {
+            proximoValido = new int[cantidad * ancho];
+        }
+
+        // Inicio mínimo de cada bloque, guardado en la salida mientras se calcula
+        int minimo = 0;
+        for (int bloque = 0; bloque < cantidad; bloque++) {
+            salida[bloque] = minimo;
+            minimo += largo[bloque] + 1;
+        }
+
+        for (int bloque = cantidad - 1; bloque >= 0; bloque--) {
+            int base = bloque * ancho;
+            int inicioMinimo = salida[bloque];
+            for (int desplazamiento = ancho - 1; desplazamiento >= 0; desplazamiento--) {
+                int inicio = inicioMinimo + desplazamiento;
+                int fin = inicio + largo[bloque];
+                boolean valido = prefVacias[fin] == prefVacias[inicio]
+                        && (fin == longitud || prefLlenas[fin + 1] == prefLlenas[fin]);
+                if (valido) {
+                    if (bloque == cantidad - 1) {
+                        valido = prefLlenas[longitud] == prefLlenas[fin];
+                    } else {
+                        int siguiente = proximoValido[base + ancho + desplazamiento];
+                        valido = siguiente < ancho && sigLlena[fin] >= salida[bloque + 1] + siguiente;
+                    }
+                }
+                if (valido) {
+                    proximoValido[base + desplazamiento] = desplazamiento;
+                } else {
+                    proximoValido[base + desplazamiento] = desplazamiento + 1 < ancho
+                            ? proximoValido[base + desplazamiento + 1] : ancho;
+                }
+            }
+        }
+
+        // El primer bloque no puede dejar celdas llenas a su izquierda
+        int desplazamiento = proximoValido[0];
+        if (desplazamiento >= ancho || salida[0] + desplazamiento > sigLlena[0]) {
+            return false;
+        }
+        for (int bloque = 0; bloque < cantidad; bloque++) {
+            desplazamiento = proximoValido[bloque * ancho + desplazamiento];
+            salida[bloque] += desplazamiento;
+        }
+        return true;
+    }
+
+    // Pone en 1 los bits del rango [desde, hasta).
+    static void ponerRango(long[] mascara, int desde, int hasta) {
+        if (desde >= hasta) {
+            return;
+        }
+        int primera = desde >>> 6;
+        int ultima = (hasta - 1) >>> 6;
+        long mascaraInicio = -1L << desde;
+        long mascaraFin = -1L >>> (63 - ((hasta - 1) & 63));
+        if (primera == ultima) {
+            mascara[primera] |= mascaraInicio & mascaraFin;
+            return;
+        }
+        mascara[primera] |= mascaraInicio;
+        for (int palabra = primera + 1; palabra < ultima; palabra++) {
+            mascara[palabra] = -1L;
+        }
+        mascara[ultima] |= mascaraFin;
+    }
+}
@@ -0,0 +1,628 @@
+package com.nonogram.solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Resuelve un Nonograma usando sólo las pistas de filas y columnas.
+//
+// El solucionador:
+// - Resuelve cada línea con SolucionadorLinea (superposición izquierda/derecha)
+// - Mantiene una cola de líneas "sucias": cuando una línea deduce celdas nuevas,
+//   se encolan las líneas que cruzan esas celdas, hasta llegar a un punto fijo
+// - Cuando la superposición se estanca, pasa una vez la deducción exacta por las
+//   líneas incompletas y, si aparece algo nuevo, vuelve a la cola
+// - Si la propagación se estanca con celdas desconocidas, sondea cada celda
+//   probando los dos valores: si uno lleva a una contradicción, la celda queda
+//   fija con el otro sin ramificar, y las celdas que los dos valores deducen
+//   igual también quedan fijas
+// - Si el sondeo tampoco deduce nada, prueba un valor para la celda más
+//   prometedora y sigue buscando (backtracking)
+//
+// El estado se guarda en máscaras de bits tanto por fila como por columna,
+// de modo que las dos orientaciones se leen sin recorrer la grilla.
+//
+// Para verificar que un puzzle tiene solución única se busca con límite de
+// dos soluciones: la búsqueda corta apenas encuentra la segunda. También se
+// puede dar un plazo, pasado el cual la búsqueda se abandona. El plazo puede ser
+// de tiempo o de trabajo (líneas resueltas); el de trabajo no depende de la
+// máquina, así que el resultado es reproducible. Si la deducción
+// resuelve todo sin suponer ningún valor la solución es única sin necesidad de
+// buscar la segunda; deducir() se queda en esa etapa.
+//
+// Cada búsqueda cuenta su trabajo (rondas de propagación, deducciones exactas,
+// sondeos, ramificaciones y profundidad) en EstadisticasSolucion, que lo
+// resume en una calificación de dificultad.
+public class SolucionadorNonograma {
+
+    // Celdas que se sondean por cada línea del puzzle antes de ramificar
+    private static final int LIMITE_SONDEOS_POR_LINEA = 2;
+
+    private final int filas;
+    private final int columnas;
+    private final int palabrasPorFila;     // Palabras long para una fila (columnas celdas)
+    private final int palabrasPorColumna;  // Palabras long para una columna (filas celdas)
+
+    // Pistas aplanadas: primero las filas, después las columnas
+    private final int[] bloques;
+    private final int[] inicioLinea;
+    private final int[] cantidadLinea;
+    private final boolean pistasConsistentes;
+
+    // Estado: [filas llenas | filas vacías | columnas llenas | columnas vacías]
+    private final long[] estado;
+    private final int inicioFilasVacias;
+    private final int inicioColumnasLlenas;
+    private final int inicioColumnasVacias;
+    private int desconocidas;
+
+    // Cola de líneas pendientes de resolver (índices 0..filas-1 son filas, el resto columnas)
+    private final int[] cola;
+    private final boolean[] enCola;
+    private int cabezaCola;
+    private int tamañoCola;
+
+    // Líneas que cambiaron desde su última deducción exacta
+    private final boolean[] pendienteExacta;
+
+    private final SolucionadorLinea solucionadorLinea;
+    private final List<long[]> copiasPorNivel = new ArrayList<>();
+    private final long[] copiaSondeo;
+    private final long[] comunesSondeo;  // Planos de filas deducidos igual por los dos valores sondeados
+    private final long[] clavesFilas;
+    private final int[] ordenFilas;
+
+    // Mejor celda para ramificar encontrada por el último sondeo
+    private int celdaElegida;
+    private boolean primeroLlena;
+
+    // Resultado de la búsqueda
+    private long[] primeraSolucion;
+    private long[] segundaSolucion;
+    private int solucionesEncontradas;
+    private int limiteSoluciones;
+    private long instanteLimite;  // System.nanoTime() a partir del cual se abandona la búsqueda
+    private long limiteLineas = Long.MAX_VALUE; // Líneas resueltas a partir de las cuales se abandona
+    private long lineasResueltas;
+    private boolean plazoAgotado;
+    private boolean ramificar;
+    private boolean resueltoSinSuponer;
+    private long[] deducidasRaiz;  // Por fila, celdas fijadas antes de la primera suposición
+
+    // Estadísticas de la búsqueda (ver EstadisticasSolucion)
+    private boolean enSondeo;
+    private int rondasPropagacion;
+    private int deduccionesExactas;
+    private int deduccionesSondeo;
+    private int ramificaciones;
+    private int profundidadMaxima;
+
+    // Constructor del solucionador.
+    // Una línea sin bloques puede venir como arreglo vacío o como {0}.
+    //
+    // @param pistasFilas Largos de los bloques de cada fila
+    // @param pistasColumnas Largos de los bloques de cada columna
+    public SolucionadorNonograma(int[][] pistasFilas, int[][] pistasColumnas) {
+        this(PistasPlanas.desdeMatrices(pistasFilas, pistasColumnas));
+    }
+
+    // Constructor a partir de pistas ya aplanadas, sin copiarlas.
+    // Los bloques de la línea l (filas primero, después columnas) ocupan
+    // bloques[inicios[l]] hasta bloques[inicios[l + 1] - 1]; los arreglos no se modifican.
+    //
+    // @param filas Cantidad de filas
+    // @param columnas Cantidad de columnas
+    // @param bloques Largos de los bloques de todas las líneas
+    // @param inicios Posición del primer bloque de cada línea, con filas + columnas + 1 posiciones
+    public SolucionadorNonograma(int filas, int columnas, int[] bloques, int[] inicios) {
+        this(new PistasPlanas(filas, columnas, bloques, inicios));
+    }
+
+    private SolucionadorNonograma(PistasPlanas pistas) {
+        this.filas = pistas.filas;
+        this.columnas = pistas.columnas;
+        this.palabrasPorFila = (columnas + 63) >>> 6;
+        this.palabrasPorColumna = (filas + 63) >>> 6;
+
+        int lineas = filas + columnas;
+        this.bloques = pistas.bloques;
+        this.inicioLinea = pistas.inicioLinea;
+        this.cantidadLinea = pistas.cantidadLinea;
+        // Las filas y las columnas tienen que sumar la misma cantidad de celdas llenas
+        this.pistasConsistentes = pistas.sumaFilas == pistas.sumaColumnas;
+
+        this.inicioFilasVacias = filas * palabrasPorFila;
+        this.inicioColumnasLlenas = 2 * filas * palabrasPorFila;
+        this.inicioColumnasVacias = inicioColumnasLlenas + columnas * palabrasPorColumna;
+        this.estado = new long[inicioColumnasVacias + columnas * palabrasPorColumna];
+        this.copiaSondeo = new long[estado.length];
+        this.comunesSondeo = new long[2 * filas * palabrasPorFila];
+        this.clavesFilas = new long[filas];
+        this.ordenFilas = new int[filas];
+
+        this.cola = new int[lineas];
+        this.enCola = new boolean[lineas];
+        this.pendienteExacta = new boolean[lineas];
+        this.solucionadorLinea = new SolucionadorLinea(Math.max(filas, columnas));
+    }
+
+    // Resuelve el puzzle y devuelve la primera solución encontrada.
+    //
+    // @return Resultado con la solución, o sin solución si las pistas son contradictorias
+    public ResultadoSolucion resolver() {
+        return resolver(1, Long.MAX_VALUE);
+    }
+
+    // Deduce todas las celdas posibles sin suponer ningún valor (propagación y sondeo).
+    // Si se deducen todas, el puzzle tiene solución única.
+    //
+    // @param plazoNanos Tiempo máximo en nanosegundos
+    // @return Resultado con la solución si se dedujo completa; estaDeducida indica qué celdas se fijaron
+    public ResultadoSolucion deducir(long plazoNanos) {
+        return ejecutar(1, plazoNanos, false);
+    }
+
+    // Busca hasta dos soluciones para saber si el puzzle tiene solución única.
+    //
+    // @param plazoNanos Tiempo máximo de búsqueda en nanosegundos
+    // @return Resultado con la cantidad de soluciones encontradas (0, 1 o 2)
+    public ResultadoSolucion verificarUnicidad(long plazoNanos) {
+        return resolver(2, plazoNanos);
+    }
+
+    // Limita el trabajo de las próximas búsquedas a una cantidad de líneas resueltas.
+    // Al superarlo la búsqueda se corta igual que al agotar el plazo de tiempo.
+    //
+    // @param limite Cantidad máxima de líneas resueltas por búsqueda (Long.MAX_VALUE sin límite)
+    public void establecerLimiteLineas(long limite) {
+        if (limite < 0) {
+            throw new IllegalArgumentException("El límite de líneas no puede ser negativo");
+        }
+        this.limiteLineas = limite;
+    }
+
+    // Obtiene la cantidad de líneas resueltas en la última búsqueda.
+    //
+    // @return Líneas resueltas
+    public long obtenerLineasResueltas() {
+        return lineasResueltas;
+    }
+
+    // Busca soluciones hasta encontrar el límite pedido o agotar el plazo.
+    //
+    // @param limite Cantidad de soluciones a partir de la cual se corta la búsqueda
+    // @param plazoNanos Tiempo máximo de búsqueda en nanosegundos (Long.MAX_VALUE sin límite)
+    // @return Resultado de la búsqueda
+    public ResultadoSolucion resolver(int limite, long plazoNanos) {
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite de soluciones debe ser positivo");
+        }
+        return ejecutar(limite, plazoNanos, true);
+    }
+
+    private ResultadoSolucion ejecutar(int limite, long plazoNanos, boolean ramificar) {
+        long ahora = System.nanoTime();
+        instanteLimite = plazoNanos >= Long.MAX_VALUE - ahora ? Long.MAX_VALUE : ahora + plazoNanos;
+        this.ramificar = ramificar;
+        boolean completa = buscarSoluciones(limite);
+        // La unicidad queda probada si se recorrió todo el árbol o si no hizo falta suponer nada
+        boolean unica = solucionesEncontradas == 1 && !plazoAgotado && (completa || resueltoSinSuponer);
+        EstadisticasSolucion estadisticas = new EstadisticasSolucion(filas + columnas, rondasPropagacion,
+                lineasResueltas, deduccionesExactas, deduccionesSondeo, ramificaciones, profundidadMaxima);
+        return new ResultadoSolucion(filas, columnas, primeraSolucion, segundaSolucion,
+                solucionesEncontradas, unica, plazoAgotado, deducidasRaiz, estadisticas);
+    }
+
+    // Reinicia el estado y busca hasta encontrar el límite de soluciones.
+    //
+    // @return true si se recorrió todo el árbol de búsqueda
+    private boolean buscarSoluciones(int limite) {
+        limiteSoluciones = limite;
+        solucionesEncontradas = 0;
+        primeraSolucion = null;
+        segundaSolucion = null;
+        deducidasRaiz = null;
+        plazoAgotado = false;
+        lineasResueltas = 0;
+        resueltoSinSuponer = false;
+        rondasPropagacion = 0;
+        deduccionesExactas = 0;
+        deduccionesSondeo = 0;
+        ramificaciones = 0;
+        profundidadMaxima = 0;
+        Arrays.fill(estado, 0L);
+        desconocidas = filas * columnas;
+        vaciarCola();
+        if (!pistasConsistentes) {
+            return true;
+        }
+        for (int linea = 0; linea < filas + columnas; linea++) {
+            encolar(linea);
+        }
+        Arrays.fill(pendienteExacta, true);
+        return !buscar(0);
+    }
+
+    // Propaga, sondea y, si hace falta, ramifica sobre una celda desconocida.
+    //
+    // @return true si ya se alcanzó el límite de soluciones y hay que cortar la búsqueda
+    private boolean buscar(int nivel) {
+        if (seAgotoElPlazo()) {
+            return true;
+        }
+        int sondeo;
+        do {
+            if (!propagar()) {
+                return false;
+            }
+            if (desconocidas == 0) {
+                if (nivel == 0) {
+                    resueltoSinSuponer = true;
+                    guardarDeducidasRaiz();
+                }
+                if (solucionesEncontradas == 0) {
+                    primeraSolucion = Arrays.copyOf(estado, filas * palabrasPorFila);
+                } else if (solucionesEncontradas == 1) {
+                    segundaSolucion = Arrays.copyOf(estado, filas * palabrasPorFila);
+                }
+                solucionesEncontradas++;
+                return solucionesEncontradas >= limiteSoluciones;
+            }
+            sondeo = sondear();
+            if (sondeo < 0) {
+                return false;
+            }
+            if (plazoAgotado) {
+                return true;
+            }
+        } while (sondeo > 0);
+
+        if (nivel == 0) {
+            guardarDeducidasRaiz();
+        }
+        if (!ramificar) {
+            return true;
+        }
+        int fila = celdaElegida / columnas;
+        int columna = celdaElegida % columnas;
+        boolean valor = primeroLlena;
+
+        long[] copia = obtenerCopia(nivel);
+        System.arraycopy(estado, 0, copia, 0, estado.length);
+        int desconocidasAntes = desconocidas;
+        ramificaciones++;
+        profundidadMaxima = Math.max(profundidadMaxima, nivel + 1);
+
+        // Primera rama: el valor que más celdas deduce
+        asumirCelda(fila, columna, valor);
+        if (buscar(nivel + 1)) {
+            return true;
+        }
+
+        // Segunda rama: el valor contrario
+        System.arraycopy(copia, 0, estado, 0, estado.length);
+        desconocidas = desconocidasAntes;
+        vaciarCola();
+        Arrays.fill(pendienteExacta, false);
+        asumirCelda(fila, columna, !valor);
+        return buscar(nivel + 1);
+    }
+
+    // Prueba los dos valores de cada celda desconocida propagando sobre una copia.
+    // Si un valor lleva a una contradicción, fija la celda con el otro; si los dos
+    // valores deducen lo mismo en otras celdas, fija esas celdas. Cada deducción se
+    // aplica en el momento y el sondeo sigue con las celdas que quedan.
+    // Si no hubo deducciones, deja en celdaElegida la celda cuyos dos valores deducen más celdas.
+    //
+    // @return -1 si se llegó a una contradicción, 1 si se fijó alguna celda, 0 si no hubo deducciones
+    private int sondear() {
+        // Las propagaciones de prueba no cuentan como rondas ni deducciones exactas
+        enSondeo = true;
+        try {
+            return sondearCeldas();
+        } finally {
+            enSondeo = false;
+        }
+    }
+
+    private int sondearCeldas() {
+        System.arraycopy(estado, 0, copiaSondeo, 0, estado.length);
+        int desconocidasAntes = desconocidas;
+        int resultado = 0;
+        long mejorPuntaje = -1;
+        ordenarFilasPorDesconocidas();
+        int sondeosRestantes = LIMITE_SONDEOS_POR_LINEA * (filas + columnas);
+        for (int orden = 0; orden < filas && sondeosRestantes > 0; orden++) {
+            int fila = ordenFilas[orden];
+            int base = fila * palabrasPorFila;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                long libres = ~(copiaSondeo[base + palabra] | copiaSondeo[inicioFilasVacias + base + palabra]);
+                while (libres != 0L) {
+                    int columna = (palabra << 6) + Long.numberOfTrailingZeros(libres);
+                    libres &= libres - 1;
+                    if (columna >= columnas || sondeosRestantes-- == 0) {
+                        break;
+                    }
+                    long bit = 1L << columna;
+                    if (((estado[base + palabra] | estado[inicioFilasVacias + base + palabra]) & bit) != 0) {
+                        continue; // Fijada por una deducción anterior de este mismo sondeo
+                    }
+                    if (seAgotoElPlazo()) {
+                        restaurarSondeo(desconocidasAntes);
+                        return resultado;
+                    }
+                    asumirCelda(fila, columna, true);
+                    boolean llenaPosible = propagar();
+                    int deducidasLlena = desconocidasAntes - desconocidas;
+                    if (llenaPosible) {
+                        System.arraycopy(estado, 0, comunesSondeo, 0, comunesSondeo.length);
+                    }
+                    restaurarSondeo(desconocidasAntes);
+
+                    asumirCelda(fila, columna, false);
+                    boolean vaciaPosible = propagar();
+                    int deducidasVacia = desconocidasAntes - desconocidas;
+
+                    if (!llenaPosible && !vaciaPosible) {
+                        return -1;
+                    }
+                    if (llenaPosible && vaciaPosible) {
+                        int comunes = intersecarConSondeo();
+                        restaurarSondeo(desconocidasAntes);
+                        if (comunes == 0) {
+                            long puntaje = (long) (deducidasLlena + 1) * (deducidasVacia + 1);
+                            if (puntaje > mejorPuntaje) {
+                                mejorPuntaje = puntaje;
+                                celdaElegida = fila * columnas + columna;
+                                primeroLlena = deducidasLlena >= deducidasVacia;
+                            }
+                            continue;
+                        }
+                        aplicarComunesSondeo();
+                    } else {
+                        restaurarSondeo(desconocidasAntes);
+                        asumirCelda(fila, columna, llenaPosible);
+                    }
+                    if (!propagar()) {
+                        return -1;
+                    }
+                    resultado = 1;
+                    deduccionesSondeo++;
+                    if (desconocidas == 0) {
+                        return resultado;
+                    }
+                    System.arraycopy(estado, 0, copiaSondeo, 0, estado.length);
+                    desconocidasAntes = desconocidas;
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Deja en comunesSondeo las celdas de la rama llena que la rama actual (vacía)
+    // dedujo con el mismo valor y que antes del sondeo eran desconocidas.
+    //
+    // @return Cantidad de celdas comunes
+    private int intersecarConSondeo() {
+        int comunes = 0;
+        for (int indice = 0; indice < comunesSondeo.length; indice++) {
+            comunesSondeo[indice] &= estado[indice] & ~copiaSondeo[indice];
+            comunes += Long.bitCount(comunesSondeo[indice]);
+        }
+        return comunes;
+    }
+
+    private void aplicarComunesSondeo() {
+        for (int indice = 0; indice < comunesSondeo.length; indice++) {
+            boolean llena = indice < inicioFilasVacias;
+            int fila = (llena ? indice : indice - inicioFilasVacias) / palabrasPorFila;
+            int palabra = (llena ? indice : indice - inicioFilasVacias) % palabrasPorFila;
+            long bits = comunesSondeo[indice];
+            while (bits != 0L) {
+                int columna = (palabra << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                asumirCelda(fila, columna, llena);
+            }
+        }
+    }
+
+    private void guardarDeducidasRaiz() {
+        deducidasRaiz = new long[filas * palabrasPorFila];
+        for (int indice = 0; indice < deducidasRaiz.length; indice++) {
+            deducidasRaiz[indice] = estado[indice] | estado[inicioFilasVacias + indice];
+        }
+    }
+
+    private boolean seAgotoElPlazo() {
+        if (!plazoAgotado && (lineasResueltas > limiteLineas
+                || instanteLimite != Long.MAX_VALUE && System.nanoTime() - instanteLimite > 0)) {
+            plazoAgotado = true;
+        }
+        return plazoAgotado;
+    }
+
+    // Ordena las filas incompletas de menos a más celdas desconocidas; las completas van al final.
+    private void ordenarFilasPorDesconocidas() {
+        for (int fila = 0; fila < filas; fila++) {
+            int conocidas = 0;
+            int base = fila * palabrasPorFila;
+            for (int palabra = 0; palabra < palabrasPorFila; palabra++) {
+                conocidas += Long.bitCount(estado[base + palabra] | estado[inicioFilasVacias + base + palabra]);
+            }
+            int pendientes = columnas - conocidas;
+            // Clave: cantidad de desconocidas en los bits altos, fila en los bajos
+            clavesFilas[fila] = ((long) (pendientes == 0 ? Integer.MAX_VALUE : pendientes) << 32) | fila;
+        }
+        Arrays.sort(clavesFilas);
+        for (int orden = 0; orden < filas; orden++) {
+            ordenFilas[orden] = (int) clavesFilas[orden];
+        }
+    }
+
+    private void restaurarSondeo(int desconocidasAntes) {
+        System.arraycopy(copiaSondeo, 0, estado, 0, estado.length);
+        desconocidas = desconocidasAntes;
+        vaciarCola();
+        // Al estancarse la propagación ninguna línea queda pendiente de la deducción exacta
+        Arrays.fill(pendienteExacta, false);
+    }
+
+    // Fija una celda supuesta y encola sus dos líneas.
+    private void asumirCelda(int fila, int columna, boolean llena) {
+        fijarCelda(fila, columna, llena);
+        encolar(fila);
+        encolar(filas + columna);
+    }
+
+    // Resuelve líneas de la cola hasta que no haya más cambios.
+    //
+    // @return false si se encontró una contradicción
+    private boolean propagar() {
+        while (true) {
+            int restantesRonda = 0;
+            while (tamañoCola > 0) {
+                if (restantesRonda == 0) {
+                    // Empieza una ronda con las líneas que están en la cola
+                    restantesRonda = tamañoCola;
+                    if (!enSondeo) {
+                        rondasPropagacion++;
+                    }
+                }
+                restantesRonda--;
+                int linea = cola[cabezaCola];
+                cabezaCola = (cabezaCola + 1) % cola.length;
+                tamañoCola--;
+                enCola[linea] = false;
+                if (!resolverLinea(linea, false)) {
+                    vaciarCola();
+                    return false;
+                }
+            }
+            if (desconocidas == 0) {
+                return true;
+            }
+            // La superposición se estancó: deducción exacta sobre las líneas incompletas
+            for (int linea = 0; linea < filas + columnas; linea++) {
+                if (!pendienteExacta[linea]) {
+                    continue;
+                }
+                pendienteExacta[linea] = false;
+                if (!lineaIncompleta(linea)) {
+                    continue;
+                }
+                int desconocidasAntes = desconocidas;
+                if (!resolverLinea(linea, true)) {
+                    vaciarCola();
+                    return false;
+                }
+                if (!enSondeo && desconocidas < desconocidasAntes) {
+                    deduccionesExactas++;
+                }
+            }
+            if (tamañoCola == 0) {
+                return true;
+            }
+        }
+    }
+
+    private boolean lineaIncompleta(int linea) {
+        boolean esFila = linea < filas;
+        int indice = esFila ? linea : linea - filas;
+        int palabras = esFila ? palabrasPorFila : palabrasPorColumna;
+        int inicioLlenas = esFila ? indice * palabrasPorFila : inicioColumnasLlenas + indice * palabrasPorColumna;
+        int inicioVacias = esFila ? inicioFilasVacias + indice * palabrasPorFila : inicioColumnasVacias + indice * palabrasPorColumna;
+        int conocidas = 0;
+        for (int palabra = 0; palabra < palabras; palabra++) {
+            conocidas += Long.bitCount(estado[inicioLlenas + palabra] | estado[inicioVacias + palabra]);
+        }
+        return conocidas < (esFila ? columnas : filas);
+    }
+
+    // Resuelve una línea y aplica las celdas nuevas al estado, encolando las líneas cruzadas.
+    //
+    // @param exacta true para usar la deducción exacta en lugar de la superposición
+    private boolean resolverLinea(int linea, boolean exacta) {
+        boolean esFila = linea < filas;
+        int indice = esFila ? linea : linea - filas;
+        int longitud = esFila ? columnas : filas;
+        int palabras = esFila ? palabrasPorFila : palabrasPorColumna;
+        int inicioLlenas = esFila ? indice * palabrasPorFila : inicioColumnasLlenas + indice * palabrasPorColumna;
+        int inicioVacias = esFila ? inicioFilasVacias + indice * palabrasPorFila : inicioColumnasVacias + indice * palabrasPorColumna;
+
+        lineasResueltas++;
+        boolean consistente = exacta
+                ? solucionadorLinea.resolverCompleto(bloques, inicioLinea[linea], cantidadLinea[linea], longitud,
+                        estado, inicioLlenas, estado, inicioVacias)
+                : solucionadorLinea.resolver(bloques, inicioLinea[linea], cantidadLinea[linea], longitud,
+                        estado, inicioLlenas, estado, inicioVacias);
+        if (!consistente) {
+            return false;
+        }
+        long[] llenas = solucionadorLinea.obtenerLlenas();
+        long[] vacias = solucionadorLinea.obtenerVacias();
+        for (int palabra = 0; palabra < palabras; palabra++) {
+            long nuevasLlenas = llenas[palabra] & ~estado[inicioLlenas + palabra];
+            long nuevasVacias = vacias[palabra] & ~estado[inicioVacias + palabra];
+            while (nuevasLlenas != 0L) {
+                int posicion = (palabra << 6) + Long.numberOfTrailingZeros(nuevasLlenas);
+                nuevasLlenas &= nuevasLlenas - 1;
+                aplicarDeduccion(esFila, indice, posicion, true);
+            }
+            while (nuevasVacias != 0L) {
+                int posicion = (palabra << 6) + Long.numberOfTrailingZeros(nuevasVacias);
+                nuevasVacias &= nuevasVacias - 1;
+                aplicarDeduccion(esFila, indice, posicion, false);
+            }
+        }
+        return true;
+    }
+
+    private void aplicarDeduccion(boolean esFila, int indice, int posicion, boolean llena) {
+        if (esFila) {
+            fijarCelda(indice, posicion, llena);
+            encolar(filas + posicion);
+        } else {
+            fijarCelda(posicion, indice, llena);
+            encolar(posicion);
+        }
+    }
+
+    // Fija el valor de una celda desconocida en las dos orientaciones.
+    private void fijarCelda(int fila, int columna, boolean llena) {
+        int indiceFila = fila * palabrasPorFila + (columna >>> 6);
+        int indiceColumna = columna * palabrasPorColumna + (fila >>> 6);
+        if (llena) {
+            estado[indiceFila] |= 1L << columna;
+            estado[inicioColumnasLlenas + indiceColumna] |= 1L << fila;
+        } else {
+            estado[inicioFilasVacias + indiceFila] |= 1L << columna;
+            estado[inicioColumnasVacias + indiceColumna] |= 1L << fila;
+        }
+        desconocidas--;
+        pendienteExacta[fila] = true;
+        pendienteExacta[filas + columna] = true;
+    }
+
+    private long[] obtenerCopia(int nivel) {
+        while (copiasPorNivel.size() <= nivel) {
+            copiasPorNivel.add(new long[estado.length]);
+        }
+        return copiasPorNivel.get(nivel);
+    }
+
+    private void encolar(int linea) {
+        if (!enCola[linea]) {
+            enCola[linea] = true;
+            cola[(cabezaCola + tamañoCola) % cola.length] = linea;
+            tamañoCola++;
+        }
+    }
+
+    private void vaciarCola() {
+        while (tamañoCola > 0) {
+            enCola[cola[cabezaCola]] = false;
+            cabezaCola = (cabezaCola + 1) % cola.length;
+            tamañoCola--;
+        }
+    }
+}
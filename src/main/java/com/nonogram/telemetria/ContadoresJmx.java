@@ -0,0 +1,30 @@
+package com.nonogram.telemetria;
+
+// Expone los contadores de Telemetria por JMX.
+public class ContadoresJmx implements ContadoresJmxMBean {
+
+    @Override
+    public long getReintentosGenerador() {
+        return Telemetria.REINTENTOS_GENERADOR.sum();
+    }
+
+    @Override
+    public long getIntentosPista() {
+        return Telemetria.INTENTOS_PISTA.sum();
+    }
+
+    @Override
+    public long getNotificaciones() {
+        return Telemetria.NOTIFICACIONES.sum();
+    }
+
+    @Override
+    public long getRepintados() {
+        return Telemetria.REPINTADOS.sum();
+    }
+
+    @Override
+    public void reiniciarTodo() {
+        Telemetria.reiniciar();
+    }
+}
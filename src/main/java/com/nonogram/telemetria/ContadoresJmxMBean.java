@@ -0,0 +1,17 @@
+package com.nonogram.telemetria;
+
+// Atributos JMX de los contadores de Telemetria. Los nombres siguen la
+// convención get de JMX, que arma los atributos a partir de ellos.
+public interface ContadoresJmxMBean {
+
+    long getReintentosGenerador();
+
+    long getIntentosPista();
+
+    long getNotificaciones();
+
+    long getRepintados();
+
+    // Vuelve a cero todos los histogramas y contadores.
+    void reiniciarTodo();
+}
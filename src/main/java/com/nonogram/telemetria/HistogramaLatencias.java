@@ -0,0 +1,154 @@
+package com.nonogram.telemetria;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histograma de latencias en nanosegundos, al estilo de HdrHistogram.
+//
+// Las cubetas son log-lineales: cada potencia de dos se parte en
+// SUBCUBETAS cubetas iguales, así que cualquier valor se guarda con un error
+// relativo menor a 1/SUBCUBETAS (3 %) y todo el rango, de 1 ns a unos 18
+// minutos, entra en poco más de mil contadores. Los valores mayores cuentan
+// en la última cubeta.
+//
+// Registrar es un cálculo de índice con aritmética de bits y tres
+// operaciones atómicas, sin locks ni objetos nuevos: se puede llamar en
+// caminos calientes y desde varios hilos a la vez. Las lecturas recorren
+// las cubetas sin detener a quien registra, así que son aproximadas si se
+// hacen mientras se sigue registrando.
+public class HistogramaLatencias {
+
+    private static final int BITS_SUBCUBETA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    private static final int EXPONENTE_MAXIMO = 40; // 2^40 ns: unos 18 minutos
+    private static final int CUBETAS = (EXPONENTE_MAXIMO - BITS_SUBCUBETA + 2) * SUBCUBETAS;
+
+    private final String nombre;
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final AtomicLong cantidad = new AtomicLong();
+    private final AtomicLong suma = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    // Constructor del histograma vacío.
+    //
+    // @param nombre Nombre de lo que se mide
+    public HistogramaLatencias(String nombre) {
+        if (nombre == null || nombre.isEmpty()) {
+            throw new IllegalArgumentException("El histograma necesita un nombre");
+        }
+        this.nombre = nombre;
+    }
+
+    // Registra una duración.
+    //
+    // @param nanos Duración en nanosegundos; las negativas cuentan como 0
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cubetas.incrementAndGet(obtenerCubeta(valor));
+        cantidad.incrementAndGet();
+        suma.addAndGet(valor);
+        long anterior;
+        while (valor > (anterior = maximo.get()) && !maximo.compareAndSet(anterior, valor)) {
+            // Otro hilo subió el máximo; se vuelve a comparar
+        }
+    }
+
+    // Registra lo que pasó desde un instante. Uso: inicio = System.nanoTime();
+    // ...; histograma.registrarDesde(inicio).
+    //
+    // @param inicioNanos Valor de System.nanoTime() al empezar
+    public void registrarDesde(long inicioNanos) {
+        registrar(System.nanoTime() - inicioNanos);
+    }
+
+    // Obtiene el nombre de lo que se mide.
+    //
+    // @return Nombre del histograma
+    public String obtenerNombre() {
+        return nombre;
+    }
+
+    // Obtiene cuántas duraciones se registraron.
+    //
+    // @return Cantidad de registros
+    public long obtenerCantidad() {
+        return cantidad.get();
+    }
+
+    // Obtiene el promedio de las duraciones registradas.
+    //
+    // @return Promedio en nanosegundos, o 0 si no hay registros
+    public double obtenerPromedio() {
+        long registros = cantidad.get();
+        return registros == 0 ? 0 : (double) suma.get() / registros;
+    }
+
+    // Obtiene la mayor duración registrada.
+    //
+    // @return Máximo en nanosegundos, o 0 si no hay registros
+    public long obtenerMaximo() {
+        return maximo.get();
+    }
+
+    // Obtiene la duración bajo la cual queda un porcentaje de los registros.
+    // Es el mayor valor de la cubeta donde cae el percentil, sin pasar del máximo.
+    //
+    // @param percentil Porcentaje, de 0 a 100
+    // @return Duración en nanosegundos, o 0 si no hay registros
+    public long obtenerPercentil(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("Percentil fuera de rango: " + percentil);
+        }
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            total += cubetas.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long buscado = Math.max(1, (long) Math.ceil(total * percentil / 100));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cubetas.get(i);
+            if (acumulado >= buscado) {
+                // La última cubeta junta todo lo que no entra en el rango: lo más preciso es el máximo
+                return i == CUBETAS - 1 ? maximo.get() : Math.min(obtenerMayorValor(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    // Vuelve a cero todos los contadores. Lo que se registre mientras tanto
+    // puede quedar a medias.
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        cantidad.set(0);
+        suma.set(0);
+        maximo.set(0);
+    }
+
+    // Los valores chicos tienen una cubeta cada uno; de ahí en más, cada
+    // potencia de dos 2^e se parte según los BITS_SUBCUBETA bits que siguen al más alto
+    private static int obtenerCubeta(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        if (exponente > EXPONENTE_MAXIMO) {
+            return CUBETAS - 1;
+        }
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_SUBCUBETA + 1) * SUBCUBETAS + subcubeta;
+    }
+
+    private static long obtenerMayorValor(int cubeta) {
+        if (cubeta < SUBCUBETAS) {
+            return cubeta;
+        }
+        int desplazamiento = cubeta / SUBCUBETAS - 1;
+        long menor = (long) (SUBCUBETAS + cubeta % SUBCUBETAS) << desplazamiento;
+        return menor + (1L << desplazamiento) - 1;
+    }
+}
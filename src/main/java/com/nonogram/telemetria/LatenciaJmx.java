@@ -0,0 +1,54 @@
+package com.nonogram.telemetria;
+
+// Expone un HistogramaLatencias por JMX, en microsegundos.
+public class LatenciaJmx implements LatenciaJmxMBean {
+
+    private static final double NANOS_POR_MICRO = 1_000.0;
+
+    private final HistogramaLatencias histograma;
+
+    // @param histograma Histograma a exponer
+    public LatenciaJmx(HistogramaLatencias histograma) {
+        this.histograma = histograma;
+    }
+
+    @Override
+    public long getCantidad() {
+        return histograma.obtenerCantidad();
+    }
+
+    @Override
+    public double getPromedioMicros() {
+        return histograma.obtenerPromedio() / NANOS_POR_MICRO;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return histograma.obtenerPercentil(50) / NANOS_POR_MICRO;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return histograma.obtenerPercentil(90) / NANOS_POR_MICRO;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return histograma.obtenerPercentil(99) / NANOS_POR_MICRO;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return histograma.obtenerPercentil(99.9) / NANOS_POR_MICRO;
+    }
+
+    @Override
+    public double getMaximoMicros() {
+        return histograma.obtenerMaximo() / NANOS_POR_MICRO;
+    }
+
+    @Override
+    public void reiniciar() {
+        histograma.reiniciar();
+    }
+}
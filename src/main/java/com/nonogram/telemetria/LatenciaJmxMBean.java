@@ -0,0 +1,23 @@
+package com.nonogram.telemetria;
+
+// Atributos JMX de un histograma de latencias. Los nombres siguen la
+// convención get de JMX, que arma los atributos a partir de ellos.
+public interface LatenciaJmxMBean {
+
+    long getCantidad();
+
+    double getPromedioMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    double getMaximoMicros();
+
+    // Vuelve a cero el histograma.
+    void reiniciar();
+}
@@ -0,0 +1,58 @@
+package com.nonogram.telemetria;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Mediciones de rendimiento del juego, compartidas por todo el proceso.
+//
+// Los histogramas miden cuánto tardan las operaciones que el jugador puede
+// notar; los contadores cuentan eventos. Todo se registra sin locks ni
+// objetos nuevos, así que se deja siempre encendido: medir cuesta dos
+// lecturas de System.nanoTime y unas pocas operaciones atómicas. Se ven con
+// JMX (ver TelemetriaJmx) o con la capa de telemetría de la ventana.
+public final class Telemetria {
+
+    // Un tablero al azar con uno de los algoritmos (generarSolucionAleatoria), sin verificar
+    public static final HistogramaLatencias GENERACION_SOLUCION = new HistogramaLatencias("generarSolucionAleatoria");
+    // Un puzzle de solución única completo, con todos sus intentos y reparaciones
+    public static final HistogramaLatencias GENERACION_PUZZLE = new HistogramaLatencias("generarPuzzle");
+    public static final HistogramaLatencias PISTAS = new HistogramaLatencias("generarPistas");
+    public static final HistogramaLatencias SOLICITAR_PISTA = new HistogramaLatencias("solicitarPista");
+    public static final HistogramaLatencias VERIFICAR_SOLUCION = new HistogramaLatencias("verificarSolucion");
+    public static final HistogramaLatencias ACTUALIZAR_VISUALIZACION =
+            new HistogramaLatencias("actualizarVisualizacion");
+    // Cada cambio del modelo aplicado a la vista (actualizarCambio)
+    public static final HistogramaLatencias ACTUALIZAR_CAMBIO = new HistogramaLatencias("actualizarCambio");
+    public static final HistogramaLatencias PINTADO_GRILLA = new HistogramaLatencias("pintarGrilla");
+
+    // Tableros descartados por el generador porque no eran únicos o no caían en el rango
+    public static final LongAdder REINTENTOS_GENERADOR = new LongAdder();
+    public static final LongAdder INTENTOS_PISTA = new LongAdder();
+    public static final LongAdder NOTIFICACIONES = new LongAdder();
+    public static final LongAdder REPINTADOS = new LongAdder();
+
+    private static final HistogramaLatencias[] HISTOGRAMAS = {
+        GENERACION_SOLUCION, GENERACION_PUZZLE, PISTAS, SOLICITAR_PISTA, VERIFICAR_SOLUCION,
+        ACTUALIZAR_VISUALIZACION, ACTUALIZAR_CAMBIO, PINTADO_GRILLA
+    };
+
+    private Telemetria() {
+    }
+
+    // Obtiene todos los histogramas, en un orden fijo.
+    //
+    // @return Copia del arreglo de histogramas
+    public static HistogramaLatencias[] obtenerHistogramas() {
+        return HISTOGRAMAS.clone();
+    }
+
+    // Vuelve a cero todos los histogramas y contadores.
+    public static void reiniciar() {
+        for (HistogramaLatencias histograma : HISTOGRAMAS) {
+            histograma.reiniciar();
+        }
+        REINTENTOS_GENERADOR.reset();
+        INTENTOS_PISTA.reset();
+        NOTIFICACIONES.reset();
+        REPINTADOS.reset();
+    }
+}
@@ -0,0 +1,42 @@
+package com.nonogram.telemetria;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+
+// Registra la telemetría en el servidor de MBeans de la plataforma, donde la
+// leen jconsole o VisualVM:
+//
+//   com.nonogram:type=Latencia,name=solicitarPista    (uno por histograma)
+//   com.nonogram:type=Contadores
+public final class TelemetriaJmx {
+
+    private static final String DOMINIO = "com.nonogram";
+
+    private static boolean registrada;
+
+    private TelemetriaJmx() {
+    }
+
+    // Registra los MBeans. Llamarlo más de una vez no hace nada.
+    //
+    // @throws IllegalStateException Si el servidor de MBeans rechaza el registro
+    public static synchronized void registrar() {
+        if (registrada) {
+            return;
+        }
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (HistogramaLatencias histograma : Telemetria.obtenerHistogramas()) {
+                servidor.registerMBean(new LatenciaJmx(histograma),
+                        new ObjectName(DOMINIO + ":type=Latencia,name=" + histograma.obtenerNombre()));
+            }
+            servidor.registerMBean(new ContadoresJmx(), new ObjectName(DOMINIO + ":type=Contadores"));
+        } catch (JMException e) {
+            throw new IllegalStateException("No se pudo registrar la telemetría en JMX", e);
+        }
+        registrada = true;
+    }
+}
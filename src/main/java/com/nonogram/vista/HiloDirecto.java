@@ -0,0 +1,19 @@
+package com.nonogram.vista;
+
+import com.nonogram.model.HiloObservador;
+
+// Entrega las notificaciones del modelo en el mismo hilo que hizo el cambio,
+// sin encolarlas. Es el hilo de las vistas sin pantalla: no hay un hilo de
+// eventos y cada partida se juega entera desde un solo hilo.
+public class HiloDirecto implements HiloObservador {
+
+    @Override
+    public boolean esHiloActual() {
+        return true;
+    }
+
+    @Override
+    public void ejecutarLuego(Runnable tarea) {
+        tarea.run();
+    }
+}
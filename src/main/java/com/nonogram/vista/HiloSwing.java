@@ -0,0 +1,20 @@
+package com.nonogram.vista;
+
+import com.nonogram.model.HiloObservador;
+
+import java.awt.EventQueue;
+
+// Entrega las notificaciones del modelo en el hilo de eventos de Swing.
+// Los componentes Swing sólo se pueden tocar desde ese hilo.
+public class HiloSwing implements HiloObservador {
+
+    @Override
+    public boolean esHiloActual() {
+        return EventQueue.isDispatchThread();
+    }
+
+    @Override
+    public void ejecutarLuego(Runnable tarea) {
+        EventQueue.invokeLater(tarea);
+    }
+}
@@ -0,0 +1,479 @@
+package com.nonogram.vista;
+
+import com.nonogram.model.CambioModelo;
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.LecturaNonograma;
+import com.nonogram.telemetria.Telemetria;
+
+import javax.swing.JComponent;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Stroke;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+// Componente que dibuja las celdas de la grilla del Nonograma.
+//
+// Reemplaza la matriz de botones: todo se pinta en paintComponent con fuentes
+// y trazos creados una sola vez, y un único oyente del mouse convierte la
+// posición del puntero en (fila, columna) con aritmética. Las pistas las
+// dibujan dos PanelPistas aparte, que el JScrollPane deja fijos como
+// encabezados.
+//
+// Las celdas se pintan con trazos: apretar, arrastrar y soltar pinta una fila
+// o una columna desde la celda inicial (o un rectángulo con Shift). Mientras
+// se arrastra, el trazo se muestra sólo como una capa translúcida encima de
+// las celdas, sin tocar el modelo; al soltar se le pasa entero al oyente, que
+// lo aplica en un solo lote. Un clic es un trazo de una celda.
+//
+// La grilla es virtual: el panel no guarda nada por celda, sólo una referencia
+// al modelo (o a la última instantánea recibida) y lo lee al pintar. Como el
+// JViewport recorta el pintado al área visible, sólo se leen y dibujan las
+// celdas que se ven, así que pintar y la memoria del panel dependen del tamaño
+// de la ventana y no del tablero. Las celdas llenas seguidas de una fila se
+// pintan con un solo rectángulo y las líneas finas de a una por fila y
+// columna, no por celda.
+//
+// Es Scrollable: dentro de un JScrollPane muestra a lo sumo VISIBLE_MAXIMO
+// píxeles y el resto se recorre con las barras, de a una celda por paso. El
+// lado de las celdas se puede cambiar en cualquier momento para acercar o
+// alejar; con celdas muy chicas se omiten las marcas y las líneas.
+public class PanelGrilla extends JComponent implements Scrollable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Oyente de los trazos sobre las celdas.
+    public interface OyenteCeldas {
+
+        // Se llama al apretar el botón principal sobre una celda.
+        //
+        // @param fila Fila de la celda
+        // @param columna Columna de la celda
+        // @return Estado con el que se muestra el trazo, o null si no se puede pintar desde esa celda
+        EstadoCelda alEmpezarTrazo(int fila, int columna);
+
+        // Se llama al soltar el botón, con las esquinas del rectángulo del trazo.
+        //
+        // @param filaDesde Fila de la celda inicial
+        // @param columnaDesde Columna de la celda inicial
+        // @param filaHasta Fila de la celda final
+        // @param columnaHasta Columna de la celda final
+        void alTerminarTrazo(int filaDesde, int columnaDesde, int filaHasta, int columnaHasta);
+    }
+
+    private static final int CELDAS_POR_BLOQUE = 5; // Cada cuántas celdas se dibuja una línea gruesa
+    private static final int TAMAÑO_MINIMO_MARCAS = 8; // Por debajo no se dibujan las X ni las líneas finas
+    private static final int TAMAÑO_MINIMO_BLOQUES = 4; // Por debajo las líneas gruesas taparían las celdas
+    private static final Dimension VISIBLE_MAXIMO = new Dimension(1000, 600); // Entra en la ventana con las pistas y el minimapa
+
+    private static final Color COLOR_REVELADA = Color.BLUE;
+    private static final Color COLOR_MARCA = Color.RED;
+    private static final Color COLOR_TRAZO_LLENA = new Color(0, 0, 0, 110);
+    private static final Color COLOR_TRAZO_MARCADA = new Color(255, 0, 0, 70);
+    private static final Color COLOR_BORDE_TRAZO = new Color(30, 90, 220);
+
+    private final boolean mostrarSolucion;
+    private final Stroke trazoFino = new BasicStroke(1f);
+    private final Stroke trazoGrueso = new BasicStroke(2f);
+    private final Stroke trazoRevelada = new BasicStroke(3f);
+    private Font fuenteMarca;
+    private FontMetrics metricasMarca;
+
+    private OyenteCeldas oyente;
+    private LecturaNonograma fuente; // Modelo o instantánea de donde se leen las celdas al pintar
+    private int filas;
+    private int columnas;
+    private int tamañoCelda;
+
+    // Trazo en curso; estadoTrazo es null si no hay
+    private EstadoCelda estadoTrazo;
+    private int filaInicioTrazo;
+    private int columnaInicioTrazo;
+    private int filaFinTrazo;
+    private int columnaFinTrazo;
+
+    // Constructor del panel de juego.
+    //
+    // @param tamañoCelda Lado de cada celda en píxeles
+    public PanelGrilla(int tamañoCelda) {
+        this(tamañoCelda, false);
+    }
+
+    // Constructor del panel.
+    //
+    // @param tamañoCelda Lado de cada celda en píxeles
+    // @param mostrarSolucion true para dibujar la solución en lugar de la grilla del jugador
+    public PanelGrilla(int tamañoCelda, boolean mostrarSolucion) {
+        this.mostrarSolucion = mostrarSolucion;
+        establecerTamañoCelda(tamañoCelda);
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        // Al arrastrar fuera de la parte visible, el JScrollPane se desplaza solo
+        setAutoscrolls(true);
+        MouseAdapter oyenteMouse = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                empezarTrazo(e);
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                extenderTrazo(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                terminarTrazo(e);
+            }
+        };
+        addMouseListener(oyenteMouse);
+        addMouseMotionListener(oyenteMouse);
+    }
+
+    // Establece el oyente de los trazos sobre las celdas.
+    //
+    // @param oyente Oyente, o null para ignorar los trazos
+    public void establecerOyente(OyenteCeldas oyente) {
+        this.oyente = oyente;
+    }
+
+    // Cambia el lado de las celdas. El contenedor tiene que volver a validarse
+    // para que las barras tomen el tamaño nuevo.
+    //
+    // @param tamañoCelda Lado de cada celda en píxeles
+    public void establecerTamañoCelda(int tamañoCelda) {
+        if (tamañoCelda <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo");
+        }
+        if (tamañoCelda == this.tamañoCelda) {
+            return;
+        }
+        this.tamañoCelda = tamañoCelda;
+        this.fuenteMarca = new Font("Arial", Font.BOLD, Math.max(8, tamañoCelda * 2 / 3));
+        this.metricasMarca = null;
+        revalidate();
+        repaint();
+    }
+
+    // Obtiene el lado de las celdas.
+    //
+    // @return Lado en píxeles
+    public int obtenerTamañoCelda() {
+        return tamañoCelda;
+    }
+
+    // Toma el estado del modelo y repinta lo que se ve.
+    //
+    // @param modelo Modelo del juego o una instantánea
+    public void actualizar(LecturaNonograma modelo) {
+        fuente = modelo;
+        if (modelo.obtenerFilas() != filas || modelo.obtenerColumnas() != columnas) {
+            estadoTrazo = null; // Un trazo empezado en otra grilla ya no vale
+            filas = modelo.obtenerFilas();
+            columnas = modelo.obtenerColumnas();
+            revalidate();
+        }
+        repaint();
+    }
+
+    // Toma el estado del modelo y repinta una sola celda.
+    //
+    // @param modelo Modelo del juego o una instantánea
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    public void actualizarCelda(LecturaNonograma modelo, int fila, int columna) {
+        fuente = modelo;
+        if (fila >= 0 && fila < filas && columna >= 0 && columna < columnas) {
+            repintarCelda(fila, columna);
+        }
+    }
+
+    // Toma el estado del modelo y repinta las celdas de un cambio. Los
+    // rectángulos se juntan en un solo repintado.
+    //
+    // @param modelo Modelo del juego o una instantánea
+    // @param cambio Cambio con las celdas modificadas
+    public void actualizarCeldas(LecturaNonograma modelo, CambioModelo cambio) {
+        fuente = modelo;
+        if (columnas == 0) {
+            return;
+        }
+        for (int celda = cambio.siguienteModificada(0, columnas); celda >= 0;
+                celda = cambio.siguienteModificada(celda + 1, columnas)) {
+            repintarCelda(celda / columnas, celda % columnas);
+        }
+    }
+
+    // Pide repintar sólo el rectángulo de una celda.
+    //
+    // @param fila Fila de la celda
+    // @param columna Columna de la celda
+    public void repintarCelda(int fila, int columna) {
+        // Un píxel de más por lado para incluir las líneas que comparte con sus vecinas
+        repaint(columna * tamañoCelda - 1, fila * tamañoCelda - 1, tamañoCelda + 3, tamañoCelda + 3);
+    }
+
+    // Obtiene la fila que está en una coordenada vertical del panel.
+    //
+    // @param y Coordenada vertical en píxeles
+    // @return Fila, o -1 si la coordenada está fuera de la grilla
+    public int obtenerFilaEn(int y) {
+        int fila = Math.floorDiv(y, tamañoCelda);
+        return fila >= 0 && fila < filas ? fila : -1;
+    }
+
+    // Obtiene la columna que está en una coordenada horizontal del panel.
+    //
+    // @param x Coordenada horizontal en píxeles
+    // @return Columna, o -1 si la coordenada está fuera de la grilla
+    public int obtenerColumnaEn(int x) {
+        int columna = Math.floorDiv(x, tamañoCelda);
+        return columna >= 0 && columna < columnas ? columna : -1;
+    }
+
+    private void empezarTrazo(MouseEvent e) {
+        if (oyente == null || estadoTrazo != null || e.getButton() != MouseEvent.BUTTON1) {
+            return;
+        }
+        int fila = obtenerFilaEn(e.getY());
+        int columna = obtenerColumnaEn(e.getX());
+        if (fila < 0 || columna < 0) {
+            return;
+        }
+        estadoTrazo = oyente.alEmpezarTrazo(fila, columna);
+        filaInicioTrazo = fila;
+        columnaInicioTrazo = columna;
+        filaFinTrazo = fila;
+        columnaFinTrazo = columna;
+        repintarTrazo();
+    }
+
+    // Sin Shift el trazo sigue la fila o la columna en la que más se movió el puntero
+    private void extenderTrazo(MouseEvent e) {
+        if (estadoTrazo == null) {
+            return;
+        }
+        scrollRectToVisible(new Rectangle(e.getX(), e.getY(), 1, 1));
+        int fila = Math.max(0, Math.min(filas - 1, Math.floorDiv(e.getY(), tamañoCelda)));
+        int columna = Math.max(0, Math.min(columnas - 1, Math.floorDiv(e.getX(), tamañoCelda)));
+        if (!e.isShiftDown()) {
+            if (Math.abs(fila - filaInicioTrazo) >= Math.abs(columna - columnaInicioTrazo)) {
+                columna = columnaInicioTrazo;
+            } else {
+                fila = filaInicioTrazo;
+            }
+        }
+        if (fila == filaFinTrazo && columna == columnaFinTrazo) {
+            return;
+        }
+        // Se repinta lo que tapaba el trazo anterior y lo que tapa el nuevo
+        repintarTrazo();
+        filaFinTrazo = fila;
+        columnaFinTrazo = columna;
+        repintarTrazo();
+    }
+
+    private void terminarTrazo(MouseEvent e) {
+        if (estadoTrazo == null || e.getButton() != MouseEvent.BUTTON1) {
+            return;
+        }
+        estadoTrazo = null;
+        repintarTrazo();
+        oyente.alTerminarTrazo(filaInicioTrazo, columnaInicioTrazo, filaFinTrazo, columnaFinTrazo);
+    }
+
+    private Rectangle obtenerRectanguloTrazo() {
+        int x = Math.min(columnaInicioTrazo, columnaFinTrazo) * tamañoCelda;
+        int y = Math.min(filaInicioTrazo, filaFinTrazo) * tamañoCelda;
+        return new Rectangle(x, y, (Math.abs(columnaFinTrazo - columnaInicioTrazo) + 1) * tamañoCelda,
+                (Math.abs(filaFinTrazo - filaInicioTrazo) + 1) * tamañoCelda);
+    }
+
+    private void repintarTrazo() {
+        Rectangle rectangulo = obtenerRectanguloTrazo();
+        repaint(rectangulo.x - 2, rectangulo.y - 2, rectangulo.width + 5, rectangulo.height + 5);
+    }
+
+    // Capa del trazo en curso, encima de todo; cuesta lo mismo con cualquier largo
+    private void pintarTrazo(Graphics2D g2) {
+        Rectangle rectangulo = obtenerRectanguloTrazo();
+        g2.setColor(estadoTrazo == EstadoCelda.LLENA ? COLOR_TRAZO_LLENA : COLOR_TRAZO_MARCADA);
+        g2.fillRect(rectangulo.x, rectangulo.y, rectangulo.width, rectangulo.height);
+        g2.setStroke(trazoGrueso);
+        g2.setColor(COLOR_BORDE_TRAZO);
+        g2.drawRect(rectangulo.x, rectangulo.y, rectangulo.width, rectangulo.height);
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        // Un píxel más para la última línea
+        return new Dimension(columnas * tamañoCelda + 1, filas * tamañoCelda + 1);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferido = getPreferredSize();
+        return new Dimension(Math.min(preferido.width, VISIBLE_MAXIMO.width),
+                Math.min(preferido.height, VISIBLE_MAXIMO.height));
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visible, int orientacion, int direccion) {
+        return tamañoCelda;
+    }
+
+    // Una página menos una celda, redondeada a celdas enteras
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visible, int orientacion, int direccion) {
+        int extension = orientacion == SwingConstants.VERTICAL ? visible.height : visible.width;
+        return Math.max(tamañoCelda, (extension / tamañoCelda - 1) * tamañoCelda);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        long inicio = System.nanoTime();
+        Telemetria.REPINTADOS.increment();
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            Rectangle recorte = g2.getClipBounds();
+            if (recorte == null) {
+                recorte = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g2.setColor(getBackground());
+            g2.fillRect(recorte.x, recorte.y, recorte.width, recorte.height);
+            if (filas == 0 || fuente == null) {
+                return;
+            }
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            if (metricasMarca == null) {
+                metricasMarca = g2.getFontMetrics(fuenteMarca);
+            }
+
+            // Rango de celdas que toca el recorte
+            int primeraFila = Math.max(0, Math.floorDiv(recorte.y, tamañoCelda));
+            int ultimaFila = Math.min(filas - 1, Math.floorDiv(recorte.y + recorte.height, tamañoCelda));
+            int primeraColumna = Math.max(0, Math.floorDiv(recorte.x, tamañoCelda));
+            int ultimaColumna = Math.min(columnas - 1, Math.floorDiv(recorte.x + recorte.width, tamañoCelda));
+            if (primeraFila > ultimaFila || primeraColumna > ultimaColumna) {
+                return;
+            }
+
+            for (int fila = primeraFila; fila <= ultimaFila; fila++) {
+                pintarFila(g2, fila, primeraColumna, ultimaColumna);
+            }
+            if (tamañoCelda >= TAMAÑO_MINIMO_MARCAS) {
+                pintarLineas(g2, primeraFila, ultimaFila, primeraColumna, ultimaColumna, trazoFino, Color.GRAY, 1);
+            }
+            if (tamañoCelda >= TAMAÑO_MINIMO_BLOQUES) {
+                pintarLineas(g2, primeraFila, ultimaFila, primeraColumna, ultimaColumna, trazoGrueso, Color.BLACK,
+                        CELDAS_POR_BLOQUE);
+            }
+            if (!mostrarSolucion) {
+                for (int fila = primeraFila; fila <= ultimaFila; fila++) {
+                    pintarReveladas(g2, fila, primeraColumna, ultimaColumna);
+                }
+            }
+            if (estadoTrazo != null) {
+                pintarTrazo(g2);
+            }
+        } finally {
+            g2.dispose();
+            Telemetria.PINTADO_GRILLA.registrarDesde(inicio);
+        }
+    }
+
+    // Pinta las celdas llenas de a tramos y las marcas de una fila; el fondo ya está blanco
+    private void pintarFila(Graphics2D g2, int fila, int primeraColumna, int ultimaColumna) {
+        int y = fila * tamañoCelda;
+        boolean conMarcas = tamañoCelda >= TAMAÑO_MINIMO_MARCAS;
+        int inicioTramo = -1;
+        g2.setColor(Color.BLACK);
+        for (int columna = primeraColumna; columna <= ultimaColumna + 1; columna++) {
+            EstadoCelda estado = columna <= ultimaColumna ? leerEstado(fila, columna) : EstadoCelda.VACIA;
+            if (estado == EstadoCelda.LLENA) {
+                if (inicioTramo < 0) {
+                    inicioTramo = columna;
+                }
+                continue;
+            }
+            if (inicioTramo >= 0) {
+                g2.fillRect(inicioTramo * tamañoCelda, y, (columna - inicioTramo) * tamañoCelda, tamañoCelda);
+                inicioTramo = -1;
+            }
+            if (estado == EstadoCelda.MARCADA && conMarcas) {
+                pintarMarca(g2, columna * tamañoCelda, y);
+                g2.setColor(Color.BLACK);
+            }
+        }
+    }
+
+    private void pintarMarca(Graphics2D g2, int x, int y) {
+        g2.setFont(fuenteMarca);
+        g2.setColor(COLOR_MARCA);
+        int ancho = metricasMarca.stringWidth("X");
+        g2.drawString("X", x + (tamañoCelda - ancho) / 2,
+                y + (tamañoCelda - metricasMarca.getHeight()) / 2 + metricasMarca.getAscent());
+    }
+
+    // Las celdas reveladas como pista tienen borde azul, encima de las líneas
+    private void pintarReveladas(Graphics2D g2, int fila, int primeraColumna, int ultimaColumna) {
+        int y = fila * tamañoCelda;
+        for (int columna = primeraColumna; columna <= ultimaColumna; columna++) {
+            if (fuente.esCeldaRevelada(fila, columna)) {
+                g2.setStroke(trazoRevelada);
+                g2.setColor(COLOR_REVELADA);
+                int borde = Math.min(2, tamañoCelda / 4);
+                g2.drawRect(columna * tamañoCelda + borde, y + borde, tamañoCelda - 2 * borde, tamañoCelda - 2 * borde);
+            }
+        }
+    }
+
+    // Dibuja las líneas que separan celdas cada 'paso' celdas, sólo dentro del rango visible
+    private void pintarLineas(Graphics2D g2, int primeraFila, int ultimaFila, int primeraColumna, int ultimaColumna,
+                              Stroke trazo, Color color, int paso) {
+        g2.setStroke(trazo);
+        g2.setColor(color);
+        int xInicio = primeraColumna * tamañoCelda;
+        int xFin = (ultimaColumna + 1) * tamañoCelda;
+        int yInicio = primeraFila * tamañoCelda;
+        int yFin = (ultimaFila + 1) * tamañoCelda;
+        for (int fila = primeraFila; fila <= ultimaFila + 1; fila++) {
+            if (fila % paso == 0 || fila == filas) {
+                g2.drawLine(xInicio, fila * tamañoCelda, xFin, fila * tamañoCelda);
+            }
+        }
+        for (int columna = primeraColumna; columna <= ultimaColumna + 1; columna++) {
+            if (columna % paso == 0 || columna == columnas) {
+                g2.drawLine(columna * tamañoCelda, yInicio, columna * tamañoCelda, yFin);
+            }
+        }
+    }
+
+    // En la solución las celdas vacías se muestran marcadas
+    private EstadoCelda leerEstado(int fila, int columna) {
+        if (mostrarSolucion) {
+            return fuente.obtenerEstadoCeldaSolucion(fila, columna) == EstadoCelda.LLENA
+                    ? EstadoCelda.LLENA : EstadoCelda.MARCADA;
+        }
+        return fuente.obtenerEstadoCelda(fila, columna);
+    }
+}
@@ -0,0 +1,228 @@
+package com.nonogram.vista;
+
+import com.nonogram.model.CambioModelo;
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.LecturaNonograma;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// Vista reducida de toda la grilla con un rectángulo sobre la parte visible.
+//
+// Guarda una imagen de a lo sumo LADO x LADO píxeles en la que cada píxel
+// resume un cuadrado de celdas: es más oscuro cuantas más celdas llenas tiene.
+// La imagen se arma entera sólo cuando cambia el puzzle; cuando cambian
+// algunas celdas se recalculan únicamente los píxeles que las contienen, así
+// que pintar el minimapa cuesta lo mismo con cualquier tamaño de grilla.
+//
+// Al hacer clic o arrastrar sobre el minimapa, la grilla se desplaza para
+// centrar esa parte en la ventana.
+public class PanelMinimapa extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int LADO = 200; // Lado máximo del minimapa en píxeles
+    private static final Color COLOR_VISIBLE = Color.RED;
+
+    private final PanelGrilla grilla;
+    private final JViewport vista;
+
+    private BufferedImage imagen;
+    private int filas;
+    private int columnas;
+    private int celdasPorPixel = 1; // Lado del cuadrado de celdas que resume cada píxel
+    private double escala = 1;      // Píxeles de pantalla por píxel de la imagen
+    private long[] pixelesModificados; // Bits de los píxeles a recalcular; vacío entre cambios
+
+    // Constructor del minimapa.
+    //
+    // @param grilla Panel de la grilla que resume
+    // @param vista Parte visible del JScrollPane que contiene la grilla
+    public PanelMinimapa(PanelGrilla grilla, JViewport vista) {
+        this.grilla = grilla;
+        this.vista = vista;
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        // El rectángulo sigue a las barras y al zoom
+        vista.addChangeListener(e -> repaint());
+        MouseAdapter oyente = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                centrarEn(e.getX(), e.getY());
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                centrarEn(e.getX(), e.getY());
+            }
+        };
+        addMouseListener(oyente);
+        addMouseMotionListener(oyente);
+    }
+
+    // Vuelve a armar toda la imagen. Se usa cuando cambia el puzzle o se reinicia el tablero.
+    //
+    // @param modelo Modelo del juego o una instantánea
+    public void actualizar(LecturaNonograma modelo) {
+        if (modelo.obtenerFilas() != filas || modelo.obtenerColumnas() != columnas || imagen == null) {
+            filas = modelo.obtenerFilas();
+            columnas = modelo.obtenerColumnas();
+            celdasPorPixel = Math.max(1, (Math.max(filas, columnas) + LADO - 1) / LADO);
+            int ancho = (columnas + celdasPorPixel - 1) / celdasPorPixel;
+            int alto = (filas + celdasPorPixel - 1) / celdasPorPixel;
+            imagen = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+            escala = (double) LADO / Math.max(ancho, alto);
+            revalidate();
+        }
+        for (int y = 0; y < imagen.getHeight(); y++) {
+            for (int x = 0; x < imagen.getWidth(); x++) {
+                recalcularPixel(modelo, x, y);
+            }
+        }
+        repaint();
+    }
+
+    // Recalcula los píxeles que contienen las celdas de un cambio. Primero
+    // junta los píxeles tocados, así cada uno se recalcula una sola vez
+    // aunque tenga muchas celdas modificadas; si el cambio toca más de la
+    // mitad de las celdas o de los píxeles, se vuelve a armar toda la imagen.
+    //
+    // @param modelo Modelo del juego o una instantánea
+    // @param cambio Cambio con las celdas modificadas
+    public void actualizarCeldas(LecturaNonograma modelo, CambioModelo cambio) {
+        if (imagen == null || columnas == 0) {
+            return;
+        }
+        if (cambio.obtenerCantidadModificadas() > (long) filas * columnas / 2) {
+            actualizar(modelo); // Recorrer las celdas del cambio costaría casi lo mismo
+            return;
+        }
+        int ancho = imagen.getWidth();
+        int pixeles = ancho * imagen.getHeight();
+        if (pixelesModificados == null || pixelesModificados.length != (pixeles + 63) >>> 6) {
+            pixelesModificados = new long[(pixeles + 63) >>> 6];
+        }
+        int cantidad = 0;
+        int primeroX = ancho;
+        int primeroY = imagen.getHeight();
+        int ultimoX = -1;
+        int ultimoY = -1;
+        for (int celda = cambio.siguienteModificada(0, columnas); celda >= 0;
+                celda = cambio.siguienteModificada(celda + 1, columnas)) {
+            int fila = celda / columnas;
+            int x = (celda % columnas) / celdasPorPixel;
+            int y = fila / celdasPorPixel;
+            int pixel = y * ancho + x;
+            if ((pixelesModificados[pixel >>> 6] & (1L << pixel)) == 0) {
+                pixelesModificados[pixel >>> 6] |= 1L << pixel;
+                if (++cantidad > pixeles / 2) {
+                    Arrays.fill(pixelesModificados, 0L);
+                    actualizar(modelo);
+                    return;
+                }
+                primeroX = Math.min(primeroX, x);
+                primeroY = Math.min(primeroY, y);
+                ultimoX = Math.max(ultimoX, x);
+                ultimoY = Math.max(ultimoY, y);
+            }
+            // El resto de las celdas de esta fila dentro del mismo píxel no agrega nada
+            celda = fila * columnas + Math.min(columnas, (x + 1) * celdasPorPixel) - 1;
+        }
+        for (int palabra = 0; palabra < pixelesModificados.length; palabra++) {
+            long bits = pixelesModificados[palabra];
+            while (bits != 0) {
+                int pixel = (palabra << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                recalcularPixel(modelo, pixel % ancho, pixel / ancho);
+            }
+            pixelesModificados[palabra] = 0;
+        }
+        if (cantidad > 0) {
+            repaint(obtenerRectangulo(primeroX, primeroY).union(obtenerRectangulo(ultimoX, ultimoY)));
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (imagen == null) {
+            return new Dimension(LADO, LADO);
+        }
+        return new Dimension((int) Math.ceil(imagen.getWidth() * escala), (int) Math.ceil(imagen.getHeight() * escala));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setColor(getBackground());
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            if (imagen == null) {
+                return;
+            }
+            Dimension tamaño = getPreferredSize();
+            g2.drawImage(imagen, 0, 0, tamaño.width, tamaño.height, null);
+
+            // Rectángulo de la parte visible, pasando de píxeles de la grilla a píxeles del minimapa
+            Rectangle visible = vista.getViewRect();
+            double factor = escala / ((double) grilla.obtenerTamañoCelda() * celdasPorPixel);
+            int x = (int) (visible.x * factor);
+            int y = (int) (visible.y * factor);
+            int ancho = Math.min(tamaño.width - 1 - x, (int) Math.ceil(visible.width * factor));
+            int alto = Math.min(tamaño.height - 1 - y, (int) Math.ceil(visible.height * factor));
+            g2.setColor(COLOR_VISIBLE);
+            g2.drawRect(x, y, Math.max(1, ancho), Math.max(1, alto));
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    // Cuenta las celdas llenas del cuadrado de un píxel y lo pinta de gris proporcional
+    private void recalcularPixel(LecturaNonograma modelo, int x, int y) {
+        int primeraFila = y * celdasPorPixel;
+        int primeraColumna = x * celdasPorPixel;
+        int ultimaFila = Math.min(filas, primeraFila + celdasPorPixel);
+        int ultimaColumna = Math.min(columnas, primeraColumna + celdasPorPixel);
+        int llenas = 0;
+        for (int fila = primeraFila; fila < ultimaFila; fila++) {
+            for (int columna = primeraColumna; columna < ultimaColumna; columna++) {
+                if (modelo.obtenerEstadoCelda(fila, columna) == EstadoCelda.LLENA) {
+                    llenas++;
+                }
+            }
+        }
+        int total = (ultimaFila - primeraFila) * (ultimaColumna - primeraColumna);
+        int gris = 255 - 255 * llenas / total;
+        imagen.setRGB(x, y, gris << 16 | gris << 8 | gris);
+    }
+
+    private Rectangle obtenerRectangulo(int x, int y) {
+        int desdeX = (int) (x * escala);
+        int desdeY = (int) (y * escala);
+        return new Rectangle(desdeX, desdeY, (int) ((x + 1) * escala) - desdeX + 1, (int) ((y + 1) * escala) - desdeY + 1);
+    }
+
+    // Desplaza la grilla para que el punto (x, y) del minimapa quede en el centro de la ventana
+    private void centrarEn(int x, int y) {
+        if (imagen == null) {
+            return;
+        }
+        double factor = grilla.obtenerTamañoCelda() * celdasPorPixel / escala;
+        Rectangle visible = vista.getViewRect();
+        Dimension total = vista.getViewSize();
+        int destinoX = (int) (x * factor) - visible.width / 2;
+        int destinoY = (int) (y * factor) - visible.height / 2;
+        destinoX = Math.max(0, Math.min(destinoX, total.width - visible.width));
+        destinoY = Math.max(0, Math.min(destinoY, total.height - visible.height));
+        vista.setViewPosition(new Point(destinoX, destinoY));
+    }
+}
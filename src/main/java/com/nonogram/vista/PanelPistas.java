@@ -0,0 +1,233 @@
+package com.nonogram.vista;
+
+import com.nonogram.model.PistasNonograma;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseEvent;
+
+// Encabezado con las pistas de las filas o de las columnas de la grilla.
+//
+// Se pone como encabezado de fila o de columna del JScrollPane de la grilla,
+// que lo desplaza junto con ella en una sola dirección: las pistas quedan
+// siempre a la vista aunque la grilla se recorra. Como PanelGrilla, pinta
+// sólo las líneas que tocan el recorte y no guarda nada por celda.
+//
+// El ancho de las pistas de filas (o el alto de las de columnas) tiene un
+// máximo; si una línea tiene más bloques de los que entran, se muestran los
+// últimos, pegados a la grilla, y los demás se resumen con "…". El texto de
+// ayuda sobre cada línea muestra la pista completa. Con celdas muy chicas no
+// entran los números y sólo se dibujan las franjas.
+public class PanelPistas extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int ALTO_PISTA = 20;
+    private static final int ANCHO_PISTA = 18;
+    private static final int MARGEN = 4;
+    private static final int EXTENSION_MAXIMA = 240; // Píxeles a lo sumo en la dirección de los bloques
+    private static final int TAMAÑO_MINIMO_NUMEROS = 10; // Celdas más chicas no muestran los números
+    private static final String RESUMEN = "…";
+
+    private static final Color COLOR_FONDO_PISTAS = new Color(235, 235, 235);
+
+    private final boolean deFilas;
+    private final Font fuentePistas = new Font("Arial", Font.BOLD, 10);
+    private FontMetrics metricasPistas;
+    private String[] textosNumeros = new String[0]; // Textos de las pistas, para no crearlos en cada pintado
+
+    private PistasNonograma pistas;
+    private int lineas;       // Filas o columnas de la grilla
+    private int bloquesMaximos = 1;
+    private int tamañoCelda;
+
+    // Constructor del encabezado.
+    //
+    // @param deFilas true para las pistas de las filas, false para las de las columnas
+    // @param tamañoCelda Lado de cada celda de la grilla en píxeles
+    public PanelPistas(boolean deFilas, int tamañoCelda) {
+        this.deFilas = deFilas;
+        establecerTamañoCelda(tamañoCelda);
+        setOpaque(true);
+        setBackground(Color.WHITE);
+        // Registra el componente en el ToolTipManager; el texto sale de getToolTipText(MouseEvent)
+        setToolTipText("");
+    }
+
+    // Cambia el lado de las celdas, que tiene que ser el mismo de la grilla.
+    //
+    // @param tamañoCelda Lado de cada celda en píxeles
+    public void establecerTamañoCelda(int tamañoCelda) {
+        if (tamañoCelda <= 0) {
+            throw new IllegalArgumentException("El tamaño de celda debe ser positivo");
+        }
+        if (tamañoCelda != this.tamañoCelda) {
+            this.tamañoCelda = tamañoCelda;
+            revalidate();
+            repaint();
+        }
+    }
+
+    // Toma las pistas de un puzzle. Si son las mismas que ya tenía no hace nada.
+    //
+    // @param pistas Pistas del puzzle, o null si no hay
+    public void actualizar(PistasNonograma pistas) {
+        if (pistas == this.pistas) {
+            return;
+        }
+        this.pistas = pistas;
+        lineas = pistas == null ? 0 : deFilas ? pistas.obtenerFilas() : pistas.obtenerColumnas();
+        bloquesMaximos = 1;
+        for (int linea = 0; linea < lineas; linea++) {
+            bloquesMaximos = Math.max(bloquesMaximos, obtenerCantidad(linea));
+        }
+        textosNumeros = pistas == null ? new String[0]
+                : new String[Math.max(pistas.obtenerFilas(), pistas.obtenerColumnas()) + 1];
+        revalidate();
+        repaint();
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        int largo = lineas * tamañoCelda + 1;
+        if (deFilas) {
+            return new Dimension(Math.min(EXTENSION_MAXIMA, bloquesMaximos * ANCHO_PISTA) + MARGEN, largo);
+        }
+        return new Dimension(largo, Math.min(EXTENSION_MAXIMA, bloquesMaximos * ALTO_PISTA) + MARGEN);
+    }
+
+    @Override
+    public String getToolTipText(MouseEvent evento) {
+        int linea = Math.floorDiv(deFilas ? evento.getY() : evento.getX(), tamañoCelda);
+        if (pistas == null || linea < 0 || linea >= lineas) {
+            return null;
+        }
+        StringBuilder texto = new StringBuilder(deFilas ? "Fila " : "Columna ").append(linea + 1).append(':');
+        int cantidad = obtenerCantidad(linea);
+        if (cantidad == 0) {
+            texto.append(" 0");
+        }
+        for (int i = 0; i < cantidad; i++) {
+            texto.append(' ').append(obtenerLargo(linea, i));
+        }
+        return texto.toString();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            Rectangle recorte = g2.getClipBounds();
+            if (recorte == null) {
+                recorte = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g2.setColor(getBackground());
+            g2.fillRect(recorte.x, recorte.y, recorte.width, recorte.height);
+            if (lineas == 0) {
+                return;
+            }
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(fuentePistas);
+            if (metricasPistas == null) {
+                metricasPistas = g2.getFontMetrics(fuentePistas);
+            }
+            int desde = deFilas ? recorte.y : recorte.x;
+            int hasta = desde + (deFilas ? recorte.height : recorte.width);
+            int primera = Math.max(0, Math.floorDiv(desde, tamañoCelda));
+            int ultima = Math.min(lineas - 1, Math.floorDiv(hasta, tamañoCelda));
+            for (int linea = primera; linea <= ultima; linea++) {
+                if (deFilas) {
+                    pintarPistasFila(g2, linea);
+                } else {
+                    pintarPistasColumna(g2, linea);
+                }
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    // Las pistas de cada fila van alineadas a la derecha, pegadas a la grilla
+    private void pintarPistasFila(Graphics2D g2, int fila) {
+        int ancho = getWidth();
+        int y = fila * tamañoCelda;
+        g2.setColor((fila & 1) == 0 ? COLOR_FONDO_PISTAS : getBackground());
+        g2.fillRect(0, y, ancho, tamañoCelda);
+        if (tamañoCelda < TAMAÑO_MINIMO_NUMEROS) {
+            return;
+        }
+        g2.setColor(Color.BLACK);
+        int base = y + (tamañoCelda - metricasPistas.getHeight()) / 2 + metricasPistas.getAscent();
+        int lugares = Math.max(1, (ancho - MARGEN) / ANCHO_PISTA);
+        int cantidad = obtenerCantidad(fila);
+        if (cantidad == 0) {
+            pintarTexto(g2, obtenerTexto(0), ancho - ANCHO_PISTA, base, ANCHO_PISTA);
+        }
+        int primero = cantidad > lugares ? cantidad - lugares + 1 : 0;
+        if (primero > 0) {
+            pintarTexto(g2, RESUMEN, ancho - lugares * ANCHO_PISTA, base, ANCHO_PISTA);
+        }
+        for (int i = primero; i < cantidad; i++) {
+            pintarTexto(g2, obtenerTexto(obtenerLargo(fila, i)), ancho - (cantidad - i) * ANCHO_PISTA, base,
+                    ANCHO_PISTA);
+        }
+    }
+
+    // Las pistas de cada columna van alineadas abajo, pegadas a la grilla
+    private void pintarPistasColumna(Graphics2D g2, int columna) {
+        int alto = getHeight();
+        int x = columna * tamañoCelda;
+        g2.setColor((columna & 1) == 0 ? COLOR_FONDO_PISTAS : getBackground());
+        g2.fillRect(x, 0, tamañoCelda, alto);
+        if (tamañoCelda < TAMAÑO_MINIMO_NUMEROS) {
+            return;
+        }
+        g2.setColor(Color.BLACK);
+        int ajuste = (ALTO_PISTA - metricasPistas.getHeight()) / 2 + metricasPistas.getAscent();
+        int lugares = Math.max(1, (alto - MARGEN) / ALTO_PISTA);
+        int cantidad = obtenerCantidad(columna);
+        if (cantidad == 0) {
+            pintarTexto(g2, obtenerTexto(0), x, alto - ALTO_PISTA + ajuste, tamañoCelda);
+        }
+        int primero = cantidad > lugares ? cantidad - lugares + 1 : 0;
+        if (primero > 0) {
+            pintarTexto(g2, RESUMEN, x, alto - lugares * ALTO_PISTA + ajuste, tamañoCelda);
+        }
+        for (int i = primero; i < cantidad; i++) {
+            pintarTexto(g2, obtenerTexto(obtenerLargo(columna, i)), x, alto - (cantidad - i) * ALTO_PISTA + ajuste,
+                    tamañoCelda);
+        }
+    }
+
+    // Centra un texto en un espacio de 'ancho' píxeles que empieza en x
+    private void pintarTexto(Graphics2D g2, String texto, int x, int base, int ancho) {
+        g2.drawString(texto, x + (ancho - metricasPistas.stringWidth(texto)) / 2, base);
+    }
+
+    private int obtenerCantidad(int linea) {
+        return deFilas ? pistas.obtenerCantidadFila(linea) : pistas.obtenerCantidadColumna(linea);
+    }
+
+    private int obtenerLargo(int linea, int bloque) {
+        return deFilas ? pistas.obtenerLargoFila(linea, bloque) : pistas.obtenerLargoColumna(linea, bloque);
+    }
+
+    private String obtenerTexto(int numero) {
+        if (numero >= textosNumeros.length) {
+            return String.valueOf(numero);
+        }
+        String texto = textosNumeros[numero];
+        if (texto == null) {
+            texto = String.valueOf(numero);
+            textosNumeros[numero] = texto;
+        }
+        return texto;
+    }
+}
@@ -0,0 +1,121 @@
+package com.nonogram.vista;
+
+import com.nonogram.telemetria.HistogramaLatencias;
+import com.nonogram.telemetria.Telemetria;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.util.Locale;
+
+// Capa con la telemetría del juego (ver Telemetria), para poner encima de la
+// ventana en su JLayeredPane. Muestra para cada medición cuántas veces se
+// hizo y su p50, p99 y máximo, y debajo los contadores. Se ubica sola en la
+// esquina superior izquierda de su contenedor, lejos del minimapa.
+//
+// Mientras está oculta no hace nada; visible, vuelve a leer las mediciones
+// dos veces por segundo. Armar el texto crea objetos, pero en el hilo de
+// eventos y lejos de lo que se mide.
+public class PanelTelemetria extends JComponent {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int PERIODO = 500; // Milisegundos entre lecturas
+    private static final int MARGEN = 8;
+    private static final int RELLENO = 6;
+    private static final Color COLOR_FONDO = new Color(0, 0, 0, 180);
+
+    private final Timer temporizador;
+    private String[] lineas = new String[0];
+
+    // Constructor de la capa, oculta.
+    public PanelTelemetria() {
+        setOpaque(false);
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        temporizador = new Timer(PERIODO, event -> actualizar());
+        super.setVisible(false);
+    }
+
+    // Muestra la capa si está oculta y la oculta si está visible.
+    public void alternar() {
+        setVisible(!isVisible());
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        super.setVisible(visible);
+        if (visible) {
+            actualizar();
+            temporizador.start();
+        } else {
+            temporizador.stop();
+        }
+    }
+
+    // Vuelve a leer las mediciones, se redimensiona y se repinta
+    private void actualizar() {
+        HistogramaLatencias[] histogramas = Telemetria.obtenerHistogramas();
+        String[] nuevas = new String[histogramas.length + 3];
+        nuevas[0] = String.format(Locale.ROOT, "%-24s %8s %10s %10s %10s", "medición", "veces", "p50", "p99", "máx");
+        for (int i = 0; i < histogramas.length; i++) {
+            HistogramaLatencias histograma = histogramas[i];
+            nuevas[i + 1] = String.format(Locale.ROOT, "%-24s %8d %10s %10s %10s", histograma.obtenerNombre(),
+                    histograma.obtenerCantidad(), formatearDuracion(histograma.obtenerPercentil(50)),
+                    formatearDuracion(histograma.obtenerPercentil(99)), formatearDuracion(histograma.obtenerMaximo()));
+        }
+        nuevas[histogramas.length + 1] = String.format(Locale.ROOT, "reintentos del generador %d   intentos de pista %d",
+                Telemetria.REINTENTOS_GENERADOR.sum(), Telemetria.INTENTOS_PISTA.sum());
+        nuevas[histogramas.length + 2] = String.format(Locale.ROOT, "notificaciones %d   repintados %d",
+                Telemetria.NOTIFICACIONES.sum(), Telemetria.REPINTADOS.sum());
+        lineas = nuevas;
+
+        FontMetrics metricas = getFontMetrics(getFont());
+        int ancho = 0;
+        for (String linea : lineas) {
+            ancho = Math.max(ancho, metricas.stringWidth(linea));
+        }
+        ancho += 2 * RELLENO;
+        int alto = lineas.length * metricas.getHeight() + 2 * RELLENO;
+        setBounds(MARGEN, MARGEN, ancho, alto);
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setColor(COLOR_FONDO);
+            g2.fillRoundRect(0, 0, getWidth(), getHeight(), RELLENO * 2, RELLENO * 2);
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2.setFont(getFont());
+            g2.setColor(Color.WHITE);
+            FontMetrics metricas = g2.getFontMetrics();
+            int base = RELLENO + metricas.getAscent();
+            for (String linea : lineas) {
+                g2.drawString(linea, RELLENO, base);
+                base += metricas.getHeight();
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    // Escribe una duración con la unidad que la deja más legible
+    private static String formatearDuracion(long nanos) {
+        if (nanos < 1_000) {
+            return nanos + " ns";
+        }
+        if (nanos < 1_000_000) {
+            return String.format(Locale.ROOT, "%.1f µs", nanos / 1e3);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format(Locale.ROOT, "%.2f ms", nanos / 1e6);
+        }
+        return String.format(Locale.ROOT, "%.2f s", nanos / 1e9);
+    }
+}
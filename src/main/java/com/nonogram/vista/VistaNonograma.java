@@ -1,6 +1,7 @@
 package com.nonogram.vista;
 
-import com.nonogram.model.ModeloNonograma;
+import com.nonogram.model.CambioModelo;
+import com.nonogram.model.LecturaNonograma;
 
 // Interfaz de la vista del Nonograma.
 // 
@@ -15,16 +16,32 @@ public interface VistaNonograma {
     // Este método es llamado cuando el modelo cambia.
     void actualizarVisualizacion();
     
+    // Actualiza sólo lo que indica un cambio del modelo: una celda, toda la
+    // grilla, las pistas o la información de la partida.
+    // 
+    // @param cambio Cambio notificado por el modelo
+    void actualizarCambio(CambioModelo cambio);
+    
     // Muestra un mensaje de victoria cuando el jugador gana.
     void mostrarJuegoGanado();
     
     // Muestra un mensaje de derrota cuando el jugador pierde.
     void mostrarJuegoPerdido();
     
+    // Muestra el resultado de importar una colección de puzzles al catálogo.
+    // 
+    // @param mensaje Resumen de la importación o del error
+    void mostrarResultadoImportacion(String mensaje);
+    
     // Muestra la solución del puzzle.
     // 
-    // @param modelo El modelo con la solución
-    void mostrarSolucion(ModeloNonograma modelo);
+    // @param modelo El modelo, o una instantánea, con la solución
+    void mostrarSolucion(LecturaNonograma modelo);
+    
+    // Muestra u oculta que hay acciones que el modelo todavía está procesando.
+    // 
+    // @param procesando true si hay comandos pendientes
+    void mostrarProcesando(boolean procesando);
     
     // Establece el controlador para manejar los eventos de la vista.
     // 
@@ -1,35 +1,61 @@
 package com.nonogram.vista;
 
 import com.nonogram.controlador.ControladorNonograma;
+import com.nonogram.model.CambioModelo;
 import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.LecturaNonograma;
 import com.nonogram.model.ModeloNonograma;
 import com.nonogram.model.NivelDificultad;
+import com.nonogram.model.TipoCambio;
+import com.nonogram.telemetria.Telemetria;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionListener;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
-import java.util.List;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNonograma {
     
     private static final long serialVersionUID = 1L;
-    private static final int ALTO_PISTA = 20;
-    private static final int ANCHO_PISTA_MINIMO = 15; // Ancho mínimo para las pistas
+    private static final int TAMAÑO_CELDA_MAXIMO = 30;
+    private static final int TAMAÑO_CELDA_MINIMO = 8;
+    private static final int LADO_GRILLA = 600; // Lado máximo de la grilla en píxeles
+    // Lados de celda entre los que se puede acercar y alejar
+    private static final int[] NIVELES_ZOOM = {2, 3, 4, 6, 8, 10, 12, 15, 20, 25, 30, 40};
+    private static final int DEMORA_PROCESANDO = 150; // Milisegundos antes de mostrar que se está procesando
     
     private ControladorNonograma controlador;
-    private JPanel panelGrilla;
-    private JButton[][] botonesCelda;
-    private JLabel[][] etiquetasPistasFilas;
-    private JLabel[][] etiquetasPistasColumnas;
+    private PanelGrilla panelGrilla;             // Dibuja sólo las celdas visibles
+    private PanelPistas panelPistasFilas;        // Encabezados fijos del JScrollPane
+    private PanelPistas panelPistasColumnas;
+    private PanelMinimapa panelMinimapa;
+    private PanelTelemetria panelTelemetria;     // Capa opcional con las mediciones, Ctrl+T
+    private JScrollPane desplazamientoGrilla;
+    private JPanel panelCentral;     // Centra la grilla; se vuelve a disponer cuando cambia su tamaño
+    private int filasMostradas;      // Tamaño de la grilla mostrada, para no perder el zoom con el mismo tamaño
+    private int columnasMostradas;
     private JButton botonNuevoJuego;
+    private JButton botonTamaño;
+    private JButton botonAcercar;
+    private JButton botonAlejar;
     private JButton botonReiniciar;
     private JButton botonSolucion;
     private JButton botonInsertarSolucion;
     private JButton botonDarPista;
+    private JButton botonDeshacer;
+    private JButton botonRehacer;
+    private JButton botonGuardar;
+    private JButton botonCargar;
+    private JButton botonImportar;
+    private JFileChooser selectorArchivo;
+    private boolean sincronizandoNivel;       // Evita que mover el selector desde el modelo cambie de nivel
     private JLabel etiquetaEstado;
     private JLabel etiquetaPistas;
+    private JLabel etiquetaProcesando;
+    private Timer temporizadorProcesando;     // Las acciones rápidas no llegan a mostrar "Procesando…"
     private JComboBox<NivelDificultad> selectorNivel;
     
     public VistaNonogramaWindowBuilderNuevo() {
@@ -46,21 +72,45 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
         // Tamaño fijo para el nivel más grande (Experto: 20x20)
         setSize(1600, 1000);
         
-        panelGrilla = new JPanel();
-        panelGrilla.setLayout(new GridBagLayout());
-        
-        inicializarComponentesDinamicos(NivelDificultad.FACIL);
+        int ladoInicial = NivelDificultad.FACIL.obtenerTamañoGrilla();
+        int tamañoInicial = obtenerTamañoCelda(ladoInicial, ladoInicial);
+        panelGrilla = new PanelGrilla(tamañoInicial);
+        panelPistasFilas = new PanelPistas(true, tamañoInicial);
+        panelPistasColumnas = new PanelPistas(false, tamañoInicial);
+        desplazamientoGrilla = crearDesplazamiento(panelGrilla);
+        desplazamientoGrilla.setRowHeaderView(panelPistasFilas);
+        desplazamientoGrilla.setColumnHeaderView(panelPistasColumnas);
+        JPanel esquina = new JPanel();
+        esquina.setBackground(Color.WHITE);
+        desplazamientoGrilla.setCorner(ScrollPaneConstants.UPPER_LEFT_CORNER, esquina);
+        panelMinimapa = new PanelMinimapa(panelGrilla, desplazamientoGrilla.getViewport());
+        panelTelemetria = new PanelTelemetria();
         
         selectorNivel = new JComboBox<>(NivelDificultad.values());
         selectorNivel.setSelectedItem(NivelDificultad.FACIL);
         selectorNivel.setFocusable(false); // Deshabilitar focus para evitar subrayado
         
         botonNuevoJuego = new JButton("Nuevo Juego");
+        botonTamaño = new JButton("Tamaño...");
+        botonTamaño.setToolTipText("Juega un tablero de cualquier tamaño, hasta "
+                + ModeloNonograma.LADO_MAXIMO + "x" + ModeloNonograma.LADO_MAXIMO);
+        botonAcercar = new JButton("+");
+        botonAcercar.setToolTipText("Acercar (Ctrl++ o Ctrl+rueda)");
+        botonAlejar = new JButton("-");
+        botonAlejar.setToolTipText("Alejar (Ctrl+- o Ctrl+rueda)");
         botonReiniciar = new JButton("Reiniciar");
         botonSolucion = new JButton("Ver Solución");
         botonSolucion.setEnabled(false); // Deshabilitado inicialmente
         botonInsertarSolucion = new JButton("Insertar Solución");
         botonDarPista = new JButton("Dar Pista (3)");
+        botonDeshacer = new JButton("Deshacer");
+        botonDeshacer.setToolTipText("Ctrl+Z");
+        botonRehacer = new JButton("Rehacer");
+        botonGuardar = new JButton("Guardar");
+        botonCargar = new JButton("Cargar");
+        botonImportar = new JButton("Importar");
+        botonImportar.setToolTipText("Agrega una colección de puzzles (.non, XML o JSON) al catálogo");
+        botonRehacer.setToolTipText("Ctrl+Y");
         
         etiquetaEstado = new JLabel("Nonograma - Creado por Ulises Fonseca y Kevin Cordua - Programación III UNGS");
         etiquetaEstado.setHorizontalAlignment(SwingConstants.CENTER);
@@ -69,6 +119,18 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
         etiquetaPistas = new JLabel("Pistas disponibles: 3");
         etiquetaPistas.setHorizontalAlignment(SwingConstants.CENTER);
         etiquetaPistas.setFont(new Font("Arial", Font.BOLD, 12));
+        
+        // Reserva el lugar del texto para que el título no se mueva al mostrarlo
+        etiquetaProcesando = new JLabel("Procesando…");
+        etiquetaProcesando.setFont(new Font("Arial", Font.ITALIC, 12));
+        etiquetaProcesando.setBorder(BorderFactory.createEmptyBorder(0, 8, 0, 8));
+        etiquetaProcesando.setPreferredSize(etiquetaProcesando.getPreferredSize());
+        etiquetaProcesando.setText("");
+        temporizadorProcesando = new Timer(DEMORA_PROCESANDO, event -> {
+            etiquetaProcesando.setText("Procesando…");
+            setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        });
+        temporizadorProcesando.setRepeats(false);
     }
     
     private void configurarDiseno() {
@@ -78,135 +140,92 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
         panelBotones.add(new JLabel("Nivel: "));
         panelBotones.add(selectorNivel);
         panelBotones.add(botonNuevoJuego);
+        panelBotones.add(botonTamaño);
+        panelBotones.add(botonAlejar);
+        panelBotones.add(botonAcercar);
         panelBotones.add(botonReiniciar);
         panelBotones.add(botonSolucion);
         panelBotones.add(botonInsertarSolucion);
         panelBotones.add(botonDarPista);
+        panelBotones.add(botonDeshacer);
+        panelBotones.add(botonRehacer);
+        panelBotones.add(botonGuardar);
+        panelBotones.add(botonCargar);
+        panelBotones.add(botonImportar);
         
         JPanel panelSuperior = new JPanel(new BorderLayout());
         panelSuperior.add(etiquetaEstado, BorderLayout.CENTER);
+        panelSuperior.add(etiquetaProcesando, BorderLayout.EAST);
         
-        JPanel panelGrillaConPistas = new JPanel(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        
-        NivelDificultad nivelActual = (NivelDificultad) selectorNivel.getSelectedItem();
-        int tamañoActual = nivelActual.obtenerTamañoGrilla();
-        int columnasPistas = etiquetasPistasColumnas.length; // Usar el número real de columnas
-        
-        // Agregar pistas de columnas (arriba de la grilla)
-        for (int i = 0; i < columnasPistas; i++) {
-            for (int columna = 0; columna < tamañoActual; columna++) {
-                gbc.gridx = columna + columnasPistas; // Ajustar offset según columnas de pistas
-                gbc.gridy = i;
-                gbc.weightx = 0.0;
-                gbc.weighty = 0.0;
-                gbc.insets = new Insets(1, 1, 1, 1);
-                panelGrillaConPistas.add(etiquetasPistasColumnas[i][columna], gbc);
-            }
-        }
-        
-        // Agregar pistas de filas (izquierda de la grilla)
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            for (int i = 0; i < columnasPistas; i++) {
-                gbc.gridx = i;
-                gbc.gridy = fila + columnasPistas; // Ajustar offset según columnas de pistas
-                gbc.weightx = 0.0;
-                gbc.weighty = 0.0;
-                gbc.insets = new Insets(1, 1, 1, 1);
-                panelGrillaConPistas.add(etiquetasPistasFilas[fila][i], gbc);
-            }
-        }
+        // La grilla queda centrada en el espacio disponible; si no entra, se recorre con las barras
+        panelCentral = new JPanel(new GridBagLayout());
+        panelCentral.add(desplazamientoGrilla, new GridBagConstraints());
         
-        // Agregar botones de la grilla
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            for (int columna = 0; columna < tamañoActual; columna++) {
-                gbc.gridx = columna + columnasPistas; // Ajustar offset según columnas de pistas
-                gbc.gridy = fila + columnasPistas; // Ajustar offset según columnas de pistas
-                gbc.weightx = 0.0;
-                gbc.weighty = 0.0;
-                gbc.insets = new Insets(1, 1, 1, 1);
-                panelGrillaConPistas.add(botonesCelda[fila][columna], gbc);
-            }
-        }
-        
-        JPanel panelCentral = new JPanel(new GridBagLayout());
-        GridBagConstraints gbcCentral = new GridBagConstraints();
-        
-        // Calcular el offset para centrar la grilla según el nivel
-        int tamañoMaximo = 20; // Tamaño del nivel Experto
-        int offsetX = (tamañoMaximo - tamañoActual) / 2;
-        int offsetY = (tamañoMaximo - tamañoActual) / 2;
-        
-        gbcCentral.gridx = offsetX;
-        gbcCentral.gridy = offsetY;
-        gbcCentral.weightx = 0.0;
-        gbcCentral.weighty = 0.0;
-        gbcCentral.anchor = GridBagConstraints.CENTER;
-        gbcCentral.insets = new Insets(offsetY * 10, offsetX * 10, offsetY * 10, offsetX * 10);
-        panelCentral.add(panelGrillaConPistas, gbcCentral);
+        // El minimapa queda a la derecha, arriba
+        JPanel panelLateral = new JPanel(new BorderLayout());
+        panelLateral.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        panelLateral.add(panelMinimapa, BorderLayout.NORTH);
         
         add(panelSuperior, BorderLayout.NORTH);
         add(panelCentral, BorderLayout.CENTER);
+        add(panelLateral, BorderLayout.EAST);
         add(panelBotones, BorderLayout.SOUTH);
         
+        // La telemetría flota encima de todo; con -Dnonograma.telemetria=true empieza visible
+        getLayeredPane().add(panelTelemetria, JLayeredPane.PALETTE_LAYER);
+        panelTelemetria.setVisible(Boolean.getBoolean("nonograma.telemetria"));
+        
         setLocationRelativeTo(null);
     }
     
     private void configurarManejadoresEventos() {
-        int tamañoActual = botonesCelda != null ? botonesCelda.length : 5;
-        
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            for (int columna = 0; columna < tamañoActual; columna++) {
-                if (botonesCelda[fila][columna].getMouseListeners().length > 0) {
-                    botonesCelda[fila][columna].removeMouseListener(botonesCelda[fila][columna].getMouseListeners()[0]);
+        // Un solo oyente para toda la grilla; cada trazo llega al modelo como un lote
+        panelGrilla.establecerOyente(new PanelGrilla.OyenteCeldas() {
+            private long puzzleTrazo; // Puzzle que se veía al empezar el trazo
+            
+            @Override
+            public EstadoCelda alEmpezarTrazo(int fila, int columna) {
+                if (controlador == null) {
+                    return null;
                 }
+                puzzleTrazo = controlador.obtenerLectura().obtenerNumeroPuzzle();
+                return controlador.obtenerEstadoTrazo(fila, columna);
             }
-        }
-        
-        for (ActionListener listener : botonNuevoJuego.getActionListeners()) {
-            botonNuevoJuego.removeActionListener(listener);
-        }
-        for (ActionListener listener : botonReiniciar.getActionListeners()) {
-            botonReiniciar.removeActionListener(listener);
-        }
-        for (ActionListener listener : botonSolucion.getActionListeners()) {
-            botonSolucion.removeActionListener(listener);
-        }
-        for (ActionListener listener : botonInsertarSolucion.getActionListeners()) {
-            botonInsertarSolucion.removeActionListener(listener);
-        }
-        for (ActionListener listener : botonDarPista.getActionListeners()) {
-            botonDarPista.removeActionListener(listener);
-        }
-        for (ActionListener listener : selectorNivel.getActionListeners()) {
-            selectorNivel.removeActionListener(listener);
-        }
-        
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            for (int columna = 0; columna < tamañoActual; columna++) {
-                final int filaFinal = fila;
-                final int columnaFinal = columna;
-                
-                                 botonesCelda[fila][columna].addMouseListener(new MouseAdapter() {
-                     @Override
-                     public void mouseClicked(MouseEvent e) {
-                         if (controlador != null) {
-                             controlador.manejarClicCelda(filaFinal, columnaFinal);
-                         }
-                     }
-                 });
+            
+            @Override
+            public void alTerminarTrazo(int filaDesde, int columnaDesde, int filaHasta, int columnaHasta) {
+                if (controlador != null) {
+                    alTerminar(controlador.pintarTrazo(puzzleTrazo, filaDesde, columnaDesde, filaHasta, columnaHasta));
+                }
             }
-        }
+        });
         
         botonNuevoJuego.addActionListener(event -> {
             if (controlador != null) {
-                controlador.nuevoJuego();
+                alTerminar(controlador.nuevoJuego());
+            }
+        });
+        
+        botonTamaño.addActionListener(event -> pedirTamañoPersonalizado());
+        botonAcercar.addActionListener(event -> cambiarZoom(1, null));
+        botonAlejar.addActionListener(event -> cambiarZoom(-1, null));
+        
+        // Ctrl+rueda acerca o aleja alrededor del puntero; sin Ctrl, la rueda desplaza como siempre
+        panelGrilla.addMouseWheelListener(event -> {
+            if (event.isControlDown()) {
+                cambiarZoom(event.getWheelRotation() < 0 ? 1 : -1,
+                    SwingUtilities.convertPoint(panelGrilla, event.getPoint(), desplazamientoGrilla.getViewport()));
+            } else {
+                // Un oyente de la rueda en el panel le saca los eventos al JScrollPane; se los devuelve
+                MouseWheelEvent convertido = (MouseWheelEvent) SwingUtilities.convertMouseEvent(
+                    panelGrilla, event, desplazamientoGrilla);
+                desplazamientoGrilla.dispatchEvent(convertido);
             }
         });
         
         botonReiniciar.addActionListener(event -> {
             if (controlador != null) {
-                controlador.reiniciarJuego();
+                alTerminar(controlador.reiniciarJuego());
             }
         });
         
@@ -218,155 +237,339 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
         
         botonInsertarSolucion.addActionListener(event -> {
             if (controlador != null) {
-                controlador.verificarSolucion();
+                alTerminar(controlador.verificarSolucion());
             }
         });
         
         botonDarPista.addActionListener(event -> {
             if (controlador != null) {
-                boolean pistaRevelada = controlador.solicitarPista();
-                if (pistaRevelada) {
-                    actualizarContadorPistas();
-                } else {
-                    JOptionPane.showMessageDialog(this,
-                        "No hay pistas disponibles o no se puede revelar más celdas.",
-                        "Sin pistas",
-                        JOptionPane.INFORMATION_MESSAGE);
-                }
+                // El contador se actualiza con el cambio de la pista, que llega antes que el resultado
+                alTerminar(controlador.solicitarPista(), "No se pudo dar la pista: ", "Error", pistaRevelada -> {
+                    if (!pistaRevelada) {
+                        JOptionPane.showMessageDialog(this,
+                            "No hay pistas disponibles o no se puede revelar más celdas.",
+                            "Sin pistas",
+                            JOptionPane.INFORMATION_MESSAGE);
+                    }
+                });
+            }
+        });
+        
+        botonDeshacer.addActionListener(event -> deshacer());
+        botonRehacer.addActionListener(event -> rehacer());
+        botonGuardar.addActionListener(event -> guardarPartida());
+        botonCargar.addActionListener(event -> cargarPartida());
+        botonImportar.addActionListener(event -> importarColeccion());
+        
+        // Atajos de teclado para toda la ventana
+        JRootPane raiz = getRootPane();
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control Z"), "deshacer");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control Y"), "rehacer");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control EQUALS"), "acercar");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control PLUS"), "acercar");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control ADD"), "acercar");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control MINUS"), "alejar");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control SUBTRACT"), "alejar");
+        raiz.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("control T"), "telemetria");
+        raiz.getActionMap().put("telemetria", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                panelTelemetria.alternar();
+            }
+        });
+        raiz.getActionMap().put("acercar", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cambiarZoom(1, null);
+            }
+        });
+        raiz.getActionMap().put("alejar", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                cambiarZoom(-1, null);
+            }
+        });
+        raiz.getActionMap().put("deshacer", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                deshacer();
+            }
+        });
+        raiz.getActionMap().put("rehacer", new AbstractAction() {
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                rehacer();
             }
         });
         
         selectorNivel.addActionListener(e -> {
+            if (sincronizandoNivel) {
+                return;
+            }
             NivelDificultad nivelSeleccionado = (NivelDificultad) selectorNivel.getSelectedItem();
             cambiarNivel(nivelSeleccionado);
         });
     }
     
-    private int obtenerTamañoCelda() {
-        // Tamaño fijo para todos los niveles, optimizado para la ventana de 1600x1000
-        return 30; // Tamaño consistente para todos los niveles
-    }
-    
-    private void ajustarTamañoVentana() {
-        // No cambiar el tamaño de la ventana, solo centrarla
-        setLocationRelativeTo(null);
+    private void deshacer() {
+        if (controlador != null) {
+            alTerminar(controlador.deshacer());
+        }
     }
     
-    private void cambiarNivel(NivelDificultad nuevoNivel) {
-        // Limpiar la interfaz actual
-        getContentPane().removeAll();
-        
-        // Reinicializar componentes con el nuevo nivel
-        inicializarComponentesDinamicos(nuevoNivel);
-        
-        // Reconfigurar el diseño
-        configurarDiseno();
-        
-        // Reconfigurar los manejadores de eventos
-        configurarManejadoresEventos();
-        
-        // Ajustar la posición de la ventana
-        ajustarTamañoVentana();
-        
-        // Notificar al controlador del cambio de nivel
+    private void rehacer() {
         if (controlador != null) {
-            controlador.cambiarNivel(nuevoNivel);
+            alTerminar(controlador.rehacer());
         }
-        
-        // Actualizar la interfaz
-        revalidate();
-        repaint();
     }
     
-    @Override
-    public void actualizarVisualizacion() {
-        if (controlador == null) return;
-        
-        ModeloNonograma modelo = controlador.obtenerModelo();
-        int tamañoActual = modelo.obtenerTamañoGrilla();
-        
-        if (botonesCelda == null || botonesCelda.length != tamañoActual) {
-            getContentPane().removeAll();
-            inicializarComponentesDinamicos(modelo.obtenerNivelActual());
-            configurarDiseno();
-            configurarManejadoresEventos();
-            revalidate();
-            repaint();
-            SwingUtilities.invokeLater(() -> {
-                revalidate();
-                repaint();
-            });
+    // Pide filas y columnas ("30x80") y empieza un tablero sin nivel de ese tamaño
+    private void pedirTamañoPersonalizado() {
+        if (controlador == null) {
             return;
         }
-        
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            for (int columna = 0; columna < tamañoActual; columna++) {
-                EstadoCelda estado = modelo.obtenerEstadoCelda(fila, columna);
-                boolean esPista = modelo.esCeldaRevelada(fila, columna);
-                actualizarBotonCelda(botonesCelda[fila][columna], estado, esPista);
-            }
+        String texto = JOptionPane.showInputDialog(this,
+            "Filas x columnas (hasta " + ModeloNonograma.LADO_MAXIMO + " de cada lado):", "30x30");
+        if (texto == null) {
+            return;
         }
-        
-        List<List<Integer>> pistasFilas = modelo.obtenerPistasFilas();
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            List<Integer> pistas = pistasFilas.get(fila);
-            for (int i = 0; i < etiquetasPistasFilas[fila].length; i++) {
-                String textoPista = (i < pistas.size()) ? String.valueOf(pistas.get(i)) : "";
-                etiquetasPistasFilas[fila][i].setText(textoPista);
+        String[] partes = texto.strip().split("\\s*[xX*,]\\s*|\\s+");
+        try {
+            if (partes.length != 2) {
+                throw new IllegalArgumentException("Escribí las filas y las columnas, por ejemplo 30x80");
             }
+            // Un lado fuera de rango lo rechaza el modelo, y el error llega con el futuro
+            alTerminar(controlador.nuevoJuegoPersonalizado(Integer.parseInt(partes[0]), Integer.parseInt(partes[1])),
+                "Tamaño inválido: ", "Tamaño", null);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException también es IllegalArgumentException
+            JOptionPane.showMessageDialog(this,
+                "Tamaño inválido: " + e.getMessage(),
+                "Tamaño",
+                JOptionPane.ERROR_MESSAGE);
         }
-        
-        List<List<Integer>> pistasColumnas = modelo.obtenerPistasColumnas();
-        for (int columna = 0; columna < tamañoActual; columna++) {
-            List<Integer> pistas = pistasColumnas.get(columna);
-            for (int i = 0; i < etiquetasPistasColumnas.length; i++) {
-                String textoPista = (i < pistas.size()) ? String.valueOf(pistas.get(i)) : "";
-                etiquetasPistasColumnas[i][columna].setText(textoPista);
+    }
+    
+    private void guardarPartida() {
+        if (controlador == null || obtenerSelectorArchivo().showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        alTerminar(controlador.guardarPartida(selectorArchivo.getSelectedFile().toPath()),
+            "No se pudo guardar la partida: ", "Error al guardar", null);
+    }
+    
+    private void cargarPartida() {
+        if (controlador == null || obtenerSelectorArchivo().showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        alTerminar(controlador.cargarPartida(selectorArchivo.getSelectedFile().toPath()),
+            "No se pudo cargar la partida: ", "Error al cargar", null);
+    }
+    
+    private void importarColeccion() {
+        if (controlador == null || obtenerSelectorArchivo().showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            controlador.importarColeccion(selectorArchivo.getSelectedFile().toPath());
+            botonImportar.setEnabled(false);
+        } catch (IllegalStateException e) {
+            mostrarResultadoImportacion(e.getMessage());
+        }
+    }
+    
+    // Muestra el error de una acción que falló. Para las acciones cuyo
+    // resultado no se usa.
+    private void alTerminar(CompletableFuture<?> comando) {
+        alTerminar(comando, "No se pudo completar la acción: ", "Error", null);
+    }
+    
+    // Ejecuta en el hilo de eventos lo que sigue a una acción del controlador
+    // o, si la acción falló, muestra el error. Corre después de que la vista
+    // recibió los cambios de la acción.
+    //
+    // @param comando Futuro de la acción
+    // @param mensajeError Comienzo del mensaje si la acción falla
+    // @param tituloError Título del mensaje de error
+    // @param siguiente Qué hacer con el resultado, o null para nada
+    private <T> void alTerminar(CompletableFuture<T> comando, String mensajeError, String tituloError,
+                                Consumer<T> siguiente) {
+        comando.whenCompleteAsync((resultado, error) -> {
+            if (error != null) {
+                Throwable causa = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                JOptionPane.showMessageDialog(this,
+                    mensajeError + causa.getMessage(),
+                    tituloError,
+                    JOptionPane.ERROR_MESSAGE);
+            } else if (siguiente != null) {
+                siguiente.accept(resultado);
             }
+        }, SwingUtilities::invokeLater);
+    }
+    
+    // El selector de archivos se crea la primera vez que se usa, porque es lento de armar
+    private JFileChooser obtenerSelectorArchivo() {
+        if (selectorArchivo == null) {
+            selectorArchivo = new JFileChooser();
         }
-        
-        actualizarEstadoJuego();
-        actualizarContadorPistas();
-        revalidate();
-        repaint();
+        return selectorArchivo;
     }
     
-    private void actualizarBotonCelda(JButton boton, EstadoCelda estado) {
-        switch (estado) {
-            case VACIA:
-                boton.setBackground(Color.WHITE);
-                boton.setText("");
-                break;
-            case LLENA:
-                boton.setBackground(Color.BLACK);
-                boton.setText("");
-                break;
-            case MARCADA:
-                boton.setBackground(Color.WHITE);
-                boton.setText("X");
-                boton.setForeground(Color.RED);
-                break;
+    // Mueve el selector de nivel al nivel del modelo sin volver a cambiar de nivel
+    private void sincronizarSelectorNivel() {
+        sincronizandoNivel = true;
+        try {
+            selectorNivel.setSelectedItem(controlador.obtenerNivelActual());
+        } finally {
+            sincronizandoNivel = false;
         }
     }
     
-    private void actualizarBotonCelda(JButton boton, EstadoCelda estado, boolean esPista) {
-        actualizarBotonCelda(boton, estado);
-        
-        if (esPista) {
-            // Las pistas reveladas tienen borde azul
-            boton.setBorder(BorderFactory.createCompoundBorder(
-                BorderFactory.createLineBorder(Color.BLUE, 3),
-                BorderFactory.createLineBorder(Color.BLACK, 1)
-            ));
-        } else {
-            boton.setBorder(BorderFactory.createLineBorder(Color.BLACK));
+    // Las grillas chicas usan celdas de 30 píxeles; las grandes achican las
+    // celdas para que la grilla entre en la ventana, hasta un mínimo legible a
+    // partir del cual la grilla se recorre con las barras. El lado se redondea
+    // hacia abajo a un nivel de zoom.
+    private int obtenerTamañoCelda(int filas, int columnas) {
+        int tamaño = Math.max(TAMAÑO_CELDA_MINIMO, Math.min(TAMAÑO_CELDA_MAXIMO, LADO_GRILLA / Math.max(filas, columnas)));
+        return NIVELES_ZOOM[obtenerNivelZoom(tamaño)];
+    }
+    
+    // Índice del mayor nivel de zoom que no supera un lado de celda
+    private static int obtenerNivelZoom(int tamañoCelda) {
+        int nivel = 0;
+        while (nivel + 1 < NIVELES_ZOOM.length && NIVELES_ZOOM[nivel + 1] <= tamañoCelda) {
+            nivel++;
+        }
+        return nivel;
+    }
+    
+    // Pasa al nivel de zoom siguiente o anterior sin mover el punto de la
+    // grilla que está bajo el ancla.
+    //
+    // @param paso 1 para acercar, -1 para alejar
+    // @param ancla Punto de la parte visible que queda fijo, o null para el centro
+    private void cambiarZoom(int paso, Point ancla) {
+        int actual = panelGrilla.obtenerTamañoCelda();
+        int nivel = Math.max(0, Math.min(NIVELES_ZOOM.length - 1, obtenerNivelZoom(actual) + paso));
+        int nuevo = NIVELES_ZOOM[nivel];
+        if (nuevo == actual) {
+            return;
+        }
+        JViewport vista = desplazamientoGrilla.getViewport();
+        Rectangle visible = vista.getViewRect();
+        Point fijo = ancla != null ? ancla : new Point(visible.width / 2, visible.height / 2);
+        double x = (visible.x + fijo.x) / (double) actual;
+        double y = (visible.y + fijo.y) / (double) actual;
+        
+        aplicarTamañoCelda(nuevo);
+        redisponerGrilla();
+        // Se valida ya para que la vista conozca el tamaño nuevo antes de moverla
+        panelCentral.validate();
+        
+        Dimension total = vista.getViewSize();
+        Dimension extension = vista.getExtentSize();
+        int destinoX = Math.max(0, Math.min((int) (x * nuevo) - fijo.x, total.width - extension.width));
+        int destinoY = Math.max(0, Math.min((int) (y * nuevo) - fijo.y, total.height - extension.height));
+        vista.setViewPosition(new Point(destinoX, destinoY));
+    }
+    
+    // La grilla y sus encabezados tienen que usar siempre el mismo lado de celda
+    private void aplicarTamañoCelda(int tamañoCelda) {
+        panelGrilla.establecerTamañoCelda(tamañoCelda);
+        panelPistasFilas.establecerTamañoCelda(tamañoCelda);
+        panelPistasColumnas.establecerTamañoCelda(tamañoCelda);
+    }
+    
+    // Muestra un puzzle entero: celdas, pistas y minimapa. El zoom vuelve al
+    // que le corresponde sólo si cambió el tamaño de la grilla.
+    private void mostrarPuzzle(LecturaNonograma modelo) {
+        if (modelo.obtenerFilas() != filasMostradas || modelo.obtenerColumnas() != columnasMostradas) {
+            filasMostradas = modelo.obtenerFilas();
+            columnasMostradas = modelo.obtenerColumnas();
+            aplicarTamañoCelda(obtenerTamañoCelda(filasMostradas, columnasMostradas));
         }
+        panelGrilla.actualizar(modelo);
+        panelPistasFilas.actualizar(modelo.obtenerPistas());
+        panelPistasColumnas.actualizar(modelo.obtenerPistas());
+        panelMinimapa.actualizar(modelo);
+        redisponerGrilla();
     }
     
-    private void actualizarEstadoJuego() {
+    // Envuelve un panel de grilla en un panel con barras de desplazamiento.
+    private static JScrollPane crearDesplazamiento(PanelGrilla panel) {
+        JScrollPane desplazamiento = new JScrollPane(panel);
+        desplazamiento.setBorder(BorderFactory.createEmptyBorder());
+        return desplazamiento;
+    }
+    
+    // Pasa el tamaño nuevo del panel al JScrollPane, que es raíz de validación y no lo propaga solo
+    private void redisponerGrilla() {
+        panelCentral.revalidate();
+        panelCentral.repaint();
+    }
+    
+    private void cambiarNivel(NivelDificultad nuevoNivel) {
+        // El panel se redimensiona solo cuando el modelo avisa el cambio de tamaño
+        if (controlador != null) {
+            alTerminar(controlador.cambiarNivel(nuevoNivel));
+        }
+    }
+    
+    @Override
+    public void actualizarVisualizacion() {
         if (controlador == null) return;
+        long inicio = System.nanoTime();
+        
+        // El modelo puede estar cambiando en su hilo: se lee la última instantánea entregada
+        LecturaNonograma modelo = controlador.obtenerLectura();
         
-        ModeloNonograma modelo = controlador.obtenerModelo();
+        // Los paneles leen el modelo al pintar y sólo pintan lo que se ve
+        mostrarPuzzle(modelo);
+        
+        actualizarEstadoJuego(modelo);
+        actualizarContadorPistas(modelo);
+        Telemetria.ACTUALIZAR_VISUALIZACION.registrarDesde(inicio);
+    }
+    
+    @Override
+    public void actualizarCambio(CambioModelo cambio) {
+        if (controlador == null) return;
+        long inicio = System.nanoTime();
+        
+        // Si el cambio llegó desde otro hilo trae una copia del estado; si no, se lee el modelo
+        LecturaNonograma modelo = cambio.obtenerInstantanea() != null
+                ? cambio.obtenerInstantanea() : controlador.obtenerLectura();
+        if (cambio.incluye(TipoCambio.PISTAS_REEMPLAZADAS)) {
+            // Puzzle nuevo, quizás de otro tamaño: se vuelven a armar las pistas y el minimapa
+            mostrarPuzzle(modelo);
+            sincronizarSelectorNivel();
+        } else if (cambio.incluye(TipoCambio.TABLERO_REINICIADO)) {
+            panelGrilla.actualizar(modelo);
+            panelMinimapa.actualizar(modelo);
+        } else if (cambio.incluye(TipoCambio.CELDA)) {
+            // Una celda o todas las de un lote de ediciones
+            panelGrilla.actualizarCeldas(modelo, cambio);
+            panelMinimapa.actualizarCeldas(modelo, cambio);
+        }
+        if (cambio.incluye(TipoCambio.ESTADO_JUEGO)) {
+            actualizarEstadoJuego(modelo);
+            actualizarContadorPistas(modelo);
+        }
+        Telemetria.ACTUALIZAR_CAMBIO.registrarDesde(inicio);
+    }
+    
+    private void actualizarEstadoJuego(LecturaNonograma modelo) {
         switch (modelo.obtenerEstadoJuego()) {
             case JUGANDO:
                 etiquetaEstado.setText("Programacion III - Universidad Nacional de General Sarmiento Trabajo Practico 1: Nonograma");
@@ -380,10 +583,7 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
         }
     }
     
-    private void actualizarContadorPistas() {
-        if (controlador == null) return;
-        
-        ModeloNonograma modelo = controlador.obtenerModelo();
+    private void actualizarContadorPistas(LecturaNonograma modelo) {
         int pistasDisponibles = modelo.obtenerPistasDisponibles();
         
         etiquetaPistas.setText("Pistas disponibles: " + pistasDisponibles);
@@ -411,44 +611,41 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
     }
     
     @Override
-    public void mostrarSolucion(ModeloNonograma modelo) {
+    public void mostrarResultadoImportacion(String mensaje) {
+        botonImportar.setEnabled(true);
+        JOptionPane.showMessageDialog(this,
+            mensaje,
+            "Importación",
+            JOptionPane.INFORMATION_MESSAGE);
+    }
+    
+    @Override
+    public void mostrarSolucion(LecturaNonograma modelo) {
         JDialog dialogoSolucion = new JDialog(this, "Solución del Puzzle", true);
-        int tamañoActual = modelo.obtenerTamañoGrilla();
-        dialogoSolucion.setLayout(new GridLayout(tamañoActual, tamañoActual, 2, 2));
-        
-        for (int fila = 0; fila < tamañoActual; fila++) {
-            for (int columna = 0; columna < tamañoActual; columna++) {
-                JLabel labelSolucion = new JLabel();
-                int tamañoCelda = obtenerTamañoCelda();
-                labelSolucion.setPreferredSize(new Dimension(tamañoCelda, tamañoCelda));
-                labelSolucion.setMinimumSize(new Dimension(tamañoCelda, tamañoCelda));
-                labelSolucion.setMaximumSize(new Dimension(tamañoCelda, tamañoCelda));
-                labelSolucion.setFont(new Font("Arial", Font.BOLD, 20));
-                labelSolucion.setHorizontalAlignment(SwingConstants.CENTER);
-                labelSolucion.setVerticalAlignment(SwingConstants.CENTER);
-                labelSolucion.setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                
-                EstadoCelda estadoSolucion = modelo.obtenerEstadoCeldaSolucion(fila, columna);
-                if (estadoSolucion == EstadoCelda.LLENA) {
-                    labelSolucion.setBackground(Color.BLACK);
-                    labelSolucion.setOpaque(true);
-                    labelSolucion.setText("");
-                } else {
-                    labelSolucion.setBackground(Color.WHITE);
-                    labelSolucion.setOpaque(true);
-                    labelSolucion.setText("X");
-                    labelSolucion.setForeground(Color.RED);
-                }
-                
-                dialogoSolucion.add(labelSolucion);
-            }
-        }
+        PanelGrilla panelSolucion = new PanelGrilla(
+            obtenerTamañoCelda(modelo.obtenerFilas(), modelo.obtenerColumnas()), true);
+        panelSolucion.actualizar(modelo);
+        dialogoSolucion.add(crearDesplazamiento(panelSolucion));
         
         dialogoSolucion.pack();
         dialogoSolucion.setLocationRelativeTo(this);
         dialogoSolucion.setVisible(true);
     }
     
+    @Override
+    public void mostrarProcesando(boolean procesando) {
+        if (procesando) {
+            // Se sigue pudiendo jugar: las acciones se encolan y se aplican en orden
+            if (!temporizadorProcesando.isRunning() && etiquetaProcesando.getText().isEmpty()) {
+                temporizadorProcesando.start();
+            }
+            return;
+        }
+        temporizadorProcesando.stop();
+        etiquetaProcesando.setText("");
+        setCursor(Cursor.getDefaultCursor());
+    }
+    
     @Override
     public void establecerControlador(Object controlador) {
         this.controlador = (ControladorNonograma) controlador;
@@ -462,7 +659,7 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
     @Override
     public void actualizarInformacionJuego() {
         if (controlador != null) {
-            actualizarEstadoJuego();
+            actualizarEstadoJuego(controlador.obtenerLectura());
         }
     }
     
@@ -475,46 +672,4 @@ public class VistaNonogramaWindowBuilderNuevo extends JFrame implements VistaNon
     public void habilitarBotonSolucion() {
         botonSolucion.setEnabled(true);
     }
-    
-    private void inicializarComponentesDinamicos(NivelDificultad nivel) {
-        int tamaño = nivel.obtenerTamañoGrilla();
-        int tamañoCelda = obtenerTamañoCelda();
-        
-        // Calcular cuántas columnas de pistas se necesitan
-        // Para grillas pequeñas (5x5) usamos 3, para más grandes usamos más
-        int columnasPistas = Math.max(3, Math.min(tamaño / 2, 8)); // Máximo 8 columnas para evitar que se vea mal
-        
-        botonesCelda = new JButton[tamaño][tamaño];
-        for (int fila = 0; fila < tamaño; fila++) {
-            for (int columna = 0; columna < tamaño; columna++) {
-                botonesCelda[fila][columna] = new JButton();
-                botonesCelda[fila][columna].setPreferredSize(new Dimension(tamañoCelda, tamañoCelda));
-                botonesCelda[fila][columna].setBackground(Color.WHITE);
-                botonesCelda[fila][columna].setBorder(BorderFactory.createLineBorder(Color.BLACK));
-                botonesCelda[fila][columna].setFocusable(false); // Deshabilitar focus para evitar el cuadro azul
-            }
-        }
-        
-        etiquetasPistasFilas = new JLabel[tamaño][columnasPistas];
-        for (int fila = 0; fila < tamaño; fila++) {
-            for (int i = 0; i < columnasPistas; i++) {
-                etiquetasPistasFilas[fila][i] = new JLabel("");
-                // El ancho se ajustará automáticamente al contenido
-                etiquetasPistasFilas[fila][i].setPreferredSize(new Dimension(ANCHO_PISTA_MINIMO, ALTO_PISTA));
-                etiquetasPistasFilas[fila][i].setHorizontalAlignment(SwingConstants.CENTER);
-                etiquetasPistasFilas[fila][i].setFont(new Font("Arial", Font.BOLD, 10));
-            }
-        }
-        
-        etiquetasPistasColumnas = new JLabel[columnasPistas][tamaño];
-        for (int i = 0; i < columnasPistas; i++) {
-            for (int columna = 0; columna < tamaño; columna++) {
-                etiquetasPistasColumnas[i][columna] = new JLabel("");
-                // El ancho se ajustará automáticamente al contenido
-                etiquetasPistasColumnas[i][columna].setPreferredSize(new Dimension(tamañoCelda, ALTO_PISTA));
-                etiquetasPistasColumnas[i][columna].setHorizontalAlignment(SwingConstants.CENTER);
-                etiquetasPistasColumnas[i][columna].setFont(new Font("Arial", Font.BOLD, 10));
-            }
-        }
-    }
 }
\ No newline at end of file
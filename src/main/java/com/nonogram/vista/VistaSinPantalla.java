@@ -0,0 +1,162 @@
+package com.nonogram.vista;
+
+import com.nonogram.model.CambioModelo;
+import com.nonogram.model.EstadoCelda;
+import com.nonogram.model.LecturaNonograma;
+
+import java.io.PrintStream;
+
+// Vista sin pantalla: no usa AWT ni Swing, así que el juego corre en un
+// servidor o en integración continua.
+//
+// Cuenta lo que la vista gráfica mostraría (cambios, victorias, derrotas) y,
+// si se le da una salida, escribe los mensajes como texto. Se usa con
+// HiloDirecto: cada partida se juega desde un solo hilo y la vista no es
+// segura entre hilos, salvo el resultado de importación, que llega desde el
+// hilo de la importación.
+public class VistaSinPantalla implements VistaNonograma {
+
+    private final PrintStream salida;  // null para no escribir nada
+    private Object controlador;
+    private long cambios;
+    private long actualizacionesCompletas;
+    private int victorias;
+    private int derrotas;
+    private boolean botonSolucionHabilitado;
+    private volatile String resultadoImportacion;
+
+    // Constructor de una vista que sólo cuenta.
+    public VistaSinPantalla() {
+        this(null);
+    }
+
+    // Constructor de una vista que escribe los mensajes.
+    //
+    // @param salida Salida de los mensajes, o null para no escribir nada
+    public VistaSinPantalla(PrintStream salida) {
+        this.salida = salida;
+    }
+
+    @Override
+    public void actualizarVisualizacion() {
+        actualizacionesCompletas++;
+    }
+
+    @Override
+    public void actualizarCambio(CambioModelo cambio) {
+        cambios++;
+    }
+
+    @Override
+    public void mostrarJuegoGanado() {
+        victorias++;
+        escribir("¡Ganaste!");
+    }
+
+    @Override
+    public void mostrarJuegoPerdido() {
+        derrotas++;
+        escribir("La solución todavía no es correcta");
+    }
+
+    @Override
+    public void mostrarResultadoImportacion(String mensaje) {
+        resultadoImportacion = mensaje;
+        escribir(mensaje);
+    }
+
+    @Override
+    public void mostrarSolucion(LecturaNonograma modelo) {
+        if (salida == null) {
+            return;
+        }
+        int filas = modelo.obtenerFilas();
+        int columnas = modelo.obtenerColumnas();
+        StringBuilder texto = new StringBuilder(filas * (columnas + 1));
+        for (int fila = 0; fila < filas; fila++) {
+            for (int columna = 0; columna < columnas; columna++) {
+                texto.append(modelo.obtenerEstadoCeldaSolucion(fila, columna) == EstadoCelda.LLENA ? '#' : '.');
+            }
+            texto.append('\n');
+        }
+        salida.print(texto);
+    }
+
+    @Override
+    public void mostrarProcesando(boolean procesando) {
+        // Sin pantalla los comandos se aplican en el hilo que los envía: nunca quedan pendientes
+    }
+
+    @Override
+    public void establecerControlador(Object controlador) {
+        this.controlador = controlador;
+    }
+
+    @Override
+    public Object obtenerControlador() {
+        return controlador;
+    }
+
+    @Override
+    public void actualizarInformacionJuego() {
+        actualizacionesCompletas++;
+    }
+
+    @Override
+    public void deshabilitarBotonSolucion() {
+        botonSolucionHabilitado = false;
+    }
+
+    @Override
+    public void habilitarBotonSolucion() {
+        botonSolucionHabilitado = true;
+    }
+
+    // Obtiene la cantidad de cambios del modelo que recibió la vista.
+    //
+    // @return Cambios recibidos
+    public long obtenerCambios() {
+        return cambios;
+    }
+
+    // Obtiene la cantidad de veces que se pidió redibujar todo.
+    //
+    // @return Actualizaciones completas
+    public long obtenerActualizacionesCompletas() {
+        return actualizacionesCompletas;
+    }
+
+    // Obtiene la cantidad de verificaciones correctas que se mostraron.
+    //
+    // @return Victorias mostradas
+    public int obtenerVictorias() {
+        return victorias;
+    }
+
+    // Obtiene la cantidad de verificaciones incorrectas que se mostraron.
+    //
+    // @return Derrotas mostradas
+    public int obtenerDerrotas() {
+        return derrotas;
+    }
+
+    // Indica si el botón de ver solución estaría habilitado.
+    //
+    // @return true si está habilitado
+    public boolean estaBotonSolucionHabilitado() {
+        return botonSolucionHabilitado;
+    }
+
+    // Obtiene el último resultado de importación.
+    //
+    // @return Mensaje, o null si no hubo importaciones
+    public String obtenerResultadoImportacion() {
+        return resultadoImportacion;
+    }
+
+    private void escribir(String mensaje) {
+        if (salida != null) {
+            salida.println(mensaje);
+        }
+    }
+}